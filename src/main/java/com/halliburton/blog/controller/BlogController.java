@@ -3,7 +3,10 @@ package com.halliburton.blog.controller;
 import com.halliburton.blog.dto.BlogDtoRequest;
 import com.halliburton.blog.dto.BlogDtoRequestFull;
 import com.halliburton.blog.dto.BlogModel;
+import com.halliburton.blog.dto.CompactBlog;
+import com.halliburton.blog.dto.CompactPage;
 import com.halliburton.blog.service.BlogService;
+import com.halliburton.blog.service.FullTextService;
 import com.halliburton.blog.utils.BlogValidator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,6 +18,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,6 +34,8 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping("/api/v1.0.0")
 public class BlogController {
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     final
     BlogService blogService;
 
@@ -58,7 +64,26 @@ public class BlogController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    @Operation(summary = "Get list of blogs")
+    @Operation(summary = "Get a blog by its id without links")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the blog",
+                    content = {@Content(mediaType = BlogMediaTypes.COMPACT_JSON_VALUE)}),
+            @ApiResponse(responseCode = "400", description = "Invalid id supplied",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Blog not found",
+                    content = @Content)})
+
+    @GetMapping(value = "/blogs/{id}", produces = BlogMediaTypes.COMPACT_JSON_VALUE)
+    public ResponseEntity<CompactBlog> getCompactBlogById(
+            @Parameter(description = "id of blog to be searched")
+            @PathVariable Long id) {
+
+        return blogService.getCompactBlogById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Get a page of blogs sorted by id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found blogs",
                     content = {@Content(mediaType = "application/json")}),
@@ -76,14 +101,64 @@ public class BlogController {
 
             @Parameter(description = "publication date for search")
             @RequestParam(required = false, name = "date")
-            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date,
 
-        CollectionModel<BlogModel> blogModels = blogService.getAllBlogs(author, date);
-        if (blogModels.getContent().isEmpty()) {
-            return ResponseEntity.noContent().build();
-        } else {
-            return ResponseEntity.ok(blogModels);
+            @Parameter(description = "page size, from 1 to " + FullTextService.MAX_PAGE_SIZE)
+            @RequestParam(required = false, name = "size") Integer size,
+
+            @Parameter(description = "position of the page, taken from a next or prev link")
+            @RequestParam(required = false, name = "cursor") String cursor,
+
+            @Parameter(description = "return the number of blogs matching the author and date in the "
+                    + TOTAL_COUNT_HEADER + " header")
+            @RequestParam(required = false, name = "totalCount") Boolean totalCount) {
+
+        int pageSize = PageResponses.pageSize(size);
+
+        CollectionModel<BlogModel> blogModels = PageResponses.read(() -> blogService.getAllBlogs(author, date, cursor, pageSize));
+        HttpHeaders headers = new HttpHeaders();
+        if (Boolean.TRUE.equals(totalCount)) {
+            headers.set(TOTAL_COUNT_HEADER, Long.toString(blogService.countBlogs(author, date)));
+        }
+        return PageResponses.of(blogModels, blogModels.getContent(), headers);
+    }
+
+    @Operation(summary = "Get a page of blogs sorted by id without links")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found blogs",
+                    content = {@Content(mediaType = BlogMediaTypes.COMPACT_JSON_VALUE)}),
+            @ApiResponse(responseCode = "204", description = "Blogs not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters supplied",
+                    content = @Content)})
+
+    @GetMapping(value = "/blogs", produces = BlogMediaTypes.COMPACT_JSON_VALUE)
+    public ResponseEntity<CompactPage<CompactBlog>> getCompactBlogs(
+            @Parameter(description = "author of post for search")
+            @RequestParam(required = false, name = "author") String author,
+
+            @Parameter(description = "publication date for search")
+            @RequestParam(required = false, name = "date")
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date,
+
+            @Parameter(description = "page size, from 1 to " + FullTextService.MAX_PAGE_SIZE)
+            @RequestParam(required = false, name = "size") Integer size,
+
+            @Parameter(description = "position of the page, taken from the nextCursor or previousCursor of a page")
+            @RequestParam(required = false, name = "cursor") String cursor,
+
+            @Parameter(description = "return the number of blogs matching the author and date in the "
+                    + TOTAL_COUNT_HEADER + " header")
+            @RequestParam(required = false, name = "totalCount") Boolean totalCount) {
+
+        int pageSize = PageResponses.pageSize(size);
+
+        CompactPage<CompactBlog> blogs = PageResponses.read(() -> blogService.getCompactBlogs(author, date, cursor, pageSize));
+        HttpHeaders headers = new HttpHeaders();
+        if (Boolean.TRUE.equals(totalCount)) {
+            headers.set(TOTAL_COUNT_HEADER, Long.toString(blogService.countBlogs(author, date)));
         }
+        return PageResponses.of(blogs, blogs.getContent(), headers);
     }
 
     @Operation(summary = "Create a new blog")
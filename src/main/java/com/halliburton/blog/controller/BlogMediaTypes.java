@@ -0,0 +1,17 @@
+package com.halliburton.blog.controller;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types of the API besides the JSON with links it returns by default.
+ */
+public final class BlogMediaTypes {
+    /**
+     * Plain JSON without links for clients that do not follow them; pages carry their cursors instead.
+     */
+    public static final String COMPACT_JSON_VALUE = "application/vnd.halliburton.blog.compact+json";
+    public static final MediaType COMPACT_JSON = MediaType.parseMediaType(COMPACT_JSON_VALUE);
+
+    private BlogMediaTypes() {
+    }
+}
@@ -0,0 +1,77 @@
+package com.halliburton.blog.controller;
+
+import com.halliburton.blog.service.FullTextService;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * The size check, error mapping and empty page response shared by the handlers that return a page of posts or
+ * blogs, with or without links.
+ */
+final class PageResponses {
+
+    private PageResponses() {
+    }
+
+    /**
+     * @return the page size, {@link FullTextService#DEFAULT_PAGE_SIZE} when none is given
+     * @throws ResponseStatusException 400 when the size is not between 1 and {@link FullTextService#MAX_PAGE_SIZE}
+     */
+    static int pageSize(Integer size) {
+        int pageSize = size == null ? FullTextService.DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > FullTextService.MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "size must be between 1 and " + FullTextService.MAX_PAGE_SIZE);
+        }
+        return pageSize;
+    }
+
+    /**
+     * @return the zero-based page of search results, the first one when none is given
+     * @throws ResponseStatusException 400 when the page is negative or ends past
+     *                                 {@link FullTextService#MAX_RESULT_WINDOW} ranked results
+     */
+    static int pageNumber(Integer page, int pageSize) {
+        int pageNumber = page == null ? 0 : page;
+        if (pageNumber < 0 || (long) pageNumber * pageSize + pageSize > FullTextService.MAX_RESULT_WINDOW) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must not be negative and must end "
+                    + "within the first " + FullTextService.MAX_RESULT_WINDOW + " results");
+        }
+        return pageNumber;
+    }
+
+    /**
+     * Reads a page, answering 404 for a missing blog and 400 for a bad cursor, sort or view.
+     */
+    static <T> T read(Supplier<T> reader) {
+        try {
+            return reader.get();
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (PropertyReferenceException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return 204 with the headers when the page has no content, 200 with the headers and the page otherwise
+     */
+    static <T> ResponseEntity<T> of(T page, Collection<?> content, HttpHeaders headers) {
+        if (content.isEmpty()) {
+            return ResponseEntity.noContent().headers(headers).build();
+        } else {
+            return ResponseEntity.ok().headers(headers).body(page);
+        }
+    }
+
+    static <T> ResponseEntity<T> of(T page, Collection<?> content) {
+        return of(page, content, HttpHeaders.EMPTY);
+    }
+}
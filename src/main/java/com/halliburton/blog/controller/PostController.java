@@ -1,8 +1,20 @@
 package com.halliburton.blog.controller;
 
+import com.halliburton.blog.dto.CompactPage;
+import com.halliburton.blog.dto.CompactPost;
+import com.halliburton.blog.dto.PostCollectionModel;
 import com.halliburton.blog.dto.PostDtoRequest;
 import com.halliburton.blog.dto.PostDtoRequestFull;
 import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.dto.PostTitleSuggestion;
+import com.halliburton.blog.dto.PostView;
+import com.halliburton.blog.dto.RelatedPost;
+import com.halliburton.blog.search.RelatedPosts;
+import com.halliburton.blog.search.SearchRejectedException;
+import com.halliburton.blog.search.SearchTimeoutException;
+import com.halliburton.blog.service.FullTextService;
+import com.halliburton.blog.search.TitleSuggester;
+import com.halliburton.blog.service.PostExportService;
 import com.halliburton.blog.service.PostService;
 import com.halliburton.blog.utils.PostValidator;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,14 +25,18 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -32,9 +48,14 @@ public class PostController {
 
     final
     PostService postService;
+    private final PostExportService postExportService;
+    private final Duration exportTimeout;
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, PostExportService postExportService,
+                          @Value("${blog.export.timeout:30m}") Duration exportTimeout) {
         this.postService = postService;
+        this.postExportService = postExportService;
+        this.exportTimeout = exportTimeout;
     }
 
     @Operation(summary = "Get a post by its id")
@@ -58,34 +79,210 @@ public class PostController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Get a post by its id without links")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found the post",
+                    content = {@Content(mediaType = BlogMediaTypes.COMPACT_JSON_VALUE)}),
+            @ApiResponse(responseCode = "400", description = "Invalid id supplied",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Post not found",
+                    content = @Content)})
+
+    @GetMapping(value = "/posts/{id}", produces = {BlogMediaTypes.COMPACT_JSON_VALUE})
+    public ResponseEntity<CompactPost> getCompactPostById(
+            @Parameter(description = "id of post to be searched")
+            @PathVariable Long id) {
+
+        return postService.getCompactPostById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @Operation(summary = "Get list of posts")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Found posts",
+            @ApiResponse(responseCode = "200", description = "Found posts, or spelling suggestions when none were found",
                     content = {@Content(mediaType = "application/json")}),
             @ApiResponse(responseCode = "204", description = "Posts not found",
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid parameters supplied",
                     content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal Error",
+                    content = @Content),
+            @ApiResponse(responseCode = "501", description = "Fuzzy search or facets not supported by the search engine",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many searches running",
+                    content = @Content),
+            @ApiResponse(responseCode = "504", description = "Search ran out of time",
                     content = @Content)})
 
     @GetMapping(value = "/posts", produces = {"application/json"})
     public ResponseEntity<CollectionModel<PostModel>> getAllPosts(
             @Parameter(description = "text for search in the title or the body")
-            @RequestParam(name = "keyword") Optional<String> keyword) {
-
+            @RequestParam(name = "keyword") Optional<String> keyword,
+            @Parameter(description = "zero-based page of search results, used together with keyword; pages end "
+                    + "within the first " + FullTextService.MAX_RESULT_WINDOW + " results")
+            @RequestParam(required = false, name = "page") Integer page,
+            @Parameter(description = "page size of search results, from 1 to " + FullTextService.MAX_PAGE_SIZE)
+            @RequestParam(required = false, name = "size") Integer size,
+            @Parameter(description = "also find posts with misspellings of the keyword terms, one or two edits")
+            @RequestParam(required = false, name = "fuzzy") Boolean fuzzy,
+            @Parameter(description = "also count authors, blogs and months of publication of all matching posts, "
+                    + "used together with keyword")
+            @RequestParam(required = false, name = "facets") Boolean facets,
+            @Parameter(description = "return a short snippet with the matched terms marked instead of the post body, "
+                    + "used together with keyword")
+            @RequestParam(required = false, name = "snippets") Boolean snippets,
+            @Parameter(description = "position of the page of all posts, taken from a next or prev link, "
+                    + "used without keyword")
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @Parameter(description = "full, the default, or summary for posts without body and conclusion, "
+                    + "used without keyword")
+            @RequestParam(required = false, name = "view") String view) {
+
+        int pageSize = PageResponses.pageSize(size);
+        int pageNumber = PageResponses.pageNumber(page, pageSize);
+        if (Boolean.TRUE.equals(facets) && keyword.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "facets are only counted for a keyword search");
+        }
+        if (Boolean.TRUE.equals(snippets) && keyword.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "snippets are only cut for a keyword search");
+        }
+        if (cursor != null && keyword.isPresent()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "search results are paged with page, not cursor");
+        }
+        if (view != null && keyword.isPresent()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "search results are shortened with snippets, not view");
+        }
 
-        CollectionModel<PostModel> postModel = postService.getAllPosts(keyword);
+        CollectionModel<PostModel> postModel;
+        try {
+            postModel = postService.getAllPosts(keyword, Boolean.TRUE.equals(fuzzy), Boolean.TRUE.equals(facets),
+                    Boolean.TRUE.equals(snippets), pageNumber, pageSize, cursor, PostView.of(view));
+        } catch (UnsupportedOperationException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (SearchRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        } catch (SearchTimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, e.getMessage(), e);
+        }
         if (postModel == null) {
             return ResponseEntity.internalServerError().build();
-        } else if (postModel.getContent().isEmpty()) {
+        } else if (postModel.getContent().isEmpty() && !hasSuggestions(postModel)) {
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.ok(postModel);
         }
     }
 
-    @Operation(summary = "Get a list of Posts from a given blog sorted by default by id in descending order")
+    @Operation(summary = "Get a page of all posts without links, in id order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found posts",
+                    content = {@Content(mediaType = BlogMediaTypes.COMPACT_JSON_VALUE)}),
+            @ApiResponse(responseCode = "204", description = "Posts not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters supplied",
+                    content = @Content),
+            @ApiResponse(responseCode = "406", description = "Search results are only returned with links",
+                    content = @Content)})
+
+    @GetMapping(value = "/posts", produces = {BlogMediaTypes.COMPACT_JSON_VALUE})
+    public ResponseEntity<CompactPage<CompactPost>> getCompactPosts(
+            @Parameter(description = "not supported, search results are only returned as application/json")
+            @RequestParam(required = false, name = "keyword") String keyword,
+            @Parameter(description = "page size, from 1 to " + FullTextService.MAX_PAGE_SIZE)
+            @RequestParam(required = false, name = "size") Integer size,
+            @Parameter(description = "position of the page, taken from the nextCursor or previousCursor of a page")
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @Parameter(description = "full, the default, or summary for posts without body and conclusion")
+            @RequestParam(required = false, name = "view") String view) {
+
+        if (keyword != null) {
+            throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE,
+                    "search results are only returned as application/json");
+        }
+        int pageSize = PageResponses.pageSize(size);
+
+        CompactPage<CompactPost> posts = PageResponses.read(
+                () -> postService.getCompactPosts(cursor, pageSize, PostView.of(view)));
+        return PageResponses.of(posts, posts.getContent());
+    }
+
+    private static boolean hasSuggestions(CollectionModel<PostModel> postModel) {
+        return postModel instanceof PostCollectionModel
+                && !((PostCollectionModel) postModel).getSuggestions().isEmpty();
+    }
+
+    @Operation(summary = "Find posts with a text similar to the post, most similar first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Related posts, possibly none",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters supplied",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Post not found",
+                    content = @Content)})
+
+    @GetMapping(value = "/posts/{id}/related", produces = {"application/json"})
+    public ResponseEntity<List<RelatedPost>> getRelatedPosts(
+            @Parameter(description = "id of post to find related posts of")
+            @PathVariable Long id,
+            @Parameter(description = "maximum number of posts, from 1 to " + RelatedPosts.MAX_RELATED)
+            @RequestParam(required = false, name = "limit") Integer limit) {
+
+        int related = limit == null ? RelatedPosts.MAX_RELATED : limit;
+        if (related < 1 || related > RelatedPosts.MAX_RELATED) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + RelatedPosts.MAX_RELATED);
+        }
+
+        return postService.getRelatedPosts(id, related)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Export every post as newline-delimited JSON, one post per line in id order, without links")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Posts streamed as they are read",
+                    content = {@Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)}),
+            @ApiResponse(responseCode = "500", description = "Internal Error",
+                    content = @Content)})
+
+    @GetMapping(value = "/posts/export", produces = {MediaType.APPLICATION_NDJSON_VALUE})
+    public WebAsyncTask<Void> exportPosts(HttpServletResponse response) {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        // a timeout of its own, the export streams for longer than other async requests may take
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            postExportService.exportPosts(response.getOutputStream());
+            return null;
+        });
+    }
+
+    @Operation(summary = "Suggest post titles with a word starting with the prefix, most recent first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggested titles, possibly none",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters supplied",
+                    content = @Content)})
+
+    @GetMapping(value = "/posts/suggest", produces = {"application/json"})
+    public ResponseEntity<List<PostTitleSuggestion>> suggestPostTitles(
+            @Parameter(description = "beginning of a word of the title")
+            @RequestParam(name = "prefix") String prefix,
+            @Parameter(description = "maximum number of titles, from 1 to " + TitleSuggester.MAX_SUGGESTIONS)
+            @RequestParam(required = false, name = "limit") Integer limit) {
+
+        int suggestions = limit == null ? TitleSuggester.MAX_SUGGESTIONS : limit;
+        if (prefix.isBlank() || suggestions < 1 || suggestions > TitleSuggester.MAX_SUGGESTIONS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "prefix must not be blank and limit must be between 1 and " + TitleSuggester.MAX_SUGGESTIONS);
+        }
+
+        return ResponseEntity.ok(postService.suggestPostTitles(prefix, suggestions));
+    }
+
+    @Operation(summary = "Get a page of Posts from a given blog sorted by default by id in descending order")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Found posts",
                     content = {@Content(mediaType = "application/json")}),
@@ -101,21 +298,55 @@ public class PostController {
     public ResponseEntity<CollectionModel<PostModel>> getAllPostsByGivenBlog(
             @Parameter(description = "id of blog to be searched")
             @PathVariable("blogId") Long blogId,
-            @Parameter(description = "array of Post fields to sort by direction (asc or desc)")
-            @RequestParam(required = false, defaultValue = "id:desc") String[] sort) {
+            @Parameter(description = "Post field to sort by and direction (asc or desc): id, or publishedOn "
+                    + "followed by id in the same direction")
+            @RequestParam(required = false, defaultValue = "id:desc") String[] sort,
+            @Parameter(description = "page size, from 1 to " + FullTextService.MAX_PAGE_SIZE)
+            @RequestParam(required = false, name = "size") Integer size,
+            @Parameter(description = "position of the page, taken from a next or prev link; the page keeps "
+                    + "the sort of the first one")
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @Parameter(description = "full, the default, or summary for posts without body and conclusion")
+            @RequestParam(required = false, name = "view") String view) {
+
+        int pageSize = PageResponses.pageSize(size);
+
+        CollectionModel<PostModel> postModel = PageResponses.read(
+                () -> postService.getAllPostsByGivenBlog(blogId, sort, cursor, pageSize, PostView.of(view)));
+        return PageResponses.of(postModel, postModel.getContent());
+    }
 
-        try {
-            CollectionModel<PostModel> postModel = postService.getAllPostsByGivenBlog(blogId, sort);
-            if (postModel.getContent().isEmpty()) {
-                return ResponseEntity.noContent().build();
-            } else {
-                return ResponseEntity.ok(postModel);
-            }
-        } catch (EntityNotFoundException e) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
-        } catch (PropertyReferenceException ex) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
-        }
+    @Operation(summary = "Get a page of Posts from a given blog without links, sorted by default by id in "
+            + "descending order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found posts",
+                    content = {@Content(mediaType = BlogMediaTypes.COMPACT_JSON_VALUE)}),
+            @ApiResponse(responseCode = "204", description = "Posts not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters supplied",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Blog not found",
+                    content = @Content)})
+    @GetMapping(value = "/blogs/{blogId}/posts", produces = {BlogMediaTypes.COMPACT_JSON_VALUE})
+    public ResponseEntity<CompactPage<CompactPost>> getCompactPostsByGivenBlog(
+            @Parameter(description = "id of blog to be searched")
+            @PathVariable("blogId") Long blogId,
+            @Parameter(description = "Post field to sort by and direction (asc or desc): id, or publishedOn "
+                    + "followed by id in the same direction")
+            @RequestParam(required = false, defaultValue = "id:desc") String[] sort,
+            @Parameter(description = "page size, from 1 to " + FullTextService.MAX_PAGE_SIZE)
+            @RequestParam(required = false, name = "size") Integer size,
+            @Parameter(description = "position of the page, taken from the nextCursor or previousCursor of a "
+                    + "page; the page keeps the sort of the first one")
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @Parameter(description = "full, the default, or summary for posts without body and conclusion")
+            @RequestParam(required = false, name = "view") String view) {
+
+        int pageSize = PageResponses.pageSize(size);
+
+        CompactPage<CompactPost> posts = PageResponses.read(
+                () -> postService.getCompactPostsByGivenBlog(blogId, sort, cursor, pageSize, PostView.of(view)));
+        return PageResponses.of(posts, posts.getContent());
     }
 
     @Operation(summary = "Create a new post into a blog")
@@ -0,0 +1,65 @@
+package com.halliburton.blog.controller;
+
+import com.halliburton.blog.dto.ReindexStatus;
+import com.halliburton.blog.service.FullTextService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@Tag(name = "REST API for search administration")
+@RestController
+@RequestMapping("/api/v1.0.0/admin/search")
+public class SearchAdminController {
+
+    final
+    FullTextService fullTextService;
+
+    public SearchAdminController(FullTextService fullTextService) {
+        this.fullTextService = fullTextService;
+    }
+
+    @Operation(summary = "Start rebuilding the search index from the database")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Reindex started",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "409", description = "Reindex already running",
+                    content = @Content),
+            @ApiResponse(responseCode = "501", description = "Search engine does not support reindexing",
+                    content = @Content)})
+
+    @PostMapping(value = "/reindex", produces = {"application/json"})
+    public ResponseEntity<ReindexStatus> startReindex() {
+        try {
+            return fullTextService.startReindex()
+                    .map(status -> ResponseEntity.status(HttpStatus.ACCEPTED).body(status))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT, "Reindex is already running"));
+        } catch (UnsupportedOperationException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "Get progress and throughput of the last reindex")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reindex status",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "501", description = "Search engine does not support reindexing",
+                    content = @Content)})
+
+    @GetMapping(value = "/reindex", produces = {"application/json"})
+    public ResponseEntity<ReindexStatus> getReindexStatus() {
+        try {
+            return ResponseEntity.ok(fullTextService.getReindexStatus());
+        } catch (UnsupportedOperationException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.halliburton.blog.controller;
+
+import com.halliburton.blog.dto.SearchHitModel;
+import com.halliburton.blog.search.SearchRejectedException;
+import com.halliburton.blog.search.SearchTimeoutException;
+import com.halliburton.blog.service.FullTextService;
+import com.halliburton.blog.service.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@Tag(name = "REST API for searching posts and blogs")
+@RestController
+@RequestMapping("/api/v1.0.0")
+public class SearchController {
+
+    final
+    SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @Operation(summary = "Search posts and blogs together, title matches ranked above matches in other fields")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Found posts or blogs",
+                    content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "204", description = "Nothing found",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid parameters supplied",
+                    content = @Content),
+            @ApiResponse(responseCode = "500", description = "Internal Error",
+                    content = @Content),
+            @ApiResponse(responseCode = "501", description = "Search engine cannot search blogs",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many searches running",
+                    content = @Content),
+            @ApiResponse(responseCode = "504", description = "Search ran out of time",
+                    content = @Content)})
+
+    @GetMapping(value = "/search", produces = {"application/json"})
+    public ResponseEntity<CollectionModel<SearchHitModel>> search(
+            @Parameter(description = "text for search in posts: title, body, conclusion and author; "
+                    + "and in blogs: title and description")
+            @RequestParam(name = "keyword") String keyword,
+            @Parameter(description = "zero-based page of search results; pages end within the first "
+                    + FullTextService.MAX_RESULT_WINDOW + " results")
+            @RequestParam(required = false, name = "page") Integer page,
+            @Parameter(description = "page size of search results, from 1 to " + FullTextService.MAX_PAGE_SIZE)
+            @RequestParam(required = false, name = "size") Integer size) {
+
+        if (keyword.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "keyword must not be blank");
+        }
+        int pageSize = PageResponses.pageSize(size);
+        int pageNumber = PageResponses.pageNumber(page, pageSize);
+
+        CollectionModel<SearchHitModel> hits;
+        try {
+            hits = searchService.search(keyword, pageNumber, pageSize);
+        } catch (UnsupportedOperationException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, e.getMessage(), e);
+        } catch (SearchRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        } catch (SearchTimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, e.getMessage(), e);
+        }
+        if (hits == null) {
+            return ResponseEntity.internalServerError().build();
+        }
+        return PageResponses.of(hits, hits.getContent());
+    }
+}
@@ -0,0 +1,81 @@
+package com.halliburton.blog.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+/**
+ * Position in the list of blogs sorted by id: the id of the blog the page starts after, or before when
+ * paging backwards. Encoded as an opaque URL-safe string like a {@link PostCursor}.
+ */
+public final class BlogCursor {
+    private static final byte VERSION = 1;
+
+    private final long blogId;
+    private final boolean backward;
+
+    private BlogCursor(long blogId, boolean backward) {
+        this.blogId = blogId;
+        this.backward = backward;
+    }
+
+    /**
+     * Position of the blogs after the blog.
+     */
+    public static BlogCursor after(long blogId) {
+        return new BlogCursor(blogId, false);
+    }
+
+    /**
+     * Position of the blogs before the blog.
+     */
+    public static BlogCursor before(long blogId) {
+        return new BlogCursor(blogId, true);
+    }
+
+    public long getBlogId() {
+        return blogId;
+    }
+
+    /**
+     * True when the page ends before the position instead of starting after it.
+     */
+    public boolean isBackward() {
+        return backward;
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeBoolean(backward);
+            out.writeLong(blogId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * @throws IllegalArgumentException when the cursor was not encoded by {@link #encode()}
+     */
+    public static BlogCursor decode(String cursor) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unknown cursor version");
+            }
+            boolean backward = in.readBoolean();
+            long blogId = in.readLong();
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new BlogCursor(blogId, backward);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
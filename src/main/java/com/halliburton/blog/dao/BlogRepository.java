@@ -5,6 +5,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface BlogRepository extends JpaRepository<BlogEntity, Long> {
+public interface BlogRepository extends JpaRepository<BlogEntity, Long>, BlogRepositoryCustom {
     Optional<BlogEntity> findByBlogTitle(String blogTitle);
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package com.halliburton.blog.dao;
+
+import com.halliburton.blog.dto.BlogModel;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads of blogs straight into their models by constructor expressions, in read-only transactions, like
+ * {@link PostRepositoryCustom}.
+ */
+public interface BlogRepositoryCustom {
+
+    /**
+     * The blog without its links, which the {@link com.halliburton.blog.modelassembler.BlogModelAssembler}
+     * adds.
+     */
+    Optional<BlogModel> findModelById(Long id);
+
+    /**
+     * Reads a page of blogs by keyset: the blogs after the cursor position in id order, or the blogs
+     * before it in reverse id order when the cursor is backward.
+     *
+     * @param author blogs with a post of this author only, ignored when null
+     * @param date   blogs with a post published on this date only, ignored when null
+     * @param cursor position to start from, the first page when null
+     * @param limit  maximum number of blogs
+     */
+    List<BlogModel> findPage(String author, LocalDate date, BlogCursor cursor, int limit);
+
+    /**
+     * Number of blogs with a post matching both the author and the date, at least one of them not null.
+     */
+    long countWithPosts(String author, LocalDate date);
+}
@@ -0,0 +1,96 @@
+package com.halliburton.blog.dao;
+
+import com.halliburton.blog.dto.BlogModel;
+import com.halliburton.blog.model.BlogEntity;
+import com.halliburton.blog.model.PostEntity;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.criteria.Subquery;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+public class BlogRepositoryImpl implements BlogRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<BlogModel> findModelById(Long id) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BlogModel> query = builder.createQuery(BlogModel.class);
+        Root<BlogEntity> blog = query.from(BlogEntity.class);
+        query.select(model(builder, blog))
+                .where(builder.equal(blog.get("id"), id));
+
+        return entityManager.createQuery(query).getResultStream().findFirst();
+    }
+
+    @Override
+    public List<BlogModel> findPage(String author, LocalDate date, BlogCursor cursor, int limit) {
+        boolean backward = cursor != null && cursor.isBackward();
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BlogModel> query = builder.createQuery(BlogModel.class);
+        Root<BlogEntity> blog = query.from(BlogEntity.class);
+        query.select(model(builder, blog));
+
+        List<Predicate> where = new ArrayList<>();
+        if (author != null || date != null) {
+            where.add(withPosts(builder, query, blog, author, date));
+        }
+        if (cursor != null) {
+            where.add(backward ? builder.lessThan(blog.get("id"), cursor.getBlogId())
+                    : builder.greaterThan(blog.get("id"), cursor.getBlogId()));
+        }
+        query.where(where.toArray(new Predicate[0]))
+                .orderBy(backward ? builder.desc(blog.get("id")) : builder.asc(blog.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long countWithPosts(String author, LocalDate date) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<BlogEntity> blog = query.from(BlogEntity.class);
+        query.select(builder.count(blog))
+                .where(withPosts(builder, query, blog, author, date));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Selection<BlogModel> model(CriteriaBuilder builder, Root<BlogEntity> blog) {
+        return builder.construct(BlogModel.class, blog.get("id"), blog.get("blogTitle"), blog.get("description"));
+    }
+
+    /**
+     * The blog has a post matching the author and the date, the null ones matching any post.
+     */
+    private static Predicate withPosts(CriteriaBuilder builder, CriteriaQuery<?> query, Root<BlogEntity> blog,
+                                       String author, LocalDate date) {
+        Subquery<Long> posts = query.subquery(Long.class);
+        Root<PostEntity> post = posts.from(PostEntity.class);
+        List<Predicate> where = new ArrayList<>();
+        where.add(builder.equal(post.get("blog"), blog));
+        if (author != null) {
+            where.add(builder.equal(post.get("author"), author));
+        }
+        if (date != null) {
+            where.add(builder.equal(post.get("publishedOn"), date));
+        }
+        posts.select(post.get("id")).where(where.toArray(new Predicate[0]));
+        return builder.exists(posts);
+    }
+}
@@ -0,0 +1,175 @@
+package com.halliburton.blog.dao;
+
+import com.halliburton.blog.model.PostEntity;
+import com.halliburton.blog.model.SortablePost;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.util.ClassTypeInformation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Position in a sorted list of posts: the sort and the values of the sort properties of the post the
+ * page starts after, or before when paging backwards. Encoded as an opaque URL-safe string, so clients
+ * pass it back without depending on its content.
+ * <p>
+ * The id always ends the sort, making every position unique. Only the sorts with an index, after the
+ * blog id, are allowed, so a page is read from the index in order wherever it starts.
+ */
+public final class PostCursor {
+    public static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.ASC, "id");
+
+    private static final byte VERSION = 1;
+    private static final Map<String, Function<SortablePost, Object>> SORTABLE = Map.of(
+            "id", SortablePost::getId,
+            "publishedOn", SortablePost::getPublishedOn);
+
+    private final Sort sort;
+    private final List<Object> values;
+    private final boolean backward;
+
+    private PostCursor(Sort sort, List<Object> values, boolean backward) {
+        this.sort = sort;
+        this.values = values;
+        this.backward = backward;
+    }
+
+    /**
+     * The first order of the sort followed by the id in the same direction, the only sorts with an index
+     * to read pages from. Orders after the id never apply, the id being unique.
+     *
+     * @throws PropertyReferenceException when the posts cannot be sorted by the property
+     * @throws IllegalArgumentException   when the sort has other orders than the id in the same direction
+     */
+    public static Sort keysetSort(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        Sort.Order first = orders.isEmpty() ? DEFAULT_SORT.iterator().next() : orders.get(0);
+        if (!SORTABLE.containsKey(first.getProperty())) {
+            throw new PropertyReferenceException(first.getProperty(), ClassTypeInformation.from(PostEntity.class),
+                    List.of());
+        }
+        if (first.getProperty().equals("id")) {
+            return Sort.by(first);
+        }
+
+        Sort.Order id = Sort.Order.by("id").with(first.getDirection());
+        if (orders.size() > 1 && !orders.get(1).equals(id)) {
+            throw new IllegalArgumentException("posts sorted by " + first.getProperty()
+                    + " can only be sorted by id next, in the same direction");
+        }
+        return Sort.by(first, id);
+    }
+
+    /**
+     * Position of the posts after the post.
+     *
+     * @param sort a {@link #keysetSort(Sort)}
+     */
+    public static PostCursor after(Sort sort, SortablePost post) {
+        return new PostCursor(sort, valuesOf(sort, post), false);
+    }
+
+    /**
+     * Position of the posts before the post.
+     *
+     * @param sort a {@link #keysetSort(Sort)}
+     */
+    public static PostCursor before(Sort sort, SortablePost post) {
+        return new PostCursor(sort, valuesOf(sort, post), true);
+    }
+
+    private static List<Object> valuesOf(Sort sort, SortablePost post) {
+        List<Object> values = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            values.add(SORTABLE.get(order.getProperty()).apply(post));
+        }
+        return values;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * Values of the sort properties, in sort order.
+     */
+    public List<Object> getValues() {
+        return values;
+    }
+
+    /**
+     * True when the page ends before the position instead of starting after it.
+     */
+    public boolean isBackward() {
+        return backward;
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeBoolean(backward);
+            out.writeByte(values.size());
+            int i = 0;
+            for (Sort.Order order : sort) {
+                out.writeUTF(order.getProperty());
+                out.writeBoolean(order.isAscending());
+                Object value = values.get(i++);
+                if (value instanceof LocalDate) {
+                    out.writeLong(((LocalDate) value).toEpochDay());
+                } else {
+                    out.writeLong((Long) value);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * @throws IllegalArgumentException when the cursor was not encoded by {@link #encode()}
+     */
+    public static PostCursor decode(String cursor) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unknown cursor version");
+            }
+            boolean backward = in.readBoolean();
+            int size = in.readByte();
+            List<Sort.Order> orders = new ArrayList<>();
+            List<Object> values = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                String property = in.readUTF();
+                if (!SORTABLE.containsKey(property)) {
+                    throw new IllegalArgumentException("Cursor sorts by an unknown property");
+                }
+                orders.add(Sort.Order.by(property).with(in.readBoolean() ? Sort.Direction.ASC : Sort.Direction.DESC));
+                if (property.equals("id")) {
+                    values.add(in.readLong());
+                } else {
+                    values.add(LocalDate.ofEpochDay(in.readLong()));
+                }
+            }
+            Sort sort = Sort.by(orders);
+            if (orders.isEmpty() || !keysetSort(sort).equals(sort) || in.available() > 0) {
+                throw new IllegalArgumentException("Cursor is not a position in a keyset sort");
+            }
+            return new PostCursor(sort, values, backward);
+        } catch (IOException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -5,9 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.List;
 
-public interface PostRepository extends JpaRepository<PostEntity, Long> {
-    List<PostEntity> findByIdIn(List<Long> results);
-
+public interface PostRepository extends JpaRepository<PostEntity, Long>, PostRepositoryCustom {
     List<PostEntity> findByBlog_Id(Long id);
 
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.halliburton.blog.dao;
+
+import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.dto.PostSummary;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads of posts straight into their models by constructor expressions, in read-only transactions: no
+ * entity is hydrated, registered in the persistence context or snapshotted for dirty checking.
+ */
+public interface PostRepositoryCustom {
+
+    /**
+     * The post without its links, which the {@link com.halliburton.blog.modelassembler.PostModelAssembler}
+     * adds.
+     */
+    Optional<PostModel> findModelById(Long id);
+
+    /**
+     * Reads a page of posts by keyset: the posts after the cursor position in sort order, or the posts
+     * before it in reverse sort order when the cursor is backward. The position is a range condition on
+     * the sort index, so a page costs the same wherever it starts.
+     *
+     * @param blogId posts of this blog only, all posts when null
+     * @param sort   a {@link PostCursor#keysetSort(Sort)}, ignored when there is a cursor
+     * @param cursor position to start from, the first page when null
+     * @param limit  maximum number of posts
+     */
+    List<PostModel> findPage(Long blogId, Sort sort, PostCursor cursor, int limit);
+
+    /**
+     * Reads a page of posts like {@link #findPage(Long, Sort, PostCursor, int)}, selecting the columns of
+     * a {@link PostSummary} only.
+     */
+    List<PostSummary> findSummaryPage(Long blogId, Sort sort, PostCursor cursor, int limit);
+
+    /**
+     * The posts of the ids that exist, in no particular order, selecting the columns of a {@link PostSummary}
+     * only.
+     */
+    List<PostSummary> findSummariesById(Collection<Long> ids);
+}
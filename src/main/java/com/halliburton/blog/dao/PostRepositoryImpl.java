@@ -0,0 +1,139 @@
+package com.halliburton.blog.dao;
+
+import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.dto.PostSummary;
+import com.halliburton.blog.model.PostEntity;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+@Transactional(readOnly = true)
+public class PostRepositoryImpl implements PostRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<PostModel> findModelById(Long id) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PostModel> query = builder.createQuery(PostModel.class);
+        Root<PostEntity> post = query.from(PostEntity.class);
+        query.select(model(builder, post))
+                .where(builder.equal(post.get("id"), id));
+
+        return entityManager.createQuery(query).getResultStream().findFirst();
+    }
+
+    @Override
+    public List<PostModel> findPage(Long blogId, Sort sort, PostCursor cursor, int limit) {
+        return findPage(PostModel.class, PostRepositoryImpl::model, blogId, sort, cursor, limit);
+    }
+
+    @Override
+    public List<PostSummary> findSummaryPage(Long blogId, Sort sort, PostCursor cursor, int limit) {
+        return findPage(PostSummary.class, PostRepositoryImpl::summary, blogId, sort, cursor, limit);
+    }
+
+    @Override
+    public List<PostSummary> findSummariesById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PostSummary> query = builder.createQuery(PostSummary.class);
+        Root<PostEntity> post = query.from(PostEntity.class);
+        query.select(summary(builder, post))
+                .where(post.get("id").in(ids));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private static Selection<PostSummary> summary(CriteriaBuilder builder, Root<PostEntity> post) {
+        return builder.construct(PostSummary.class, post.get("id"), post.get("blog").get("id"),
+                post.get("postTitle"), post.get("author"), post.get("publishedOn"));
+    }
+
+    private static Selection<PostModel> model(CriteriaBuilder builder, Root<PostEntity> post) {
+        return builder.construct(PostModel.class, post.get("id"), post.get("blog").get("id"), post.get("postTitle"),
+                post.get("postBody"), post.get("postConclusion"), post.get("author"), post.get("publishedOn"));
+    }
+
+    private <T> List<T> findPage(Class<T> type, BiFunction<CriteriaBuilder, Root<PostEntity>, Selection<T>> selection,
+                                 Long blogId, Sort sort, PostCursor cursor, int limit) {
+        Sort keyset = cursor == null ? sort : cursor.getSort();
+        boolean backward = cursor != null && cursor.isBackward();
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(type);
+        Root<PostEntity> post = query.from(PostEntity.class);
+        query.select(selection.apply(builder, post));
+
+        List<Predicate> where = new ArrayList<>();
+        if (blogId != null) {
+            where.add(builder.equal(post.get("blog").get("id"), blogId));
+        }
+        if (cursor != null) {
+            where.add(after(builder, post, keyset, cursor.getValues(), backward));
+        }
+        query.where(where.toArray(new Predicate[0]));
+
+        List<Order> orders = new ArrayList<>();
+        if (blogId != null) {
+            // constant, but H2 only reads an index in order when the order starts with its first column
+            Sort.Direction direction = keyset.iterator().next().getDirection();
+            orders.add(direction.isAscending() != backward ? builder.asc(post.get("blog").get("id"))
+                    : builder.desc(post.get("blog").get("id")));
+        }
+        for (Sort.Order order : keyset) {
+            orders.add(order.isAscending() != backward ? builder.asc(post.get(order.getProperty()))
+                    : builder.desc(post.get(order.getProperty())));
+        }
+        query.orderBy(orders);
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Posts past the values in sort order: {@code (a, b, id) > (x, y, z)} expanded to
+     * {@code a >= x AND (a > x OR a = x AND (b > y OR b = y AND id > z))}. The leading bound alone is a
+     * range on the index, which the database would not find in the disjunction.
+     */
+    private static Predicate after(CriteriaBuilder builder, Root<PostEntity> post, Sort sort, List<Object> values,
+                                   boolean backward) {
+        List<Sort.Order> orders = sort.toList();
+        Predicate past = null;
+        for (int i = orders.size() - 1; i >= 0; i--) {
+            Expression<Comparable<Object>> property = post.get(orders.get(i).getProperty());
+            Comparable<Object> value = comparable(values.get(i));
+            boolean ascending = orders.get(i).isAscending() != backward;
+            Predicate beyond = ascending ? builder.greaterThan(property, value) : builder.lessThan(property, value);
+            past = past == null ? beyond : builder.or(beyond, builder.and(builder.equal(property, value), past));
+        }
+
+        Expression<Comparable<Object>> first = post.get(orders.get(0).getProperty());
+        Comparable<Object> value = comparable(values.get(0));
+        return builder.and(orders.get(0).isAscending() != backward
+                ? builder.greaterThanOrEqualTo(first, value) : builder.lessThanOrEqualTo(first, value), past);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> comparable(Object value) {
+        return (Comparable<Object>) value;
+    }
+}
@@ -0,0 +1,17 @@
+package com.halliburton.blog.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Blogs of a keyset page with the cursors of the pages around it, null where there is none.
+ */
+@Builder
+@Data
+public class BlogPage {
+    private List<BlogModel> blogs;
+    private String nextCursor;
+    private String previousCursor;
+}
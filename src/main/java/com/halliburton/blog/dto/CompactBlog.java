@@ -0,0 +1,15 @@
+package com.halliburton.blog.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Blog of the compact media type, without links.
+ */
+@Builder
+@Data
+public class CompactBlog {
+    private Long id;
+    private String blogTitle;
+    private String description;
+}
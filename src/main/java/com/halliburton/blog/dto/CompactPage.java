@@ -0,0 +1,21 @@
+package com.halliburton.blog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Keyset page of the compact media type. The cursors of the pages around it stand in for the next and prev
+ * links and are left out where there is no such page.
+ */
+@Builder
+@Data
+public class CompactPage<T> {
+    private List<T> content;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String previousCursor;
+}
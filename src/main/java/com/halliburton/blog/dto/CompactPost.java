@@ -0,0 +1,24 @@
+package com.halliburton.blog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Post of the compact media type, without links. Summaries carry no body and conclusion.
+ */
+@Builder
+@Data
+public class CompactPost {
+    private Long id;
+    private Long blogId;
+    private String postTitle;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String postBody;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String postConclusion;
+    private String author;
+    private LocalDate publishedOn;
+}
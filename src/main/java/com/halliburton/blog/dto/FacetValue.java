@@ -0,0 +1,11 @@
+package com.halliburton.blog.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class FacetValue {
+    private String value;
+    private int count;
+}
@@ -0,0 +1,53 @@
+package com.halliburton.blog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.Links;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Posts of a search, with the facet counts of all matching posts when they were asked for, and
+ * spelling suggestions when nothing was found.
+ */
+public class PostCollectionModel extends CollectionModel<PostModel> {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final PostFacets facets;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private final List<String> suggestions;
+
+    public PostCollectionModel(Iterable<PostModel> content, PostFacets facets) {
+        this(content, facets, List.of());
+    }
+
+    public PostCollectionModel(Iterable<PostModel> content, PostFacets facets, List<String> suggestions) {
+        super(content, Links.NONE, null);
+        this.facets = facets;
+        this.suggestions = suggestions;
+    }
+
+    public PostFacets getFacets() {
+        return facets;
+    }
+
+    /**
+     * Corrected keywords finding posts, best first, when the search found none.
+     */
+    public List<String> getSuggestions() {
+        return suggestions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass() || !super.equals(o)) return false;
+        PostCollectionModel that = (PostCollectionModel) o;
+        return Objects.equals(facets, that.facets) && Objects.equals(suggestions, that.suggestions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), facets, suggestions);
+    }
+}
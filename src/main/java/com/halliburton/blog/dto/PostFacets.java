@@ -0,0 +1,18 @@
+package com.halliburton.blog.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Most frequent values among the posts matching a search, by descending count.
+ * Months of publication are formatted as {@code yyyy-MM}.
+ */
+@Builder
+@Data
+public class PostFacets {
+    private List<FacetValue> author;
+    private List<FacetValue> blogId;
+    private List<FacetValue> publishedMonth;
+}
@@ -1,9 +1,13 @@
 package com.halliburton.blog.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonRootName;
+import com.halliburton.blog.model.SortablePost;
 import lombok.*;
 import org.springframework.hateoas.RepresentationModel;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Data
@@ -12,11 +16,35 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @EqualsAndHashCode(callSuper = false)
 @JsonRootName(value = "post")
-public class PostModel extends RepresentationModel<PostModel> {
+public class PostModel extends RepresentationModel<PostModel> implements SortablePost {
     private Long id;
+    /* the blog the links of the post point to */
+    @JsonIgnore
+    private Long blogId;
     private String postTitle;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String postBody;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String postConclusion;
     private String author;
     private LocalDate publishedOn;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal score;
+    /* search results asked with snippets carry this instead of the body; the matched terms are in <em> */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String snippet;
+
+    /**
+     * Post read by a JPA constructor expression, without a managed entity in between.
+     */
+    public PostModel(Long id, Long blogId, String postTitle, String postBody, String postConclusion, String author,
+                     LocalDate publishedOn) {
+        this.id = id;
+        this.blogId = blogId;
+        this.postTitle = postTitle;
+        this.postBody = postBody;
+        this.postConclusion = postConclusion;
+        this.author = author;
+        this.publishedOn = publishedOn;
+    }
 }
@@ -0,0 +1,18 @@
+package com.halliburton.blog.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Posts of a keyset page, entities or summaries, with the cursors of the pages around it, null where there
+ * is none.
+ */
+@Builder
+@Data
+public class PostPage<T> {
+    private List<T> posts;
+    private String nextCursor;
+    private String previousCursor;
+}
@@ -1,5 +1,6 @@
 package com.halliburton.blog.dto;
 
+import com.halliburton.blog.model.PostEntity;
 import lombok.Builder;
 import lombok.Data;
 
@@ -7,10 +8,7 @@ import java.math.BigDecimal;
 
 @Builder
 @Data
-public class FullTextSearchResult {
-    private String schema;
-    private String table;
-    private String columns;
-    private String keys;
+public class PostSearchHit {
+    private PostEntity post;
     private BigDecimal score;
 }
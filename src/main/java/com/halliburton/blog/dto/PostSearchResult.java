@@ -0,0 +1,14 @@
+package com.halliburton.blog.dto;
+
+import com.halliburton.blog.search.index.FacetCounts;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Builder
+@Data
+public class PostSearchResult {
+    private List<PostSearchHit> hits;
+    private FacetCounts facets;
+}
@@ -0,0 +1,25 @@
+package com.halliburton.blog.dto;
+
+import com.halliburton.blog.model.SortablePost;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Post without its body and conclusion, selected from the other columns only so the CLOB columns are
+ * never read. The constructor is the one of the JPA constructor expression.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostSummary implements SortablePost {
+    private Long id;
+    private Long blogId;
+    private String postTitle;
+    private String author;
+    private LocalDate publishedOn;
+}
@@ -0,0 +1,11 @@
+package com.halliburton.blog.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class PostTitleSuggestion {
+    private Long id;
+    private String postTitle;
+}
@@ -0,0 +1,32 @@
+package com.halliburton.blog.dto;
+
+import java.util.Locale;
+
+/**
+ * Fields of the posts of a listing: all of them, or a summary without the body and the conclusion.
+ */
+public enum PostView {
+    FULL, SUMMARY;
+
+    /**
+     * @param view name of the view in any case, the full view when null
+     * @throws IllegalArgumentException when there is no such view
+     */
+    public static PostView of(String view) {
+        if (view == null) {
+            return FULL;
+        }
+        try {
+            return valueOf(view.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("view must be full or summary", e);
+        }
+    }
+
+    /**
+     * Value of the view parameter in links, null for the default full view.
+     */
+    public String parameter() {
+        return this == FULL ? null : name().toLowerCase(Locale.ROOT);
+    }
+}
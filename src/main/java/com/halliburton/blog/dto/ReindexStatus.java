@@ -0,0 +1,24 @@
+package com.halliburton.blog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Builder
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReindexStatus {
+    public enum State {
+        IDLE, RUNNING, COMPLETED, DISCARDED, FAILED
+    }
+
+    private State state;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private Long totalPosts;
+    private Long indexedPosts;
+    private Double postsPerSecond;
+    private String error;
+}
@@ -0,0 +1,13 @@
+package com.halliburton.blog.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Builder
+@Data
+public class RelatedPost {
+    private Long id;
+    private String postTitle;
+    /* estimated share of the word pairs of both posts they have in common, from 0 to 1 */
+    private double similarity;
+}
@@ -0,0 +1,24 @@
+package com.halliburton.blog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchHitModel extends RepresentationModel<SearchHitModel> {
+    public enum Type {
+        POST, BLOG
+    }
+
+    private Type type;
+    private BigDecimal score;
+    private PostModel post;
+    private BlogModel blog;
+}
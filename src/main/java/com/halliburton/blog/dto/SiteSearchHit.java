@@ -0,0 +1,19 @@
+package com.halliburton.blog.dto;
+
+import com.halliburton.blog.model.BlogEntity;
+import com.halliburton.blog.model.PostEntity;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Post or blog matching a search of both, the other one is null.
+ */
+@Builder
+@Data
+public class SiteSearchHit {
+    private PostEntity post;
+    private BlogEntity blog;
+    private BigDecimal score;
+}
@@ -15,7 +15,7 @@ import java.util.Objects;
 @ToString
 @Entity(name = "Post")
 @Table(name = "post")
-public class PostEntity {
+public class PostEntity implements SortablePost {
     @Id
     @EqualsAndHashCode.Include()
     @GeneratedValue(strategy = GenerationType.IDENTITY)
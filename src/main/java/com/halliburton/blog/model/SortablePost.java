@@ -0,0 +1,12 @@
+package com.halliburton.blog.model;
+
+import java.time.LocalDate;
+
+/**
+ * Properties posts are sorted and paged by, read from a post entity or from a projection of its columns.
+ */
+public interface SortablePost {
+    Long getId();
+
+    LocalDate getPublishedOn();
+}
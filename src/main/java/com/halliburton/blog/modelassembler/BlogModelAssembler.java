@@ -3,17 +3,37 @@ package com.halliburton.blog.modelassembler;
 import com.halliburton.blog.controller.BlogController;
 import com.halliburton.blog.controller.PostController;
 import com.halliburton.blog.dto.BlogModel;
+import com.halliburton.blog.dto.BlogPage;
 import com.halliburton.blog.model.BlogEntity;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 
 @Component
 public class BlogModelAssembler extends RepresentationModelAssemblerSupport<BlogEntity, BlogModel> {
+    private static final LinkTemplate BLOG = LinkTemplate.of(id -> WebMvcLinkBuilder
+            .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                    .getBlogById(id))
+            .withSelfRel());
+    private static final LinkTemplate BLOGS = LinkTemplate.of(() -> WebMvcLinkBuilder
+            .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                    .getAllBlogs(null, null, null, null, null))
+            .withRel("blogs"));
+    private static final LinkTemplate POSTS = LinkTemplate.of(() -> WebMvcLinkBuilder
+            .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                    .getAllPosts(Optional.empty(), null, null, null, null, null, null, null))
+            .withRel("posts"));
+    private static final LinkTemplate POSTS_OF_BLOG = LinkTemplate.of(id -> WebMvcLinkBuilder
+            .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                    .getAllPostsByGivenBlog(id, null, null, null, null))
+            .withRel("posts"));
 
     public BlogModelAssembler() {
         super(BlogController.class, BlogModel.class);
@@ -27,40 +47,58 @@ public class BlogModelAssembler extends RepresentationModelAssemblerSupport<Blog
         blogModel.setBlogTitle(entity.getBlogTitle());
         blogModel.setDescription(entity.getDescription());
 
-        blogModel.add(WebMvcLinkBuilder
-                .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
-                        .getBlogById(entity.getId()))
-                .withSelfRel());
-        blogModel.add(WebMvcLinkBuilder
-                .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
-                        .getAllBlogs(null, null))
-                .withRel("blogs"));
-
-        blogModel.add(WebMvcLinkBuilder
-                .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
-                        .getAllPosts(Optional.empty()))
-                .withRel("posts"));
-
-        blogModel.add(WebMvcLinkBuilder
-                .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
-                        .getAllPostsByGivenBlog(entity.getId(), null))
-                .withRel("posts"));
+        return withLinks(blogModel);
+    }
 
+    /**
+     * Adds the links of a blog read without its entity.
+     */
+    public BlogModel withLinks(BlogModel blogModel) {
+        blogModel.add(BLOG.expand(blogModel.getId()));
+        blogModel.add(BLOGS.expand());
+        blogModel.add(POSTS.expand());
+        blogModel.add(POSTS_OF_BLOG.expand(blogModel.getId()));
         return blogModel;
     }
 
     @Override
     public CollectionModel<BlogModel> toCollectionModel(Iterable<? extends BlogEntity> entities) {
-        CollectionModel<BlogModel> blogModels = super.toCollectionModel(entities);
+        return addCollectionLinks(super.toCollectionModel(entities));
+    }
+
+    private static CollectionModel<BlogModel> addCollectionLinks(CollectionModel<BlogModel> blogModels) {
         blogModels.add(WebMvcLinkBuilder
                 .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
-                        .getAllBlogs(null, null))
+                        .getAllBlogs(null, null, null, null, null))
                 .withSelfRel());
         blogModels.add(WebMvcLinkBuilder
                 .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
-                        .getAllPosts(Optional.empty()))
+                        .getAllPosts(Optional.empty(), null, null, null, null, null, null, null))
                 .withRel("posts"));
 
         return blogModels;
     }
+
+    /**
+     * Blogs of a keyset page with {@code next} and {@code prev} links to the pages around it, without
+     * template variables so clients follow them as they are.
+     */
+    public CollectionModel<BlogModel> toPageModel(BlogPage page, String author, LocalDate date, int size) {
+        CollectionModel<BlogModel> blogModels = addCollectionLinks(CollectionModel.of(page.getBlogs().stream()
+                .map(this::withLinks)
+                .collect(Collectors.toList())));
+        if (page.getNextCursor() != null) {
+            blogModels.add(pageLink(author, date, size, page.getNextCursor()).withRel(IanaLinkRelations.NEXT).expand());
+        }
+        if (page.getPreviousCursor() != null) {
+            blogModels.add(pageLink(author, date, size, page.getPreviousCursor()).withRel(IanaLinkRelations.PREV)
+                    .expand());
+        }
+        return blogModels;
+    }
+
+    private static WebMvcLinkBuilder pageLink(String author, LocalDate date, int size, String cursor) {
+        return WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                .getAllBlogs(author, date, size, cursor, null));
+    }
 }
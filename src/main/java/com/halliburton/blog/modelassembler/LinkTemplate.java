@@ -0,0 +1,121 @@
+package com.halliburton.blog.modelassembler;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.mvc.BasicLinkBuilder;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Link to a controller method taking an id, built by {@link WebMvcLinkBuilder} once per base URI of the
+ * requests and kept as the text around the id. A link is then the id concatenated into that text, instead
+ * of a proxied method invocation and a URI built by reflection, and stays the same as the one
+ * {@link WebMvcLinkBuilder} builds, character for character.
+ * <p>
+ * The base URI is the one {@link WebMvcLinkBuilder} links to, read once per request. The links carry no
+ * affordances, which only the HAL-FORMS, Collection+JSON and UBER media types, not enabled here, render.
+ */
+public final class LinkTemplate {
+    private static final String BASE_URI_ATTRIBUTE = LinkTemplate.class.getName() + "#BASE_URI";
+    /* links outside of a request are relative, like the ones of WebMvcLinkBuilder */
+    private static final String NO_REQUEST = "";
+    /* the base URI follows the Host header, so only that many are kept, links to others are built every time */
+    private static final int MAX_BASE_URIS = 16;
+    private static final long PLACEHOLDER = Long.MIN_VALUE;
+
+    private final Function<Long, Link> link;
+    private final Map<String, Compiled> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * The link with the id in the text around it, or the link itself when it does not depend on the id,
+     * or no link when the id cannot be told apart from the text around it.
+     */
+    private static final class Compiled {
+        private final Link link;
+        private final String prefix;
+        private final String suffix;
+
+        private Compiled(Link link, String prefix, String suffix) {
+            this.link = link;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+    }
+
+    private LinkTemplate(Function<Long, Link> link) {
+        this.link = link;
+    }
+
+    /**
+     * @param link builds the link to the id with {@link WebMvcLinkBuilder}
+     */
+    public static LinkTemplate of(Function<Long, Link> link) {
+        return new LinkTemplate(link);
+    }
+
+    /**
+     * @param link builds the link, to a method without an id, with {@link WebMvcLinkBuilder}
+     */
+    public static LinkTemplate of(Supplier<Link> link) {
+        return new LinkTemplate(id -> link.get());
+    }
+
+    /**
+     * The link of a template made {@link #of(Supplier) of} a method without an id.
+     */
+    public Link expand() {
+        return expand(PLACEHOLDER);
+    }
+
+    public Link expand(Long id) {
+        if (id == null) {
+            return link.apply(null);
+        }
+        String baseUri = baseUri();
+        Compiled template = compiled.get(baseUri);
+        if (template == null) {
+            template = compile();
+            if (compiled.size() < MAX_BASE_URIS) {
+                compiled.putIfAbsent(baseUri, template);
+            }
+        }
+        if (template.link == null) {
+            return link.apply(id);
+        }
+        // a new link rather than a copy of the sample, whose URI template would still be the placeholder's
+        return template.prefix == null ? template.link
+                : Link.of(template.prefix + id + template.suffix, template.link.getRel());
+    }
+
+    private Compiled compile() {
+        Link sample = link.apply(PLACEHOLDER);
+        String href = sample.getHref();
+        String placeholder = Long.toString(PLACEHOLDER);
+        int at = href.indexOf(placeholder);
+        if (at < 0) {
+            return new Compiled(Link.of(href, sample.getRel()), null, null);
+        }
+        if (href.indexOf(placeholder, at + 1) >= 0) {
+            return new Compiled(null, null, null);
+        }
+        return new Compiled(sample, href.substring(0, at), href.substring(at + placeholder.length()));
+    }
+
+    private static String baseUri() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return NO_REQUEST;
+        }
+        String baseUri = (String) request.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = BasicLinkBuilder.linkToCurrentMapping().toUri().toString();
+            request.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUri;
+    }
+}
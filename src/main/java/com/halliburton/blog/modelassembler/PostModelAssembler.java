@@ -3,16 +3,43 @@ package com.halliburton.blog.modelassembler;
 import com.halliburton.blog.controller.BlogController;
 import com.halliburton.blog.controller.PostController;
 import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.dto.PostPage;
+import com.halliburton.blog.dto.PostSearchHit;
+import com.halliburton.blog.dto.PostSummary;
+import com.halliburton.blog.dto.PostView;
 import com.halliburton.blog.model.PostEntity;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 
 @Component
 public class PostModelAssembler extends RepresentationModelAssemblerSupport<PostEntity, PostModel> {
+    private static final LinkTemplate POST = LinkTemplate.of(id -> WebMvcLinkBuilder
+            .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                    .getPostById(id))
+            .withSelfRel());
+    private static final LinkTemplate POSTS = LinkTemplate.of(() -> WebMvcLinkBuilder
+            .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                    .getAllPosts(Optional.empty(), null, null, null, null, null, null, null))
+            .withRel("posts"));
+    private static final LinkTemplate POSTS_OF_BLOG = LinkTemplate.of(id -> WebMvcLinkBuilder
+            .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                    .getAllPostsByGivenBlog(id, null, null, null, null))
+            .withRel("posts"));
+    private static final LinkTemplate BLOGS = LinkTemplate.of(() -> WebMvcLinkBuilder
+            .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                    .getAllBlogs(null, null, null, null, null))
+            .withRel("blogs"));
+    private static final LinkTemplate BLOG = LinkTemplate.of(id -> WebMvcLinkBuilder
+            .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                    .getBlogById(id))
+            .withRel("blogs"));
 
     public PostModelAssembler() {
         super(PostController.class, PostModel.class);
@@ -23,32 +50,101 @@ public class PostModelAssembler extends RepresentationModelAssemblerSupport<Post
         PostModel postModel = instantiateModel(entity);
 
         postModel.setId(entity.getId());
+        postModel.setBlogId(entity.getBlog().getId());
         postModel.setPostTitle(entity.getPostTitle());
         postModel.setPostBody(entity.getPostBody());
         postModel.setPostConclusion(entity.getPostConclusion());
         postModel.setPublishedOn(entity.getPublishedOn());
         postModel.setAuthor(entity.getAuthor());
 
-        postModel.add(WebMvcLinkBuilder
-                .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
-                        .getPostById(entity.getId()))
-                .withSelfRel());
-        postModel.add(WebMvcLinkBuilder
-                .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
-                        .getAllPosts(Optional.empty()))
-                .withRel("posts"));
-        postModel.add(WebMvcLinkBuilder
-                .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
-                        .getAllPostsByGivenBlog(entity.getBlog().getId(), null))
-                .withRel("posts"));
-        postModel.add(WebMvcLinkBuilder
-                .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
-                        .getAllBlogs(null, null))
-                .withRel("blogs"));
-        postModel.add(WebMvcLinkBuilder
-                .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
-                        .getBlogById(entity.getBlog().getId()))
-                .withRel("blogs"));
+        return withLinks(postModel);
+    }
+
+    /**
+     * Adds the links of a post read without its entity.
+     */
+    public PostModel withLinks(PostModel postModel) {
+        postModel.add(POST.expand(postModel.getId()));
+        postModel.add(POSTS.expand());
+        postModel.add(POSTS_OF_BLOG.expand(postModel.getBlogId()));
+        postModel.add(BLOGS.expand());
+        postModel.add(BLOG.expand(postModel.getBlogId()));
+        return postModel;
+    }
+
+    /**
+     * Posts of a keyset page with {@code next} and {@code prev} links to the pages around it, without
+     * template variables so clients follow them as they are.
+     *
+     * @param blogId links to the posts of this blog, to all posts when null
+     */
+    public CollectionModel<PostModel> toPageModel(PostPage<PostModel> page, Long blogId, int size) {
+        return addPageLinks(CollectionModel.of(page.getPosts().stream()
+                .map(this::withLinks)
+                .collect(Collectors.toList())), page, blogId, size, PostView.FULL);
+    }
+
+    /**
+     * Summaries of a keyset page, linked to the pages around it like {@link #toPageModel(PostPage, Long, int)}.
+     */
+    public CollectionModel<PostModel> toSummaryPageModel(PostPage<PostSummary> page, Long blogId, int size) {
+        return addPageLinks(CollectionModel.of(page.getPosts().stream()
+                .map(this::toSummaryModel)
+                .collect(Collectors.toList())), page, blogId, size, PostView.SUMMARY);
+    }
+
+    private static CollectionModel<PostModel> addPageLinks(CollectionModel<PostModel> postModels, PostPage<?> page,
+                                                           Long blogId, int size, PostView view) {
+        if (page.getNextCursor() != null) {
+            postModels.add(pageLink(blogId, size, page.getNextCursor(), view).withRel(IanaLinkRelations.NEXT)
+                    .expand());
+        }
+        if (page.getPreviousCursor() != null) {
+            postModels.add(pageLink(blogId, size, page.getPreviousCursor(), view).withRel(IanaLinkRelations.PREV)
+                    .expand());
+        }
+        return postModels;
+    }
+
+    private static WebMvcLinkBuilder pageLink(Long blogId, int size, String cursor, PostView view) {
+        return blogId == null
+                ? WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                .getAllPosts(Optional.empty(), null, size, null, null, null, cursor, view.parameter()))
+                : WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                .getAllPostsByGivenBlog(blogId, null, size, cursor, view.parameter()));
+    }
+
+    /**
+     * Post without body and conclusion, linked to itself and its blog.
+     */
+    public PostModel toSummaryModel(PostSummary summary) {
+        PostModel postModel = PostModel.builder()
+                .id(summary.getId())
+                .postTitle(summary.getPostTitle())
+                .author(summary.getAuthor())
+                .publishedOn(summary.getPublishedOn())
+                .build();
+
+        postModel.add(POST.expand(summary.getId()));
+        postModel.add(BLOG.expand(summary.getBlogId()));
+        return postModel;
+    }
+
+    public PostModel toSearchModel(PostSearchHit hit) {
+        PostModel postModel = toModel(hit.getPost());
+        postModel.setScore(hit.getScore());
+
+        return postModel;
+    }
+
+    /**
+     * Search result without the post body, which is replaced by the snippet.
+     */
+    public PostModel toSnippetModel(PostSearchHit hit, String snippet) {
+        PostModel postModel = toSearchModel(hit);
+        postModel.setPostBody(null);
+        postModel.setSnippet(snippet);
+
         return postModel;
     }
 }
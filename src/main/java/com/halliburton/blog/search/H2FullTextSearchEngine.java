@@ -0,0 +1,115 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.dto.PostSearchHit;
+import com.halliburton.blog.model.BlogEntity;
+import com.halliburton.blog.model.PostEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = PostSearchEngine.ENGINE_PROPERTY, havingValue = "h2", matchIfMissing = true)
+public class H2FullTextSearchEngine implements PostSearchEngine {
+
+    /**
+     * FT_SEARCH_DATA only returns keys, so it is joined against the post table to load the posts in a
+     * single round trip. H2 FullText scores every match 1.0 and reads the matches in no particular order,
+     * so it is asked for all of them, without a limit of its own, and the outer query pages them in id
+     * order: a page is then the same slice of the same matches whatever its offset.
+     */
+    private static final String SEARCH_POSTS_QUERY = "SELECT p.id, p.blog_id, p.post_title, p.post_body, "
+            + "p.post_conclusion, p.author, p.published_on, ft.SCORE "
+            + "FROM FT_SEARCH_DATA(?, 0, 0) ft "
+            + "JOIN post p ON p.id = CAST(ft.KEYS[1] AS BIGINT) "
+            + "WHERE ft.\"TABLE\" = 'POST' AND ft.SCORE >= ? "
+            + "ORDER BY p.id "
+            + "LIMIT ? OFFSET ?";
+
+    private static final String INDEXED_COLUMNS = "POST_TITLE,POST_BODY,POST_CONCLUSION,AUTHOR";
+
+    private final JdbcTemplate jdbcTemplate;
+    /* statement timeout of a search, in whole seconds as JDBC wants it */
+    private final int queryTimeoutSeconds;
+
+    public H2FullTextSearchEngine(JdbcTemplate jdbcTemplate,
+                                  @Value("${" + SearchBulkhead.TIMEOUT_PROPERTY + ":2s}") Duration timeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queryTimeoutSeconds = (int) Math.max(1, (timeout.toMillis() + 999) / 1000);
+    }
+
+    /**
+     * Creates the H2 FullText index over post title, body, conclusion and author, unless the database
+     * already has it. An index over other columns, such as the title and body only, is recreated.
+     * H2 FullText has no field boosts and does not index blogs, see {@link InvertedIndexSearchEngine}.
+     */
+    @PostConstruct
+    public void createIndex() {
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS FT_INIT FOR \"org.h2.fulltext.FullText.init\"");
+        jdbcTemplate.execute("CALL FT_INIT()");
+        List<String> indexedColumns = jdbcTemplate.queryForList(
+                "SELECT \"COLUMNS\" FROM FT.INDEXES WHERE \"SCHEMA\" = 'PUBLIC' AND \"TABLE\" = 'POST'",
+                String.class);
+        if (!indexedColumns.equals(List.of(INDEXED_COLUMNS))) {
+            if (!indexedColumns.isEmpty()) {
+                jdbcTemplate.execute("CALL FT_DROP_INDEX('PUBLIC', 'POST')");
+            }
+            jdbcTemplate.execute("CALL FT_CREATE_INDEX('PUBLIC', 'POST', '" + INDEXED_COLUMNS + "')");
+        }
+    }
+
+    /**
+     * H2 FullText does not rank: every post matching the keyword scores 1.0 and the posts come in id order.
+     */
+    @Override
+    public List<PostSearchHit> search(String keyword, boolean fuzzy, int limit, int offset, BigDecimal minScore)
+            throws SQLException {
+        if (fuzzy) {
+            throw new UnsupportedOperationException("Fuzzy search needs " + ENGINE_PROPERTY + "=inverted-index");
+        }
+        List<PostSearchHit> hits = new ArrayList<>(limit);
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(SEARCH_POSTS_QUERY)) {
+            // FT_SEARCH_DATA has no limit of its own on how long a keyword takes
+            statement.setQueryTimeout(queryTimeoutSeconds);
+            statement.setString(1, keyword);
+            statement.setBigDecimal(2, minScore == null ? BigDecimal.ZERO : minScore);
+            statement.setInt(3, limit);
+            statement.setInt(4, offset);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    hits.add(PostSearchHit.builder()
+                            .post(toPostEntity(resultSet))
+                            .score(resultSet.getBigDecimal(8))
+                            .build());
+                }
+            }
+        }
+
+        return hits;
+    }
+
+    private PostEntity toPostEntity(ResultSet resultSet) throws SQLException {
+        return PostEntity.builder()
+                .id(resultSet.getLong(1))
+                .blog(BlogEntity.builder().id(resultSet.getLong(2)).build())
+                .postTitle(resultSet.getString(3))
+                .postBody(resultSet.getString(4))
+                .postConclusion(resultSet.getString(5))
+                .author(resultSet.getString(6))
+                .publishedOn(resultSet.getObject(7, LocalDate.class))
+                .build();
+    }
+}
@@ -0,0 +1,431 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.dao.BlogRepository;
+import com.halliburton.blog.dao.PostRepository;
+import com.halliburton.blog.dto.PostSearchHit;
+import com.halliburton.blog.dto.PostSearchResult;
+import com.halliburton.blog.dto.SiteSearchHit;
+import com.halliburton.blog.model.BlogEntity;
+import com.halliburton.blog.model.PostEntity;
+import com.halliburton.blog.search.index.FacetCounts;
+import com.halliburton.blog.search.index.IndexSnapshot;
+import com.halliburton.blog.search.index.InvertedIndex;
+import com.halliburton.blog.search.index.Query;
+import com.halliburton.blog.search.index.QueryParser;
+import com.halliburton.blog.search.index.ScoredDoc;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = PostSearchEngine.ENGINE_PROPERTY, havingValue = "inverted-index")
+public class InvertedIndexSearchEngine implements PostSearchEngine, PostIndexListener {
+    private static final int LOAD_FETCH_SIZE = 500;
+    /* posts are indexed under their id and blogs under their negated id, so one index ranks both */
+    private static final long FIRST_POST_KEY = 1;
+    private static final String POST_COLUMNS = "id, post_title, post_body, post_conclusion, author";
+    /* boosts of title, body, conclusion and author */
+    private static final int[] POST_FIELD_BOOSTS = {3, 1, 1, 2};
+    /* boosts of title and description */
+    private static final int[] BLOG_FIELD_BOOSTS = {3, 1};
+    /* corrections asked from the index per suggestion, as some of them find blogs only or nothing at all */
+    private static final int SPELLING_CANDIDATES_PER_SUGGESTION = 4;
+    /* covers transactions that stamped updated_at before the snapshot but committed after it */
+    private static final Duration SNAPSHOT_REPLAY_MARGIN = Duration.ofMinutes(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostRepository postRepository;
+    private final BlogRepository blogRepository;
+    private final SearchFacets facets;
+    private final Path snapshotPath;
+    private volatile InvertedIndex index = new InvertedIndex();
+    private final Object swapLock = new Object();
+    /* changes applied while a reindex runs, replayed on the new index before it is swapped in */
+    private List<PostIndexEvent> reindexLog;
+
+    public InvertedIndexSearchEngine(JdbcTemplate jdbcTemplate, PostRepository postRepository,
+                                     BlogRepository blogRepository, SearchFacets facets,
+                                     @Value("${blog.search.snapshot.path:}") String snapshotPath) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postRepository = postRepository;
+        this.blogRepository = blogRepository;
+        this.facets = facets;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Paths.get(snapshotPath);
+    }
+
+    /**
+     * Maps the index snapshot and replays the posts changed since it was taken,
+     * or indexes every post when there is no usable snapshot.
+     */
+    @PostConstruct
+    public void buildIndex() {
+        Optional<IndexSnapshot> snapshot = readSnapshot();
+        if (snapshot.isPresent()) {
+            index = replay(snapshot.get());
+        } else {
+            index = loadIndex();
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void saveIndex() {
+        writeSnapshot();
+    }
+
+    private Optional<IndexSnapshot> readSnapshot() {
+        if (snapshotPath == null) {
+            return Optional.empty();
+        }
+        try {
+            return IndexSnapshot.read(snapshotPath);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable search index snapshot {}", snapshotPath, e);
+            return Optional.empty();
+        }
+    }
+
+    private void writeSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        Instant asOf = jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP", Timestamp.class).toInstant()
+                .minus(SNAPSHOT_REPLAY_MARGIN);
+        try {
+            IndexSnapshot.write(index, asOf, snapshotPath);
+            log.info("Saved search index snapshot {} in {} ms", snapshotPath, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Failed to save search index snapshot {}", snapshotPath, e);
+        }
+    }
+
+    /**
+     * Brings a snapshot up to date: re-indexes the posts updated since it was taken and every blog,
+     * as blogs have no update time and are few, and drops the posts and blogs deleted since.
+     */
+    private InvertedIndex replay(IndexSnapshot snapshot) {
+        long started = System.nanoTime();
+        InvertedIndex loaded = snapshot.getIndex();
+        List<InvertedIndex.Document> changed = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT " + POST_COLUMNS + " FROM post WHERE updated_at >= ?");
+            statement.setTimestamp(1, Timestamp.from(snapshot.getAsOf()));
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> changed.add(postDocument(resultSet)));
+        int changedPosts = changed.size();
+        jdbcTemplate.query("SELECT id, blog_title, description FROM blog",
+                (RowCallbackHandler) resultSet -> changed.add(blogDocument(resultSet)));
+
+        long[] existing = jdbcTemplate.queryForList("SELECT id FROM post UNION ALL SELECT -id FROM blog", Long.class)
+                .stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+        List<Long> deleted = new ArrayList<>();
+        for (long docId : loaded.docIds()) {
+            if (Arrays.binarySearch(existing, docId) < 0) {
+                deleted.add(docId);
+            }
+        }
+        loaded.update(changed, deleted);
+
+        log.info("Loaded search index snapshot taken at {} with {} posts and blogs, replayed {} changed posts, "
+                        + "{} blogs and {} deletions in {} ms", snapshot.getAsOf(), loaded.documentCount(), changedPosts,
+                changed.size() - changedPosts, deleted.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return loaded;
+    }
+
+    /**
+     * Indexes every blog and the searchable fields of every post, reading only those columns.
+     */
+    private InvertedIndex loadIndex() {
+        long started = System.nanoTime();
+        InvertedIndex loaded = loadBlogs();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT " + POST_COLUMNS + " FROM post");
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> loaded.add(postDocument(resultSet)));
+
+        log.info("Indexed {} posts and blogs with {} terms in {} ms, index heap ~{} KB",
+                loaded.documentCount(), loaded.termCount(), (System.nanoTime() - started) / 1_000_000,
+                loaded.estimatedHeapBytes() / 1024);
+        return loaded;
+    }
+
+    @Override
+    public void apply(List<PostIndexEvent> batch) {
+        synchronized (swapLock) {
+            applyTo(index, batch);
+            if (reindexLog != null) {
+                reindexLog.addAll(batch);
+            }
+        }
+    }
+
+    private static void applyTo(InvertedIndex target, List<PostIndexEvent> batch) {
+        Map<Long, PostIndexEvent> latest = new LinkedHashMap<>();
+        for (PostIndexEvent event : batch) {
+            if (event.getType() == PostIndexEvent.Type.DELETE_ALL) {
+                latest.keySet().removeIf(key -> key >= FIRST_POST_KEY);
+                target.update(List.of(), Arrays.stream(target.docIds())
+                        .filter(key -> key >= FIRST_POST_KEY)
+                        .boxed()
+                        .collect(Collectors.toList()));
+            } else {
+                long key = key(event);
+                latest.remove(key);
+                latest.put(key, event);
+            }
+        }
+
+        List<InvertedIndex.Document> documents = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        for (PostIndexEvent event : latest.values()) {
+            switch (event.getType()) {
+                case UPSERT:
+                    documents.add(new InvertedIndex.Document(event.getPostId(), POST_FIELD_BOOSTS,
+                            event.getPostTitle(), event.getPostBody(), event.getPostConclusion(), event.getAuthor()));
+                    break;
+                case UPSERT_BLOG:
+                    documents.add(new InvertedIndex.Document(-event.getBlogId(), BLOG_FIELD_BOOSTS,
+                            event.getBlogTitle(), event.getBlogDescription()));
+                    break;
+                default:
+                    removed.add(key(event));
+            }
+        }
+        target.update(documents, removed);
+    }
+
+    private static long key(PostIndexEvent event) {
+        switch (event.getType()) {
+            case UPSERT_BLOG:
+            case DELETE_BLOG:
+                return -event.getBlogId();
+            default:
+                return event.getPostId();
+        }
+    }
+
+    private static InvertedIndex.Document postDocument(ResultSet resultSet) throws SQLException {
+        return new InvertedIndex.Document(resultSet.getLong(1), POST_FIELD_BOOSTS, resultSet.getString(2),
+                resultSet.getString(3), resultSet.getString(4), resultSet.getString(5));
+    }
+
+    private static InvertedIndex.Document blogDocument(ResultSet resultSet) throws SQLException {
+        return new InvertedIndex.Document(-resultSet.getLong(1), BLOG_FIELD_BOOSTS, resultSet.getString(2),
+                resultSet.getString(3));
+    }
+
+    @Override
+    public void rebuild() {
+        synchronized (swapLock) {
+            index = loadIndex();
+            // a reindex started before the changes were lost may have missed them
+            reindexLog = null;
+        }
+        writeSnapshot();
+    }
+
+    /**
+     * Starts recording changes, which {@link #finishReindex(InvertedIndex)} replays on the new index.
+     */
+    public void beginReindex() {
+        synchronized (swapLock) {
+            reindexLog = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Replays the changes applied since {@link #beginReindex()} on the new index and swaps it in.
+     *
+     * @return false when the new index was discarded, because the current one was rebuilt meanwhile
+     */
+    public boolean finishReindex(InvertedIndex rebuilt) {
+        synchronized (swapLock) {
+            if (reindexLog == null) {
+                return false;
+            }
+            applyTo(rebuilt, reindexLog);
+            reindexLog = null;
+            index = rebuilt;
+        }
+        writeSnapshot();
+        return true;
+    }
+
+    public void abortReindex() {
+        synchronized (swapLock) {
+            reindexLog = null;
+        }
+    }
+
+    /**
+     * Indexes the posts with ids in the range, both ends included, into a new index.
+     */
+    public InvertedIndex loadSegment(long fromId, long toId) {
+        InvertedIndex segment = new InvertedIndex();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT " + POST_COLUMNS + " FROM post WHERE id BETWEEN ? AND ? ORDER BY id");
+            statement.setLong(1, fromId);
+            statement.setLong(2, toId);
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> segment.add(postDocument(resultSet)));
+        return segment;
+    }
+
+    /**
+     * Indexes every blog into a new index. Blogs rank below all posts by key, so post segments
+     * can be merged into it.
+     */
+    public InvertedIndex loadBlogs() {
+        InvertedIndex blogs = new InvertedIndex();
+        jdbcTemplate.query("SELECT id, blog_title, description FROM blog ORDER BY id DESC",
+                (RowCallbackHandler) resultSet -> blogs.add(blogDocument(resultSet)));
+        return blogs;
+    }
+
+    @Override
+    public List<PostSearchHit> search(String keyword, boolean fuzzy, int limit, int offset, BigDecimal minScore) {
+        return load(searchPosts(index, keyword, fuzzy, offset + limit, minScore, null), offset);
+    }
+
+    @Override
+    public PostSearchResult searchWithFacets(String keyword, boolean fuzzy, int limit, int offset,
+                                             BigDecimal minScore, int facetLimit) {
+        InvertedIndex searched = index;
+        ScoredDoc[][] ranked = new ScoredDoc[1][];
+        FacetCounts counts = facets.count(matches ->
+                ranked[0] = searchPosts(searched, keyword, fuzzy, offset + limit, minScore, matches), facetLimit);
+        return PostSearchResult.builder()
+                .hits(load(ranked[0], offset))
+                .facets(counts)
+                .build();
+    }
+
+    @Override
+    public List<String> suggestSpellings(String keyword, int limit) {
+        InvertedIndex searched = index;
+        return searched.suggestSpellings(keyword, limit * SPELLING_CANDIDATES_PER_SUGGESTION).stream()
+                .filter(suggestion -> searchPosts(searched, suggestion, false, 1, null, null).length > 0)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static ScoredDoc[] searchPosts(InvertedIndex searched, String keyword, boolean fuzzy, int k,
+                                           BigDecimal minScore, LongConsumer matches) {
+        Query query = QueryParser.parse(keyword, fuzzy);
+        return query == null ? new ScoredDoc[0] : searched.search(query, FIRST_POST_KEY, Long.MAX_VALUE, k,
+                minScore == null ? Double.NEGATIVE_INFINITY : minScore.doubleValue(), matches);
+    }
+
+    @Override
+    public List<SiteSearchHit> searchAll(String keyword, int limit, int offset) {
+        Query query = QueryParser.parse(keyword);
+        ScoredDoc[] ranked = query == null ? new ScoredDoc[0]
+                : index.search(query, Long.MIN_VALUE, Long.MAX_VALUE, offset + limit, Double.NEGATIVE_INFINITY, null);
+        if (ranked.length <= offset) {
+            return List.of();
+        }
+
+        ScoredDoc[] page = Arrays.copyOfRange(ranked, offset, ranked.length);
+        Map<Long, PostEntity> posts = postRepository.findAllById(Arrays.stream(page)
+                        .map(ScoredDoc::getDocId)
+                        .filter(key -> key >= FIRST_POST_KEY)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(PostEntity::getId, Function.identity()));
+        Map<Long, BlogEntity> blogs = blogRepository.findAllById(Arrays.stream(page)
+                        .map(ScoredDoc::getDocId)
+                        .filter(key -> key < FIRST_POST_KEY)
+                        .map(key -> -key)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(BlogEntity::getId, Function.identity()));
+
+        List<SiteSearchHit> hits = new ArrayList<>(page.length);
+        for (ScoredDoc scoredDoc : page) {
+            long key = scoredDoc.getDocId();
+            PostEntity post = key >= FIRST_POST_KEY ? posts.get(key) : null;
+            BlogEntity blog = key < FIRST_POST_KEY ? blogs.get(-key) : null;
+            if (post != null || blog != null) {
+                hits.add(SiteSearchHit.builder()
+                        .post(post)
+                        .blog(blog)
+                        .score(BigDecimal.valueOf(scoredDoc.getScore()))
+                        .build());
+            }
+        }
+
+        return hits;
+    }
+
+    /**
+     * Loads the ranked posts after the offset, in rank order.
+     */
+    private List<PostSearchHit> load(ScoredDoc[] ranked, int offset) {
+        if (ranked.length <= offset) {
+            return List.of();
+        }
+
+        ScoredDoc[] page = Arrays.copyOfRange(ranked, offset, ranked.length);
+        Map<Long, PostEntity> posts = postRepository.findAllById(Arrays.stream(page)
+                        .map(ScoredDoc::getDocId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(PostEntity::getId, Function.identity()));
+
+        List<PostSearchHit> hits = new ArrayList<>(page.length);
+        for (ScoredDoc scoredDoc : page) {
+            PostEntity post = posts.get(scoredDoc.getDocId());
+            if (post != null) {
+                hits.add(PostSearchHit.builder()
+                        .post(post)
+                        .score(BigDecimal.valueOf(scoredDoc.getScore()))
+                        .build());
+            }
+        }
+
+        return hits;
+    }
+
+    public InvertedIndex getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,71 @@
+package com.halliburton.blog.search;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Change of a post, or of a blog, that search structures have to follow. A published upsert carries the id
+ * only: events of concurrent transactions reach {@link PostIndexer} in no particular order, so it reads the
+ * current row when it applies them and hands the listeners upserts with a copy of the indexed fields.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PostIndexEvent {
+    public enum Type {
+        UPSERT, DELETE, DELETE_ALL, UPSERT_BLOG, DELETE_BLOG
+    }
+
+    Type type;
+    Long postId;
+    String postTitle;
+    String postBody;
+    String postConclusion;
+    String author;
+    Long blogId;
+    LocalDate publishedOn;
+    String blogTitle;
+    String blogDescription;
+
+    public static PostIndexEvent upsert(Long postId) {
+        return new PostIndexEvent(Type.UPSERT, postId, null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Upsert with the indexed fields of the post as read from its current row.
+     */
+    public static PostIndexEvent upserted(Long postId, String postTitle, String postBody, String postConclusion,
+                                          String author, Long blogId, LocalDate publishedOn) {
+        return new PostIndexEvent(Type.UPSERT, postId, postTitle, postBody, postConclusion, author, blogId,
+                publishedOn, null, null);
+    }
+
+    public static PostIndexEvent delete(Long postId) {
+        return new PostIndexEvent(Type.DELETE, postId, null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Deletion of every post; blogs stay.
+     */
+    public static PostIndexEvent deleteAll() {
+        return new PostIndexEvent(Type.DELETE_ALL, null, null, null, null, null, null, null, null, null);
+    }
+
+    public static PostIndexEvent upsertBlog(Long blogId) {
+        return new PostIndexEvent(Type.UPSERT_BLOG, null, null, null, null, null, blogId, null, null, null);
+    }
+
+    /**
+     * Upsert with the indexed fields of the blog as read from its current row.
+     */
+    public static PostIndexEvent upsertedBlog(Long blogId, String blogTitle, String blogDescription) {
+        return new PostIndexEvent(Type.UPSERT_BLOG, null, null, null, null, null, blogId, null, blogTitle,
+                blogDescription);
+    }
+
+    public static PostIndexEvent deleteBlog(Long blogId) {
+        return new PostIndexEvent(Type.DELETE_BLOG, null, null, null, null, null, blogId, null, null, null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.halliburton.blog.search;
+
+import java.util.List;
+
+/**
+ * Search structure kept up to date by {@link PostIndexer}. Both methods are called from the indexer
+ * thread only, never concurrently, on the listeners in {@link org.springframework.core.annotation.Order}
+ * order: the search index first, {@link SearchResultCache} last.
+ */
+public interface PostIndexListener {
+
+    /**
+     * Applies committed changes in the order they were queued, which need not be their commit order; every
+     * upsert carries the row as read when the batch is applied. Applying the same change twice must be harmless.
+     */
+    void apply(List<PostIndexEvent> batch);
+
+    /**
+     * Rebuilds the structure from the database after changes were lost.
+     */
+    void rebuild();
+}
@@ -0,0 +1,132 @@
+package com.halliburton.blog.search;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the current rows of the posts and blogs a batch of changes upserts. Whatever order the events of
+ * concurrent transactions were queued in, the listeners then index the last committed version, and an upsert
+ * of a row deleted meanwhile turns into its deletion.
+ */
+@Component
+public class PostIndexReader {
+    private static final String POST_COLUMNS =
+            "id, post_title, post_body, post_conclusion, author, blog_id, published_on";
+    /* ids bound per query, well below the parameter limits of the databases */
+    private static final int IDS_PER_QUERY = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostIndexReader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the batch with every upsert replaced by a copy of the current row, or by a deletion when the row
+     * is gone; a deletion of all posts is followed by upserts of the posts inserted since
+     */
+    public List<PostIndexEvent> readCurrent(List<PostIndexEvent> batch) {
+        Set<Long> postIds = new LinkedHashSet<>();
+        Set<Long> blogIds = new LinkedHashSet<>();
+        boolean deletesAll = false;
+        for (PostIndexEvent event : batch) {
+            switch (event.getType()) {
+                case UPSERT:
+                    postIds.add(event.getPostId());
+                    break;
+                case UPSERT_BLOG:
+                    blogIds.add(event.getBlogId());
+                    break;
+                case DELETE_ALL:
+                    deletesAll = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        Map<Long, PostIndexEvent> posts = deletesAll ? readAllPosts() : readPosts(postIds);
+        Map<Long, PostIndexEvent> blogs = readBlogs(blogIds);
+        List<PostIndexEvent> current = new ArrayList<>(batch.size());
+        for (PostIndexEvent event : batch) {
+            switch (event.getType()) {
+                case UPSERT:
+                    current.add(posts.getOrDefault(event.getPostId(), PostIndexEvent.delete(event.getPostId())));
+                    break;
+                case UPSERT_BLOG:
+                    current.add(blogs.getOrDefault(event.getBlogId(), PostIndexEvent.deleteBlog(event.getBlogId())));
+                    break;
+                case DELETE_ALL:
+                    // an insert committed after the deletion may have been queued before it
+                    current.add(event);
+                    current.addAll(posts.values());
+                    break;
+                default:
+                    current.add(event);
+            }
+        }
+        return current;
+    }
+
+    private Map<Long, PostIndexEvent> readAllPosts() {
+        Map<Long, PostIndexEvent> posts = new HashMap<>();
+        jdbcTemplate.query("SELECT " + POST_COLUMNS + " FROM post",
+                (RowCallbackHandler) resultSet -> posts.put(resultSet.getLong(1), post(resultSet)));
+        return posts;
+    }
+
+    private Map<Long, PostIndexEvent> readPosts(Collection<Long> ids) {
+        Map<Long, PostIndexEvent> posts = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            jdbcTemplate.query("SELECT " + POST_COLUMNS + " FROM post WHERE id IN (" + placeholders(chunk) + ")",
+                    (RowCallbackHandler) resultSet -> posts.put(resultSet.getLong(1), post(resultSet)),
+                    chunk.toArray());
+        }
+        return posts;
+    }
+
+    private Map<Long, PostIndexEvent> readBlogs(Collection<Long> ids) {
+        Map<Long, PostIndexEvent> blogs = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            jdbcTemplate.query("SELECT id, blog_title, description FROM blog WHERE id IN (" + placeholders(chunk) + ")",
+                    (RowCallbackHandler) resultSet -> blogs.put(resultSet.getLong(1),
+                            PostIndexEvent.upsertedBlog(resultSet.getLong(1), resultSet.getString(2),
+                                    resultSet.getString(3))),
+                    chunk.toArray());
+        }
+        return blogs;
+    }
+
+    private static PostIndexEvent post(ResultSet resultSet) throws SQLException {
+        Date publishedOn = resultSet.getDate(7);
+        return PostIndexEvent.upserted(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                resultSet.getString(4), resultSet.getString(5), resultSet.getObject(6, Long.class),
+                publishedOn == null ? null : publishedOn.toLocalDate());
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IDS_PER_QUERY) {
+            chunks.add(all.subList(from, Math.min(all.size(), from + IDS_PER_QUERY)));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(List<Long> chunk) {
+        return String.join(", ", Collections.nCopies(chunk.size(), "?"));
+    }
+}
@@ -0,0 +1,185 @@
+package com.halliburton.blog.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies post changes to the search structures on a background thread, so a write request
+ * only pays for putting its events into a bounded queue after commit. When the queue overflows,
+ * the pending events are dropped and the listeners are rebuilt from the database instead. Each request thread
+ * queues its events when its own transaction commits, so the events of two transactions changing one post
+ * may arrive in either order; the rows they upsert are read again when a batch is applied.
+ */
+@Slf4j
+@Component
+public class PostIndexer {
+    private final List<PostIndexListener> listeners;
+    private final PostIndexReader reader;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private final Thread worker;
+    private volatile long inFlightSince;
+    private volatile boolean busy;
+
+    private static class Pending {
+        private final PostIndexEvent event;
+        private final long enqueuedAt = System.nanoTime();
+
+        private Pending(PostIndexEvent event) {
+            this.event = event;
+        }
+    }
+
+    public PostIndexer(List<PostIndexListener> listeners, PostIndexReader reader, MeterRegistry meterRegistry,
+                       @Value("${blog.search.indexer.queue-capacity:10000}") int queueCapacity,
+                       @Value("${blog.search.indexer.batch-size:500}") int batchSize) {
+        this.listeners = listeners;
+        this.reader = reader;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.worker = new Thread(this::run, "post-indexer");
+        this.worker.setDaemon(true);
+
+        Gauge.builder("blog.search.index.lag", this, indexer -> indexer.lag().toMillis())
+                .description("Age of the oldest post change not applied to the search index yet")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("blog.search.index.pending", queue, BlockingQueue::size)
+                .description("Post changes waiting for the search indexer")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker.start();
+    }
+
+    /**
+     * Stops the worker and applies the changes still queued, so listeners saving their state
+     * on shutdown save every committed change.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        worker.interrupt();
+        worker.join();
+        if (overflowed.get()) {
+            rebuild();
+            return;
+        }
+
+        List<PostIndexEvent> events = new ArrayList<>(queue.size());
+        for (Pending item : queue) {
+            events.add(item.event);
+        }
+        queue.clear();
+        if (!events.isEmpty()) {
+            List<PostIndexEvent> batch = reader.readCurrent(events);
+            for (PostIndexListener listener : listeners) {
+                listener.apply(batch);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostIndexEvent event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        if (!queue.offer(new Pending(event))) {
+            overflowed.set(true);
+        }
+    }
+
+    /**
+     * Age of the oldest change that is queued or being applied, zero when the index is up to date.
+     */
+    public Duration lag() {
+        long oldest = busy ? inFlightSince : 0;
+        Pending head = queue.peek();
+        if (!busy && head != null) {
+            oldest = head.enqueuedAt;
+        }
+        return oldest == 0 ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - oldest);
+    }
+
+    /**
+     * Waits until every change queued so far has been applied.
+     *
+     * @return false when the timeout elapsed first
+     */
+    public boolean awaitIndexed(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (busy || !queue.isEmpty() || overflowed.get()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        return true;
+    }
+
+    private void run() {
+        List<Pending> pending = new ArrayList<>(batchSize);
+        List<PostIndexEvent> events = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (overflowed.get()) {
+                    rebuild();
+                    continue;
+                }
+                if (first == null) {
+                    continue;
+                }
+
+                busy = true;
+                inFlightSince = first.enqueuedAt;
+                pending.add(first);
+                queue.drainTo(pending, batchSize - 1);
+                for (Pending item : pending) {
+                    events.add(item.event);
+                }
+                List<PostIndexEvent> batch = reader.readCurrent(events);
+                for (PostIndexListener listener : listeners) {
+                    listener.apply(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Failed to apply {} post changes to the search index, rebuilding it", events.size(), e);
+                overflowed.set(true);
+            } finally {
+                pending.clear();
+                events.clear();
+                busy = false;
+            }
+        }
+    }
+
+    private void rebuild() {
+        busy = true;
+        inFlightSince = System.nanoTime();
+        queue.clear();
+        overflowed.set(false);
+        log.warn("Search index fell behind post changes, rebuilding it from the database");
+        for (PostIndexListener listener : listeners) {
+            listener.rebuild();
+        }
+        busy = false;
+    }
+}
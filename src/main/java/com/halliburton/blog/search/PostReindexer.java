@@ -0,0 +1,151 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.dto.ReindexStatus;
+import com.halliburton.blog.search.index.InvertedIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds the inverted index from the database in the background. The post id range is split into
+ * batches indexed in parallel on a fork-join pool; the segments of the batches are merged into an index
+ * of the blogs and the result replaces the index in one step, so searches use the old index until then.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = PostSearchEngine.ENGINE_PROPERTY, havingValue = "inverted-index")
+public class PostReindexer {
+    private final InvertedIndexSearchEngine searchEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private volatile Run current;
+
+    private static class Run {
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong indexedPosts = new AtomicLong();
+        private volatile long totalPosts;
+        private volatile ReindexStatus.State state = ReindexStatus.State.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+    }
+
+    public PostReindexer(InvertedIndexSearchEngine searchEngine, JdbcTemplate jdbcTemplate,
+                         @Value("${blog.search.reindex.parallelism:0}") int parallelism,
+                         @Value("${blog.search.reindex.batch-size:2000}") int batchSize) {
+        this.searchEngine = searchEngine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.batchSize = batchSize;
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Starts a reindex unless one is running.
+     *
+     * @return status of the started reindex, or empty when one is running already
+     */
+    public synchronized Optional<ReindexStatus> start() {
+        if (current != null && current.state == ReindexStatus.State.RUNNING) {
+            return Optional.empty();
+        }
+        Run run = new Run();
+        current = run;
+        searchEngine.beginReindex();
+        pool.execute(() -> reindex(run));
+        return Optional.of(status());
+    }
+
+    public ReindexStatus status() {
+        Run run = current;
+        if (run == null) {
+            return ReindexStatus.builder().state(ReindexStatus.State.IDLE).build();
+        }
+
+        Instant end = run.finishedAt == null ? Instant.now() : run.finishedAt;
+        long indexed = run.indexedPosts.get();
+        long millis = Math.max(1, Duration.between(run.startedAt, end).toMillis());
+        return ReindexStatus.builder()
+                .state(run.state)
+                .startedAt(run.startedAt)
+                .finishedAt(run.finishedAt)
+                .totalPosts(run.totalPosts)
+                .indexedPosts(indexed)
+                .postsPerSecond(indexed * 1000.0 / millis)
+                .error(run.error)
+                .build();
+    }
+
+    private void reindex(Run run) {
+        try {
+            Map<String, Object> range = jdbcTemplate.queryForMap(
+                    "SELECT MIN(id) AS low, MAX(id) AS high, COUNT(*) AS total FROM post");
+            run.totalPosts = ((Number) range.get("total")).longValue();
+            InvertedIndex rebuilt = searchEngine.loadBlogs();
+            if (run.totalPosts > 0) {
+                rebuilt.merge(new IndexRange(run, ((Number) range.get("low")).longValue(),
+                        ((Number) range.get("high")).longValue()).invoke());
+            }
+
+            boolean swapped = searchEngine.finishReindex(rebuilt);
+            run.state = swapped ? ReindexStatus.State.COMPLETED : ReindexStatus.State.DISCARDED;
+        } catch (RuntimeException e) {
+            log.error("Failed to reindex posts", e);
+            searchEngine.abortReindex();
+            run.error = e.getMessage();
+            run.state = ReindexStatus.State.FAILED;
+        } finally {
+            run.finishedAt = Instant.now();
+            ReindexStatus status = status();
+            log.info("Reindex {}: {} of {} posts, {} posts/s", status.getState(), status.getIndexedPosts(),
+                    status.getTotalPosts(), Math.round(status.getPostsPerSecond()));
+        }
+    }
+
+    /**
+     * Indexes the posts with ids in a range: a batch directly, a larger range as two halves
+     * indexed in parallel, whose segments are merged in id order.
+     */
+    private class IndexRange extends RecursiveTask<InvertedIndex> {
+        private final Run run;
+        private final long fromId;
+        private final long toId;
+
+        private IndexRange(Run run, long fromId, long toId) {
+            this.run = run;
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected InvertedIndex compute() {
+            if (toId - fromId < batchSize) {
+                InvertedIndex segment = searchEngine.loadSegment(fromId, toId);
+                run.indexedPosts.addAndGet(segment.documentCount());
+                return segment;
+            }
+
+            long middle = fromId + (toId - fromId) / 2;
+            IndexRange upper = new IndexRange(run, middle + 1, toId);
+            upper.fork();
+            InvertedIndex lower = new IndexRange(run, fromId, middle).compute();
+            lower.merge(upper.join());
+            return lower;
+        }
+    }
+}
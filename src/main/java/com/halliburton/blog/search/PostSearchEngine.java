@@ -0,0 +1,62 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.dto.PostSearchHit;
+import com.halliburton.blog.dto.PostSearchResult;
+import com.halliburton.blog.dto.SiteSearchHit;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Full-text search over posts. The implementation is selected with the {@code blog.search.engine}
+ * property: {@code h2} (default) uses H2 FullText, {@code inverted-index} uses the in-process index.
+ */
+public interface PostSearchEngine {
+    String ENGINE_PROPERTY = "blog.search.engine";
+
+    /**
+     * @param fuzzy    when true, terms also match misspellings of them
+     * @param limit    maximum number of posts to return, must be positive
+     * @param offset   number of ranked posts to skip
+     * @param minScore posts with a lower score are skipped, may be null
+     * @return loaded posts ordered by descending score, or by id by an engine that does not rank
+     * @throws UnsupportedOperationException when fuzzy search is not supported
+     */
+    List<PostSearchHit> search(String keyword, boolean fuzzy, int limit, int offset, BigDecimal minScore)
+            throws SQLException;
+
+    /**
+     * Searches like {@link #search(String, boolean, int, int, BigDecimal)} and counts the facet values of
+     * all matching posts, not only of the returned page, in the same pass.
+     *
+     * @param facetLimit maximum number of values per facet
+     * @throws UnsupportedOperationException when facet counts or fuzzy search are not supported
+     */
+    default PostSearchResult searchWithFacets(String keyword, boolean fuzzy, int limit, int offset,
+                                              BigDecimal minScore, int facetLimit) throws SQLException {
+        throw new UnsupportedOperationException("Facet counts need " + ENGINE_PROPERTY + "=inverted-index");
+    }
+
+    /**
+     * Searches posts and blogs together, every field weighted by its boost, so a title match outranks
+     * a body match whatever the kind of the hit.
+     *
+     * @return loaded posts and blogs ordered by descending score
+     * @throws UnsupportedOperationException when searching blogs is not supported
+     */
+    default List<SiteSearchHit> searchAll(String keyword, int limit, int offset) throws SQLException {
+        throw new UnsupportedOperationException("Searching posts and blogs together needs " + ENGINE_PROPERTY
+                + "=inverted-index");
+    }
+
+    /**
+     * Spelling corrections of a keyword that found no posts, built from the term dictionary of the index.
+     * Only corrections finding posts are suggested.
+     *
+     * @return corrected keywords, best first; none when the engine has no term dictionary of its own
+     */
+    default List<String> suggestSpellings(String keyword, int limit) {
+        return List.of();
+    }
+}
@@ -0,0 +1,65 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.search.index.HeavyHitter;
+import com.halliburton.blog.search.index.HeavyHitters;
+import com.halliburton.blog.search.index.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Which keywords drive the search load: every completed search is recorded with its latency into
+ * {@link HeavyHitters}, whose memory does not grow with the number of distinct keywords. Keywords are
+ * recorded with their whitespace collapsed and cut to {@value #MAX_KEYWORD_LENGTH} characters.
+ * Reported by {@link QueryAnalyticsEndpoint}.
+ */
+@Component
+public class QueryAnalytics {
+    static final int MAX_KEYWORD_LENGTH = 200;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final HeavyHitters heavyHitters;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    public QueryAnalytics(@Value("${blog.search.analytics.top-queries:100}") int topQueries,
+                          @Value("${blog.search.analytics.sketch-width:16384}") int sketchWidth,
+                          @Value("${blog.search.analytics.sketch-depth:4}") int sketchDepth) {
+        this.heavyHitters = new HeavyHitters(topQueries, sketchWidth, sketchDepth);
+    }
+
+    public void record(String keyword, long latencyNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        latencies.record(micros);
+        heavyHitters.record(normalize(keyword), micros);
+    }
+
+    static String normalize(String keyword) {
+        String normalized = WHITESPACE.matcher(keyword.trim()).replaceAll(" ");
+        return normalized.length() > MAX_KEYWORD_LENGTH ? normalized.substring(0, MAX_KEYWORD_LENGTH) : normalized;
+    }
+
+    /**
+     * @return most frequent keywords, most frequent first
+     */
+    public List<HeavyHitter> topQueries(int limit) {
+        return heavyHitters.top(limit);
+    }
+
+    public long searches() {
+        return heavyHitters.total();
+    }
+
+    /**
+     * Overcount of the keyword counts, see {@link HeavyHitters#errorBound()}.
+     */
+    public long countErrorBound() {
+        return heavyHitters.errorBound();
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+}
@@ -0,0 +1,54 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.search.index.HeavyHitter;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Hottest search keywords and their latencies: {@code GET /actuator/searchqueries?top=20}.
+ */
+@Component
+@Endpoint(id = "searchqueries")
+public class QueryAnalyticsEndpoint {
+    private static final int DEFAULT_TOP_QUERIES = 20;
+
+    private final QueryAnalytics queryAnalytics;
+
+    public QueryAnalyticsEndpoint(QueryAnalytics queryAnalytics) {
+        this.queryAnalytics = queryAnalytics;
+    }
+
+    @ReadOperation
+    public Map<String, Object> report(@Nullable Integer top) {
+        List<HeavyHitter> queries = queryAnalytics.topQueries(top == null ? DEFAULT_TOP_QUERIES : top);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("searches", queryAnalytics.searches());
+        report.put("p50Millis", millis(queryAnalytics.getLatencies().percentile(50)));
+        report.put("p99Millis", millis(queryAnalytics.getLatencies().percentile(99)));
+        report.put("countErrorBound", queryAnalytics.countErrorBound());
+        report.put("topQueries", queries.stream()
+                .map(query -> {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("keyword", query.getKey());
+                    entry.put("count", query.getCount());
+                    entry.put("latencySamples", query.getLatencySamples());
+                    entry.put("p50Millis", millis(query.getP50Micros()));
+                    entry.put("p99Millis", millis(query.getP99Micros()));
+                    return entry;
+                })
+                .collect(Collectors.toList()));
+        return report;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,92 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.search.index.MinHashIndex;
+import com.halliburton.blog.search.index.ScoredDoc;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Posts with a text similar to a post's, found from MinHash signatures of post titles and bodies instead
+ * of a search per page view. Kept in memory whatever the search engine is, and updated from post changes
+ * like the search index.
+ */
+@Slf4j
+@Component
+public class RelatedPosts implements PostIndexListener {
+    public static final int MAX_RELATED = 10;
+    /* the same hash functions on every start, so signatures stay comparable */
+    private static final long SEED = 0x5EEDL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int bands;
+    private final int rows;
+    private final double minSimilarity;
+    private volatile MinHashIndex index;
+
+    public RelatedPosts(JdbcTemplate jdbcTemplate,
+                        @Value("${blog.search.related.bands:32}") int bands,
+                        @Value("${blog.search.related.rows:2}") int rows,
+                        @Value("${blog.search.related.min-similarity:0.1}") double minSimilarity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bands = bands;
+        this.rows = rows;
+        this.minSimilarity = minSimilarity;
+        this.index = new MinHashIndex(bands, rows, SEED);
+    }
+
+    @PostConstruct
+    public void buildIndex() {
+        index = loadIndex();
+    }
+
+    private MinHashIndex loadIndex() {
+        long started = System.nanoTime();
+        MinHashIndex loaded = new MinHashIndex(bands, rows, SEED);
+        jdbcTemplate.query("SELECT id, post_title, post_body FROM post", (RowCallbackHandler) resultSet ->
+                loaded.put(resultSet.getLong(1), text(resultSet.getString(2), resultSet.getString(3))));
+        log.info("Computed MinHash signatures of {} posts in {} ms", loaded.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return loaded;
+    }
+
+    /**
+     * @return most similar posts first, with their estimated Jaccard similarity as score
+     */
+    public List<ScoredDoc> related(long postId, int limit) {
+        return index.related(postId, limit, minSimilarity);
+    }
+
+    @Override
+    public void apply(List<PostIndexEvent> batch) {
+        for (PostIndexEvent event : batch) {
+            switch (event.getType()) {
+                case UPSERT:
+                    index.put(event.getPostId(), text(event.getPostTitle(), event.getPostBody()));
+                    break;
+                case DELETE:
+                    index.remove(event.getPostId());
+                    break;
+                case DELETE_ALL:
+                    index.clear();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        index = loadIndex();
+    }
+
+    private static String text(String title, String body) {
+        return title == null ? body : body == null ? title : title + "\n" + body;
+    }
+}
@@ -0,0 +1,124 @@
+package com.halliburton.blog.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs searches on a dedicated, bounded pool, so expensive keywords cannot take every request thread
+ * and database connection from the other endpoints. At most {@code max-concurrent} searches run and
+ * {@code queue-capacity} wait; more are rejected at once. A search gets {@code blog.search.timeout} from
+ * submission, waiting included: past it the caller gets a timeout and the search is interrupted, which
+ * the in-process index checks as it iterates and H2 FullText enforces as a statement timeout.
+ * <p>
+ * Metrics: {@code executor.*} tagged {@code name=search}, {@code blog.search.rejected} and
+ * {@code blog.search.timeouts}.
+ */
+@Component
+public class SearchBulkhead {
+    public static final String TIMEOUT_PROPERTY = "blog.search.timeout";
+
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final Counter rejected;
+    private final Counter timedOut;
+
+    /**
+     * Search run on the bulkhead.
+     */
+    @FunctionalInterface
+    public interface Search<T> {
+        T run() throws SQLException;
+    }
+
+    public SearchBulkhead(MeterRegistry meterRegistry,
+                          @Value("${blog.search.bulkhead.max-concurrent:4}") int maxConcurrent,
+                          @Value("${blog.search.bulkhead.queue-capacity:16}") int queueCapacity,
+                          @Value("${" + TIMEOUT_PROPERTY + ":2s}") Duration timeout) {
+        this.timeout = timeout;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "search-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        new ExecutorServiceMetrics(executor, "search", Tags.empty()).bindTo(meterRegistry);
+        rejected = Counter.builder("blog.search.rejected")
+                .description("Searches rejected because the search bulkhead was full")
+                .register(meterRegistry);
+        timedOut = Counter.builder("blog.search.timeouts")
+                .description("Searches cancelled because they ran out of their time budget")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the search on the bulkhead and waits for it within the time budget.
+     *
+     * @throws SearchRejectedException when the bulkhead is full
+     * @throws SearchTimeoutException  when the search ran out of time; it is cancelled
+     */
+    public <T> T call(Search<T> search) throws SQLException {
+        Future<T> future;
+        try {
+            future = executor.submit(search::run);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new SearchRejectedException("Too many searches running, try again later", e);
+        }
+
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new SearchTimeoutException("Search took longer than " + timeout.toMillis() + " ms", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SearchTimeoutException("Interrupted while waiting for the search", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLTimeoutException) {
+                timedOut.increment();
+                throw new SearchTimeoutException("Search took longer than " + timeout.toMillis() + " ms", cause);
+            }
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
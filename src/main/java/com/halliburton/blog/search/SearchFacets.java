@@ -0,0 +1,81 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.search.index.FacetCounts;
+import com.halliburton.blog.search.index.FacetStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Facet values of every post, counted over the matches of a search of the in-process index.
+ * Loaded from the facet columns only and updated from post changes like the search index.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = PostSearchEngine.ENGINE_PROPERTY, havingValue = "inverted-index")
+public class SearchFacets implements PostIndexListener {
+    private volatile FacetStore store = new FacetStore();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SearchFacets(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void buildStore() {
+        store = loadStore();
+    }
+
+    private FacetStore loadStore() {
+        long started = System.nanoTime();
+        FacetStore loaded = new FacetStore();
+        jdbcTemplate.query("SELECT id, author, blog_id, published_on FROM post", (RowCallbackHandler) resultSet -> {
+            Long blogId = resultSet.getObject(3, Long.class);
+            Date publishedOn = resultSet.getDate(4);
+            loaded.put(resultSet.getLong(1), resultSet.getString(2), blogId,
+                    publishedOn == null ? null : publishedOn.toLocalDate());
+        });
+        log.info("Loaded facets of {} posts in {} ms", loaded.size(), (System.nanoTime() - started) / 1_000_000);
+        return loaded;
+    }
+
+    /**
+     * @see FacetStore#count(Consumer, int)
+     */
+    public FacetCounts count(Consumer<LongConsumer> search, int limit) {
+        return store.count(search, limit);
+    }
+
+    @Override
+    public void apply(List<PostIndexEvent> batch) {
+        for (PostIndexEvent event : batch) {
+            switch (event.getType()) {
+                case UPSERT:
+                    store.put(event.getPostId(), event.getAuthor(), event.getBlogId(), event.getPublishedOn());
+                    break;
+                case DELETE:
+                    store.remove(event.getPostId());
+                    break;
+                case DELETE_ALL:
+                    store.clear();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        store = loadStore();
+    }
+}
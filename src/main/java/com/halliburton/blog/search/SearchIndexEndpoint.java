@@ -0,0 +1,44 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.search.index.InvertedIndex;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memory report of the in-memory search index: {@code GET /actuator/searchindex?top=20}.
+ */
+@Component
+@Endpoint(id = "searchindex")
+@ConditionalOnProperty(name = PostSearchEngine.ENGINE_PROPERTY, havingValue = "inverted-index")
+public class SearchIndexEndpoint {
+    private static final int DEFAULT_TOP_TERMS = 20;
+
+    private final InvertedIndexSearchEngine searchEngine;
+
+    public SearchIndexEndpoint(InvertedIndexSearchEngine searchEngine) {
+        this.searchEngine = searchEngine;
+    }
+
+    @ReadOperation
+    public Map<String, Object> report(@Nullable Integer top) {
+        InvertedIndex index = searchEngine.getIndex();
+        long postingsBytes = index.postingsBytes();
+        long boxedBytes = index.boxedPostingsBytes();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("documents", index.documentCount());
+        report.put("terms", index.termCount());
+        report.put("heapBytes", index.estimatedHeapBytes());
+        report.put("postingsBytes", postingsBytes);
+        report.put("boxedPostingsBytes", boxedBytes);
+        report.put("compressionRatio", postingsBytes == 0 ? 0 : (double) boxedBytes / postingsBytes);
+        report.put("topTerms", index.memoryReport(top == null ? DEFAULT_TOP_TERMS : top));
+        return report;
+    }
+}
@@ -0,0 +1,11 @@
+package com.halliburton.blog.search;
+
+/**
+ * The {@link SearchBulkhead} is full: as many searches as it allows are running or waiting.
+ */
+public class SearchRejectedException extends RuntimeException {
+
+    public SearchRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,234 @@
+package com.halliburton.blog.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.halliburton.blog.dao.PostRepository;
+import com.halliburton.blog.dto.PostSearchHit;
+import com.halliburton.blog.model.PostEntity;
+import com.halliburton.blog.search.index.Highlighter;
+import com.halliburton.blog.search.index.Query;
+import com.halliburton.blog.search.index.QueryParser;
+import com.halliburton.blog.search.index.Tokenizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ranked post ids of recent searches, so the few keywords making up most of the traffic skip the search
+ * engine and only load their page of posts by id. Entries are keyed by the parsed query, which ignores
+ * case, spacing and the optional AND, and hold the best {@code blog.search.cache.ranked-results} posts;
+ * deeper pages are always searched. Caffeine bounds the entries with W-TinyLFU eviction.
+ * <p>
+ * A change of a post drops the entries ranking the post and the entries whose query matches a term of
+ * the post, so only the searches the change may affect are redone. Deleting every post, a rebuild or a
+ * batch of more than {@link #PRECISE_INVALIDATION_LIMIT} changes drops every entry instead. A generation
+ * counter, increased by every invalidation before it sweeps the cache, keeps a search that raced with one
+ * from caching its results: the search checks it before and after putting its entry, and drops the entry
+ * when it changed.
+ * Applied after the search index, see {@link PostIndexListener}; with H2 FullText, results are stale
+ * for as long as the indexer lags behind the commits.
+ * <p>
+ * Metrics: {@code cache.gets}, {@code cache.evictions} and {@code cache.size} tagged
+ * {@code cache=search.results}, {@code blog.search.cache.hit.ratio} and {@code blog.search.cache.invalidations}.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class SearchResultCache implements PostIndexListener {
+    public static final String CACHE_NAME = "search.results";
+    static final int PRECISE_INVALIDATION_LIMIT = 100;
+
+    private final PostSearchEngine searchEngine;
+    private final PostRepository postRepository;
+    private final int rankedResults;
+    private final Cache<Key, Entry> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter preciseInvalidations;
+    private final Counter coarseInvalidations;
+
+    @lombok.Value
+    private static class Key {
+        Query query;
+        boolean fuzzy;
+        BigDecimal minScore;
+    }
+
+    @lombok.Value
+    private static class Entry {
+        Highlighter terms;
+        long[] postIds;
+        BigDecimal[] scores;
+
+        boolean ranks(Set<Long> changedPostIds) {
+            for (long postId : postIds) {
+                if (changedPostIds.contains(postId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public SearchResultCache(PostSearchEngine searchEngine, PostRepository postRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${blog.search.cache.maximum-size:10000}") long maximumSize,
+                             @Value("${blog.search.cache.ranked-results:100}") int rankedResults) {
+        this.searchEngine = searchEngine;
+        this.postRepository = postRepository;
+        this.rankedResults = rankedResults;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("blog.search.cache.hit.ratio", cache, searched -> searched.stats().hitRate())
+                .description("Share of post searches answered from the search result cache")
+                .register(meterRegistry);
+        preciseInvalidations = Counter.builder("blog.search.cache.invalidations")
+                .description("Search result cache entries dropped because of post changes")
+                .tag("scope", "precise")
+                .register(meterRegistry);
+        coarseInvalidations = Counter.builder("blog.search.cache.invalidations")
+                .description("Search result cache entries dropped because of post changes")
+                .tag("scope", "all")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Searches like {@link PostSearchEngine#search(String, boolean, int, int, BigDecimal)}, from the cache
+     * when the page is within the cached ranking.
+     */
+    public List<PostSearchHit> search(String keyword, boolean fuzzy, int limit, int offset, BigDecimal minScore)
+            throws SQLException {
+        Query query = QueryParser.parse(keyword, fuzzy);
+        if (query == null || offset + limit > rankedResults) {
+            return searchEngine.search(keyword, fuzzy, limit, offset, minScore);
+        }
+
+        Key key = new Key(query, fuzzy, minScore == null ? null : minScore.stripTrailingZeros());
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            return load(entry, limit, offset);
+        }
+
+        long searchedGeneration = generation.get();
+        List<PostSearchHit> ranked = searchEngine.search(keyword, fuzzy, rankedResults, 0, minScore);
+        long[] postIds = new long[ranked.size()];
+        BigDecimal[] scores = new BigDecimal[ranked.size()];
+        for (int i = 0; i < postIds.length; i++) {
+            postIds[i] = ranked.get(i).getPost().getId();
+            scores[i] = ranked.get(i).getScore();
+        }
+        if (generation.get() == searchedGeneration) {
+            cache.put(key, new Entry(new Highlighter(query), postIds, scores));
+            // an invalidation between the check and the put may have swept the cache before the entry was in
+            if (generation.get() != searchedGeneration) {
+                cache.invalidate(key);
+            }
+        }
+
+        return offset >= ranked.size() ? List.of()
+                : List.copyOf(ranked.subList(offset, Math.min(ranked.size(), offset + limit)));
+    }
+
+    /**
+     * Loads the page of the cached ranking; posts deleted since are skipped.
+     */
+    private List<PostSearchHit> load(Entry entry, int limit, int offset) {
+        int to = Math.min(entry.getPostIds().length, offset + limit);
+        if (offset >= to) {
+            return List.of();
+        }
+
+        long[] page = Arrays.copyOfRange(entry.getPostIds(), offset, to);
+        Map<Long, PostEntity> posts = postRepository.findAllById(Arrays.stream(page)
+                        .boxed()
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(PostEntity::getId, Function.identity()));
+
+        List<PostSearchHit> hits = new ArrayList<>(page.length);
+        for (int i = offset; i < to; i++) {
+            PostEntity post = posts.get(entry.getPostIds()[i]);
+            if (post != null) {
+                hits.add(PostSearchHit.builder()
+                        .post(post)
+                        .score(entry.getScores()[i])
+                        .build());
+            }
+        }
+
+        return hits;
+    }
+
+    @Override
+    public void apply(List<PostIndexEvent> batch) {
+        Set<Long> changedPostIds = new HashSet<>();
+        Set<String> changedTerms = new HashSet<>();
+        for (PostIndexEvent event : batch) {
+            switch (event.getType()) {
+                case UPSERT:
+                    changedPostIds.add(event.getPostId());
+                    Tokenizer.TokenConsumer collector = (term, position, start, end) -> changedTerms.add(term);
+                    Tokenizer.tokenize(event.getPostTitle(), collector);
+                    Tokenizer.tokenize(event.getPostBody(), collector);
+                    Tokenizer.tokenize(event.getPostConclusion(), collector);
+                    Tokenizer.tokenize(event.getAuthor(), collector);
+                    break;
+                case DELETE:
+                    changedPostIds.add(event.getPostId());
+                    break;
+                case DELETE_ALL:
+                    invalidateAll();
+                    return;
+                default:
+                    break;
+            }
+        }
+        if (changedPostIds.isEmpty()) {
+            return;
+        }
+        if (changedPostIds.size() > PRECISE_INVALIDATION_LIMIT) {
+            invalidateAll();
+            return;
+        }
+
+        generation.incrementAndGet();
+        cache.asMap().entrySet().removeIf(cached -> {
+            Entry entry = cached.getValue();
+            if (entry.ranks(changedPostIds) || entry.getTerms().matchesAny(changedTerms)) {
+                preciseInvalidations.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public void rebuild() {
+        invalidateAll();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        coarseInvalidations.increment(cache.estimatedSize());
+        cache.invalidateAll();
+    }
+}
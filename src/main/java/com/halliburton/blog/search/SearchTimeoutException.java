@@ -0,0 +1,11 @@
+package com.halliburton.blog.search;
+
+/**
+ * A search ran out of its time budget and was cancelled, see {@link SearchBulkhead}.
+ */
+public class SearchTimeoutException extends RuntimeException {
+
+    public SearchTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,80 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.search.index.Suggestion;
+import com.halliburton.blog.search.index.TitleTrie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Type-ahead over post titles, most recently published posts first. Kept in memory whatever the search
+ * engine is, and updated from post changes like the search index.
+ */
+@Slf4j
+@Component
+public class TitleSuggester implements PostIndexListener {
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private volatile TitleTrie trie = new TitleTrie(MAX_SUGGESTIONS);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TitleSuggester(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void buildTrie() {
+        trie = loadTrie();
+    }
+
+    private TitleTrie loadTrie() {
+        long started = System.nanoTime();
+        TitleTrie loaded = new TitleTrie(MAX_SUGGESTIONS);
+        jdbcTemplate.query("SELECT id, post_title, published_on FROM post", (RowCallbackHandler) resultSet -> {
+            Date publishedOn = resultSet.getDate(3);
+            loaded.put(resultSet.getLong(1), resultSet.getString(2), weight(publishedOn.toLocalDate()));
+        });
+        log.info("Loaded {} post titles for suggestions in {} ms", loaded.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return loaded;
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return trie.suggest(prefix, limit);
+    }
+
+    @Override
+    public void apply(List<PostIndexEvent> batch) {
+        for (PostIndexEvent event : batch) {
+            switch (event.getType()) {
+                case UPSERT:
+                    trie.put(event.getPostId(), event.getPostTitle(), weight(event.getPublishedOn()));
+                    break;
+                case DELETE:
+                    trie.remove(event.getPostId());
+                    break;
+                case DELETE_ALL:
+                    trie.clear();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        trie = loadTrie();
+    }
+
+    private static long weight(LocalDate publishedOn) {
+        return publishedOn == null ? 0 : publishedOn.toEpochDay();
+    }
+}
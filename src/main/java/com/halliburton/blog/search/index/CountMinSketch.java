@@ -0,0 +1,93 @@
+package com.halliburton.blog.search.index;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch of string frequencies in fixed memory: {@code depth} rows of {@code width} counters,
+ * a key counting in one counter per row. The estimate, the smallest of its counters, never undercounts
+ * and overcounts by at most {@code e / width} of the total with probability {@code 1 - e^-depth}.
+ * The rows are indexed by double hashing of one 64-bit hash of the key. Lock free; counters are only
+ * ever incremented, as the conservative update that raises the smallest ones only would lose counts
+ * between concurrent additions.
+ */
+public class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counters;
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * @param width counters per row, a power of two
+     * @param depth number of rows
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || Integer.bitCount(width) != 1 || depth < 1) {
+            throw new IllegalArgumentException("width must be a power of two and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    /**
+     * Counts one occurrence of the key.
+     *
+     * @return the estimated count of the key, this occurrence included
+     */
+    public long add(String key) {
+        total.incrementAndGet();
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    public long estimate(String key) {
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Number of occurrences counted.
+     */
+    public long total() {
+        return total.get();
+    }
+
+    /**
+     * Overcount an estimate stays within with probability {@code 1 - e^-depth}.
+     */
+    public long errorBound() {
+        return (long) Math.ceil(Math.E / width * total.get());
+    }
+
+    private int index(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return row * width + ((h1 + row * h2) & (width - 1));
+    }
+
+    /**
+     * FNV-1a over the characters, finished with the MurmurHash3 mixer so every bit depends on every character.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
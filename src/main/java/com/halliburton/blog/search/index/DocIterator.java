@@ -0,0 +1,310 @@
+package com.halliburton.blog.search.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Iterates the posts matching a query in ascending post id order. Before the first
+ * {@link #advance(long)} the iterator is positioned on {@link Long#MIN_VALUE}, which is not a valid post id.
+ * Iterators combining others check for cancellation while they step over candidates, as a selective query
+ * may scan long posting lists between two matches.
+ */
+abstract class DocIterator {
+    static final long FIRST = Long.MIN_VALUE + 1;
+    static final long EXHAUSTED = Long.MAX_VALUE;
+
+    private int steps;
+
+    /**
+     * BM25 length normalization of a post: {@code K1 * (1 - B + B * length / averageLength)}.
+     */
+    @FunctionalInterface
+    interface LengthNorm {
+        double of(long docId);
+    }
+
+    /**
+     * @return current post id, {@link Long#MIN_VALUE} before the first advance, {@link #EXHAUSTED} after the last post
+     */
+    abstract long docId();
+
+    /**
+     * Moves to the first matching post with an id greater than or equal to the target,
+     * staying on the current post when it is not below the target.
+     *
+     * @return the new post id or {@link #EXHAUSTED}
+     */
+    abstract long advance(long target);
+
+    /**
+     * Upper bound of the number of matching posts, used to let the rarest clause lead a conjunction.
+     */
+    abstract long cost();
+
+    /**
+     * Score of the current post.
+     */
+    abstract double score();
+
+    /**
+     * Counts a candidate stepped over and checks every {@link InvertedIndex#CANCELLATION_CHECK_INTERVAL} of them
+     * whether the searching thread was interrupted.
+     *
+     * @throws CancellationException when it was, the interrupt status is kept
+     */
+    final void step() {
+        if ((++steps & InvertedIndex.CANCELLATION_CHECK_INTERVAL - 1) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Search interrupted after " + steps + " candidates");
+        }
+    }
+
+    static double bm25(double idf, double frequency, double lengthNorm) {
+        return idf * frequency * (InvertedIndex.K1 + 1) / (frequency + lengthNorm);
+    }
+
+    static final class Empty extends DocIterator {
+        private long docId = Long.MIN_VALUE;
+
+        @Override
+        long docId() {
+            return docId;
+        }
+
+        @Override
+        long advance(long target) {
+            docId = EXHAUSTED;
+            return EXHAUSTED;
+        }
+
+        @Override
+        long cost() {
+            return 0;
+        }
+
+        @Override
+        double score() {
+            return 0;
+        }
+    }
+
+    static final class TermIterator extends DocIterator {
+        final PostingList.Cursor cursor;
+        private final long cost;
+        private final double idf;
+        private final LengthNorm lengthNorm;
+        private long docId = Long.MIN_VALUE;
+
+        TermIterator(PostingList list, double idf, LengthNorm lengthNorm) {
+            this.cursor = list.cursor();
+            this.cost = list.size();
+            this.idf = idf;
+            this.lengthNorm = lengthNorm;
+        }
+
+        @Override
+        long docId() {
+            return docId;
+        }
+
+        @Override
+        long advance(long target) {
+            if (docId >= target) {
+                return docId;
+            }
+            docId = cursor.advance(target) ? cursor.docId() : EXHAUSTED;
+            return docId;
+        }
+
+        @Override
+        long cost() {
+            return cost;
+        }
+
+        @Override
+        double score() {
+            return bm25(idf, cursor.weight(), lengthNorm.of(docId));
+        }
+    }
+
+    /**
+     * Posts matching all required iterators and none of the excluded ones. The cheapest iterator leads and
+     * the others are advanced to its candidates, so every iterator jumps over the posts the others lack
+     * instead of visiting them.
+     */
+    static class Conjunction extends DocIterator {
+        final DocIterator[] required;
+        private final DocIterator[] excluded;
+        private long docId = Long.MIN_VALUE;
+
+        Conjunction(List<DocIterator> required, List<DocIterator> excluded) {
+            this.required = required.toArray(new DocIterator[0]);
+            Arrays.sort(this.required, Comparator.comparingLong(DocIterator::cost));
+            this.excluded = excluded.toArray(new DocIterator[0]);
+        }
+
+        @Override
+        long docId() {
+            return docId;
+        }
+
+        @Override
+        long advance(long target) {
+            if (docId >= target) {
+                return docId;
+            }
+            long candidate = required[0].advance(target);
+            candidates:
+            while (candidate != EXHAUSTED) {
+                step();
+                for (int i = 1; i < required.length; i++) {
+                    long found = required[i].advance(candidate);
+                    if (found != candidate) {
+                        candidate = found == EXHAUSTED ? EXHAUSTED : required[0].advance(found);
+                        continue candidates;
+                    }
+                }
+                for (DocIterator iterator : excluded) {
+                    if (iterator.advance(candidate) == candidate) {
+                        candidate = required[0].advance(candidate + 1);
+                        continue candidates;
+                    }
+                }
+                if (matches()) {
+                    break;
+                }
+                candidate = required[0].advance(candidate + 1);
+            }
+            docId = candidate;
+            return docId;
+        }
+
+        /**
+         * Further check of a post all iterators agree on.
+         */
+        boolean matches() {
+            return true;
+        }
+
+        @Override
+        long cost() {
+            return required[0].cost();
+        }
+
+        @Override
+        double score() {
+            double score = 0;
+            for (DocIterator iterator : required) {
+                score += iterator.score();
+            }
+            return score;
+        }
+    }
+
+    /**
+     * Posts containing the terms at consecutive positions. Candidates come from the conjunction of
+     * the terms, and only they have their positions decoded.
+     */
+    static final class Phrase extends Conjunction {
+        private final TermIterator[] terms;
+        private final double idf;
+        private final LengthNorm lengthNorm;
+        private int frequency;
+
+        Phrase(List<TermIterator> terms, double idf, LengthNorm lengthNorm) {
+            super(List.copyOf(terms), List.of());
+            this.terms = terms.toArray(new TermIterator[0]);
+            this.idf = idf;
+            this.lengthNorm = lengthNorm;
+        }
+
+        @Override
+        boolean matches() {
+            frequency = 0;
+            PostingList.Cursor first = terms[0].cursor;
+            int[] next = new int[terms.length];
+            occurrences:
+            for (int i = 0; i < first.frequency(); i++) {
+                int start = first.position(i);
+                for (int t = 1; t < terms.length; t++) {
+                    PostingList.Cursor cursor = terms[t].cursor;
+                    int wanted = start + t;
+                    while (next[t] < cursor.frequency() && cursor.position(next[t]) < wanted) {
+                        next[t]++;
+                    }
+                    if (next[t] == cursor.frequency()) {
+                        break occurrences;
+                    }
+                    if (cursor.position(next[t]) != wanted) {
+                        continue occurrences;
+                    }
+                }
+                frequency++;
+            }
+            return frequency > 0;
+        }
+
+        /**
+         * The phrase occurrences are counted with the average field boost of the first term in the post.
+         */
+        @Override
+        double score() {
+            PostingList.Cursor first = terms[0].cursor;
+            return bm25(idf, (double) frequency * first.weight() / first.frequency(), lengthNorm.of(docId()));
+        }
+    }
+
+    /**
+     * Posts matching any of the iterators, scored by the sum of the matching ones.
+     */
+    static final class Disjunction extends DocIterator {
+        private final DocIterator[] iterators;
+        private final long cost;
+        private long docId = Long.MIN_VALUE;
+
+        Disjunction(List<DocIterator> iterators) {
+            this.iterators = iterators.toArray(new DocIterator[0]);
+            long total = 0;
+            for (DocIterator iterator : iterators) {
+                total += iterator.cost();
+            }
+            this.cost = total;
+        }
+
+        @Override
+        long docId() {
+            return docId;
+        }
+
+        @Override
+        long advance(long target) {
+            if (docId >= target) {
+                return docId;
+            }
+            step();
+            long lowest = EXHAUSTED;
+            for (DocIterator iterator : iterators) {
+                lowest = Math.min(lowest, iterator.advance(target));
+            }
+            docId = lowest;
+            return docId;
+        }
+
+        @Override
+        long cost() {
+            return cost;
+        }
+
+        @Override
+        double score() {
+            double score = 0;
+            for (DocIterator iterator : iterators) {
+                if (iterator.docId() == docId) {
+                    score += iterator.score();
+                }
+            }
+            return score;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.halliburton.blog.search.index;
+
+import lombok.Value;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * Number of matching posts per facet value, each map ordered by descending count.
+ */
+@Value
+public class FacetCounts {
+    Map<String, Integer> authors;
+    Map<Long, Integer> blogIds;
+    Map<YearMonth, Integer> publishedMonths;
+}
@@ -0,0 +1,169 @@
+package com.halliburton.blog.search.index;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Column-oriented store of the facet values of posts: author, blog and month of publication. Every
+ * column keeps one int ordinal per post into a dictionary of its distinct values, so counting the facets
+ * of a set of matching posts is one array increment per post and column, without reading the posts.
+ * Safe for concurrent counts, writes are serialized.
+ */
+public class FacetStore {
+    private final LongIntHashMap rows = new LongIntHashMap();
+    private final Deque<Integer> freeRows = new ArrayDeque<>();
+    private final Column<String> authors = new Column<>();
+    private final Column<Long> blogIds = new Column<>();
+    private final Column<YearMonth> months = new Column<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Column<T extends Comparable<T>> {
+        private static final int MISSING = -1;
+
+        private final List<T> values = new ArrayList<>();
+        private final Map<T, Integer> ordinals = new HashMap<>();
+        private int[] rows = new int[16];
+
+        private void set(int row, T value) {
+            if (row >= rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(rows.length << 1, row + 1));
+            }
+            rows[row] = value == null ? MISSING : ordinals.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        private void count(int row, int[] counts) {
+            int ordinal = rows[row];
+            if (ordinal != MISSING) {
+                counts[ordinal]++;
+            }
+        }
+
+        /**
+         * @return the values counted at least once, by descending count and then ascending value
+         */
+        private Map<T, Integer> top(int[] counts, int limit) {
+            List<Integer> counted = new ArrayList<>();
+            for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+                if (counts[ordinal] > 0) {
+                    counted.add(ordinal);
+                }
+            }
+            counted.sort(Comparator.<Integer>comparingInt(ordinal -> counts[ordinal]).reversed()
+                    .thenComparing(values::get));
+
+            Map<T, Integer> top = new LinkedHashMap<>();
+            for (int ordinal : counted.subList(0, Math.min(limit, counted.size()))) {
+                top.put(values.get(ordinal), counts[ordinal]);
+            }
+            return top;
+        }
+
+        private void clear() {
+            values.clear();
+            ordinals.clear();
+            rows = new int[16];
+        }
+    }
+
+    /**
+     * Adds the post or replaces its values. Null values are not counted.
+     */
+    public void put(long docId, String author, Long blogId, LocalDate publishedOn) {
+        lock.writeLock().lock();
+        try {
+            int row = rows.get(docId, -1);
+            if (row < 0) {
+                row = freeRows.isEmpty() ? rows.size() : freeRows.pop();
+                rows.put(docId, row, -1);
+            }
+            authors.set(row, author);
+            blogIds.set(row, blogId);
+            months.set(row, publishedOn == null ? null : YearMonth.from(publishedOn));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true when the post was in the store
+     */
+    public boolean remove(long docId) {
+        lock.writeLock().lock();
+        try {
+            int row = rows.remove(docId, -1);
+            if (row < 0) {
+                return false;
+            }
+            freeRows.push(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            rows.clear();
+            freeRows.clear();
+            authors.clear();
+            blogIds.clear();
+            months.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the facet values of the posts a search passes to the consumer it is given, while it runs,
+     * so the matches are counted in the same pass that ranks them. Posts not in the store are ignored.
+     *
+     * @param search runs the search, passing every matching post id to the consumer
+     * @param limit  maximum number of values per facet
+     */
+    public FacetCounts count(Consumer<LongConsumer> search, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] authorCounts = new int[authors.values.size()];
+            int[] blogIdCounts = new int[blogIds.values.size()];
+            int[] monthCounts = new int[months.values.size()];
+            search.accept(docId -> {
+                int row = rows.get(docId, -1);
+                if (row >= 0) {
+                    authors.count(row, authorCounts);
+                    blogIds.count(row, blogIdCounts);
+                    months.count(row, monthCounts);
+                }
+            });
+            return new FacetCounts(authors.top(authorCounts, limit), blogIds.top(blogIdCounts, limit),
+                    months.top(monthCounts, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.halliburton.blog.search.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Finds the dictionary terms within a small edit distance of a query term. Terms are indexed by their
+ * trigrams, with {@code $} marking the word boundaries: an edit touches at most four trigrams of a word
+ * (a transposition of two letters), so a term within distance d shares all but 4d of the query's distinct
+ * trigrams, and only terms sharing that many are compared. A repeated trigram counts once on both sides. Short query terms, for which that bound prunes nothing,
+ * are compared with the terms of similar length only. The comparison is a banded edit distance that
+ * gives up as soon as the distance exceeds the limit.
+ * <p>
+ * Not thread safe, guarded by the lock of the owning {@link InvertedIndex}.
+ */
+class FuzzyTermIndex {
+    private static final int TRIGRAM_LOSS_PER_EDIT = 4;
+
+    private final List<String> terms = new ArrayList<>();
+    private final Map<String, IntList> trigrams = new HashMap<>();
+    private final List<IntList> termsByLength = new ArrayList<>();
+
+    static final class Match {
+        final int termId;
+        final int distance;
+
+        Match(int termId, int distance) {
+            this.termId = termId;
+            this.distance = distance;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Edit distance tolerated for a query term: none up to 2 characters, 1 up to 5 and 2 above.
+     */
+    static int maxEdits(String term) {
+        return term.length() <= 2 ? 0 : term.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Registers a new dictionary term; term ids are assigned sequentially from 0.
+     */
+    void add(String term, int termId) {
+        if (termId != terms.size()) {
+            throw new IllegalArgumentException("Term ids must be registered in order");
+        }
+        terms.add(term);
+        for (String trigram : trigramsOf(term)) {
+            trigrams.computeIfAbsent(trigram, key -> new IntList()).add(termId);
+        }
+        while (termsByLength.size() <= term.length()) {
+            termsByLength.add(new IntList());
+        }
+        termsByLength.get(term.length()).add(termId);
+    }
+
+    String term(int termId) {
+        return terms.get(termId);
+    }
+
+    void clear() {
+        terms.clear();
+        trigrams.clear();
+        termsByLength.clear();
+    }
+
+    /**
+     * @return terms within the edit distance, the term itself included when it is in the dictionary
+     */
+    List<Match> lookup(String term, int maxEdits) {
+        List<Match> matches = new ArrayList<>();
+        forEachCandidate(term, maxEdits, termId -> verify(term, termId, maxEdits, matches));
+        return matches;
+    }
+
+    /**
+     * Number of terms the edit distance is computed for by a lookup, which the trigram filter keeps low.
+     */
+    int candidateCount(String term, int maxEdits) {
+        int[] candidates = new int[1];
+        forEachCandidate(term, maxEdits, termId -> candidates[0]++);
+        return candidates[0];
+    }
+
+    private void forEachCandidate(String term, int maxEdits, IntConsumer candidate) {
+        Set<String> queryTrigrams = trigramsOf(term);
+        int minShared = queryTrigrams.size() - TRIGRAM_LOSS_PER_EDIT * maxEdits;
+        if (minShared <= 0) {
+            int from = Math.max(0, term.length() - maxEdits);
+            int to = Math.min(termsByLength.size() - 1, term.length() + maxEdits);
+            for (int length = from; length <= to; length++) {
+                IntList candidates = termsByLength.get(length);
+                for (int i = 0; i < candidates.size; i++) {
+                    candidate.accept(candidates.values[i]);
+                }
+            }
+            return;
+        }
+
+        // lookups run concurrently under the read lock, so the counters are per lookup
+        LongIntHashMap sharedTrigrams = new LongIntHashMap();
+        for (String trigram : queryTrigrams) {
+            IntList termIds = trigrams.get(trigram);
+            if (termIds == null) {
+                continue;
+            }
+            for (int i = 0; i < termIds.size; i++) {
+                int termId = termIds.values[i];
+                sharedTrigrams.put(termId, sharedTrigrams.get(termId, 0) + 1, 0);
+            }
+        }
+        sharedTrigrams.forEach((termId, shared) -> {
+            if (shared >= minShared && Math.abs(terms.get((int) termId).length() - term.length()) <= maxEdits) {
+                candidate.accept((int) termId);
+            }
+        });
+    }
+
+    private void verify(String term, int termId, int maxEdits, List<Match> matches) {
+        int distance = distance(term, terms.get(termId), maxEdits);
+        if (distance <= maxEdits) {
+            matches.add(new Match(termId, distance));
+        }
+    }
+
+    /**
+     * Optimal string alignment distance: insertions, deletions, substitutions and transpositions of
+     * adjacent characters. Only cells within {@code max} of the diagonal are computed.
+     *
+     * @return the distance, or {@code max + 1} when it is larger than {@code max}
+     */
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int outside = max + 1;
+        int[] beforePrevious = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= max ? j : outside;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            Arrays.fill(current, outside);
+            if (i <= max) {
+                current[0] = i;
+            }
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            int rowMinimum = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = Math.min(value, outside);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > max) {
+                return outside;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m];
+    }
+
+    /**
+     * Distinct trigrams of the term, in order of first occurrence.
+     */
+    private static Set<String> trigramsOf(String term) {
+        String padded = "$" + term + "$";
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+}
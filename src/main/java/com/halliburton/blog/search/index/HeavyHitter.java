@@ -0,0 +1,16 @@
+package com.halliburton.blog.search.index;
+
+import lombok.Value;
+
+/**
+ * One of the most frequent keys of {@link HeavyHitters}, with the latencies recorded since it became one.
+ */
+@Value
+public class HeavyHitter {
+    String key;
+    /* Count-Min estimate, never below the true count */
+    long count;
+    long latencySamples;
+    long p50Micros;
+    long p99Micros;
+}
@@ -0,0 +1,101 @@
+package com.halliburton.blog.search.index;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The most frequent keys of a stream and their latencies, in memory independent of the number of
+ * distinct keys. Every key is counted in a {@link CountMinSketch}; the {@code capacity} keys with the
+ * highest estimates are tracked, each with a {@link LatencyHistogram}. A key whose estimate exceeds the
+ * smallest tracked one replaces it, inheriting nothing but the estimate.
+ * <p>
+ * Recording a tracked key or a key below the smallest tracked estimate is lock free; only a replacement
+ * takes a lock, and becomes rare once the tracked estimates grow.
+ */
+public class HeavyHitters {
+    private final int capacity;
+    private final CountMinSketch sketch;
+    /* tracked keys and their latencies; their counts are read from the sketch */
+    private final Map<String, LatencyHistogram> tracked = new ConcurrentHashMap<>();
+    /* smallest estimate among the tracked keys when last computed, may be stale but never too high */
+    private volatile long minimum;
+
+    public HeavyHitters(int capacity, int sketchWidth, int sketchDepth) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+    }
+
+    public void record(String key, long latencyMicros) {
+        long estimate = sketch.add(key);
+        LatencyHistogram latencies = tracked.get(key);
+        if (latencies == null) {
+            if (tracked.size() >= capacity && estimate <= minimum) {
+                return;
+            }
+            latencies = admit(key, estimate);
+            if (latencies == null) {
+                return;
+            }
+        }
+        latencies.record(latencyMicros);
+    }
+
+    private synchronized LatencyHistogram admit(String key, long estimate) {
+        LatencyHistogram latencies = tracked.get(key);
+        if (latencies != null) {
+            return latencies;
+        }
+        if (tracked.size() >= capacity) {
+            String smallest = null;
+            long smallestCount = Long.MAX_VALUE;
+            for (String candidate : tracked.keySet()) {
+                long count = sketch.estimate(candidate);
+                if (count < smallestCount) {
+                    smallest = candidate;
+                    smallestCount = count;
+                }
+            }
+            minimum = smallestCount;
+            if (estimate <= smallestCount) {
+                return null;
+            }
+            tracked.remove(smallest);
+        }
+        latencies = new LatencyHistogram();
+        tracked.put(key, latencies);
+        return latencies;
+    }
+
+    /**
+     * @return tracked keys, most frequent first
+     */
+    public List<HeavyHitter> top(int limit) {
+        return tracked.entrySet().stream()
+                .map(entry -> new HeavyHitter(entry.getKey(), sketch.estimate(entry.getKey()),
+                        entry.getValue().count(), entry.getValue().percentile(50), entry.getValue().percentile(99)))
+                .sorted(Comparator.comparingLong(HeavyHitter::getCount).reversed()
+                        .thenComparing(HeavyHitter::getKey))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Number of keys recorded.
+     */
+    public long total() {
+        return sketch.total();
+    }
+
+    /**
+     * Overcount of the estimates, see {@link CountMinSketch#errorBound()}.
+     */
+    public long errorBound() {
+        return sketch.errorBound();
+    }
+}
@@ -0,0 +1,171 @@
+package com.halliburton.blog.search.index;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cuts a short snippet out of a post around the terms a query matches, with the matches marked by
+ * {@link #MATCH_START} and {@link #MATCH_END}. The text is tokenized with the {@link Tokenizer} used for
+ * indexing, so the term offsets it reports mark exactly the tokens the index matched. Built once per
+ * search and applied to the returned page only. Text outside the marks is HTML-escaped.
+ * <p>
+ * Also tells which changed posts may affect the results of the query, see {@link #matchesAny(Set)}.
+ */
+public class Highlighter {
+    public static final String MATCH_START = "<em>";
+    public static final String MATCH_END = "</em>";
+    public static final String ELLIPSIS = "…";
+
+    private final Set<String> terms = new HashSet<>();
+    private final List<Query.FuzzyTerm> fuzzyTerms = new ArrayList<>();
+
+    /**
+     * @param query parsed query, may be null for a query without terms to mark
+     */
+    public Highlighter(Query query) {
+        collect(query);
+    }
+
+    private void collect(Query query) {
+        if (query instanceof Query.Term) {
+            terms.add(((Query.Term) query).getTerm());
+        } else if (query instanceof Query.FuzzyTerm) {
+            fuzzyTerms.add((Query.FuzzyTerm) query);
+        } else if (query instanceof Query.Phrase) {
+            terms.addAll(((Query.Phrase) query).getTerms());
+        } else if (query instanceof Query.And) {
+            // excluded terms never occur in a match
+            ((Query.And) query).getRequired().forEach(this::collect);
+        } else if (query instanceof Query.Or) {
+            ((Query.Or) query).getQueries().forEach(this::collect);
+        }
+    }
+
+    /**
+     * Snippet of at most {@code maxLength} characters of the text, plus the marks and ellipses. The window
+     * is the one holding the most matches, centered on them, and does not cut words; without matches,
+     * the start of the text.
+     */
+    public String snippet(String text, int maxLength) {
+        if (text == null) {
+            return null;
+        }
+        List<int[]> matches = new ArrayList<>();
+        Tokenizer.tokenize(text, (term, position, start, end) -> {
+            if (matches(term)) {
+                matches.add(new int[]{start, end});
+            }
+        });
+
+        int from = 0;
+        if (!matches.isEmpty()) {
+            int best = 0;
+            int bestCount = 0;
+            int last = 0;
+            for (int first = 0; first < matches.size(); first++) {
+                last = Math.max(last, first);
+                while (last + 1 < matches.size() && matches.get(last + 1)[1] - matches.get(first)[0] <= maxLength) {
+                    last++;
+                }
+                if (last - first + 1 > bestCount) {
+                    best = first;
+                    bestCount = last - first + 1;
+                }
+            }
+            int spanStart = matches.get(best)[0];
+            int spanEnd = matches.get(best + bestCount - 1)[1];
+            from = Math.max(0, spanStart - Math.max(0, maxLength - (spanEnd - spanStart)) / 2);
+        }
+        while (from > 0 && from < text.length() && Character.isLetterOrDigit(text.charAt(from - 1))
+                && Character.isLetterOrDigit(text.charAt(from))) {
+            from++;
+        }
+        int to = Math.min(text.length(), from + maxLength);
+        while (to < text.length() && to > from && Character.isLetterOrDigit(text.charAt(to - 1))
+                && Character.isLetterOrDigit(text.charAt(to))) {
+            to--;
+        }
+        while (from < to && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+            to--;
+        }
+
+        StringBuilder snippet = new StringBuilder(to - from + 32);
+        if (from > 0) {
+            snippet.append(ELLIPSIS);
+        }
+        int written = from;
+        for (int[] match : matches) {
+            if (match[0] >= from && match[1] <= to) {
+                escape(text, written, match[0], snippet);
+                snippet.append(MATCH_START);
+                escape(text, match[0], match[1], snippet);
+                snippet.append(MATCH_END);
+                written = match[1];
+            }
+        }
+        escape(text, written, to, snippet);
+        if (to < text.length()) {
+            snippet.append(ELLIPSIS);
+        }
+        return snippet.toString();
+    }
+
+    /**
+     * Whether a post with these terms may match the query now: it contains a term the query does not
+     * exclude, or a misspelling of a fuzzy term.
+     */
+    public boolean matchesAny(Set<String> postTerms) {
+        for (String term : terms) {
+            if (postTerms.contains(term)) {
+                return true;
+            }
+        }
+        if (!fuzzyTerms.isEmpty()) {
+            for (String term : postTerms) {
+                if (matches(term)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean matches(String term) {
+        if (terms.contains(term)) {
+            return true;
+        }
+        for (Query.FuzzyTerm fuzzyTerm : fuzzyTerms) {
+            if (FuzzyTermIndex.distance(term, fuzzyTerm.getTerm(), fuzzyTerm.getMaxEdits()) <= fuzzyTerm.getMaxEdits()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void escape(String text, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '"':
+                    out.append("&quot;");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+}
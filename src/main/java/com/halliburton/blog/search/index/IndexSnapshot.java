@@ -0,0 +1,72 @@
+package com.halliburton.blog.search.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Index saved to a file, so a restart maps the file instead of tokenizing every post again.
+ * The file starts with a magic number and a format version; files of another version are ignored
+ * and the index is rebuilt from the database.
+ */
+@Getter
+@AllArgsConstructor
+public class IndexSnapshot {
+    static final int MAGIC = 0x424C4958;
+    static final int VERSION = 4;
+
+    private final InvertedIndex index;
+    /* every post change made before this moment is in the index */
+    private final Instant asOf;
+
+    /**
+     * Writes the snapshot next to the target first and then moves it in place,
+     * so a crash never leaves a half written snapshot behind.
+     */
+    public static void write(InvertedIndex index, Instant asOf, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(asOf.toEpochMilli());
+                index.writeTo(out);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @return the snapshot, or empty when there is no file or it has another format version
+     */
+    public static Optional<IndexSnapshot> read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Optional.empty();
+            }
+            Instant asOf = Instant.ofEpochMilli(buffer.getLong());
+            return Optional.of(new IndexSnapshot(InvertedIndex.readFrom(buffer), asOf));
+        }
+    }
+}
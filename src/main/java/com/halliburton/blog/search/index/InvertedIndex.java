@@ -0,0 +1,722 @@
+package com.halliburton.blog.search.index;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory inverted index of posts ranked with BM25F: a term occurrence counts as many times as the
+ * boost of its field, both in the term frequency and in the length of the post, so a title hit outranks
+ * a body hit. A post is searchable by all of its fields; queries combine terms and phrases with AND,
+ * OR and NOT, see {@link QueryParser}.
+ * Safe for concurrent searches, writes are serialized.
+ */
+public class InvertedIndex {
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    /* matches scored, or candidates a conjunction or disjunction steps over, between two checks whether the
+       searching thread was interrupted, a power of two */
+    static final int CANCELLATION_CHECK_INTERVAL = 1024;
+    /* most similar dictionary terms a fuzzy term is expanded to */
+    static final int MAX_FUZZY_EXPANSIONS = 64;
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<PostingList> postings = new ArrayList<>();
+    private final FuzzyTermIndex fuzzyTerms = new FuzzyTermIndex();
+    /* per indexed post: slot in the arrays below */
+    private final LongIntHashMap docSlots = new LongIntHashMap();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int[] docLengths = new int[16];
+    private int[][] docTermIds = new int[16][];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+
+    /**
+     * Tokenized post, ready to be put into the index. Tokenizing does not need the index lock,
+     * so writers prepare documents first and hold the lock only to link them in.
+     * Positions continue from one field to the next after a gap, so phrases never span two fields.
+     */
+    public static class Document {
+        static final int FIELD_POSITION_GAP = 100;
+
+        private final long docId;
+        private final Map<String, Occurrences> occurrences = new HashMap<>();
+        private int length;
+
+        /**
+         * Document whose fields all have a boost of 1.
+         */
+        public Document(long docId, String... fields) {
+            this(docId, null, fields);
+        }
+
+        /**
+         * @param boosts boost of every field, at least 1, or null for a boost of 1 everywhere
+         */
+        public Document(long docId, int[] boosts, String... fields) {
+            if (boosts != null && boosts.length != fields.length) {
+                throw new IllegalArgumentException("Every field needs a boost");
+            }
+            this.docId = docId;
+            int offset = 0;
+            for (int i = 0; i < fields.length; i++) {
+                int base = offset;
+                int boost = boosts == null ? 1 : boosts[i];
+                if (boost < 1) {
+                    throw new IllegalArgumentException("Field boosts must be positive");
+                }
+                int tokens = Tokenizer.tokenize(fields[i], (term, position, start, end) ->
+                        occurrences.computeIfAbsent(term, key -> new Occurrences()).add(base + position, boost));
+                length += tokens * boost;
+                offset += tokens + FIELD_POSITION_GAP;
+            }
+        }
+
+        public long getDocId() {
+            return docId;
+        }
+    }
+
+    private static final class Occurrences {
+        private int[] positions = new int[2];
+        private int count;
+        private int weight;
+
+        private void add(int position, int boost) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count << 1);
+            }
+            positions[count++] = position;
+            weight += boost;
+        }
+    }
+
+    /**
+     * Indexes a post that is not in the index yet.
+     */
+    public void add(long docId, String... fields) {
+        add(new Document(docId, fields));
+    }
+
+    /**
+     * Indexes a document that is not in the index yet.
+     */
+    public void add(Document document) {
+        lock.writeLock().lock();
+        try {
+            if (docSlots.containsKey(document.docId)) {
+                throw new IllegalStateException("Post with id = " + document.docId + " is already indexed");
+            }
+            link(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the post or replaces its previous version.
+     */
+    public void put(long docId, String... fields) {
+        update(List.of(new Document(docId, fields)), List.of());
+    }
+
+    /**
+     * @return true when the post was indexed
+     */
+    public boolean remove(long docId) {
+        lock.writeLock().lock();
+        try {
+            return unlink(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a batch of changes under one write lock: removals first, then new versions of posts.
+     */
+    public void update(List<Document> documents, List<Long> removedDocIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long docId : removedDocIds) {
+                unlink(docId);
+            }
+            for (Document document : documents) {
+                unlink(document.docId);
+                link(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            termIds.clear();
+            postings.clear();
+            fuzzyTerms.clear();
+            docSlots.clear();
+            freeSlots.clear();
+            docLengths = new int[16];
+            docTermIds = new int[16][];
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves all posts of an index built separately into this one, so several threads can each index a
+     * range of posts and merge their segments. Every post id of the other index must be greater than
+     * the post ids here; the other index must not be used afterwards.
+     */
+    public void merge(InvertedIndex other) {
+        lock.writeLock().lock();
+        other.lock.writeLock().lock();
+        try {
+            int[] remapped = new int[other.postings.size()];
+            other.termIds.forEach((term, otherTermId) -> {
+                int termId = termId(term);
+                postings.get(termId).appendAll(other.postings.get(otherTermId));
+                remapped[otherTermId] = termId;
+            });
+
+            other.docSlots.forEach((docId, otherSlot) -> {
+                int[] ids = other.docTermIds[otherSlot];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = remapped[ids[i]];
+                }
+                int slot = allocateSlot();
+                docSlots.put(docId, slot, -1);
+                docLengths[slot] = other.docLengths[otherSlot];
+                docTermIds[slot] = ids;
+            });
+            totalLength += other.totalLength;
+        } finally {
+            other.lock.writeLock().unlock();
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(Document document) {
+        int[] ids = new int[document.occurrences.size()];
+        int i = 0;
+        for (Map.Entry<String, Occurrences> entry : document.occurrences.entrySet()) {
+            int termId = termId(entry.getKey());
+            Occurrences occurrences = entry.getValue();
+            postings.get(termId).put(document.docId, occurrences.positions, occurrences.count, occurrences.weight);
+            ids[i++] = termId;
+        }
+
+        int slot = allocateSlot();
+        docSlots.put(document.docId, slot, -1);
+        docLengths[slot] = document.length;
+        docTermIds[slot] = ids;
+        totalLength += document.length;
+    }
+
+    private int termId(String term) {
+        Integer termId = termIds.get(term);
+        if (termId == null) {
+            termId = postings.size();
+            termIds.put(term, termId);
+            postings.add(new PostingList());
+            fuzzyTerms.add(term, termId);
+        }
+        return termId;
+    }
+
+    private int allocateSlot() {
+        int slot = freeSlots.isEmpty() ? docSlots.size() : freeSlots.pop();
+        if (slot == docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, slot << 1);
+            docTermIds = Arrays.copyOf(docTermIds, slot << 1);
+        }
+        return slot;
+    }
+
+    private boolean unlink(long docId) {
+        int slot = docSlots.remove(docId, -1);
+        if (slot < 0) {
+            return false;
+        }
+        for (int termId : docTermIds[slot]) {
+            postings.get(termId).remove(docId);
+        }
+        totalLength -= docLengths[slot];
+        docTermIds[slot] = null;
+        freeSlots.push(slot);
+        return true;
+    }
+
+    /**
+     * Writes the index in the snapshot format read by {@link #readFrom(ByteBuffer)}.
+     * Holds the read lock, so searches go on while the index is written.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            String[] terms = new String[termIds.size()];
+            termIds.forEach((term, termId) -> terms[termId] = term);
+            out.writeInt(terms.length);
+            for (int termId = 0; termId < terms.length; termId++) {
+                writeUtf(out, terms[termId]);
+                postings.get(termId).writeTo(out);
+            }
+
+            out.writeInt(docSlots.size());
+            out.writeLong(totalLength);
+            IOException[] failure = new IOException[1];
+            docSlots.forEach((docId, slot) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    out.writeLong(docId);
+                    out.writeInt(docLengths[slot]);
+                    out.writeInt(docTermIds[slot].length);
+                    for (int termId : docTermIds[slot]) {
+                        out.writeInt(termId);
+                    }
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static InvertedIndex readFrom(ByteBuffer buffer) {
+        InvertedIndex index = new InvertedIndex();
+        int termCount = buffer.getInt();
+        for (int termId = 0; termId < termCount; termId++) {
+            String term = readUtf(buffer);
+            index.termIds.put(term, termId);
+            index.postings.add(PostingList.readFrom(buffer));
+            index.fuzzyTerms.add(term, termId);
+        }
+
+        int documents = buffer.getInt();
+        index.totalLength = buffer.getLong();
+        index.docLengths = new int[Math.max(16, documents)];
+        index.docTermIds = new int[Math.max(16, documents)][];
+        for (int slot = 0; slot < documents; slot++) {
+            index.docSlots.put(buffer.getLong(), slot, -1);
+            index.docLengths[slot] = buffer.getInt();
+            int[] ids = new int[buffer.getInt()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = buffer.getInt();
+            }
+            index.docTermIds[slot] = ids;
+        }
+        return index;
+    }
+
+    /**
+     * Writes the term as plain UTF-8 after its length in bytes. Unlike {@link DataOutput#writeUTF(String)},
+     * which writes modified UTF-8, this keeps NUL and supplementary characters as {@link #readUtf} decodes them.
+     */
+    private static void writeUtf(DataOutput out, String term) throws IOException {
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readUtf(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ids of all indexed posts.
+     */
+    public long[] docIds() {
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[docSlots.size()];
+            int[] next = {0};
+            docSlots.forEach((docId, slot) -> ids[next[0]++] = docId);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the best posts matching the query, see {@link QueryParser} for the syntax.
+     *
+     * @param k        maximum number of posts to return
+     * @param minScore posts with a lower score are skipped
+     * @return posts ranked by descending score
+     */
+    public ScoredDoc[] search(String query, int k, double minScore) {
+        return search(query, false, k, minScore);
+    }
+
+    /**
+     * @param fuzzy when true, query terms also match misspellings of them
+     */
+    public ScoredDoc[] search(String query, boolean fuzzy, int k, double minScore) {
+        return search(query, fuzzy, k, minScore, null);
+    }
+
+    /**
+     * @param matches receives every post scoring at least {@code minScore}, not only the best k, may be null
+     */
+    public ScoredDoc[] search(String query, boolean fuzzy, int k, double minScore, LongConsumer matches) {
+        Query parsed = QueryParser.parse(query, fuzzy);
+        return parsed == null ? new ScoredDoc[0]
+                : search(parsed, Long.MIN_VALUE, Long.MAX_VALUE, k, minScore, matches);
+    }
+
+    public ScoredDoc[] search(Query query, int k, double minScore) {
+        return search(query, Long.MIN_VALUE, Long.MAX_VALUE, k, minScore, null);
+    }
+
+    /**
+     * Searches the posts with ids in a range only. Iterators start at the lower end and the search
+     * stops at the upper end, so the posts outside the range are never scored.
+     * A search is cancelled cooperatively by interrupting its thread.
+     *
+     * @param fromDocId lowest post id searched
+     * @param toDocId   highest post id searched
+     * @param matches   receives every post scoring at least {@code minScore}, not only the best k, may be null
+     * @throws CancellationException when the thread was interrupted, the interrupt status is kept
+     */
+    public ScoredDoc[] search(Query query, long fromDocId, long toDocId, int k, double minScore,
+                              LongConsumer matches) {
+        lock.readLock().lock();
+        try {
+            int documents = docSlots.size();
+            double averageLength = documents == 0 ? 0 : (double) totalLength / documents;
+            DocIterator.LengthNorm lengthNorm = docId ->
+                    K1 * (1 - B + B * docLengths[docSlots.get(docId, 0)] / averageLength);
+            DocIterator iterator = iterator(query, lengthNorm);
+
+            TopKHeap heap = new TopKHeap(k);
+            int visited = 0;
+            for (long docId = iterator.advance(Math.max(fromDocId, DocIterator.FIRST));
+                 docId != DocIterator.EXHAUSTED && docId <= toDocId; docId = iterator.advance(docId + 1)) {
+                if ((++visited & CANCELLATION_CHECK_INTERVAL - 1) == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Search interrupted after " + visited + " matches");
+                }
+                double score = iterator.score();
+                if (score >= minScore) {
+                    heap.offer(docId, score);
+                    if (matches != null) {
+                        matches.accept(docId);
+                    }
+                }
+            }
+            return heap.drainRanked();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private DocIterator iterator(Query query, DocIterator.LengthNorm lengthNorm) {
+        if (query instanceof Query.Term) {
+            return termIterator(((Query.Term) query).getTerm(), lengthNorm);
+        }
+        if (query instanceof Query.FuzzyTerm) {
+            return fuzzyIterator((Query.FuzzyTerm) query, lengthNorm);
+        }
+        if (query instanceof Query.Phrase) {
+            List<DocIterator.TermIterator> terms = new ArrayList<>();
+            double idf = 0;
+            for (String term : ((Query.Phrase) query).getTerms()) {
+                DocIterator iterator = termIterator(term, lengthNorm);
+                if (!(iterator instanceof DocIterator.TermIterator)) {
+                    return iterator;
+                }
+                terms.add((DocIterator.TermIterator) iterator);
+                idf += idf(docSlots.size(), (int) iterator.cost());
+            }
+            return new DocIterator.Phrase(terms, idf, lengthNorm);
+        }
+        if (query instanceof Query.And) {
+            Query.And and = (Query.And) query;
+            List<DocIterator> required = new ArrayList<>();
+            for (Query clause : new LinkedHashSet<>(and.getRequired())) {
+                DocIterator iterator = iterator(clause, lengthNorm);
+                if (iterator.cost() == 0) {
+                    return iterator;
+                }
+                required.add(iterator);
+            }
+            List<DocIterator> excluded = new ArrayList<>();
+            for (Query clause : and.getExcluded()) {
+                DocIterator iterator = iterator(clause, lengthNorm);
+                if (iterator.cost() > 0) {
+                    excluded.add(iterator);
+                }
+            }
+            return required.size() == 1 && excluded.isEmpty() ? required.get(0)
+                    : new DocIterator.Conjunction(required, excluded);
+        }
+
+        List<DocIterator> alternatives = new ArrayList<>();
+        for (Query clause : new LinkedHashSet<>(((Query.Or) query).getQueries())) {
+            DocIterator iterator = iterator(clause, lengthNorm);
+            if (iterator.cost() > 0) {
+                alternatives.add(iterator);
+            }
+        }
+        if (alternatives.isEmpty()) {
+            return new DocIterator.Empty();
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new DocIterator.Disjunction(alternatives);
+    }
+
+    /**
+     * Disjunction of the dictionary terms similar to the fuzzy term. A term {@code d} edits away
+     * scores {@code 1 / (1 + d)} of an exact match.
+     */
+    private DocIterator fuzzyIterator(Query.FuzzyTerm query, DocIterator.LengthNorm lengthNorm) {
+        List<FuzzyTermIndex.Match> matches = fuzzyTerms.lookup(query.getTerm(), query.getMaxEdits());
+        matches.removeIf(match -> postings.get(match.termId).size() == 0);
+        matches.sort(Comparator.<FuzzyTermIndex.Match>comparingInt(match -> match.distance)
+                .thenComparing(Comparator.comparingInt(
+                        (FuzzyTermIndex.Match match) -> postings.get(match.termId).size()).reversed()));
+
+        List<DocIterator> alternatives = new ArrayList<>();
+        for (FuzzyTermIndex.Match match : matches.subList(0, Math.min(MAX_FUZZY_EXPANSIONS, matches.size()))) {
+            PostingList list = postings.get(match.termId);
+            double idf = idf(docSlots.size(), list.size()) / (1 + match.distance);
+            alternatives.add(new DocIterator.TermIterator(list, idf, lengthNorm));
+        }
+        if (alternatives.isEmpty()) {
+            return new DocIterator.Empty();
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new DocIterator.Disjunction(alternatives);
+    }
+
+    /**
+     * Replacement of a misspelled word of a query text.
+     */
+    private static final class Correction {
+        private final String term;
+        private final int distance;
+        private final double logFrequency;
+
+        private Correction(String term, int distance, int documentFrequency) {
+            this.term = term;
+            this.distance = distance;
+            this.logFrequency = Math.log(documentFrequency);
+        }
+    }
+
+    /**
+     * Spelling corrections of a query text: every word that is not an indexed term is replaced by one within
+     * {@link FuzzyTermIndex#maxEdits(String)} edits, found in the precomputed trigram index of the term
+     * dictionary. Corrections of several words are combined best first with a beam of {@code limit}
+     * combinations, so this costs a dictionary lookup per misspelled word. Operators and the rest of the
+     * text are kept as they are.
+     *
+     * @param limit maximum number of corrected texts
+     * @return corrected texts, fewest edits first, then with the most frequent terms; none when every word
+     * is indexed or no word has a correction
+     */
+    public List<String> suggestSpellings(String text, int limit) {
+        List<int[]> words = new ArrayList<>();
+        List<List<Correction>> corrections = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Tokenizer.tokenize(text, (term, position, start, end) -> {
+                String word = text.substring(start, end);
+                Integer termId = termIds.get(term);
+                if (word.equals("AND") || word.equals("OR") || word.equals("NOT")
+                        || termId != null && postings.get(termId).size() > 0) {
+                    return;
+                }
+                List<Correction> candidates = new ArrayList<>();
+                for (FuzzyTermIndex.Match match : fuzzyTerms.lookup(term, FuzzyTermIndex.maxEdits(term))) {
+                    int documentFrequency = postings.get(match.termId).size();
+                    if (documentFrequency > 0) {
+                        candidates.add(new Correction(fuzzyTerms.term(match.termId), match.distance,
+                                documentFrequency));
+                    }
+                }
+                if (!candidates.isEmpty()) {
+                    candidates.sort(Comparator.<Correction>comparingInt(candidate -> candidate.distance)
+                            .thenComparing(Comparator.<Correction>comparingDouble(
+                                    candidate -> candidate.logFrequency).reversed())
+                            .thenComparing(candidate -> candidate.term));
+                    words.add(new int[]{start, end});
+                    corrections.add(candidates.subList(0, Math.min(limit, candidates.size())));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        // a combination is the chosen correction of each word so far
+        Comparator<Correction[]> byRank = Comparator.<Correction[]>comparingInt(
+                        combination -> Arrays.stream(combination).mapToInt(correction -> correction.distance).sum())
+                .thenComparing(Comparator.<Correction[]>comparingDouble(combination -> Arrays.stream(combination)
+                        .mapToDouble(correction -> correction.logFrequency).sum()).reversed());
+        List<Correction[]> beam = List.<Correction[]>of(new Correction[0]);
+        for (List<Correction> candidates : corrections) {
+            List<Correction[]> expanded = new ArrayList<>(beam.size() * candidates.size());
+            for (Correction[] combination : beam) {
+                for (Correction candidate : candidates) {
+                    Correction[] next = Arrays.copyOf(combination, combination.length + 1);
+                    next[combination.length] = candidate;
+                    expanded.add(next);
+                }
+            }
+            expanded.sort(byRank);
+            beam = expanded.subList(0, Math.min(limit, expanded.size()));
+        }
+
+        List<String> suggestions = new ArrayList<>(beam.size());
+        for (Correction[] combination : beam) {
+            StringBuilder suggestion = new StringBuilder(text.length());
+            int copied = 0;
+            for (int word = 0; word < combination.length; word++) {
+                suggestion.append(text, copied, words.get(word)[0]).append(combination[word].term);
+                copied = words.get(word)[1];
+            }
+            suggestions.add(suggestion.append(text, copied, text.length()).toString());
+        }
+        return suggestions;
+    }
+
+    private DocIterator termIterator(String term, DocIterator.LengthNorm lengthNorm) {
+        Integer termId = termIds.get(term);
+        if (termId == null || postings.get(termId).size() == 0) {
+            return new DocIterator.Empty();
+        }
+        PostingList list = postings.get(termId);
+        return new DocIterator.TermIterator(list, idf(docSlots.size(), list.size()), lengthNorm);
+    }
+
+    static double idf(int documents, int documentFrequency) {
+        return Math.log(1 + (documents - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    public boolean contains(long docId) {
+        lock.readLock().lock();
+        try {
+            return docSlots.containsKey(docId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return docSlots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return termIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Heap taken by the posting lists of the largest terms.
+     *
+     * @param limit maximum number of terms to report
+     * @return terms ordered by descending posting list size
+     */
+    public List<TermMemory> memoryReport(int limit) {
+        lock.readLock().lock();
+        try {
+            List<TermMemory> report = new ArrayList<>(termIds.size());
+            for (Map.Entry<String, Integer> entry : termIds.entrySet()) {
+                PostingList list = postings.get(entry.getValue());
+                report.add(new TermMemory(entry.getKey(), list.size(), list.estimatedHeapBytes(),
+                        list.boxedEquivalentBytes()));
+            }
+            report.sort(Comparator.comparingLong(TermMemory::getBytes).reversed());
+            return report.subList(0, Math.min(limit, report.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Heap the posting lists would take as boxed {@code Long} and {@code Integer} lists.
+     */
+    public long boxedPostingsBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (PostingList list : postings) {
+                bytes += list.boxedEquivalentBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long postingsBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (PostingList list : postings) {
+                bytes += list.estimatedHeapBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rough size of the index structures on the heap: posting arrays, per-post data and term strings.
+     */
+    public long estimatedHeapBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = docSlots.estimatedHeapBytes() + docLengths.length * 4L + docTermIds.length * 4L;
+            for (int i = 0; i < docTermIds.length; i++) {
+                if (docTermIds[i] != null) {
+                    bytes += 16 + docTermIds[i].length * 4L;
+                }
+            }
+            for (String term : termIds.keySet()) {
+                bytes += 32 + 40 + 16 + term.length() * 2L;
+            }
+            for (PostingList list : postings) {
+                bytes += list.estimatedHeapBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.halliburton.blog.search.index;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from long keys to int values, so per-document data does not box every post id.
+ * Not thread safe.
+ */
+public class LongIntHashMap {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int resizeAt;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(long key) {
+        return used[indexOf(key)];
+    }
+
+    /**
+     * @return the value of the key, or {@code missingValue} when the key is absent
+     */
+    public int get(long key, int missingValue) {
+        int index = indexOf(key);
+        return used[index] ? values[index] : missingValue;
+    }
+
+    /**
+     * @return the previous value of the key, or {@code missingValue} when the key was absent
+     */
+    public int put(long key, int value, int missingValue) {
+        int index = indexOf(key);
+        if (used[index]) {
+            int previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        used[index] = true;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    /**
+     * @return the removed value, or {@code missingValue} when the key was absent
+     */
+    public int remove(long key, int missingValue) {
+        int index = indexOf(key);
+        if (!used[index]) {
+            return missingValue;
+        }
+
+        int removed = values[index];
+        int mask = keys.length - 1;
+        // backward shift deletion keeps every remaining key reachable from its home slot
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        size--;
+
+        return removed;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    public long estimatedHeapBytes() {
+        return 16L + keys.length * 8L + values.length * 4L + used.length;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = slot(key);
+        while (used[index] && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+                used[index] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.halliburton.blog.search.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds the posts whose text is most similar to a post's, by Jaccard similarity of their sets of
+ * shingles, pairs of consecutive {@link Tokenizer} terms. Every post is summarized by a MinHash
+ * signature: the minimum of each of {@code bands * rows} hash functions over its shingles, two posts
+ * agreeing on a signature value with probability equal to their similarity. Locality-sensitive hashing
+ * buckets the posts by each band of {@code rows} values, so a lookup only compares the posts sharing a
+ * bucket with the post, the others being unlikely to be similar: posts with similarity s share a bucket
+ * with probability {@code 1 - (1 - s^rows)^bands}.
+ * <p>
+ * Safe for concurrent lookups, writes are serialized.
+ */
+public class MinHashIndex {
+    private final int bands;
+    private final int rows;
+    /* multipliers, odd, and increments of the multiply-shift hash functions */
+    private final long[] multipliers;
+    private final long[] increments;
+    private final Map<Long, int[]> signatures = new HashMap<>();
+    private final List<Map<Long, Bucket>> buckets = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Bucket {
+        private long[] postIds = new long[2];
+        private int size;
+
+        private void add(long postId) {
+            if (size == postIds.length) {
+                postIds = Arrays.copyOf(postIds, size << 1);
+            }
+            postIds[size++] = postId;
+        }
+
+        private void remove(long postId) {
+            for (int i = 0; i < size; i++) {
+                if (postIds[i] == postId) {
+                    postIds[i] = postIds[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param seed the hash functions of the index, indexes with the same seed give the same signatures
+     */
+    public MinHashIndex(int bands, int rows, long seed) {
+        if (bands < 1 || rows < 1) {
+            throw new IllegalArgumentException("bands and rows must be positive");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        Random random = new Random(seed);
+        multipliers = new long[bands * rows];
+        increments = new long[bands * rows];
+        for (int i = 0; i < multipliers.length; i++) {
+            multipliers[i] = random.nextLong() | 1;
+            increments[i] = random.nextLong();
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds the post or replaces its text. A post without any term is removed.
+     */
+    public void put(long postId, String text) {
+        int[] signature = signature(shingles(text));
+        lock.writeLock().lock();
+        try {
+            unlink(postId);
+            if (signature != null) {
+                signatures.put(postId, signature);
+                for (int band = 0; band < bands; band++) {
+                    buckets.get(band).computeIfAbsent(bandKey(signature, band), key -> new Bucket()).add(postId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true when the post was in the index
+     */
+    public boolean remove(long postId) {
+        lock.writeLock().lock();
+        try {
+            return unlink(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            signatures.clear();
+            buckets.forEach(Map::clear);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param minSimilarity posts with a lower estimated similarity are skipped
+     * @return posts sharing a bucket with the post, with their estimated similarity as score, most similar
+     * first; empty when the post is not in the index
+     */
+    public List<ScoredDoc> related(long postId, int limit, double minSimilarity) {
+        lock.readLock().lock();
+        try {
+            int[] signature = signatures.get(postId);
+            if (signature == null) {
+                return List.of();
+            }
+
+            LongIntHashMap candidates = new LongIntHashMap();
+            for (int band = 0; band < bands; band++) {
+                Bucket bucket = buckets.get(band).get(bandKey(signature, band));
+                for (int i = 0; i < bucket.size; i++) {
+                    candidates.put(bucket.postIds[i], 0, 0);
+                }
+            }
+            candidates.remove(postId, 0);
+
+            TopKHeap heap = new TopKHeap(limit);
+            candidates.forEach((candidate, unused) -> {
+                double similarity = similarity(signature, signatures.get(candidate));
+                if (similarity >= minSimilarity) {
+                    heap.offer(candidate, similarity);
+                }
+            });
+            return List.of(heap.drainRanked());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean unlink(long postId) {
+        int[] previous = signatures.remove(postId);
+        if (previous == null) {
+            return false;
+        }
+        for (int band = 0; band < bands; band++) {
+            Map<Long, Bucket> bandBuckets = buckets.get(band);
+            long key = bandKey(previous, band);
+            Bucket bucket = bandBuckets.get(key);
+            bucket.remove(postId);
+            if (bucket.size == 0) {
+                bandBuckets.remove(key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the signature, or null when there are no shingles
+     */
+    private int[] signature(long[] shingles) {
+        if (shingles.length == 0) {
+            return null;
+        }
+        int[] signature = new int[multipliers.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int i = 0; i < signature.length; i++) {
+                // the high half of a multiply-shift hash, shifted to stay non negative
+                int hash = (int) ((multipliers[i] * shingle + increments[i]) >>> 33);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return key;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /**
+     * Hashes of the pairs of consecutive terms of the text, or of its only term, without repeats.
+     */
+    static long[] shingles(String text) {
+        List<String> terms = new ArrayList<>();
+        Tokenizer.tokenize(text, (term, position, start, end) -> terms.add(term));
+        if (terms.size() == 1) {
+            return new long[]{CountMinSketch.hash(terms.get(0))};
+        }
+        long[] shingles = new long[Math.max(0, terms.size() - 1)];
+        for (int i = 1; i < terms.size(); i++) {
+            shingles[i - 1] = CountMinSketch.hash(terms.get(i - 1) + ' ' + terms.get(i));
+        }
+        return Arrays.stream(shingles).distinct().toArray();
+    }
+}
@@ -0,0 +1,548 @@
+package com.halliburton.blog.search.index;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Post ids containing one term, sorted ascending, with the positions of the term in every post.
+ * <p>
+ * Postings are stored in blocks of up to {@link #BLOCK_SIZE} entries. The first and last post id of
+ * every block are kept in a skip table; inside the block the following ids are delta-encoded, and ids,
+ * frequencies and the excess of the weight over the frequency are written as variable length integers,
+ * so a posting usually takes three or four bytes.
+ * Positions are delta-encoded into a second stream of the block, so queries without phrases never read them.
+ * Appending a post id greater than all present ones, the usual case for new posts, writes into the last
+ * block; any other change re-encodes one block only.
+ */
+public class PostingList {
+    static final int BLOCK_SIZE = 128;
+    private static final int BLOCK_OVERHEAD_BYTES = 8 + 8 + 4 + 4 + 4 + 16 + 4 + 16;
+
+    private long[] firstDocIds = new long[1];
+    private long[] lastDocIds = new long[1];
+    private byte[][] blocks = new byte[1][];
+    private int[] blockLengths = new int[1];
+    private int[] blockSizes = new int[1];
+    private byte[][] positionBlocks = new byte[1][];
+    private int[] positionLengths = new int[1];
+    private int blockCount;
+    private int size;
+    private long positionCount;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the post or replaces its positions, with a weight equal to the frequency.
+     *
+     * @param positions ascending positions of the term in the post, only the first {@code frequency} are used
+     */
+    public void put(long docId, int[] positions, int frequency) {
+        put(docId, positions, frequency, frequency);
+    }
+
+    /**
+     * Adds the post or replaces its positions and weight.
+     *
+     * @param positions ascending positions of the term in the post, only the first {@code frequency} are used
+     * @param weight    frequency with every occurrence counted by the boost of its field, at least the frequency
+     */
+    public void put(long docId, int[] positions, int frequency, int weight) {
+        if (weight < frequency) {
+            throw new IllegalArgumentException("weight must not be lower than the frequency");
+        }
+        if (blockCount == 0 || docId > lastDocIds[blockCount - 1]) {
+            append(docId, positions, frequency, weight);
+            return;
+        }
+
+        int block = blockOf(docId);
+        long[] docs = new long[BLOCK_SIZE + 1];
+        int[] frequencies = new int[BLOCK_SIZE + 1];
+        int[] weights = new int[BLOCK_SIZE + 1];
+        int[][] blockPositions = new int[BLOCK_SIZE + 1][];
+        int count = decode(block, docs, frequencies, weights);
+        decodePositions(block, frequencies, count, blockPositions);
+        int index = Arrays.binarySearch(docs, 0, count, docId);
+        if (index >= 0) {
+            positionCount += frequency - frequencies[index];
+            frequencies[index] = frequency;
+            weights[index] = weight;
+            blockPositions[index] = positions;
+            encode(block, docs, frequencies, weights, blockPositions, 0, count);
+            return;
+        }
+
+        int insertAt = -index - 1;
+        System.arraycopy(docs, insertAt, docs, insertAt + 1, count - insertAt);
+        System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, count - insertAt);
+        System.arraycopy(weights, insertAt, weights, insertAt + 1, count - insertAt);
+        System.arraycopy(blockPositions, insertAt, blockPositions, insertAt + 1, count - insertAt);
+        docs[insertAt] = docId;
+        frequencies[insertAt] = frequency;
+        weights[insertAt] = weight;
+        blockPositions[insertAt] = positions;
+        count++;
+        size++;
+        positionCount += frequency;
+
+        if (count <= BLOCK_SIZE) {
+            encode(block, docs, frequencies, weights, blockPositions, 0, count);
+        } else {
+            int half = count >>> 1;
+            insertBlock(block + 1);
+            encode(block, docs, frequencies, weights, blockPositions, 0, half);
+            encode(block + 1, docs, frequencies, weights, blockPositions, half, count);
+        }
+    }
+
+    /**
+     * @return true when the post was in the list
+     */
+    public boolean remove(long docId) {
+        if (blockCount == 0 || docId < firstDocIds[0] || docId > lastDocIds[blockCount - 1]) {
+            return false;
+        }
+
+        int block = blockOf(docId);
+        long[] docs = new long[BLOCK_SIZE];
+        int[] frequencies = new int[BLOCK_SIZE];
+        int[] weights = new int[BLOCK_SIZE];
+        int count = decode(block, docs, frequencies, weights);
+        int index = Arrays.binarySearch(docs, 0, count, docId);
+        if (index < 0) {
+            return false;
+        }
+
+        size--;
+        positionCount -= frequencies[index];
+        if (count == 1) {
+            removeBlock(block);
+            return true;
+        }
+        int[][] blockPositions = new int[BLOCK_SIZE][];
+        decodePositions(block, frequencies, count, blockPositions);
+        System.arraycopy(docs, index + 1, docs, index, count - index - 1);
+        System.arraycopy(frequencies, index + 1, frequencies, index, count - index - 1);
+        System.arraycopy(weights, index + 1, weights, index, count - index - 1);
+        System.arraycopy(blockPositions, index + 1, blockPositions, index, count - index - 1);
+        encode(block, docs, frequencies, weights, blockPositions, 0, count - 1);
+        return true;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Forward-only iterator over the postings. Blocks are decoded one at a time, and blocks lying
+     * entirely before an advance target are skipped through the skip table without being decoded.
+     * Advancing gallops, probing 1, 2, 4... blocks or postings ahead before a binary search, so
+     * a short hop costs a few comparisons and a long one a logarithmic number.
+     */
+    public final class Cursor {
+        private final long[] docs = new long[BLOCK_SIZE];
+        private final int[] frequencies = new int[BLOCK_SIZE];
+        private final int[] weights = new int[BLOCK_SIZE];
+        private final int[] positionStarts = new int[BLOCK_SIZE];
+        private int[] positions = new int[BLOCK_SIZE];
+        private int positionsBlock = -1;
+        private int block = -1;
+        private int count;
+        private int index;
+
+        public long docId() {
+            return docs[index];
+        }
+
+        public int frequency() {
+            return frequencies[index];
+        }
+
+        /**
+         * @return frequency with every occurrence counted by the boost of its field
+         */
+        public int weight() {
+            return weights[index];
+        }
+
+        /**
+         * @param i number of the occurrence, below {@link #frequency()}
+         * @return position of the occurrence of the term in the current post
+         */
+        public int position(int i) {
+            if (positionsBlock != block) {
+                loadPositions();
+            }
+            return positions[positionStarts[index] + i];
+        }
+
+        /**
+         * @return false when the list is exhausted
+         */
+        public boolean next() {
+            if (block >= blockCount) {
+                return false;
+            }
+            if (block >= 0 && index + 1 < count) {
+                index++;
+                return true;
+            }
+            if (block + 1 >= blockCount) {
+                block = blockCount;
+                return false;
+            }
+            load(block + 1);
+            return true;
+        }
+
+        /**
+         * Moves to the first posting with a post id greater than or equal to the target,
+         * never moving backwards.
+         *
+         * @return false when there is no such posting
+         */
+        public boolean advance(long target) {
+            if (block >= blockCount) {
+                return false;
+            }
+            if (block < 0 || lastDocIds[block] < target) {
+                int low = block + 1;
+                if (low >= blockCount || lastDocIds[blockCount - 1] < target) {
+                    block = blockCount;
+                    return false;
+                }
+                int high = low;
+                int step = 1;
+                while (lastDocIds[high] < target) {
+                    low = high + 1;
+                    high = Math.min(high + step, blockCount - 1);
+                    step <<= 1;
+                }
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (lastDocIds[middle] < target) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                load(low);
+            }
+            if (docs[index] < target) {
+                int low = index + 1;
+                int high = low;
+                int step = 1;
+                while (docs[high] < target) {
+                    low = high + 1;
+                    high = Math.min(high + step, count - 1);
+                    step <<= 1;
+                }
+                int found = Arrays.binarySearch(docs, low, high + 1, target);
+                index = found >= 0 ? found : -found - 1;
+            }
+            return true;
+        }
+
+        private void load(int block) {
+            this.block = block;
+            this.count = decode(block, docs, frequencies, weights);
+            this.index = 0;
+        }
+
+        private void loadPositions() {
+            int total = 0;
+            for (int i = 0; i < count; i++) {
+                positionStarts[i] = total;
+                total += frequencies[i];
+            }
+            if (positions.length < total) {
+                positions = new int[Math.max(total, positions.length << 1)];
+            }
+            byte[] bytes = positionBlocks[block];
+            int[] offset = {0};
+            int next = 0;
+            for (int i = 0; i < count; i++) {
+                int position = 0;
+                for (int j = 0; j < frequencies[i]; j++) {
+                    position += (int) readVarint(bytes, offset);
+                    positions[next++] = position;
+                }
+            }
+            positionsBlock = block;
+        }
+    }
+
+    /**
+     * Heap used by the encoded blocks and their skip table entries.
+     */
+    public long estimatedHeapBytes() {
+        long bytes = 48L + firstDocIds.length * (long) BLOCK_OVERHEAD_BYTES;
+        for (int i = 0; i < blockCount; i++) {
+            bytes += blocks[i].length + positionBlocks[i].length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Heap the same postings would take as a list of boxed {@code Long} ids with a list of
+     * {@code int[]} positions: an object header and value per id, a reference to it, and a
+     * position array with its reference.
+     */
+    public long boxedEquivalentBytes() {
+        return 2 * (40L + 16) + size * (16L + 4 + 16 + 4) + positionCount * 4;
+    }
+
+    /**
+     * Moves all postings of the other list to the end of this one; every post id of the other list
+     * must be greater than the post ids here. Encoded blocks are taken over without decoding them,
+     * so the other list must not be used afterwards.
+     */
+    void appendAll(PostingList other) {
+        if (other.blockCount == 0) {
+            return;
+        }
+        if (blockCount > 0 && other.firstDocIds[0] <= lastDocIds[blockCount - 1]) {
+            throw new IllegalArgumentException("Appended postings must follow the present ones");
+        }
+
+        if (blockCount > 0) {
+            int last = blockCount - 1;
+            blocks[last] = Arrays.copyOf(blocks[last], blockLengths[last]);
+            positionBlocks[last] = Arrays.copyOf(positionBlocks[last], positionLengths[last]);
+        }
+        for (int i = 0; i < other.blockCount; i++) {
+            insertBlock(blockCount);
+            int last = blockCount - 1;
+            firstDocIds[last] = other.firstDocIds[i];
+            lastDocIds[last] = other.lastDocIds[i];
+            blocks[last] = other.blocks[i];
+            blockLengths[last] = other.blockLengths[i];
+            blockSizes[last] = other.blockSizes[i];
+            positionBlocks[last] = other.positionBlocks[i];
+            positionLengths[last] = other.positionLengths[i];
+        }
+        size += other.size;
+        positionCount += other.positionCount;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeLong(positionCount);
+        out.writeInt(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            out.writeLong(firstDocIds[i]);
+            out.writeLong(lastDocIds[i]);
+            out.writeInt(blockSizes[i]);
+            out.writeInt(blockLengths[i]);
+            out.write(blocks[i], 0, blockLengths[i]);
+            out.writeInt(positionLengths[i]);
+            out.write(positionBlocks[i], 0, positionLengths[i]);
+        }
+    }
+
+    static PostingList readFrom(ByteBuffer buffer) {
+        PostingList list = new PostingList();
+        list.size = buffer.getInt();
+        list.positionCount = buffer.getLong();
+        list.blockCount = buffer.getInt();
+        int capacity = Math.max(1, list.blockCount);
+        list.firstDocIds = new long[capacity];
+        list.lastDocIds = new long[capacity];
+        list.blocks = new byte[capacity][];
+        list.blockLengths = new int[capacity];
+        list.blockSizes = new int[capacity];
+        list.positionBlocks = new byte[capacity][];
+        list.positionLengths = new int[capacity];
+        for (int i = 0; i < list.blockCount; i++) {
+            list.firstDocIds[i] = buffer.getLong();
+            list.lastDocIds[i] = buffer.getLong();
+            list.blockSizes[i] = buffer.getInt();
+            list.blockLengths[i] = buffer.getInt();
+            list.blocks[i] = new byte[list.blockLengths[i]];
+            buffer.get(list.blocks[i]);
+            list.positionLengths[i] = buffer.getInt();
+            list.positionBlocks[i] = new byte[list.positionLengths[i]];
+            buffer.get(list.positionBlocks[i]);
+        }
+        return list;
+    }
+
+    private int blockOf(long docId) {
+        int index = Arrays.binarySearch(firstDocIds, 0, blockCount, docId);
+        return index >= 0 ? index : Math.max(0, -index - 2);
+    }
+
+    private void append(long docId, int[] positions, int frequency, int weight) {
+        int last = blockCount - 1;
+        if (last < 0 || blockSizes[last] == BLOCK_SIZE) {
+            if (last >= 0) {
+                blocks[last] = Arrays.copyOf(blocks[last], blockLengths[last]);
+                positionBlocks[last] = Arrays.copyOf(positionBlocks[last], positionLengths[last]);
+            }
+            insertBlock(blockCount);
+            last = blockCount - 1;
+            firstDocIds[last] = docId;
+            lastDocIds[last] = docId;
+            blocks[last] = new byte[24];
+            blockLengths[last] = writeVarint(blocks[last], writeVarint(blocks[last], 0, frequency), weight - frequency);
+            blockSizes[last] = 1;
+            positionBlocks[last] = new byte[Math.max(16, frequency * 5)];
+            positionLengths[last] = writePositions(positionBlocks[last], 0, positions, frequency);
+            size++;
+            positionCount += frequency;
+            return;
+        }
+
+        byte[] bytes = blocks[last];
+        if (blockLengths[last] + 20 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length << 1);
+            blocks[last] = bytes;
+        }
+        int length = writeVarint(bytes, blockLengths[last], docId - lastDocIds[last]);
+        length = writeVarint(bytes, length, frequency);
+        blockLengths[last] = writeVarint(bytes, length, weight - frequency);
+        lastDocIds[last] = docId;
+        blockSizes[last]++;
+
+        byte[] positionBytes = positionBlocks[last];
+        if (positionLengths[last] + frequency * 5 > positionBytes.length) {
+            positionBytes = Arrays.copyOf(positionBytes,
+                    Math.max(positionBytes.length << 1, positionLengths[last] + frequency * 5));
+            positionBlocks[last] = positionBytes;
+        }
+        positionLengths[last] = writePositions(positionBytes, positionLengths[last], positions, frequency);
+        size++;
+        positionCount += frequency;
+    }
+
+    private int decode(int block, long[] docs, int[] frequencies, int[] weights) {
+        byte[] bytes = blocks[block];
+        int count = blockSizes[block];
+        long docId = firstDocIds[block];
+        int[] position = {0};
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                docId += readVarint(bytes, position);
+            }
+            docs[i] = docId;
+            frequencies[i] = (int) readVarint(bytes, position);
+            weights[i] = frequencies[i] + (int) readVarint(bytes, position);
+        }
+        return count;
+    }
+
+    private void decodePositions(int block, int[] frequencies, int count, int[][] positions) {
+        byte[] bytes = positionBlocks[block];
+        int[] offset = {0};
+        for (int i = 0; i < count; i++) {
+            int[] values = new int[frequencies[i]];
+            int position = 0;
+            for (int j = 0; j < values.length; j++) {
+                position += (int) readVarint(bytes, offset);
+                values[j] = position;
+            }
+            positions[i] = values;
+        }
+    }
+
+    private void encode(int block, long[] docs, int[] frequencies, int[] weights, int[][] positions,
+                        int from, int to) {
+        byte[] buffer = new byte[(to - from) * 20];
+        int length = 0;
+        int positionTotal = 0;
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                length = writeVarint(buffer, length, docs[i] - docs[i - 1]);
+            }
+            length = writeVarint(buffer, length, frequencies[i]);
+            length = writeVarint(buffer, length, weights[i] - frequencies[i]);
+            positionTotal += frequencies[i];
+        }
+        byte[] positionBuffer = new byte[positionTotal * 5];
+        int positionLength = 0;
+        for (int i = from; i < to; i++) {
+            positionLength = writePositions(positionBuffer, positionLength, positions[i], frequencies[i]);
+        }
+
+        // the last block keeps room for appends
+        boolean last = block == blockCount - 1;
+        blocks[block] = last ? Arrays.copyOf(buffer, Math.max(16, length + 16)) : Arrays.copyOf(buffer, length);
+        positionBlocks[block] = last ? Arrays.copyOf(positionBuffer, Math.max(16, positionLength + 16))
+                : Arrays.copyOf(positionBuffer, positionLength);
+        blockLengths[block] = length;
+        positionLengths[block] = positionLength;
+        blockSizes[block] = to - from;
+        firstDocIds[block] = docs[from];
+        lastDocIds[block] = docs[to - 1];
+    }
+
+    private static int writePositions(byte[] bytes, int offset, int[] positions, int frequency) {
+        int previous = 0;
+        for (int i = 0; i < frequency; i++) {
+            offset = writeVarint(bytes, offset, positions[i] - previous);
+            previous = positions[i];
+        }
+        return offset;
+    }
+
+    private void insertBlock(int at) {
+        if (blockCount == firstDocIds.length) {
+            int capacity = blockCount << 1;
+            firstDocIds = Arrays.copyOf(firstDocIds, capacity);
+            lastDocIds = Arrays.copyOf(lastDocIds, capacity);
+            blocks = Arrays.copyOf(blocks, capacity);
+            blockLengths = Arrays.copyOf(blockLengths, capacity);
+            blockSizes = Arrays.copyOf(blockSizes, capacity);
+            positionBlocks = Arrays.copyOf(positionBlocks, capacity);
+            positionLengths = Arrays.copyOf(positionLengths, capacity);
+        }
+        int moved = blockCount - at;
+        System.arraycopy(firstDocIds, at, firstDocIds, at + 1, moved);
+        System.arraycopy(lastDocIds, at, lastDocIds, at + 1, moved);
+        System.arraycopy(blocks, at, blocks, at + 1, moved);
+        System.arraycopy(blockLengths, at, blockLengths, at + 1, moved);
+        System.arraycopy(blockSizes, at, blockSizes, at + 1, moved);
+        System.arraycopy(positionBlocks, at, positionBlocks, at + 1, moved);
+        System.arraycopy(positionLengths, at, positionLengths, at + 1, moved);
+        blockCount++;
+    }
+
+    private void removeBlock(int at) {
+        int moved = blockCount - at - 1;
+        System.arraycopy(firstDocIds, at + 1, firstDocIds, at, moved);
+        System.arraycopy(lastDocIds, at + 1, lastDocIds, at, moved);
+        System.arraycopy(blocks, at + 1, blocks, at, moved);
+        System.arraycopy(blockLengths, at + 1, blockLengths, at, moved);
+        System.arraycopy(blockSizes, at + 1, blockSizes, at, moved);
+        System.arraycopy(positionBlocks, at + 1, positionBlocks, at, moved);
+        System.arraycopy(positionLengths, at + 1, positionLengths, at, moved);
+        blockCount--;
+        blocks[blockCount] = null;
+        positionBlocks[blockCount] = null;
+    }
+
+    static int writeVarint(byte[] bytes, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
+    static long readVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = bytes[position[0]++];
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        } while (current < 0);
+        return value;
+    }
+}
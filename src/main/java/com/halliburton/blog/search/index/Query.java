@@ -0,0 +1,53 @@
+package com.halliburton.blog.search.index;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Parsed search query, see {@link QueryParser}.
+ */
+public interface Query {
+
+    /**
+     * Posts containing the term.
+     */
+    @Value
+    class Term implements Query {
+        String term;
+    }
+
+    /**
+     * Posts containing the term or a term within the edit distance of it, see {@link FuzzyTermIndex}.
+     */
+    @Value
+    class FuzzyTerm implements Query {
+        String term;
+        int maxEdits;
+    }
+
+    /**
+     * Posts containing the terms next to each other, in this order.
+     */
+    @Value
+    class Phrase implements Query {
+        List<String> terms;
+    }
+
+    /**
+     * Posts matching every required query and none of the excluded ones.
+     */
+    @Value
+    class And implements Query {
+        List<Query> required;
+        List<Query> excluded;
+    }
+
+    /**
+     * Posts matching at least one of the queries.
+     */
+    @Value
+    class Or implements Query {
+        List<Query> queries;
+    }
+}
@@ -0,0 +1,167 @@
+package com.halliburton.blog.search.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses search queries:
+ * <ul>
+ *     <li>{@code alpha beta} or {@code alpha AND beta} - posts with both terms</li>
+ *     <li>{@code alpha OR beta} - posts with either term; AND binds tighter than OR</li>
+ *     <li>{@code NOT alpha} or {@code -alpha} - posts without the term, only next to a required clause</li>
+ *     <li>{@code "alpha beta"} - posts with the terms next to each other</li>
+ *     <li>{@code (alpha OR beta) gamma} - grouping</li>
+ * </ul>
+ * Operators are recognised in upper case only, so {@code and}, {@code or} and {@code not} stay ordinary terms.
+ * Words are split into terms by {@link Tokenizer}; a word splitting into several terms, like {@code e-mail},
+ * is searched as a phrase. The parser never fails: unbalanced quotes and parentheses are closed at the end.
+ * In fuzzy mode single terms also match misspellings of them; phrases stay exact.
+ */
+public final class QueryParser {
+    private final String text;
+    private final boolean fuzzy;
+    private int offset;
+
+    private QueryParser(String text, boolean fuzzy) {
+        this.text = text;
+        this.fuzzy = fuzzy;
+    }
+
+    /**
+     * @return the query, or null when the text has no searchable terms
+     */
+    public static Query parse(String text) {
+        return parse(text, false);
+    }
+
+    /**
+     * @param fuzzy when true, terms match dictionary terms within {@link FuzzyTermIndex#maxEdits(String)} edits
+     * @return the query, or null when the text has no searchable terms
+     */
+    public static Query parse(String text, boolean fuzzy) {
+        if (text == null) {
+            return null;
+        }
+        QueryParser parser = new QueryParser(text, fuzzy);
+        Query query = parser.parseOr();
+        // a stray closing parenthesis ends parseOr early, the rest is parsed as another clause
+        while (parser.skipWhitespace()) {
+            parser.offset++;
+            Query rest = parser.parseOr();
+            query = query == null ? rest : rest == null ? query : new Query.And(List.of(query, rest), List.of());
+        }
+        return query;
+    }
+
+    private Query parseOr() {
+        List<Query> queries = new ArrayList<>();
+        do {
+            Query query = parseAnd();
+            if (query != null) {
+                queries.add(query);
+            }
+        } while (consumeOperator("OR"));
+
+        if (queries.isEmpty()) {
+            return null;
+        }
+        return queries.size() == 1 ? queries.get(0) : new Query.Or(queries);
+    }
+
+    private Query parseAnd() {
+        List<Query> required = new ArrayList<>();
+        List<Query> excluded = new ArrayList<>();
+        while (skipWhitespace() && text.charAt(offset) != ')' && !peekOperator("OR")) {
+            if (consumeOperator("AND")) {
+                continue;
+            }
+            boolean negated = false;
+            if (consumeOperator("NOT")) {
+                negated = true;
+            } else if (text.charAt(offset) == '-') {
+                offset++;
+                negated = true;
+            }
+
+            Query clause = parseClause();
+            if (clause != null) {
+                (negated ? excluded : required).add(clause);
+            }
+        }
+
+        if (required.isEmpty()) {
+            // nothing to subtract the excluded posts from
+            return null;
+        }
+        return required.size() == 1 && excluded.isEmpty() ? required.get(0) : new Query.And(required, excluded);
+    }
+
+    private Query parseClause() {
+        if (!skipWhitespace()) {
+            return null;
+        }
+        char current = text.charAt(offset);
+        if (current == '(') {
+            offset++;
+            Query query = parseOr();
+            if (skipWhitespace()) {
+                offset++;
+            }
+            return query;
+        }
+        if (current == '"') {
+            int end = text.indexOf('"', offset + 1);
+            end = end < 0 ? text.length() : end;
+            String phrase = text.substring(offset + 1, end);
+            offset = Math.min(end + 1, text.length());
+            return termsQuery(phrase);
+        }
+
+        int start = offset;
+        while (offset < text.length() && !isDelimiter(text.charAt(offset))) {
+            offset++;
+        }
+        return termsQuery(text.substring(start, offset));
+    }
+
+    private Query termsQuery(String text) {
+        List<String> terms = new ArrayList<>();
+        Tokenizer.tokenize(text, (term, position, start, end) -> terms.add(term));
+        if (terms.isEmpty()) {
+            return null;
+        }
+        if (terms.size() > 1) {
+            return new Query.Phrase(terms);
+        }
+        String term = terms.get(0);
+        int maxEdits = fuzzy ? FuzzyTermIndex.maxEdits(term) : 0;
+        return maxEdits == 0 ? new Query.Term(term) : new Query.FuzzyTerm(term, maxEdits);
+    }
+
+    private boolean consumeOperator(String operator) {
+        if (skipWhitespace() && peekOperator(operator)) {
+            offset += operator.length();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean peekOperator(String operator) {
+        int end = offset + operator.length();
+        return text.startsWith(operator, offset) && (end == text.length() || isDelimiter(text.charAt(end)));
+    }
+
+    /**
+     * @return false at the end of the text
+     */
+    private boolean skipWhitespace() {
+        while (offset < text.length() && Character.isWhitespace(text.charAt(offset))) {
+            offset++;
+        }
+        return offset < text.length();
+    }
+
+    private static boolean isDelimiter(char c) {
+        return Character.isWhitespace(c) || c == '(' || c == ')' || c == '"';
+    }
+}
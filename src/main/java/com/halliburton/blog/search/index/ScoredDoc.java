@@ -0,0 +1,9 @@
+package com.halliburton.blog.search.index;
+
+import lombok.Value;
+
+@Value
+public class ScoredDoc {
+    long docId;
+    double score;
+}
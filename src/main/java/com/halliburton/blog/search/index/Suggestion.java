@@ -0,0 +1,10 @@
+package com.halliburton.blog.search.index;
+
+import lombok.Value;
+
+@Value
+public class Suggestion {
+    long postId;
+    String title;
+    long weight;
+}
@@ -0,0 +1,14 @@
+package com.halliburton.blog.search.index;
+
+import lombok.Value;
+
+/**
+ * Heap taken by the posting list of one term, next to what boxed collections would take for it.
+ */
+@Value
+public class TermMemory {
+    String term;
+    int documentFrequency;
+    long bytes;
+    long boxedBytes;
+}
@@ -0,0 +1,334 @@
+package com.halliburton.blog.search.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie over post titles answering "best titles starting with a prefix". A title is reachable from
+ * the start of every word, so {@code ban} finds "Soggy banana". Titles are normalized to their
+ * {@link Tokenizer} terms joined by single spaces.
+ * <p>
+ * Every node keeps the best entries of its subtree ranked by weight, so a lookup walks the prefix and
+ * copies that list without visiting the subtree. Putting a title offers it to the lists along its paths;
+ * removing one rebuilds only the lists it was in, from the lists of the child nodes.
+ * Safe for concurrent lookups, writes are serialized.
+ */
+public class TitleTrie {
+    private static final Comparator<Suggestion> BY_WEIGHT = Comparator.comparingLong(Suggestion::getWeight)
+            .reversed()
+            .thenComparing(Comparator.comparingLong(Suggestion::getPostId).reversed());
+
+    private final int capacity;
+    private final Node root = new Node("");
+    private final Map<Long, Suggestion> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Node {
+        private String label;
+        private Node[] children = new Node[0];
+        /* entries whose key ends on this node */
+        private Suggestion[] terminals = new Suggestion[0];
+        /* best entries of the subtree, ranked */
+        private Suggestion[] best = new Suggestion[0];
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char key = children[middle].label.charAt(0);
+                if (key < first) {
+                    low = middle + 1;
+                } else if (key > first) {
+                    high = middle - 1;
+                } else {
+                    return children[middle];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(Node child) {
+            int at = 0;
+            while (at < children.length && children[at].label.charAt(0) < child.label.charAt(0)) {
+                at++;
+            }
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            grown[at] = child;
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            children = grown;
+        }
+
+        private void replaceChild(Node previous, Node replacement) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == previous) {
+                    children[i] = replacement;
+                    return;
+                }
+            }
+        }
+
+        private void removeChild(Node child) {
+            Node[] shrunk = new Node[children.length - 1];
+            int next = 0;
+            for (Node node : children) {
+                if (node != child) {
+                    shrunk[next++] = node;
+                }
+            }
+            children = shrunk;
+        }
+    }
+
+    /**
+     * @param capacity number of best entries kept per node, the largest lookup limit
+     */
+    public TitleTrie(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds the post or replaces its title and weight.
+     *
+     * @param weight higher weights are suggested first
+     */
+    public void put(long postId, String title, long weight) {
+        Suggestion suggestion = new Suggestion(postId, title, weight);
+        lock.writeLock().lock();
+        try {
+            Suggestion previous = entries.remove(postId);
+            if (previous != null) {
+                unlink(previous);
+            }
+            entries.put(postId, suggestion);
+            for (String key : keys(title)) {
+                insert(key, suggestion);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true when the post was in the trie
+     */
+    public boolean remove(long postId) {
+        lock.writeLock().lock();
+        try {
+            Suggestion previous = entries.remove(postId);
+            if (previous == null) {
+                return false;
+            }
+            unlink(previous);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            root.children = new Node[0];
+            root.terminals = new Suggestion[0];
+            root.best = new Suggestion[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param limit maximum number of titles, at most the capacity of the trie
+     * @return titles with a word starting with the prefix, best first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix, true);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int matched = 0;
+            while (matched < key.length()) {
+                node = node.child(key.charAt(matched));
+                if (node == null) {
+                    return List.of();
+                }
+                int common = commonPrefix(node.label, key, matched);
+                if (matched + common < key.length() && common < node.label.length()) {
+                    return List.of();
+                }
+                matched += common;
+            }
+            return List.of(Arrays.copyOf(node.best, Math.min(limit, node.best.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String key, Suggestion suggestion) {
+        Node node = root;
+        offer(node, suggestion);
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.child(key.charAt(matched));
+            if (child == null) {
+                child = new Node(key.substring(matched));
+                node.addChild(child);
+                node = child;
+                matched = key.length();
+            } else {
+                int common = commonPrefix(child.label, key, matched);
+                if (common < child.label.length()) {
+                    Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    split.children = new Node[]{child};
+                    split.best = child.best.clone();
+                    node.replaceChild(child, split);
+                    child = split;
+                }
+                node = child;
+                matched += common;
+            }
+            offer(node, suggestion);
+        }
+
+        Suggestion[] terminals = Arrays.copyOf(node.terminals, node.terminals.length + 1);
+        terminals[terminals.length - 1] = suggestion;
+        node.terminals = terminals;
+    }
+
+    private void offer(Node node, Suggestion suggestion) {
+        Suggestion[] best = node.best;
+        for (Suggestion present : best) {
+            if (present.getPostId() == suggestion.getPostId()) {
+                return;
+            }
+        }
+        if (best.length == capacity && BY_WEIGHT.compare(suggestion, best[best.length - 1]) >= 0) {
+            return;
+        }
+
+        Suggestion[] ranked = Arrays.copyOf(best, Math.min(best.length + 1, capacity));
+        int at = best.length == capacity ? capacity - 1 : best.length;
+        while (at > 0 && BY_WEIGHT.compare(suggestion, ranked[at - 1]) < 0) {
+            ranked[at] = ranked[at - 1];
+            at--;
+        }
+        ranked[at] = suggestion;
+        node.best = ranked;
+    }
+
+    private void unlink(Suggestion suggestion) {
+        for (String key : keys(suggestion.getTitle())) {
+            remove(root, key, 0, suggestion);
+        }
+    }
+
+    /**
+     * Removes the entry under the key below the node and repairs the best lists on the way back up.
+     */
+    private void remove(Node node, String key, int matched, Suggestion suggestion) {
+        if (matched == key.length()) {
+            node.terminals = Arrays.stream(node.terminals)
+                    .filter(terminal -> terminal != suggestion)
+                    .toArray(Suggestion[]::new);
+        } else {
+            Node child = node.child(key.charAt(matched));
+            if (child == null || !key.startsWith(child.label, matched)) {
+                return;
+            }
+            remove(child, key, matched + child.label.length(), suggestion);
+            if (child.children.length == 0 && child.terminals.length == 0) {
+                node.removeChild(child);
+            }
+        }
+
+        for (Suggestion present : node.best) {
+            if (present == suggestion) {
+                rank(node);
+                return;
+            }
+        }
+    }
+
+    private void rank(Node node) {
+        Set<Suggestion> candidates = new LinkedHashSet<>(Arrays.asList(node.terminals));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.best));
+        }
+        node.best = candidates.stream()
+                .sorted(BY_WEIGHT)
+                .limit(capacity)
+                .toArray(Suggestion[]::new);
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Normalized title from the start of every word, without repeats.
+     */
+    static Set<String> keys(String title) {
+        String normalized = normalize(title, false);
+        Set<String> keys = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+        }
+        return keys;
+    }
+
+    /**
+     * @param prefix when true, trailing whitespace is kept as a space, so "soggy " only matches the whole word
+     */
+    static String normalize(String text, boolean prefix) {
+        if (text == null) {
+            return "";
+        }
+        List<String> terms = new ArrayList<>();
+        Tokenizer.tokenize(text, (term, position, start, end) -> terms.add(term));
+        String normalized = String.join(" ", terms);
+        if (prefix && !normalized.isEmpty() && Character.isWhitespace(text.charAt(text.length() - 1))) {
+            normalized += " ";
+        }
+        return normalized;
+    }
+}
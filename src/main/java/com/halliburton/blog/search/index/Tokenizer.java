@@ -0,0 +1,48 @@
+package com.halliburton.blog.search.index;
+
+import java.util.Locale;
+
+/**
+ * Splits text into lower-cased runs of letters and digits, the same way for indexed text and queries.
+ */
+public final class Tokenizer {
+
+    @FunctionalInterface
+    public interface TokenConsumer {
+        /**
+         * @param term     lower-cased token
+         * @param position number of the token in the text, starting from 0
+         * @param start    offset of the first character of the token in the text
+         * @param end      offset after the last character of the token in the text
+         */
+        void accept(String term, int position, int start, int end);
+    }
+
+    private Tokenizer() {
+    }
+
+    public static int tokenize(String text, TokenConsumer consumer) {
+        if (text == null) {
+            return 0;
+        }
+
+        int position = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            // by code point, so letters outside the Basic Multilingual Plane are kept whole
+            while (i < length && !Character.isLetterOrDigit(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.codePointAt(i))) {
+                i += Character.charCount(text.codePointAt(i));
+            }
+            if (i > start) {
+                consumer.accept(text.substring(start, i).toLowerCase(Locale.ROOT), position++, start, i);
+            }
+        }
+
+        return position;
+    }
+}
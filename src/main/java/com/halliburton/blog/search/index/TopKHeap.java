@@ -0,0 +1,124 @@
+package com.halliburton.blog.search.index;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the k best scored posts seen so far in a binary min-heap over primitive arrays.
+ * Higher scores rank first, equal scores are ranked by ascending post id. The arrays grow as the heap
+ * fills, so a large k costs memory for the posts offered only.
+ */
+public class TopKHeap {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int capacity;
+    private double[] scores;
+    private long[] docIds;
+    private int size;
+
+    public TopKHeap(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.scores = new double[Math.min(capacity, INITIAL_CAPACITY)];
+        this.docIds = new long[scores.length];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true when the post made it into the heap
+     */
+    public boolean offer(long docId, double score) {
+        if (size < capacity) {
+            if (size == scores.length) {
+                grow();
+            }
+            scores[size] = score;
+            docIds[size] = docId;
+            siftUp(size++);
+            return true;
+        }
+        if (!worse(0, score, docId)) {
+            return false;
+        }
+        scores[0] = score;
+        docIds[0] = docId;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Lowest score a post needs to enter the heap, or negative infinity while the heap is not full.
+     */
+    public double threshold() {
+        return size < capacity ? Double.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * Empties the heap into a list ranked from the best post to the worst.
+     */
+    public ScoredDoc[] drainRanked() {
+        ScoredDoc[] ranked = new ScoredDoc[size];
+        for (int i = size - 1; i >= 0; i--) {
+            ranked[i] = new ScoredDoc(docIds[0], scores[0]);
+            size--;
+            scores[0] = scores[size];
+            docIds[0] = docIds[size];
+            siftDown(0);
+        }
+        return ranked;
+    }
+
+    private void grow() {
+        int length = (int) Math.min(capacity, 2L * scores.length);
+        scores = Arrays.copyOf(scores, length);
+        docIds = Arrays.copyOf(docIds, length);
+    }
+
+    /**
+     * @return true when the entry at the index ranks below the given post
+     */
+    private boolean worse(int index, double score, long docId) {
+        return scores[index] < score || (scores[index] == score && docIds[index] > docId);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(index, scores[parent], docIds[parent])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && worse(child + 1, scores[child], docIds[child])) {
+                child++;
+            }
+            if (!worse(child, scores[index], docIds[index])) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        long docId = docIds[a];
+        docIds[a] = docIds[b];
+        docIds[b] = docId;
+    }
+}
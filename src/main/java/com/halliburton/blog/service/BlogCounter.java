@@ -0,0 +1,58 @@
+package com.halliburton.blog.service;
+
+import com.halliburton.blog.dao.BlogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of blogs, counted once on startup and then kept up to date by the blog writes, so listing
+ * blogs with their total does not count the table on every request. A change is applied when its
+ * transaction commits, rolled back writes leaving the count as it was. Only the writes of
+ * {@link BlogService} are seen: after rows are written to the blog table directly, the count is off
+ * until {@link #load()} is called again.
+ */
+@Slf4j
+@Component
+public class BlogCounter {
+    private final BlogRepository blogRepository;
+    private final AtomicLong count = new AtomicLong();
+
+    public BlogCounter(BlogRepository blogRepository) {
+        this.blogRepository = blogRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        count.set(blogRepository.count());
+        log.info("Counted {} blogs", count.get());
+    }
+
+    public long get() {
+        return count.get();
+    }
+
+    /**
+     * Adds the number of blogs created, negative when deleted, once the current transaction commits or
+     * right away without one.
+     */
+    public void add(long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            count.addAndGet(delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                count.addAndGet(delta);
+            }
+        });
+    }
+}
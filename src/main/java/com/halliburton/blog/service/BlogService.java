@@ -1,20 +1,26 @@
 package com.halliburton.blog.service;
 
+import com.halliburton.blog.dao.BlogCursor;
 import com.halliburton.blog.dao.BlogRepository;
 import com.halliburton.blog.dao.PostRepository;
 import com.halliburton.blog.dto.BlogDtoRequest;
 import com.halliburton.blog.dto.BlogDtoRequestFull;
 import com.halliburton.blog.dto.BlogModel;
+import com.halliburton.blog.dto.BlogPage;
+import com.halliburton.blog.dto.CompactBlog;
+import com.halliburton.blog.dto.CompactPage;
 import com.halliburton.blog.model.BlogEntity;
-import com.halliburton.blog.model.PostEntity;
 import com.halliburton.blog.modelassembler.BlogModelAssembler;
-import org.springframework.data.domain.Example;
+import com.halliburton.blog.search.PostIndexEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -27,38 +33,102 @@ public class BlogService {
     PostRepository postRepository;
     final
     BlogModelAssembler blogModelAssembler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlogCounter blogCounter;
 
-    public BlogService(BlogRepository blogRepository, PostRepository postRepository, BlogModelAssembler blogModelAssembler) {
+    public BlogService(BlogRepository blogRepository, PostRepository postRepository, BlogModelAssembler blogModelAssembler,
+                       ApplicationEventPublisher eventPublisher, BlogCounter blogCounter) {
         this.blogRepository = blogRepository;
         this.postRepository = postRepository;
         this.blogModelAssembler = blogModelAssembler;
+        this.eventPublisher = eventPublisher;
+        this.blogCounter = blogCounter;
     }
 
+    @Transactional(readOnly = true)
     public Optional<BlogModel> getBlogById(Long id) {
 
-        return blogRepository.findById(id)
-                .map(blogModelAssembler::toModel);
-    }
-
-    public CollectionModel<BlogModel> getAllBlogs(String author, LocalDate date) {
-        List<BlogEntity> blogEntities;
-        if (author != null || date != null) {
-            PostEntity postEntity = PostEntity
-                    .builder()
-                    .author(author)
-                    .publishedOn(date)
-                    .build();
-            blogEntities = postRepository.findAll(Example.of(postEntity)).stream()
-                    .map(PostEntity::getBlog)
-                    .distinct()
-                    .collect(Collectors.toList());
-        } else {
-            blogEntities = blogRepository.findAll();
+        return blogRepository.findModelById(id)
+                .map(blogModelAssembler::withLinks);
+    }
+
+    /**
+     * The blog without links, for the compact media type.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CompactBlog> getCompactBlogById(Long id) {
+        return blogRepository.findModelById(id)
+                .map(BlogService::toCompactBlog);
+    }
+
+    /**
+     * A page of blogs in id order, of the blogs with a post matching the author and the date when given.
+     *
+     * @param cursor position of the page, the first page when null
+     * @throws IllegalArgumentException when the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CollectionModel<BlogModel> getAllBlogs(String author, LocalDate date, String cursor, int size) {
+        return blogModelAssembler.toPageModel(findPage(author, date, cursor, size), author, date, size);
+    }
+
+    /**
+     * A page of blogs without links, for the compact media type, like {@link #getAllBlogs}.
+     *
+     * @param cursor position of the page, from a {@code nextCursor} or {@code previousCursor}; the first page
+     *               when null
+     * @throws IllegalArgumentException when the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CompactPage<CompactBlog> getCompactBlogs(String author, LocalDate date, String cursor, int size) {
+        BlogPage page = findPage(author, date, cursor, size);
+        return CompactPage.<CompactBlog>builder()
+                .content(page.getBlogs().stream()
+                        .map(BlogService::toCompactBlog)
+                        .collect(Collectors.toList()))
+                .nextCursor(page.getNextCursor())
+                .previousCursor(page.getPreviousCursor())
+                .build();
+    }
+
+    private static CompactBlog toCompactBlog(BlogModel blog) {
+        return CompactBlog.builder()
+                .id(blog.getId())
+                .blogTitle(blog.getBlogTitle())
+                .description(blog.getDescription())
+                .build();
+    }
+
+    /**
+     * Number of blogs, or of the blogs with a post matching the author and the date when given. The
+     * number of all blogs is kept by {@link BlogCounter} instead of being counted, so it only follows the
+     * blogs written through this service: blogs inserted or deleted in the database directly are not
+     * counted until {@link BlogCounter#load()} counts them again, on the next start at the latest.
+     */
+    public long countBlogs(String author, LocalDate date) {
+        if (author == null && date == null) {
+            return blogCounter.get();
         }
+        return blogRepository.countWithPosts(author, date);
+    }
 
-        return blogModelAssembler.toCollectionModel(blogEntities);
+    /**
+     * Reads a keyset page of blogs, see {@link KeysetPages}.
+     */
+    private BlogPage findPage(String author, LocalDate date, String cursor, int size) {
+        BlogCursor position = cursor == null ? null : BlogCursor.decode(cursor);
+        return KeysetPages.read(size, position != null, position != null && position.isBackward(),
+                limit -> blogRepository.findPage(author, date, position, limit),
+                blog -> BlogCursor.after(blog.getId()).encode(),
+                blog -> BlogCursor.before(blog.getId()).encode(),
+                (blogs, nextCursor, previousCursor) -> BlogPage.builder()
+                        .blogs(blogs)
+                        .nextCursor(nextCursor)
+                        .previousCursor(previousCursor)
+                        .build());
     }
 
+    @Transactional
     public BlogModel createBlog(BlogDtoRequest blog) {
         BlogEntity blogEntity = BlogEntity
                 .builder()
@@ -67,6 +137,8 @@ public class BlogService {
                 .build();
 
         BlogEntity savedBlogEntity = blogRepository.save(blogEntity);
+        blogCounter.add(1);
+        eventPublisher.publishEvent(PostIndexEvent.upsertBlog(savedBlogEntity.getId()));
         return blogModelAssembler.toModel(savedBlogEntity);
     }
 
@@ -74,6 +146,7 @@ public class BlogService {
         return blogRepository.findByBlogTitle(blog.getBlogTitle()).isPresent();
     }
 
+    @Transactional
     public Optional<BlogModel> updateBlog(Long id, BlogDtoRequest blogDtoRequest)
             throws EntityNotFoundException {
 
@@ -98,11 +171,20 @@ public class BlogService {
         }
 
         BlogEntity updatedEntity = blogRepository.save(blogToUpdate.get());
+        eventPublisher.publishEvent(PostIndexEvent.upsertBlog(updatedEntity.getId()));
         return Optional.ofNullable(blogModelAssembler.toModel(updatedEntity));
 
     }
 
+    @Transactional
     public CollectionModel<BlogModel> updateBlogList(List<BlogDtoRequestFull> blogList) {
+        // blogs without an id, or with the id of no blog, are created
+        List<Long> ids = blogList.stream()
+                .map(BlogDtoRequestFull::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        long existing = ids.isEmpty() ? 0 : blogRepository.findAllById(ids).size();
 
         List<BlogEntity> savedList = blogRepository.saveAll(blogList.stream()
                 .map(blogDtoRequestFull -> BlogEntity
@@ -112,22 +194,31 @@ public class BlogService {
                         .description(blogDtoRequestFull.getDescription())
                         .build())
                 .collect(Collectors.toList()));
+        blogCounter.add(savedList.stream().map(BlogEntity::getId).distinct().count() - existing);
+        savedList.forEach(savedEntity -> eventPublisher.publishEvent(PostIndexEvent.upsertBlog(savedEntity.getId())));
         return blogModelAssembler.toCollectionModel(savedList);
     }
 
+    @Transactional
     public boolean deleteBlog(Long id) {
 
         Optional<BlogEntity> blogEntity = blogRepository.findById(id);
         if (blogEntity.isPresent()) {
             blogRepository.deleteById(id);
+            blogCounter.add(-1);
+            eventPublisher.publishEvent(PostIndexEvent.deleteBlog(id));
             return true;
         }
 
         return false;
     }
 
+    @Transactional
     public void deleteAllBlog() {
-        blogRepository.deleteAll();
+        List<BlogEntity> blogsToDelete = blogRepository.findAll();
+        blogRepository.deleteAllInBatch(blogsToDelete);
+        blogCounter.add(-blogsToDelete.size());
+        blogsToDelete.forEach(blog -> eventPublisher.publishEvent(PostIndexEvent.deleteBlog(blog.getId())));
     }
 
     public boolean blogHasNestedObjects(Long blogId) {
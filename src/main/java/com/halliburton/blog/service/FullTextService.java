@@ -1,59 +1,184 @@
 package com.halliburton.blog.service;
 
-import com.halliburton.blog.dto.FullTextSearchResult;
-import org.h2.fulltext.FullText;
+import com.halliburton.blog.dto.PostSearchHit;
+import com.halliburton.blog.dto.PostSearchResult;
+import com.halliburton.blog.dto.ReindexStatus;
+import com.halliburton.blog.dto.SiteSearchHit;
+import com.halliburton.blog.search.PostReindexer;
+import com.halliburton.blog.search.PostSearchEngine;
+import com.halliburton.blog.search.QueryAnalytics;
+import com.halliburton.blog.search.RelatedPosts;
+import com.halliburton.blog.search.SearchBulkhead;
+import com.halliburton.blog.search.SearchResultCache;
+import com.halliburton.blog.search.TitleSuggester;
+import com.halliburton.blog.search.index.Highlighter;
+import com.halliburton.blog.search.index.QueryParser;
+import com.halliburton.blog.search.index.ScoredDoc;
+import com.halliburton.blog.search.index.Suggestion;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
-import javax.sql.DataSource;
 import java.math.BigDecimal;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class FullTextService {
-    public static final int SEARCH_RESULT_LIMIT = 0;
-    public static final int SEARCH_RESULT_OFFSET = 0;
-    public static final int SCHEMA_INDEX = 1;
-    public static final int TABLE_INDEX = 2;
-    public static final int COLUMNS_INDEX = 3;
-    public static final int KEYS_INDEX = 4;
-    public static final int SCORE_INDEX = 5;
-
-    private final DataSource dataSource;
-
-    public FullTextService(DataSource dataSource) {
-        this.dataSource = dataSource;
-    }
-
-    public List<FullTextSearchResult> search(String keyword) throws SQLException {
-        List<FullTextSearchResult> results = new ArrayList<>();
-
-        ResultSet resultSet = FullText.searchData(
-                dataSource.getConnection(),
-                keyword,
-                SEARCH_RESULT_LIMIT,
-                SEARCH_RESULT_OFFSET);
-        while (resultSet.next()) {
-            String schemaName = resultSet.getString(SCHEMA_INDEX);
-            String tableName = resultSet.getString(TABLE_INDEX);
-            Object[] columns = (Object[]) resultSet.getArray(COLUMNS_INDEX).getArray();
-            String column = (String) columns[0];
-            Object[] keys = (Object[]) resultSet.getArray(KEYS_INDEX).getArray();
-            String key = (String) keys[0];
-            BigDecimal score = resultSet.getBigDecimal(SCORE_INDEX);
-
-            results.add(
-                    FullTextSearchResult.builder()
-                            .schema(schemaName)
-                            .table(tableName)
-                            .columns(column)
-                            .keys(key)
-                            .score(score)
-                            .build());
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    /**
+     * Deepest ranked post a search pages to; the engine ranks offset plus limit posts to return a page.
+     */
+    public static final int MAX_RESULT_WINDOW = 10_000;
+    public static final int FACET_VALUES = 10;
+    public static final int SNIPPET_LENGTH = 200;
+    public static final int SPELLING_SUGGESTIONS = 5;
+
+    private final PostSearchEngine searchEngine;
+    private final ObjectProvider<PostReindexer> reindexer;
+    private final TitleSuggester titleSuggester;
+    private final SearchResultCache searchResultCache;
+    private final QueryAnalytics queryAnalytics;
+    private final SearchBulkhead bulkhead;
+    private final RelatedPosts relatedPosts;
+
+    public FullTextService(PostSearchEngine searchEngine, ObjectProvider<PostReindexer> reindexer,
+                           TitleSuggester titleSuggester, SearchResultCache searchResultCache,
+                           QueryAnalytics queryAnalytics, SearchBulkhead bulkhead, RelatedPosts relatedPosts) {
+        this.searchEngine = searchEngine;
+        this.reindexer = reindexer;
+        this.titleSuggester = titleSuggester;
+        this.searchResultCache = searchResultCache;
+        this.queryAnalytics = queryAnalytics;
+        this.bulkhead = bulkhead;
+        this.relatedPosts = relatedPosts;
+    }
+
+    /**
+     * Searches posts and returns them already loaded and ranked by score, or in id order with H2 FullText,
+     * which scores every match alike. The first pages of frequent
+     * searches come from the {@link SearchResultCache}. Every completed search is recorded in
+     * {@link QueryAnalytics}.
+     *
+     * @param fuzzy    when true, terms also match misspellings of them
+     * @param limit    maximum number of posts to return, must be positive
+     * @param offset   number of ranked posts to skip, offset plus limit at most {@value #MAX_RESULT_WINDOW}
+     * @param minScore posts with a lower score are skipped, may be null
+     */
+    public List<PostSearchHit> searchPosts(String keyword, boolean fuzzy, int limit, int offset, BigDecimal minScore)
+            throws SQLException {
+        checkWindow(limit, offset);
+
+        return recorded(keyword, () -> searchResultCache.search(keyword, fuzzy, limit, offset, minScore));
+    }
+
+    /**
+     * Searches posts like {@link #searchPosts(String, boolean, int, int, BigDecimal)} and counts the
+     * {@value #FACET_VALUES} most frequent authors, blogs and months of publication among all matching posts.
+     *
+     * @throws UnsupportedOperationException when the search engine is not the in-process index
+     */
+    public PostSearchResult searchPostsWithFacets(String keyword, boolean fuzzy, int limit, int offset,
+                                                  BigDecimal minScore) throws SQLException {
+        checkWindow(limit, offset);
+
+        return recorded(keyword, () -> searchEngine.searchWithFacets(keyword, fuzzy, limit, offset, minScore,
+                FACET_VALUES));
+    }
+
+    /**
+     * Searches posts and blogs together and returns them already loaded and ranked by score.
+     *
+     * @throws UnsupportedOperationException when the search engine is not the in-process index
+     */
+    public List<SiteSearchHit> searchAll(String keyword, int limit, int offset) throws SQLException {
+        checkWindow(limit, offset);
+
+        return recorded(keyword, () -> searchEngine.searchAll(keyword, limit, offset));
+    }
+
+    private static void checkWindow(int limit, int offset) {
+        if (limit < 1 || offset < 0 || offset > MAX_RESULT_WINDOW - limit) {
+            throw new IllegalArgumentException("limit must be positive, offset must not be negative and offset "
+                    + "plus limit must not exceed " + MAX_RESULT_WINDOW);
         }
+    }
+
+    /**
+     * Runs the search on the bulkhead and records it in {@link QueryAnalytics} once it completed. Rejected,
+     * timed out and failed searches are left out, so they do not skew the latencies; the bulkhead counts
+     * the first two.
+     */
+    private <T> T recorded(String keyword, SearchBulkhead.Search<T> search) throws SQLException {
+        long started = System.nanoTime();
+        T result = bulkhead.call(search);
+        queryAnalytics.record(keyword, System.nanoTime() - started);
+        return result;
+    }
 
-        return results;
+    /**
+     * Up to {@value #SPELLING_SUGGESTIONS} corrections of a keyword that found no posts, each finding posts,
+     * best first. Empty with H2 FullText, which has no term dictionary to correct from.
+     */
+    public List<String> suggestSpellings(String keyword) throws SQLException {
+        return bulkhead.call(() -> searchEngine.suggestSpellings(keyword, SPELLING_SUGGESTIONS));
+    }
+
+    /**
+     * Marks the terms of the keyword in snippets of the found posts; parsed once and applied to the returned
+     * page only.
+     */
+    public Highlighter highlighter(String keyword, boolean fuzzy) {
+        return new Highlighter(QueryParser.parse(keyword, fuzzy));
+    }
+
+    /**
+     * Titles with a word starting with the prefix, most recently published first.
+     *
+     * @param limit maximum number of titles, from 1 to {@link TitleSuggester#MAX_SUGGESTIONS}
+     */
+    public List<Suggestion> suggestTitles(String prefix, int limit) {
+        if (limit < 1 || limit > TitleSuggester.MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + TitleSuggester.MAX_SUGGESTIONS);
+        }
+
+        return titleSuggester.suggest(prefix, limit);
+    }
+
+    /**
+     * Posts with a text similar to the post's, most similar first, without searching.
+     *
+     * @param limit maximum number of posts, from 1 to {@link RelatedPosts#MAX_RELATED}
+     */
+    public List<ScoredDoc> relatedPosts(long postId, int limit) {
+        if (limit < 1 || limit > RelatedPosts.MAX_RELATED) {
+            throw new IllegalArgumentException("limit must be between 1 and " + RelatedPosts.MAX_RELATED);
+        }
+
+        return relatedPosts.related(postId, limit);
+    }
+
+    /**
+     * Starts rebuilding the search index in the background.
+     *
+     * @return status of the started reindex, or empty when one is running already
+     * @throws UnsupportedOperationException when the search engine is not the in-process index
+     */
+    public Optional<ReindexStatus> startReindex() {
+        return getReindexer().start();
+    }
+
+    public ReindexStatus getReindexStatus() {
+        return getReindexer().status();
+    }
+
+    private PostReindexer getReindexer() {
+        PostReindexer available = reindexer.getIfAvailable();
+        if (available == null) {
+            throw new UnsupportedOperationException("Reindexing needs " + PostSearchEngine.ENGINE_PROPERTY
+                    + "=inverted-index, H2 FullText keeps its index up to date itself");
+        }
+        return available;
     }
 }
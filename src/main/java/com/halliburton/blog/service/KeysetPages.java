@@ -0,0 +1,55 @@
+package com.halliburton.blog.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Reads keyset pages of posts and blogs alike: one item more than the page size, which tells whether
+ * another page follows, and the cursors of the pages around the page from its first and last items.
+ */
+final class KeysetPages {
+
+    @FunctionalInterface
+    interface PageFactory<T, P> {
+        /**
+         * @param nextCursor     cursor of the next page, null when there is none
+         * @param previousCursor cursor of the previous page, null when there is none
+         */
+        P create(List<T> items, String nextCursor, String previousCursor);
+    }
+
+    private KeysetPages() {
+    }
+
+    /**
+     * @param positioned true when the page starts from a cursor, false for the first page
+     * @param backward   true when the cursor pages backwards; the reader then reads in reverse order
+     * @param reader     reads at most the given number of items from the position
+     * @param after      cursor of the items after an item
+     * @param before     cursor of the items before an item
+     */
+    static <T, P> P read(int size, boolean positioned, boolean backward, IntFunction<List<T>> reader,
+                         Function<T, String> after, Function<T, String> before, PageFactory<T, P> page) {
+        List<T> items = new ArrayList<>(reader.apply(size + 1));
+        boolean more = items.size() > size;
+        if (more) {
+            items.remove(size);
+        }
+        if (backward) {
+            // a backward page is read in reverse order from its end
+            Collections.reverse(items);
+        }
+        if (items.isEmpty()) {
+            return page.create(items, null, null);
+        }
+
+        boolean hasNext = backward || more;
+        boolean hasPrevious = backward ? more : positioned;
+        return page.create(items,
+                hasNext ? after.apply(items.get(items.size() - 1)) : null,
+                hasPrevious ? before.apply(items.get(0)) : null);
+    }
+}
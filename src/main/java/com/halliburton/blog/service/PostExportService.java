@@ -0,0 +1,90 @@
+package com.halliburton.blog.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes every post as newline-delimited JSON, one object per line in id order. Rows are read through a
+ * forward-only cursor a fetch at a time and written to the stream as they come, so neither the posts nor
+ * their JSON are held in memory together. The cursor holds a pooled connection until the last post is
+ * written, so a slow client keeps that connection for the whole export; its time is bounded by
+ * {@code blog.export.timeout} rather than by the default async request timeout.
+ */
+@Service
+public class PostExportService {
+    private static final String EXPORT_QUERY = "SELECT id, blog_id, post_title, post_body, post_conclusion, author, "
+            + "published_on FROM post ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonFactory jsonFactory;
+    private final int fetchSize;
+
+    public PostExportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                             @Value("${blog.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonFactory = objectMapper.getFactory();
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return number of posts written
+     * @throws IOException when writing to the stream failed, typically as the client disconnected
+     */
+    public long exportPosts(OutputStream out) throws IOException {
+        long[] count = new long[1];
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            // the caller owns the stream; the generator only flushes its buffer into it
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_QUERY,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> {
+                writePost(generator, resultSet);
+                count[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+
+    private static void writePost(JsonGenerator generator, ResultSet resultSet) throws SQLException {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", resultSet.getLong(1));
+            long blogId = resultSet.getLong(2);
+            if (resultSet.wasNull()) {
+                generator.writeNullField("blogId");
+            } else {
+                generator.writeNumberField("blogId", blogId);
+            }
+            generator.writeStringField("postTitle", resultSet.getString(3));
+            generator.writeStringField("postBody", resultSet.getString(4));
+            generator.writeStringField("postConclusion", resultSet.getString(5));
+            generator.writeStringField("author", resultSet.getString(6));
+            Date publishedOn = resultSet.getDate(7);
+            generator.writeStringField("publishedOn", publishedOn == null ? null : publishedOn.toLocalDate().toString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
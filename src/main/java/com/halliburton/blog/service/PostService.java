@@ -4,23 +4,44 @@ import com.halliburton.blog.modelassembler.PostModelAssembler;
 import com.halliburton.blog.controller.BlogController;
 import com.halliburton.blog.controller.PostController;
 import com.halliburton.blog.dao.BlogRepository;
+import com.halliburton.blog.dao.PostCursor;
 import com.halliburton.blog.dao.PostRepository;
+import com.halliburton.blog.dto.CompactPage;
+import com.halliburton.blog.dto.CompactPost;
+import com.halliburton.blog.dto.FacetValue;
+import com.halliburton.blog.dto.PostCollectionModel;
 import com.halliburton.blog.dto.PostDtoRequest;
 import com.halliburton.blog.dto.PostDtoRequestFull;
+import com.halliburton.blog.dto.PostFacets;
 import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.dto.PostPage;
+import com.halliburton.blog.dto.PostSearchHit;
+import com.halliburton.blog.dto.PostSearchResult;
+import com.halliburton.blog.dto.PostSummary;
+import com.halliburton.blog.dto.PostTitleSuggestion;
+import com.halliburton.blog.dto.PostView;
+import com.halliburton.blog.dto.RelatedPost;
 import com.halliburton.blog.model.BlogEntity;
 import com.halliburton.blog.model.PostEntity;
-import org.springframework.data.domain.Example;
+import com.halliburton.blog.model.SortablePost;
+import com.halliburton.blog.search.PostIndexEvent;
+import com.halliburton.blog.search.index.FacetCounts;
+import com.halliburton.blog.search.index.Highlighter;
+import com.halliburton.blog.search.index.ScoredDoc;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,52 +54,202 @@ public class PostService {
     final
     PostModelAssembler postModelAssembler;
     private final FullTextService fullTextService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public PostService(PostRepository postRepository, BlogRepository blogRepository, PostModelAssembler postModelAssembler, FullTextService fullTextService) {
+    public PostService(PostRepository postRepository, BlogRepository blogRepository, PostModelAssembler postModelAssembler,
+                       FullTextService fullTextService, ApplicationEventPublisher eventPublisher) {
         this.postRepository = postRepository;
         this.blogRepository = blogRepository;
         this.postModelAssembler = postModelAssembler;
         this.fullTextService = fullTextService;
+        this.eventPublisher = eventPublisher;
     }
 
 
+    @Transactional(readOnly = true)
     public Optional<PostModel> getPostById(Long id) {
 
-        return postRepository.findById(id)
-                .map(postModelAssembler::toModel);
+        return postRepository.findModelById(id)
+                .map(postModelAssembler::withLinks);
     }
 
-    public CollectionModel<PostModel> getAllPosts(Optional<String> keyword) {
-        List<PostEntity> postEntities;
+    /**
+     * The post without links, for the compact media type.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CompactPost> getCompactPostById(Long id) {
+        return postRepository.findModelById(id)
+                .map(PostService::toCompactPost);
+    }
+
+    /**
+     * @param facets   when true, the search results also count the facet values of all matching posts
+     * @param snippets when true, the found posts carry a highlighted snippet instead of their body
+     * @param page     page of search results
+     * @param cursor   position of the page of all posts, from a {@code next} or {@code prev} link; the first
+     *                 page when null
+     * @param view     fields of the posts of the page of all posts
+     * @return posts, with spelling suggestions when a search found none on its first page
+     * @throws IllegalArgumentException when the cursor is invalid
+     */
+    public CollectionModel<PostModel> getAllPosts(Optional<String> keyword, boolean fuzzy, boolean facets,
+                                                  boolean snippets, int page, int size, String cursor,
+                                                  PostView view) {
+        CollectionModel<PostModel> postModels;
         if (keyword.isPresent()) {
-            List<Long> results;
+            List<PostSearchHit> hits;
+            FacetCounts facetCounts = null;
+            List<String> suggestions;
             try {
-                results = fullTextService.search(keyword.get())
-                        .stream()
-                        .map(fullTextSearchResult -> Long.valueOf(fullTextSearchResult.getKeys()))
-                        .collect(Collectors.toList());
+                if (facets) {
+                    PostSearchResult result = fullTextService.searchPostsWithFacets(keyword.get(), fuzzy, size,
+                            page * size, null);
+                    hits = result.getHits();
+                    facetCounts = result.getFacets();
+                } else {
+                    hits = fullTextService.searchPosts(keyword.get(), fuzzy, size, page * size, null);
+                }
+                // a later page may be empty because it is past the results, not because of a misspelling
+                suggestions = hits.isEmpty() && page == 0
+                        ? fullTextService.suggestSpellings(keyword.get()) : List.of();
             } catch (SQLException e) {
                 return null;
             }
-            postEntities = postRepository.findByIdIn(results);
+            Highlighter highlighter = snippets ? fullTextService.highlighter(keyword.get(), fuzzy) : null;
+            postModels = new PostCollectionModel(hits.stream()
+                    .map(hit -> highlighter == null ? postModelAssembler.toSearchModel(hit)
+                            : postModelAssembler.toSnippetModel(hit,
+                            highlighter.snippet(hit.getPost().getPostBody(), FullTextService.SNIPPET_LENGTH)))
+                    .collect(Collectors.toList()), facetCounts == null ? null : toPostFacets(facetCounts),
+                    suggestions);
         } else {
-            postEntities = postRepository.findAll();
+            postModels = listPage(null, PostCursor.DEFAULT_SORT, cursor, size, view);
         }
-        CollectionModel<PostModel> postModels = postModelAssembler.toCollectionModel(postEntities);
 
         postModels.add(WebMvcLinkBuilder
                 .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
-                        .getAllPosts(Optional.empty()))
+                        .getAllPosts(Optional.empty(), null, null, null, null, null, null, null))
                 .withSelfRel());
 
         postModels.add(WebMvcLinkBuilder
                 .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
-                        .getAllBlogs(null, null))
+                        .getAllBlogs(null, null, null, null, null))
                 .withRel("blogs"));
 
         return postModels;
     }
 
+    /**
+     * A page of all posts without links, for the compact media type.
+     *
+     * @param cursor position of the page, from a {@code nextCursor} or {@code previousCursor}; the first page
+     *               when null
+     * @param view   fields of the posts
+     * @throws IllegalArgumentException when the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CompactPage<CompactPost> getCompactPosts(String cursor, int size, PostView view) {
+        return compactPage(null, PostCursor.DEFAULT_SORT, cursor, size, view);
+    }
+
+    private static PostFacets toPostFacets(FacetCounts counts) {
+        return PostFacets.builder()
+                .author(toFacetValues(counts.getAuthors()))
+                .blogId(toFacetValues(counts.getBlogIds()))
+                .publishedMonth(toFacetValues(counts.getPublishedMonths()))
+                .build();
+    }
+
+    private static List<FacetValue> toFacetValues(Map<?, Integer> counts) {
+        return counts.entrySet().stream()
+                .map(entry -> FacetValue.builder()
+                        .value(entry.getKey().toString())
+                        .count(entry.getValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads a page of posts of the view, as models or as summaries without the CLOB columns.
+     */
+    private CollectionModel<PostModel> listPage(Long blogId, Sort sort, String cursor, int size, PostView view) {
+        if (view == PostView.SUMMARY) {
+            return postModelAssembler.toSummaryPageModel(findPage(sort, cursor, size,
+                    (keyset, position, limit) -> postRepository.findSummaryPage(blogId, keyset, position, limit)),
+                    blogId, size);
+        }
+        return postModelAssembler.toPageModel(findPage(sort, cursor, size,
+                (keyset, position, limit) -> postRepository.findPage(blogId, keyset, position, limit)), blogId, size);
+    }
+
+    /**
+     * Reads a page of posts of the view like {@link #listPage}, into posts without links.
+     */
+    private CompactPage<CompactPost> compactPage(Long blogId, Sort sort, String cursor, int size, PostView view) {
+        if (view == PostView.SUMMARY) {
+            return toCompactPage(findPage(sort, cursor, size,
+                    (keyset, position, limit) -> postRepository.findSummaryPage(blogId, keyset, position, limit)),
+                    PostService::toCompactSummary);
+        }
+        return toCompactPage(findPage(sort, cursor, size,
+                (keyset, position, limit) -> postRepository.findPage(blogId, keyset, position, limit)),
+                PostService::toCompactPost);
+    }
+
+    private static <T> CompactPage<CompactPost> toCompactPage(PostPage<T> page, Function<T, CompactPost> toCompact) {
+        return CompactPage.<CompactPost>builder()
+                .content(page.getPosts().stream()
+                        .map(toCompact)
+                        .collect(Collectors.toList()))
+                .nextCursor(page.getNextCursor())
+                .previousCursor(page.getPreviousCursor())
+                .build();
+    }
+
+    private static CompactPost toCompactPost(PostModel post) {
+        return CompactPost.builder()
+                .id(post.getId())
+                .blogId(post.getBlogId())
+                .postTitle(post.getPostTitle())
+                .postBody(post.getPostBody())
+                .postConclusion(post.getPostConclusion())
+                .author(post.getAuthor())
+                .publishedOn(post.getPublishedOn())
+                .build();
+    }
+
+    private static CompactPost toCompactSummary(PostSummary post) {
+        return CompactPost.builder()
+                .id(post.getId())
+                .blogId(post.getBlogId())
+                .postTitle(post.getPostTitle())
+                .author(post.getAuthor())
+                .publishedOn(post.getPublishedOn())
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface PageReader<T> {
+        List<T> read(Sort sort, PostCursor cursor, int limit);
+    }
+
+    /**
+     * Reads a keyset page of posts, see {@link KeysetPages}.
+     */
+    private <T extends SortablePost> PostPage<T> findPage(Sort sort, String cursor, int size, PageReader<T> reader) {
+        PostCursor position = cursor == null ? null : PostCursor.decode(cursor);
+        Sort keyset = position == null ? sort : position.getSort();
+        return KeysetPages.read(size, position != null, position != null && position.isBackward(),
+                limit -> reader.read(keyset, position, limit),
+                post -> PostCursor.after(keyset, post).encode(),
+                post -> PostCursor.before(keyset, post).encode(),
+                (posts, nextCursor, previousCursor) -> PostPage.<T>builder()
+                        .posts(posts)
+                        .nextCursor(nextCursor)
+                        .previousCursor(previousCursor)
+                        .build());
+    }
+
     private Sort getSortGroup(String[] sort) {
         Sort groupBySort = null;
         for (String sortOrder : sort) {
@@ -99,40 +270,101 @@ public class PostService {
         return groupBySort;
     }
 
-    public CollectionModel<PostModel> getAllPostsByGivenBlog(Long blog_id, String[] sort)
-            throws EntityNotFoundException, PropertyReferenceException {
+    public List<PostTitleSuggestion> suggestPostTitles(String prefix, int limit) {
+        return fullTextService.suggestTitles(prefix, limit).stream()
+                .map(suggestion -> PostTitleSuggestion.builder()
+                        .id(suggestion.getPostId())
+                        .postTitle(suggestion.getTitle())
+                        .build())
+                .collect(Collectors.toList());
+    }
 
-        Optional<BlogEntity> blog = blogRepository.findById(blog_id);
-        if (blog.isEmpty()) {
-            throw new EntityNotFoundException("Entity with id = " + blog_id + " not found");
+    /**
+     * @return posts with a text similar to the post's, most similar first, or empty when the post does not exist
+     */
+    public Optional<List<RelatedPost>> getRelatedPosts(Long id, int limit) {
+        if (!postRepository.existsById(id)) {
+            return Optional.empty();
         }
-        Sort groupBySort = getSortGroup(sort);
-        PostEntity postEntity = PostEntity
-                .builder()
-                .blog(blog.get())
-                .build();
 
-        List<PostEntity> postEntities = postRepository.findAll(Example.of(postEntity), groupBySort);
-        CollectionModel<PostModel> postModels = postModelAssembler.toCollectionModel(postEntities);
+        List<ScoredDoc> related = fullTextService.relatedPosts(id, limit);
+        // titles only, without the CLOB columns of the entities
+        Map<Long, PostSummary> posts = postRepository.findSummariesById(related.stream()
+                        .map(ScoredDoc::getDocId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(PostSummary::getId, post -> post));
+        // a post deleted since its signature was computed is skipped
+        return Optional.of(related.stream()
+                .filter(doc -> posts.containsKey(doc.getDocId()))
+                .map(doc -> RelatedPost.builder()
+                        .id(doc.getDocId())
+                        .postTitle(posts.get(doc.getDocId()).getPostTitle())
+                        .similarity(doc.getScore())
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @param sort   properties to sort by, each followed by {@code :asc} or {@code :desc}; ignored with a cursor
+     * @param cursor position of the page, from a {@code next} or {@code prev} link; the first page when null
+     * @param view   fields of the posts
+     * @throws PropertyReferenceException when the posts cannot be sorted by a property
+     * @throws IllegalArgumentException   when the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CollectionModel<PostModel> getAllPostsByGivenBlog(Long blog_id, String[] sort, String cursor, int size,
+                                                             PostView view)
+            throws EntityNotFoundException, PropertyReferenceException {
+
+        CollectionModel<PostModel> postModels = listPage(blog_id, blogPostSort(blog_id, sort), cursor, size, view);
 
         postModels.add(WebMvcLinkBuilder
                 .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
-                        .getAllPostsByGivenBlog(blog_id, null))
+                        .getAllPostsByGivenBlog(blog_id, null, null, null, null))
                 .withSelfRel());
 
         postModels.add(WebMvcLinkBuilder
                 .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
-                        .getAllPosts(Optional.empty()))
+                        .getAllPosts(Optional.empty(), null, null, null, null, null, null, null))
                 .withRel("posts"));
 
         postModels.add(WebMvcLinkBuilder
                 .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
-                        .getAllBlogs(null, null))
+                        .getAllBlogs(null, null, null, null, null))
                 .withRel("blogs"));
 
         return postModels;
     }
 
+    /**
+     * A page of the posts of a blog without links, for the compact media type.
+     *
+     * @param sort   properties to sort by, each followed by {@code :asc} or {@code :desc}; ignored with a cursor
+     * @param cursor position of the page, from a {@code nextCursor} or {@code previousCursor}; the first page
+     *               when null
+     * @param view   fields of the posts
+     * @throws PropertyReferenceException when the posts cannot be sorted by a property
+     * @throws IllegalArgumentException   when the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public CompactPage<CompactPost> getCompactPostsByGivenBlog(Long blog_id, String[] sort, String cursor, int size,
+                                                              PostView view)
+            throws EntityNotFoundException, PropertyReferenceException {
+        return compactPage(blog_id, blogPostSort(blog_id, sort), cursor, size, view);
+    }
+
+    /**
+     * Keyset sort of the posts of a blog, which must exist.
+     */
+    private Sort blogPostSort(Long blog_id, String[] sort) throws EntityNotFoundException {
+        if (!blogRepository.existsById(blog_id)) {
+            throw new EntityNotFoundException("Entity with id = " + blog_id + " not found");
+        }
+        Sort groupBySort = sort == null || sort.length == 0 ? PostCursor.DEFAULT_SORT : getSortGroup(sort);
+        return PostCursor.keysetSort(groupBySort);
+    }
+
+    @Transactional
     public PostModel createPost(Long blog_id, PostDtoRequest post) {
         Optional<BlogEntity> blog = blogRepository.findById(blog_id);
         if (blog.isEmpty()) {
@@ -149,9 +381,12 @@ public class PostService {
                 .publishedOn(post.getPublishedOn())
                 .build();
 
-        return postModelAssembler.toModel(postRepository.save(postEntity));
+        PostEntity savedEntity = postRepository.save(postEntity);
+        eventPublisher.publishEvent(PostIndexEvent.upsert(savedEntity.getId()));
+        return postModelAssembler.toModel(savedEntity);
     }
 
+    @Transactional
     public Optional<PostModel> updatePost(Long id, PostDtoRequest postDtoRequest) {
         boolean needsToUpdate = false;
 
@@ -187,9 +422,11 @@ public class PostService {
         }
 
         PostEntity updatedEntity = postRepository.save(postToUpdate.get());
+        eventPublisher.publishEvent(PostIndexEvent.upsert(updatedEntity.getId()));
         return Optional.ofNullable(postModelAssembler.toModel(updatedEntity));
     }
 
+    @Transactional
     public CollectionModel<PostModel> updatePostList(List<PostDtoRequestFull> postList) {
         List<PostEntity> savedList = postRepository.saveAll(postList.stream()
                 .map(postDtoRequestFull -> {
@@ -206,40 +443,47 @@ public class PostService {
                             .build();
                 })
                 .collect(Collectors.toList()));
+        savedList.forEach(savedEntity -> eventPublisher.publishEvent(PostIndexEvent.upsert(savedEntity.getId())));
 
         CollectionModel<PostModel> postModels = postModelAssembler.toCollectionModel(savedList);
 
         postModels.add(WebMvcLinkBuilder
                 .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
-                        .getAllPosts(Optional.empty()))
+                        .getAllPosts(Optional.empty(), null, null, null, null, null, null, null))
                 .withSelfRel());
 
         postModels.add(WebMvcLinkBuilder
                 .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
-                        .getAllBlogs(null, null))
+                        .getAllBlogs(null, null, null, null, null))
                 .withRel("blogs"));
 
         return postModels;
     }
 
+    @Transactional
     public void deleteAllPost() {
         postRepository.deleteAll();
+        eventPublisher.publishEvent(PostIndexEvent.deleteAll());
     }
 
+    @Transactional
     public boolean deletePost(Long id) {
         Optional<PostEntity> postEntity = postRepository.findById(id);
         if (postEntity.isPresent()) {
             postRepository.deleteById(id);
+            eventPublisher.publishEvent(PostIndexEvent.delete(id));
             return true;
         }
 
         return false;
     }
 
+    @Transactional
     public boolean deleteAllPostByBlogId(Long blogId) {
         List<PostEntity> postsToDelete = postRepository.findByBlog_Id(blogId);
         if (postsToDelete.size() > 0) {
             postRepository.deleteAllInBatch(postsToDelete);
+            postsToDelete.forEach(post -> eventPublisher.publishEvent(PostIndexEvent.delete(post.getId())));
             return true;
         }
 
@@ -0,0 +1,81 @@
+package com.halliburton.blog.service;
+
+import com.halliburton.blog.controller.BlogController;
+import com.halliburton.blog.controller.PostController;
+import com.halliburton.blog.controller.SearchController;
+import com.halliburton.blog.dto.SearchHitModel;
+import com.halliburton.blog.dto.SiteSearchHit;
+import com.halliburton.blog.modelassembler.BlogModelAssembler;
+import com.halliburton.blog.modelassembler.PostModelAssembler;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+public class SearchService {
+    private final FullTextService fullTextService;
+    private final PostModelAssembler postModelAssembler;
+    private final BlogModelAssembler blogModelAssembler;
+
+    public SearchService(FullTextService fullTextService, PostModelAssembler postModelAssembler,
+                         BlogModelAssembler blogModelAssembler) {
+        this.fullTextService = fullTextService;
+        this.postModelAssembler = postModelAssembler;
+        this.blogModelAssembler = blogModelAssembler;
+    }
+
+    /**
+     * Posts and blogs matching the keyword, ranked together by score.
+     *
+     * @return the hits, or null when the search failed
+     */
+    public CollectionModel<SearchHitModel> search(String keyword, int page, int size) {
+        List<SiteSearchHit> hits;
+        try {
+            hits = fullTextService.searchAll(keyword, size, page * size);
+        } catch (SQLException e) {
+            return null;
+        }
+
+        CollectionModel<SearchHitModel> hitModels = CollectionModel.of(hits.stream()
+                .map(this::toModel)
+                .collect(Collectors.toList()));
+
+        hitModels.add(WebMvcLinkBuilder
+                .linkTo(WebMvcLinkBuilder.methodOn(SearchController.class)
+                        .search(keyword, page, size))
+                .withSelfRel());
+
+        hitModels.add(WebMvcLinkBuilder
+                .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                        .getAllPosts(Optional.empty(), null, null, null, null, null, null, null))
+                .withRel("posts"));
+
+        hitModels.add(WebMvcLinkBuilder
+                .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                        .getAllBlogs(null, null, null, null, null))
+                .withRel("blogs"));
+
+        return hitModels;
+    }
+
+    private SearchHitModel toModel(SiteSearchHit hit) {
+        if (hit.getPost() != null) {
+            return SearchHitModel.builder()
+                    .type(SearchHitModel.Type.POST)
+                    .score(hit.getScore())
+                    .post(postModelAssembler.toModel(hit.getPost()))
+                    .build();
+        }
+        return SearchHitModel.builder()
+                .type(SearchHitModel.Type.BLOG)
+                .score(hit.getScore())
+                .blog(blogModelAssembler.toModel(hit.getBlog()))
+                .build();
+    }
+}
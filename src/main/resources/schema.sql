@@ -15,13 +15,21 @@ CREATE TABLE post
     post_conclusion CLOB,
     author          VARCHAR(40)           NOT NULL,
     published_on    date                  NOT NULL,
+    updated_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP NOT NULL,
     CONSTRAINT pk_post PRIMARY KEY (id)
 );
 
-ALTER TABLE post
-    ADD CONSTRAINT FK_POST_ON_BLOG FOREIGN KEY (blog_id) REFERENCES blog (id);
+-- keyset pagination of blogs backwards; forwards reads the primary key
+CREATE INDEX idx_blog_id_desc ON blog (id DESC);
+
+CREATE INDEX idx_post_updated_at ON post (updated_at);
 
-CREATE ALIAS IF NOT EXISTS FT_INIT FOR "org.h2.fulltext.FullText.init";
-CALL FT_INIT();
-CALL FT_CREATE_INDEX('PUBLIC', 'POST', 'POST_TITLE,POST_BODY');
+-- keyset pagination, one index per sort and direction: H2 reads an index in its own order only
+CREATE INDEX idx_post_id_desc ON post (id DESC);
+CREATE INDEX idx_post_blog_id ON post (blog_id, id);
+CREATE INDEX idx_post_blog_id_desc ON post (blog_id DESC, id DESC);
+CREATE INDEX idx_post_blog_published_on ON post (blog_id, published_on, id);
+CREATE INDEX idx_post_blog_published_on_desc ON post (blog_id DESC, published_on DESC, id DESC);
 
+ALTER TABLE post
+    ADD CONSTRAINT FK_POST_ON_BLOG FOREIGN KEY (blog_id) REFERENCES blog (id);
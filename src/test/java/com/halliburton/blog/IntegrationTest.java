@@ -1,16 +1,35 @@
 package com.halliburton.blog;
 
+import com.halliburton.blog.controller.BlogMediaTypes;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -19,6 +38,11 @@ public class IntegrationTest {
     @Autowired
     private MockMvc mvc;
 
+    private static URI link(String collection, String rel) {
+        List<String> hrefs = JsonPath.read(collection, "$.links[?(@.rel == '" + rel + "')].href");
+        return URI.create(hrefs.get(0));
+    }
+
     @Test
     public void testAllBlogs() throws Exception {
         this.mvc.perform(get("/api/v1.0.0/blogs")
@@ -29,6 +53,39 @@ public class IntegrationTest {
                 .andExpect(jsonPath("$.content", hasSize(3)));
     }
 
+    @Test
+    public void givenBlogItems_whenFollowNextAndPrevLinks_thenReturnEveryBlogOnce() throws Exception {
+        String first = this.mvc.perform(get("/api/v1.0.0/blogs")
+                        .param("size", "2")
+                        .param("totalCount", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(jsonPath("$.content[*].id", contains(1, 2)))
+                .andExpect(jsonPath("$.links[?(@.rel == 'prev')]", hasSize(0)))
+                .andReturn().getResponse().getContentAsString();
+
+        String second = this.mvc.perform(get(link(first, "next")))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(jsonPath("$.content[*].id", contains(3)))
+                .andExpect(jsonPath("$.links[?(@.rel == 'next')]", hasSize(0)))
+                .andReturn().getResponse().getContentAsString();
+
+        this.mvc.perform(get(link(second, "prev")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(1, 2)));
+    }
+
+    @Test
+    public void givenPostDate_whenGetBlogsWithTotalCount_thenCountBlogsWithMatchingPosts() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/blogs")
+                        .param("date", "2022-09-09")
+                        .param("totalCount", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "2"))
+                .andExpect(jsonPath("$.content", hasSize(2)));
+    }
+
     @Test
     public void testAllPosts() throws Exception {
         this.mvc.perform(get("/api/v1.0.0/posts")
@@ -36,7 +93,211 @@ public class IntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.*", hasSize(2)))
                 .andExpect(jsonPath("$.links", hasSize(2)))
-                .andExpect(jsonPath("$.content", hasSize(3)));
+                .andExpect(jsonPath("$.content", hasSize(3)))
+                .andExpect(jsonPath("$.content[0].score").doesNotExist());
+    }
+
+    @Test
+    public void givenPostItems_whenExportPosts_thenStreamOnePostPerLine() throws Exception {
+        MvcResult export = this.mvc.perform(get("/api/v1.0.0/posts/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(Duration.ofMinutes(30).toMillis(), export.getRequest().getAsyncContext().getTimeout());
+
+        String lines = this.mvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> ids = Arrays.stream(lines.split("\n"))
+                .map(line -> JsonPath.<Integer>read(line, "$.id"))
+                .collect(Collectors.toList());
+        assertEquals(List.of(1, 2, 3), ids);
+    }
+
+    @Test
+    public void givenPostItems_whenFollowNextAndPrevLinks_thenReturnEveryPostOnce() throws Exception {
+        String first = this.mvc.perform(get("/api/v1.0.0/posts").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(1, 2)))
+                .andExpect(jsonPath("$.links[?(@.rel == 'prev')]", hasSize(0)))
+                .andReturn().getResponse().getContentAsString();
+
+        String second = this.mvc.perform(get(link(first, "next")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(3)))
+                .andExpect(jsonPath("$.links[?(@.rel == 'next')]", hasSize(0)))
+                .andReturn().getResponse().getContentAsString();
+
+        this.mvc.perform(get(link(second, "prev")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(1, 2)))
+                .andExpect(jsonPath("$.links[?(@.rel == 'prev')]", hasSize(0)));
+    }
+
+    @Test
+    public void givenBlogPosts_whenPageBySort_thenKeepSortOnNextPage() throws Exception {
+        String first = this.mvc.perform(get("/api/v1.0.0/blogs/2/posts")
+                        .param("sort", "publishedOn:asc")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(3)))
+                .andReturn().getResponse().getContentAsString();
+
+        this.mvc.perform(get(link(first, "next")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(2)));
+    }
+
+    @Test
+    public void givenSummaryView_whenPagePosts_thenReturnPostsWithoutBodyOnEveryPage() throws Exception {
+        String first = this.mvc.perform(get("/api/v1.0.0/blogs/2/posts")
+                        .param("view", "summary")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(3)))
+                .andExpect(jsonPath("$.content[0].postTitle", notNullValue()))
+                .andExpect(jsonPath("$.content[0].postBody").doesNotExist())
+                .andExpect(jsonPath("$.content[0].postConclusion").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+
+        this.mvc.perform(get(link(first, "next")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(2)))
+                .andExpect(jsonPath("$.content[0].postBody").doesNotExist());
+    }
+
+    @Test
+    public void givenInvalidCursorOrSort_whenGetPosts_thenReturnBadRequest() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        this.mvc.perform(get("/api/v1.0.0/blogs/2/posts").param("cursor", "AQ"))
+                .andExpect(status().isBadRequest());
+        this.mvc.perform(get("/api/v1.0.0/blogs/2/posts").param("sort", "postBody:asc"))
+                .andExpect(status().isBadRequest());
+        this.mvc.perform(get("/api/v1.0.0/blogs/2/posts").param("sort", "publishedOn:asc", "id:desc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenBrowserOrJsonAccept_whenGet_thenReturnLinks() throws Exception {
+        for (String accept : List.of("*/*", MediaType.APPLICATION_JSON_VALUE,
+                "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")) {
+            for (String path : List.of("/api/v1.0.0/posts", "/api/v1.0.0/posts/1", "/api/v1.0.0/blogs",
+                    "/api/v1.0.0/blogs/1", "/api/v1.0.0/blogs/2/posts")) {
+                this.mvc.perform(get(path).header("Accept", accept))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                        .andExpect(jsonPath("$.links").isNotEmpty());
+            }
+        }
+        this.mvc.perform(get("/api/v1.0.0/posts/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.links").isNotEmpty());
+    }
+
+    @Test
+    public void givenCompactAccept_whenGetPostAndBlog_thenReturnThemWithoutLinks() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts/1").accept(BlogMediaTypes.COMPACT_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BlogMediaTypes.COMPACT_JSON))
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.blogId", notNullValue()))
+                .andExpect(jsonPath("$.postBody", notNullValue()))
+                .andExpect(jsonPath("$.links").doesNotExist());
+
+        this.mvc.perform(get("/api/v1.0.0/blogs/1").accept(BlogMediaTypes.COMPACT_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BlogMediaTypes.COMPACT_JSON))
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.blogTitle", notNullValue()))
+                .andExpect(jsonPath("$.links").doesNotExist());
+
+        this.mvc.perform(get("/api/v1.0.0/posts/999").accept(BlogMediaTypes.COMPACT_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void givenCompactAccept_whenFollowCursors_thenReturnEveryPostOnceWithoutLinks() throws Exception {
+        String first = this.mvc.perform(get("/api/v1.0.0/posts")
+                        .accept(BlogMediaTypes.COMPACT_JSON)
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BlogMediaTypes.COMPACT_JSON))
+                .andExpect(jsonPath("$.*", hasSize(2)))
+                .andExpect(jsonPath("$.content[*].id", contains(1, 2)))
+                .andExpect(jsonPath("$.content[0].links").doesNotExist())
+                .andExpect(jsonPath("$.previousCursor").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+
+        String second = this.mvc.perform(get("/api/v1.0.0/posts")
+                        .accept(BlogMediaTypes.COMPACT_JSON)
+                        .param("size", "2")
+                        .param("cursor", JsonPath.<String>read(first, "$.nextCursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(3)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .accept(BlogMediaTypes.COMPACT_JSON)
+                        .param("size", "2")
+                        .param("cursor", JsonPath.<String>read(second, "$.previousCursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(1, 2)));
+    }
+
+    @Test
+    public void givenCompactAccept_whenPageBlogsAndTheirPosts_thenReturnCursorsAndSummaries() throws Exception {
+        String first = this.mvc.perform(get("/api/v1.0.0/blogs")
+                        .accept(BlogMediaTypes.COMPACT_JSON)
+                        .param("size", "2")
+                        .param("totalCount", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(jsonPath("$.content[*].id", contains(1, 2)))
+                .andExpect(jsonPath("$.content[0].links").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+
+        this.mvc.perform(get("/api/v1.0.0/blogs")
+                        .accept(BlogMediaTypes.COMPACT_JSON)
+                        .param("size", "2")
+                        .param("cursor", JsonPath.<String>read(first, "$.nextCursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(3)));
+
+        String posts = this.mvc.perform(get("/api/v1.0.0/blogs/2/posts")
+                        .accept(BlogMediaTypes.COMPACT_JSON)
+                        .param("sort", "publishedOn:asc")
+                        .param("view", "summary")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(3)))
+                .andExpect(jsonPath("$.content[0].blogId", is(2)))
+                .andExpect(jsonPath("$.content[0].postBody").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+
+        this.mvc.perform(get("/api/v1.0.0/blogs/2/posts")
+                        .accept(BlogMediaTypes.COMPACT_JSON)
+                        .param("cursor", JsonPath.<String>read(posts, "$.nextCursor"))
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(2)))
+                .andExpect(jsonPath("$.content[0].postBody", notNullValue()));
+
+        this.mvc.perform(get("/api/v1.0.0/blogs/999/posts").accept(BlogMediaTypes.COMPACT_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void givenCompactAccept_whenSearchPosts_thenReturnNotAcceptable() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .accept(BlogMediaTypes.COMPACT_JSON)
+                        .param("keyword", "banana"))
+                .andExpect(status().isNotAcceptable());
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .accept(BlogMediaTypes.COMPACT_JSON)
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -51,8 +312,153 @@ public class IntegrationTest {
                 .andExpect(jsonPath("$.content", hasSize(2)))
                 .andExpect(jsonPath("$.links", hasSize(2)))
                 .andExpect(jsonPath("$.content[0].id", is(2)))
+                .andExpect(jsonPath("$.content[0].score", notNullValue()))
                 .andExpect(jsonPath("$.content[1].id", is(3)));
 
     }
 
+    @Test
+    public void givenPostItems_whenSearchPostsByPage_thenReturnOnlyRequestedPage() throws Exception {
+        String keyWord = "alingly";
+
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", keyWord)
+                        .param("page", "1")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(3)));
+    }
+
+    @Test
+    public void givenH2Search_whenSearchPostsPageByPage_thenReturnEveryMatchOnceInIdOrder() throws Exception {
+        String all = this.mvc.perform(get("/api/v1.0.0/posts")
+                        .param("keyword", "alingly")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> ids = JsonPath.read(all, "$.content[*].id");
+
+        List<Integer> paged = new ArrayList<>();
+        for (int page = 0; page <= ids.size(); page++) {
+            String content = this.mvc.perform(get("/api/v1.0.0/posts")
+                            .param("keyword", "alingly")
+                            .param("page", String.valueOf(page))
+                            .param("size", "1"))
+                    .andReturn().getResponse().getContentAsString();
+            if (!content.isEmpty()) {
+                paged.addAll(JsonPath.<List<Integer>>read(content, "$.content[*].id"));
+            }
+        }
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+        assertEquals(ids, paged);
+    }
+
+    @Test
+    public void givenNotValidPageSize_whenSearchPosts_thenReturnBadRequest() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "alingly")
+                        .param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    @Test
+    public void givenH2Search_whenStartReindex_thenReturnNotImplemented() throws Exception {
+        this.mvc.perform(post("/api/v1.0.0/admin/search/reindex"))
+                .andExpect(status().isNotImplemented());
+    }
+
+    @Test
+    public void givenPostItems_whenSuggestTitles_thenReturnMostRecentFirst() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts/suggest")
+                        .param("prefix", "Narc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(2)))
+                .andExpect(jsonPath("$[0].postTitle", is("alingly narciatory heavaig deouslate pulappli")))
+                .andExpect(jsonPath("$[1].id", is(3)));
+        this.mvc.perform(get("/api/v1.0.0/posts/suggest")
+                        .param("prefix", "narc")
+                        .param("limit", "11"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenPostItems_whenGetRelatedPosts_thenReturnSimilarPostsOnly() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts/1/related"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        this.mvc.perform(get("/api/v1.0.0/posts/999/related"))
+                .andExpect(status().isNotFound());
+        this.mvc.perform(get("/api/v1.0.0/posts/1/related")
+                        .param("limit", "11"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenH2Search_whenFuzzySearch_thenReturnNotImplemented() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .param("keyword", "narciatroy")
+                        .param("fuzzy", "true"))
+                .andExpect(status().isNotImplemented());
+    }
+
+    @Test
+    public void givenH2Search_whenSearchWithFacets_thenReturnNotImplemented() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .param("keyword", "alingly")
+                        .param("facets", "true"))
+                .andExpect(status().isNotImplemented());
+    }
+
+    @Test
+    public void givenH2Search_whenSearchPostsAndBlogs_thenReturnNotImplemented() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/search")
+                        .param("keyword", "food"))
+                .andExpect(status().isNotImplemented());
+    }
+
+    @Test
+    public void givenPageEndingPastResultWindowOrBadSize_whenSearch_thenReturnBadRequest() throws Exception {
+        for (String path : List.of("/api/v1.0.0/posts", "/api/v1.0.0/search")) {
+            this.mvc.perform(get(path).param("keyword", "a").param("size", "0"))
+                    .andExpect(status().isBadRequest());
+            this.mvc.perform(get(path).param("keyword", "a").param("size", "101"))
+                    .andExpect(status().isBadRequest());
+            this.mvc.perform(get(path).param("keyword", "a").param("page", "10000000").param("size", "100"))
+                    .andExpect(status().isBadRequest());
+            this.mvc.perform(get(path).param("keyword", "a").param("page", "21474837").param("size", "100"))
+                    .andExpect(status().isBadRequest());
+            this.mvc.perform(get(path).param("keyword", "a").param("page", "100").param("size", "100"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    public void givenH2Search_whenSearchAuthor_thenReturnPost() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .param("keyword", "Trinity"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(3)));
+    }
+
+    @Test
+    public void givenSearches_whenGetSearchQueries_thenReportHottestKeywords() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            this.mvc.perform(get("/api/v1.0.0/posts")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .param("keyword", "banana   soggy"))
+                    .andExpect(status().isOk());
+        }
+
+        this.mvc.perform(get("/actuator/searchqueries").param("top", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.searches", greaterThanOrEqualTo(3)))
+                .andExpect(jsonPath("$.topQueries[?(@.keyword == 'banana soggy')].count", contains(3)))
+                .andExpect(jsonPath("$.topQueries[?(@.keyword == 'banana soggy')].p99Millis").exists());
+    }
 }
@@ -1,14 +1,22 @@
 package com.halliburton.blog;
 
+import com.halliburton.blog.dao.BlogCursor;
+import com.halliburton.blog.service.BlogCounter;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.junit.jupiter.api.Test;
 import org.loadtest4j.LoadTester;
 import org.loadtest4j.Request;
 import org.loadtest4j.Result;
 import org.loadtest4j.factory.LoadTesterFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 
+import javax.sql.DataSource;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -19,6 +27,17 @@ public class StressTest {
 
 	private static final LoadTester loadTester = LoadTesterFactory.getLoadTester();
 
+	private static final int SYNTHETIC_BLOGS = 200_000;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BlogCounter blogCounter;
+
 	@Test
 	public void testGetUrlForBlogs() {
 		List<Request> requests = List.of(Request.get("/api/v1.0.0/blogs/")
@@ -38,6 +57,44 @@ public class StressTest {
 				.isLessThanOrEqualTo(Duration.ofMillis(15000));
 	}
 
+	@Test
+	public void testBlogPagesKeepLatencyFlatOnLargeTable() {
+		long lastId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM blog", Long.class);
+		List<Object[]> blogs = new ArrayList<>();
+		for (int i = 0; i < SYNTHETIC_BLOGS; i++) {
+			blogs.add(new Object[]{"Synthetic blog " + i, "Synthetic blog description " + i});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO blog(blog_title, description) VALUES (?, ?)", blogs);
+		// the counter is kept by the blog writes of the application, not by direct inserts
+		blogCounter.load();
+		try {
+			String deepCursor = BlogCursor.after(lastId + SYNTHETIC_BLOGS - 100).encode();
+			Result firstPage = loadTester.run(List.of(Request.get("/api/v1.0.0/blogs")
+					.withHeader("Accept", "application/json")
+					.withQueryParam("size", "20")
+					.withQueryParam("totalCount", "true")));
+			printResults(firstPage);
+			Result deepPage = loadTester.run(List.of(Request.get("/api/v1.0.0/blogs")
+					.withHeader("Accept", "application/json")
+					.withQueryParam("size", "20")
+					.withQueryParam("cursor", deepCursor)
+					.withQueryParam("totalCount", "true")));
+			printResults(deepPage);
+
+			assertThat(firstPage.getPercentOk()).isEqualTo(100.0);
+			assertThat(deepPage.getPercentOk()).isEqualTo(100.0);
+			// a page near the end of the table is read from the index like the first one
+			assertThat(deepPage.getResponseTime().getMedian())
+					.isLessThanOrEqualTo(firstPage.getResponseTime().getMedian().multipliedBy(2)
+							.plus(Duration.ofMillis(100)));
+			assertThat(deepPage.getResponseTime().getPercentile(90))
+					.isLessThanOrEqualTo(Duration.ofMillis(15000));
+		} finally {
+			jdbcTemplate.update("DELETE FROM blog WHERE id > ?", lastId);
+			blogCounter.load();
+		}
+	}
+
 	@Test
 	public void testGetUrlForPosts() {
 		List<Request> requests = List.of(Request.get("/api/v1.0.0/posts/")
@@ -50,6 +107,31 @@ public class StressTest {
 				.isLessThanOrEqualTo(Duration.ofMillis(15000));
 	}
 
+	@Test
+	public void testSearchPostsKeepsConnectionCountFlat() {
+		HikariDataSource hikariDataSource = (HikariDataSource) dataSource;
+		HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+		List<Request> requests = List.of(Request.get("/api/v1.0.0/posts")
+				.withHeader("Accept", "application/json")
+				.withQueryParam("keyword", "alingly")
+				.withQueryParam("size", "10"));
+
+		Result firstRun = loadTester.run(requests);
+		int connectionsAfterFirstRun = pool.getTotalConnections();
+		Result secondRun = loadTester.run(requests);
+		printResults(secondRun);
+
+		System.err.println("Total connections after first run: " + connectionsAfterFirstRun);
+		System.err.println("Total connections after second run: " + pool.getTotalConnections());
+
+		assertThat(firstRun.getPercentOk()).isEqualTo(100.0);
+		assertThat(secondRun.getPercentOk()).isEqualTo(100.0);
+		assertThat(pool.getTotalConnections())
+				.isLessThanOrEqualTo(hikariDataSource.getMaximumPoolSize());
+		assertThat(pool.getActiveConnections()).isZero();
+		assertThat(pool.getThreadsAwaitingConnection()).isZero();
+	}
+
 	private void printResults(Result result) {
 		System.err.println("The median response time: " + result.getResponseTime().getMedian());
 		System.err.println("The maximum response time: " + result.getResponseTime().getMax());
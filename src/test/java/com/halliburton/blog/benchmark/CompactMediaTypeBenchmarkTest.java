@@ -0,0 +1,85 @@
+package com.halliburton.blog.benchmark;
+
+import com.halliburton.blog.controller.BlogMediaTypes;
+import com.halliburton.blog.service.FullTextService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Compares a page of short posts of a blog returned with links, as JSON, and without, in the compact media
+ * type, by response size and latency. Run with
+ * {@code mvn test -Dbenchmark=true -Dtest=CompactMediaTypeBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+public class CompactMediaTypeBenchmarkTest {
+    private static final int POSTS = 2_000;
+    private static final int ROUNDS = 200;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long firstPostId;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM post WHERE id >= ?", firstPostId);
+    }
+
+    @Test
+    public void compactPagesAreSmallerAndFasterThanPagesWithLinks() throws Exception {
+        firstPostId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM post", Long.class);
+        jdbcTemplate.update("INSERT INTO post(blog_id, post_title, post_body, post_conclusion, author, published_on) "
+                + "SELECT 1, 'post ' || X, 'body', 'conclusion', 'Morpheus', DATE '2022-09-10' "
+                + "FROM SYSTEM_RANGE(1, ?)", POSTS);
+
+        long[] withLinks = measure(MediaType.APPLICATION_JSON);
+        long[] compact = measure(BlogMediaTypes.COMPACT_JSON);
+
+        System.err.println("Page of " + FullTextService.MAX_PAGE_SIZE + " posts, with links: "
+                + withLinks[0] / 1024 + " KB in " + withLinks[1] / 1000 + " µs, compact: "
+                + compact[0] / 1024 + " KB in " + compact[1] / 1000 + " µs (median)");
+
+        assertThat(compact[0] * 3).isLessThan(withLinks[0]);
+        assertThat(compact[1]).isLessThan(withLinks[1]);
+    }
+
+    /**
+     * @return response size in bytes and median latency in nanoseconds
+     */
+    private long[] measure(MediaType accept) throws Exception {
+        long size = 0;
+        long[] latencies = new long[ROUNDS];
+        for (int round = -50; round < ROUNDS; round++) {
+            long started = System.nanoTime();
+            MvcResult result = mvc.perform(get("/api/v1.0.0/blogs/1/posts")
+                            .accept(accept)
+                            .param("size", String.valueOf(FullTextService.MAX_PAGE_SIZE)))
+                    .andReturn();
+            long latency = System.nanoTime() - started;
+            assertThat(result.getResponse().getStatus()).isEqualTo(200);
+            if (round >= 0) {
+                latencies[round] = latency;
+                size = result.getResponse().getContentAsByteArray().length;
+            }
+        }
+        Arrays.sort(latencies);
+        return new long[]{size, latencies[ROUNDS / 2]};
+    }
+}
@@ -0,0 +1,71 @@
+package com.halliburton.blog.benchmark;
+
+import com.halliburton.blog.search.index.InvertedIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency budget of fuzzy queries: misspelled two-term queries over 20 000 posts with a 60 000 term
+ * dictionary must be answered within {@link #BUDGET_MILLIS} at the 95th percentile. Wall-clock time
+ * depends on the machine, so this is a benchmark; the trigram filter behind it is tested by
+ * {@code FuzzyTermIndexTest}. Run with {@code mvn test -Dbenchmark=true -Dtest=FuzzySearchLatencyBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class FuzzySearchLatencyBenchmarkTest {
+    private static final long BUDGET_MILLIS = 15;
+    private static final int POSTS = 20_000;
+    private static final int QUERIES = 300;
+
+    @Test
+    public void fuzzySearchStaysWithinLatencyBudget() {
+        Random random = new Random(17);
+        String[] vocabulary = new String[60_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 5 + random.nextInt(9); length > 0; length--) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            vocabulary[i] = word.toString();
+        }
+        InvertedIndex index = new InvertedIndex();
+        StringBuilder text = new StringBuilder();
+        for (long docId = 1; docId <= POSTS; docId++) {
+            text.setLength(0);
+            for (int i = 0; i < 40; i++) {
+                text.append(vocabulary[(int) (Math.pow(random.nextDouble(), 2) * vocabulary.length)]).append(' ');
+            }
+            index.add(docId, text.toString());
+        }
+
+        long[] nanos = new long[QUERIES];
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < QUERIES; i++) {
+                String query = misspell(random, vocabulary[random.nextInt(2_000)]) + " OR "
+                        + misspell(random, vocabulary[random.nextInt(vocabulary.length)]);
+                long started = System.nanoTime();
+                index.search(query, true, 20, 0);
+                nanos[i] = System.nanoTime() - started;
+            }
+        }
+
+        Arrays.sort(nanos);
+        long p95Millis = nanos[QUERIES * 95 / 100] / 1_000_000;
+        System.err.println("p95 fuzzy query latency: " + p95Millis + " ms");
+
+        assertThat(p95Millis).isLessThanOrEqualTo(BUDGET_MILLIS);
+    }
+
+    private static String misspell(Random random, String word) {
+        char[] letters = word.toCharArray();
+        int at = random.nextInt(letters.length - 1);
+        char swapped = letters[at];
+        letters[at] = letters[at + 1];
+        letters[at + 1] = swapped;
+        return new String(letters);
+    }
+}
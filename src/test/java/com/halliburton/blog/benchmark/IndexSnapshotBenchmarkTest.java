@@ -0,0 +1,62 @@
+package com.halliburton.blog.benchmark;
+
+import com.halliburton.blog.search.index.IndexSnapshot;
+import com.halliburton.blog.search.index.InvertedIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares building the search index of a synthetic 1M-post corpus from post text, as a startup
+ * without a snapshot does, with mapping its snapshot. Run with
+ * {@code mvn test -Dbenchmark=true -Dtest=IndexSnapshotBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class IndexSnapshotBenchmarkTest {
+    private static final int POSTS = 1_000_000;
+
+    @Test
+    public void mappingSnapshotIsFasterThanIndexingPosts(@TempDir Path directory) throws IOException {
+        Random random = new Random(42);
+        String[] titles = new String[POSTS];
+        String[] bodies = new String[POSTS];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < POSTS; i++) {
+            text.setLength(0);
+            for (int word = 0; word < 40; word++) {
+                text.append('w').append((int) (Math.pow(random.nextDouble(), 3) * 50_000)).append(' ');
+            }
+            bodies[i] = text.toString();
+            titles[i] = "title w" + random.nextInt(5_000);
+        }
+
+        long indexingStarted = System.nanoTime();
+        InvertedIndex index = new InvertedIndex();
+        for (int i = 0; i < POSTS; i++) {
+            index.add(i + 1, titles[i], bodies[i]);
+        }
+        long indexingMillis = (System.nanoTime() - indexingStarted) / 1_000_000;
+
+        Path file = directory.resolve("index.snapshot");
+        IndexSnapshot.write(index, Instant.now(), file);
+
+        long mappingStarted = System.nanoTime();
+        InvertedIndex mapped = IndexSnapshot.read(file).orElseThrow().getIndex();
+        long mappingMillis = (System.nanoTime() - mappingStarted) / 1_000_000;
+
+        System.err.println("Startup with " + POSTS + " posts, indexing: " + indexingMillis
+                + " ms, snapshot (" + Files.size(file) / (1024 * 1024) + " MB): " + mappingMillis + " ms");
+
+        assertThat(mapped.documentCount()).isEqualTo(POSTS);
+        assertThat(mapped.search("w1 w2", 20, 0)).isEqualTo(index.search("w1 w2", 20, 0));
+        assertThat(mappingMillis * 3).isLessThan(indexingMillis);
+    }
+}
@@ -0,0 +1,127 @@
+package com.halliburton.blog.benchmark;
+
+import com.halliburton.blog.controller.BlogController;
+import com.halliburton.blog.controller.PostController;
+import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.modelassembler.PostModelAssembler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JMH benchmark of linking 1,000 post models in a request with the link templates of the assembler, against
+ * building each link with {@link WebMvcLinkBuilder} as the assembler did. Run with
+ * {@code mvn test -Dbenchmark=true -Dtest=LinkTemplateBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkTemplateBenchmarkTest {
+    private static final int MODELS = 1_000;
+
+    private final PostModelAssembler postModelAssembler = new PostModelAssembler();
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public List<PostModel> linkBuilders() {
+        startRequest();
+        List<PostModel> postModels = new ArrayList<>(MODELS);
+        for (long id = 1; id <= MODELS; id++) {
+            PostModel postModel = postModel(id);
+            postModel.add(WebMvcLinkBuilder
+                    .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                            .getPostById(postModel.getId()))
+                    .withSelfRel());
+            postModel.add(WebMvcLinkBuilder
+                    .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                            .getAllPosts(Optional.empty(), null, null, null, null, null, null, null))
+                    .withRel("posts"));
+            postModel.add(WebMvcLinkBuilder
+                    .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                            .getAllPostsByGivenBlog(postModel.getBlogId(), null, null, null, null))
+                    .withRel("posts"));
+            postModel.add(WebMvcLinkBuilder
+                    .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                            .getAllBlogs(null, null, null, null, null))
+                    .withRel("blogs"));
+            postModel.add(WebMvcLinkBuilder
+                    .linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                            .getBlogById(postModel.getBlogId()))
+                    .withRel("blogs"));
+            postModels.add(postModel);
+        }
+        return postModels;
+    }
+
+    @Benchmark
+    public List<PostModel> linkTemplates() {
+        startRequest();
+        List<PostModel> postModels = new ArrayList<>(MODELS);
+        for (long id = 1; id <= MODELS; id++) {
+            postModels.add(postModelAssembler.withLinks(postModel(id)));
+        }
+        return postModels;
+    }
+
+    @Test
+    public void linkTemplatesAreFasterThanLinkBuilders() throws RunnerException {
+        Map<String, Double> millis = new Runner(new OptionsBuilder()
+                .include(LinkTemplateBenchmarkTest.class.getName() + "\\.")
+                .build())
+                .run().stream()
+                .collect(Collectors.toMap(result -> result.getParams().getBenchmark()
+                                .substring(LinkTemplateBenchmarkTest.class.getName().length() + 1),
+                        result -> result.getPrimaryResult().getScore()));
+
+        System.err.println("Links of " + MODELS + " posts, with link builders: "
+                + String.format("%.2f", millis.get("linkBuilders")) + " ms, with link templates: "
+                + String.format("%.2f", millis.get("linkTemplates")) + " ms");
+
+        assertThat(millis.get("linkTemplates") * 5).isLessThan(millis.get("linkBuilders"));
+    }
+
+    /**
+     * Each batch of models is linked in a request of its own, the base URI being read once per request.
+     */
+    private static void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private static PostModel postModel(long id) {
+        return new PostModel(id, id % 10 + 1, "Title " + id, "Body", null, "Neo", LocalDate.of(2022, 9, 9));
+    }
+}
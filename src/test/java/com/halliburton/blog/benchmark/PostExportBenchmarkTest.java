@@ -0,0 +1,108 @@
+package com.halliburton.blog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.halliburton.blog.service.PostExportService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports a synthetic 1M-post database from a JVM whose heap holds neither the posts nor their JSON,
+ * about 280 MB, which only succeeds when the export streams. Run with
+ * {@code mvn test -Dbenchmark=true -Dtest=PostExportBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class PostExportBenchmarkTest {
+    private static final int POSTS = 1_000_000;
+    private static final int INSERT_BATCH = 50_000;
+    private static final String EXPORT_HEAP = "-Xmx32m";
+
+    private static String url(Path directory) {
+        return "jdbc:h2:file:" + directory.resolve("export") + ";CACHE_SIZE=2048";
+    }
+
+    @Test
+    public void exportStreamsMillionPostsWithSmallHeap(@TempDir Path directory) throws Exception {
+        // the database is closed with its only connection, before the export opens it
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(url(directory), true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute((Connection connection) -> {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+            return null;
+        });
+        jdbcTemplate.update("INSERT INTO blog(blog_title, description) VALUES ('Synthetic blog', 'Synthetic posts')");
+        for (int from = 1; from <= POSTS; from += INSERT_BATCH) {
+            jdbcTemplate.update("INSERT INTO post(blog_id, post_title, post_body, post_conclusion, author, published_on) "
+                    + "SELECT 1, 'Synthetic post ' || X, REPEAT('lorem ipsum ', 10) || X, 'Conclusion ' || X, "
+                    + "'Synthetic author', DATE '2022-09-09' FROM SYSTEM_RANGE(?, ?)", from, from + INSERT_BATCH - 1);
+        }
+        dataSource.destroy();
+
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        Process export = new ProcessBuilder(java.toString(), EXPORT_HEAP, "-cp", System.getProperty("java.class.path"),
+                Export.class.getName(), directory.toString())
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(export.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(export.waitFor(5, TimeUnit.MINUTES)).isTrue();
+
+        System.err.println(output);
+        assertThat(export.exitValue()).as(output).isZero();
+        assertThat(output).contains("Exported " + POSTS + " posts in " + POSTS + " lines");
+    }
+
+    /**
+     * Exports the posts of the database in the directory to a stream counting the lines.
+     */
+    public static class Export {
+        public static void main(String[] args) throws IOException {
+            CountingOutputStream out = new CountingOutputStream();
+            long started = System.nanoTime();
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL(url(Paths.get(args[0])));
+            long exported = new PostExportService(new JdbcTemplate(dataSource), new ObjectMapper(), 500)
+                    .exportPosts(out);
+            System.out.println("Exported " + exported + " posts in " + out.lines + " lines, "
+                    + out.bytes / (1024 * 1024) + " MB in " + (System.nanoTime() - started) / 1_000_000
+                    + " ms with a heap of " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB");
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.halliburton.blog.benchmark;
+
+import com.halliburton.blog.dao.PostCursor;
+import com.halliburton.blog.dao.PostRepository;
+import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.model.PostEntity;
+import com.halliburton.blog.modelassembler.PostModelAssembler;
+import com.halliburton.blog.service.FullTextService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares reading a page of posts as managed entities copied into their models, as the listings did, with
+ * reading it straight into the models by a constructor expression, by allocation and latency per page. Both
+ * run in a read-only transaction. Run with {@code mvn test -Dbenchmark=true -Dtest=PostProjectionBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+public class PostProjectionBenchmarkTest {
+    private static final int POSTS = 1_000;
+    private static final int ROUNDS = 200;
+    private static final Sort SORT = PostCursor.keysetSort(Sort.by(Sort.Direction.DESC, "id"));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private PostModelAssembler postModelAssembler;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private long firstPostId;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM post WHERE id >= ?", firstPostId);
+    }
+
+    @Test
+    public void projectionsAllocateLessThanEntities() {
+        firstPostId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM post", Long.class);
+        jdbcTemplate.update("INSERT INTO post(blog_id, post_title, post_body, post_conclusion, author, published_on) "
+                + "SELECT 1, 'post ' || X, REPEAT('body ', 200), 'conclusion', 'Morpheus', DATE '2022-09-10' "
+                + "FROM SYSTEM_RANGE(1, ?)", POSTS);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        long[] entities = measure(() -> readOnly.execute(status -> postModelAssembler.toCollectionModel(
+                entityManager.createQuery("SELECT p FROM Post p WHERE p.blog.id = 1 "
+                                + "ORDER BY p.blog.id DESC, p.id DESC", PostEntity.class)
+                        .setMaxResults(FullTextService.MAX_PAGE_SIZE + 1)
+                        .getResultList())));
+        long[] projections = measure(() -> readOnly.execute(status -> CollectionModel.of(
+                postRepository.findPage(1L, SORT, null, FullTextService.MAX_PAGE_SIZE + 1).stream()
+                        .map(postModelAssembler::withLinks)
+                        .collect(Collectors.toList()))));
+
+        System.err.println("Page of " + FullTextService.MAX_PAGE_SIZE + " posts, as entities: "
+                + entities[0] / 1024 + " KB allocated in " + entities[1] / 1000 + " µs, as projections: "
+                + projections[0] / 1024 + " KB allocated in " + projections[1] / 1000 + " µs (median)");
+
+        assertThat(projections[0]).isLessThan(entities[0]);
+        assertThat(projections[1]).isLessThan(entities[1]);
+    }
+
+    /**
+     * @return median bytes allocated by the thread and median latency in nanoseconds of reading a page
+     */
+    private static long[] measure(Supplier<CollectionModel<PostModel>> page) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long[] allocations = new long[ROUNDS];
+        long[] latencies = new long[ROUNDS];
+        for (int round = -50; round < ROUNDS; round++) {
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            long started = System.nanoTime();
+            CollectionModel<PostModel> posts = page.get();
+            long latency = System.nanoTime() - started;
+            allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+            assertThat(posts.getContent()).hasSize(FullTextService.MAX_PAGE_SIZE + 1);
+            if (round >= 0) {
+                allocations[round] = allocated;
+                latencies[round] = latency;
+            }
+        }
+        Arrays.sort(allocations);
+        Arrays.sort(latencies);
+        return new long[]{allocations[ROUNDS / 2], latencies[ROUNDS / 2]};
+    }
+}
@@ -0,0 +1,99 @@
+package com.halliburton.blog.benchmark;
+
+import com.halliburton.blog.dto.PostDtoRequest;
+import com.halliburton.blog.search.PostIndexer;
+import com.halliburton.blog.search.PostSearchEngine;
+import com.halliburton.blog.service.PostService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Compares a search page of long posts returned with their bodies and with highlighted snippets, by
+ * response size and latency. Run with {@code mvn test -Dbenchmark=true -Dtest=PostSnippetBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = PostSearchEngine.ENGINE_PROPERTY + "=inverted-index")
+@AutoConfigureMockMvc
+@DirtiesContext
+public class PostSnippetBenchmarkTest {
+    private static final int POSTS = 20;
+    private static final int WORDS_PER_POST = 5_000;
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private PostIndexer postIndexer;
+
+    @Test
+    public void snippetsShrinkSearchPagesOfLongPosts() throws Exception {
+        Random random = new Random(42);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < POSTS; i++) {
+            body.setLength(0);
+            for (int word = 0; word < WORDS_PER_POST; word++) {
+                body.append(word == random.nextInt(WORDS_PER_POST) ? "tungsten" : "w" + random.nextInt(20_000))
+                        .append(word % 12 == 11 ? ". " : " ");
+            }
+            body.append("tungsten.");
+            postService.createPost(1L, PostDtoRequest.builder()
+                    .postTitle("long post " + i)
+                    .postBody(body.toString())
+                    .postConclusion("conclusion")
+                    .author("Morpheus")
+                    .publishedOn(LocalDate.of(2022, 9, 10))
+                    .build());
+        }
+        assertThat(postIndexer.awaitIndexed(Duration.ofSeconds(30))).isTrue();
+
+        long[] fullPage = measure(false);
+        long[] snippetPage = measure(true);
+
+        System.err.println("Search page of " + POSTS + " posts of " + WORDS_PER_POST + " words, with bodies: "
+                + fullPage[0] / 1024 + " KB in " + fullPage[1] / 1000 + " µs, with snippets: "
+                + snippetPage[0] / 1024 + " KB in " + snippetPage[1] / 1000 + " µs (median)");
+
+        assertThat(snippetPage[0] * 20).isLessThan(fullPage[0]);
+        assertThat(snippetPage[1]).isLessThan(fullPage[1]);
+    }
+
+    /**
+     * @return response size in bytes and median latency in nanoseconds
+     */
+    private long[] measure(boolean snippets) throws Exception {
+        long size = 0;
+        long[] latencies = new long[ROUNDS];
+        for (int round = -10; round < ROUNDS; round++) {
+            long started = System.nanoTime();
+            MvcResult result = mvc.perform(get("/api/v1.0.0/posts")
+                            .param("keyword", "tungsten")
+                            .param("size", String.valueOf(POSTS))
+                            .param("snippets", String.valueOf(snippets)))
+                    .andReturn();
+            long latency = System.nanoTime() - started;
+            assertThat(result.getResponse().getStatus()).isEqualTo(200);
+            if (round >= 0) {
+                latencies[round] = latency;
+                size = result.getResponse().getContentAsByteArray().length;
+            }
+        }
+        Arrays.sort(latencies);
+        return new long[]{size, latencies[ROUNDS / 2]};
+    }
+}
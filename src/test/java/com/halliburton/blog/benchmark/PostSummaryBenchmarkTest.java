@@ -0,0 +1,89 @@
+package com.halliburton.blog.benchmark;
+
+import com.halliburton.blog.service.FullTextService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Compares a page of long posts of a blog listed in full and as summaries, read without the post bodies
+ * and conclusions, by response size and latency. Run with
+ * {@code mvn test -Dbenchmark=true -Dtest=PostSummaryBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PostSummaryBenchmarkTest {
+    private static final int POSTS = 2_000;
+    private static final int BODY_LENGTH = 20_000;
+    private static final int ROUNDS = 50;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long firstPostId;
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM post WHERE id >= ?", firstPostId);
+    }
+
+    @Test
+    public void summariesShrinkAndSpeedUpPagesOfLongPosts() throws Exception {
+        firstPostId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM post", Long.class);
+        jdbcTemplate.update("INSERT INTO post(blog_id, post_title, post_body, post_conclusion, author, published_on) "
+                + "SELECT 1, 'long post ' || X, REPEAT('body ', ?), REPEAT('conclusion ', 100), 'Morpheus', "
+                + "DATE '2022-09-10' FROM SYSTEM_RANGE(1, ?)", BODY_LENGTH / 5, POSTS);
+
+        long[] fullPage = measure(null);
+        long[] summaryPage = measure("summary");
+
+        System.err.println("Page of " + FullTextService.MAX_PAGE_SIZE + " posts of " + BODY_LENGTH
+                + " characters, in full: " + fullPage[0] / 1024 + " KB in " + fullPage[1] / 1000
+                + " µs, as summaries: " + summaryPage[0] / 1024 + " KB in " + summaryPage[1] / 1000
+                + " µs (median)");
+
+        assertThat(summaryPage[0] * 20).isLessThan(fullPage[0]);
+        assertThat(summaryPage[1]).isLessThan(fullPage[1]);
+    }
+
+    /**
+     * @return response size in bytes and median latency in nanoseconds
+     */
+    private long[] measure(String view) throws Exception {
+        long size = 0;
+        long[] latencies = new long[ROUNDS];
+        for (int round = -10; round < ROUNDS; round++) {
+            MockHttpServletRequestBuilder request = get("/api/v1.0.0/blogs/1/posts")
+                    .param("size", String.valueOf(FullTextService.MAX_PAGE_SIZE))
+                    .param("sort", "id:desc");
+            if (view != null) {
+                request.param("view", view);
+            }
+            long started = System.nanoTime();
+            MvcResult result = mvc.perform(request).andReturn();
+            long latency = System.nanoTime() - started;
+            assertThat(result.getResponse().getStatus()).isEqualTo(200);
+            if (round >= 0) {
+                latencies[round] = latency;
+                size = result.getResponse().getContentAsByteArray().length;
+            }
+        }
+        Arrays.sort(latencies);
+        return new long[]{size, latencies[ROUNDS / 2]};
+    }
+}
@@ -0,0 +1,78 @@
+package com.halliburton.blog.benchmark;
+
+import com.halliburton.blog.search.index.InvertedIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the compressed posting lists with boxed {@code TreeMap<Long, Integer>} postings on the
+ * same synthetic corpus. Run with {@code mvn test -Dbenchmark=true -Dtest=PostingListBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class PostingListBenchmarkTest {
+    private static final int DOCUMENTS = 200_000;
+    private static final int QUERIES = 2_000;
+
+    @Test
+    public void compressedPostingsAreSmallerAndNotSlowerThanBoxed() {
+        Random random = new Random(42);
+        InvertedIndex index = new InvertedIndex();
+        Map<String, TreeMap<Long, Integer>> boxed = new HashMap<>();
+        StringBuilder text = new StringBuilder();
+        for (long docId = 1; docId <= DOCUMENTS; docId++) {
+            text.setLength(0);
+            for (int i = 0; i < 30; i++) {
+                String word = "w" + (int) (Math.pow(random.nextDouble(), 3) * 20_000);
+                text.append(word).append(' ');
+                boxed.computeIfAbsent(word, key -> new TreeMap<>()).merge(docId, 1, Integer::sum);
+            }
+            index.add(docId, text.toString());
+        }
+
+        List<String> queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            queries.add("w" + random.nextInt(50) + " w" + random.nextInt(2_000));
+        }
+
+        long compressedNanos = time(() -> queries.forEach(query -> index.search(query, 20, 0)));
+        long boxedNanos = time(() -> queries.forEach(query -> intersect(boxed, query.split(" "))));
+
+        System.err.println("Postings bytes, compressed: " + index.postingsBytes()
+                + ", boxed equivalent: " + index.boxedPostingsBytes());
+        System.err.println("Query time per query, compressed: " + compressedNanos / QUERIES / 1000
+                + " us, boxed: " + boxedNanos / QUERIES / 1000 + " us");
+
+        assertThat(index.boxedPostingsBytes()).isGreaterThanOrEqualTo(5 * index.postingsBytes());
+        assertThat(compressedNanos).isLessThanOrEqualTo(boxedNanos * 11 / 10);
+    }
+
+    private static int intersect(Map<String, TreeMap<Long, Integer>> boxed, String[] terms) {
+        TreeMap<Long, Integer> first = boxed.getOrDefault(terms[0], new TreeMap<>());
+        TreeMap<Long, Integer> second = boxed.getOrDefault(terms[1], new TreeMap<>());
+        TreeMap<Long, Integer> lead = first.size() <= second.size() ? first : second;
+        TreeMap<Long, Integer> other = lead == first ? second : first;
+        int matches = 0;
+        for (Long docId : lead.keySet()) {
+            if (other.containsKey(docId)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private static long time(Runnable runnable) {
+        runnable.run();
+        long started = System.nanoTime();
+        runnable.run();
+        return System.nanoTime() - started;
+    }
+}
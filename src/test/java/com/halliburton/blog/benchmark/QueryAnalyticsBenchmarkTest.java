@@ -0,0 +1,62 @@
+package com.halliburton.blog.benchmark;
+
+import com.halliburton.blog.search.QueryAnalytics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cost of recording a search in {@link QueryAnalytics} from concurrent request threads, with a million
+ * distinct keywords. Run with {@code mvn test -Dbenchmark=true -Dtest=QueryAnalyticsBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class QueryAnalyticsBenchmarkTest {
+    private static final int THREADS = 8;
+    private static final int RECORDS_PER_THREAD = 2_000_000;
+
+    @Test
+    public void recordingCostsLessThanAMicrosecond() throws Exception {
+        QueryAnalytics analytics = new QueryAnalytics(100, 16384, 4);
+        String[] keywords = new String[1_000_000];
+        for (int i = 0; i < keywords.length; i++) {
+            keywords[i] = "keyword " + i;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long started = System.nanoTime();
+        List<Future<?>> threads = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int seed = thread;
+            threads.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < RECORDS_PER_THREAD; i++) {
+                    int rank = (int) Math.min(keywords.length - 1, 1 / (random.nextDouble() + 1e-6));
+                    analytics.record(keywords[rank], 1_000_000 + rank);
+                }
+            }));
+        }
+        for (Future<?> thread : threads) {
+            thread.get();
+        }
+        // CPU time per search: the threads share the available processors
+        int processors = Math.min(THREADS, Runtime.getRuntime().availableProcessors());
+        long nanosPerRecord = (System.nanoTime() - started) * processors / ((long) THREADS * RECORDS_PER_THREAD);
+        executor.shutdown();
+
+        System.err.println("Recording a search with " + THREADS + " threads on " + processors + " processors: "
+                + nanosPerRecord + " ns per search, "
+                + "hottest keyword: " + analytics.topQueries(1));
+
+        assertThat(analytics.searches()).isEqualTo((long) THREADS * RECORDS_PER_THREAD);
+        assertThat(analytics.topQueries(1).get(0).getKey()).isEqualTo("keyword 1");
+        assertThat(nanosPerRecord).isLessThan(1_000);
+    }
+}
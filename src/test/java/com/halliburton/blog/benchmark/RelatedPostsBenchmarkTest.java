@@ -0,0 +1,64 @@
+package com.halliburton.blog.benchmark;
+
+import com.halliburton.blog.search.index.MinHashIndex;
+import com.halliburton.blog.search.index.ScoredDoc;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of finding related posts among 100,000 posts of 200 words from a 20,000 word vocabulary, one
+ * in ten rewriting a tenth of an earlier post. Run with
+ * {@code mvn test -Dbenchmark=true -Dtest=RelatedPostsBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RelatedPostsBenchmarkTest {
+    private static final int POSTS = 100_000;
+    private static final int WORDS = 200;
+    private static final int LOOKUPS = 100_000;
+
+    @Test
+    public void relatedPostsAreFoundInLessThanAMillisecond() {
+        MinHashIndex index = new MinHashIndex(32, 2, 42);
+        Random random = new Random(42);
+        String[] texts = new String[POSTS + 1];
+        long started = System.nanoTime();
+        for (int postId = 1; postId <= POSTS; postId++) {
+            StringBuilder text = new StringBuilder();
+            if (postId % 10 == 0) {
+                String[] words = texts[postId - 5].split(" ");
+                for (int i = 0; i < words.length; i++) {
+                    text.append(i % 10 == 0 ? "edit" + random.nextInt(1000) : words[i]).append(' ');
+                }
+            } else {
+                for (int i = 0; i < WORDS; i++) {
+                    // skewed vocabulary: a few very common words and a long tail
+                    text.append('w').append((int) (Math.pow(random.nextDouble(), 3) * 20_000)).append(' ');
+                }
+            }
+            texts[postId] = text.toString();
+            index.put(postId, texts[postId]);
+        }
+        long indexingMillis = (System.nanoTime() - started) / 1_000_000;
+
+        int found = 0;
+        started = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            long postId = 1 + random.nextInt(POSTS);
+            found += index.related(postId, 10, 0.1).size();
+        }
+        long nanosPerLookup = (System.nanoTime() - started) / LOOKUPS;
+
+        List<ScoredDoc> rewritten = index.related(10, 10, 0.1);
+        System.err.println("MinHash signatures of " + POSTS + " posts computed in " + indexingMillis + " ms, "
+                + "related posts found in " + nanosPerLookup / 1000.0 + " µs per post, "
+                + (double) found / LOOKUPS + " per post on average, rewritten post 10: " + rewritten);
+
+        assertThat(rewritten).extracting(ScoredDoc::getDocId).containsExactly(5L);
+        assertThat(nanosPerLookup).isLessThan(1_000_000);
+    }
+}
@@ -3,6 +3,8 @@ package com.halliburton.blog.controller;
 import com.halliburton.blog.dto.BlogDtoRequest;
 import com.halliburton.blog.dto.BlogDtoRequestFull;
 import com.halliburton.blog.dto.BlogModel;
+import com.halliburton.blog.dto.CompactBlog;
+import com.halliburton.blog.dto.CompactPage;
 import com.halliburton.blog.model.BlogEntity;
 import com.halliburton.blog.modelassembler.BlogModelAssembler;
 import com.halliburton.blog.service.BlogService;
@@ -29,6 +31,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -108,7 +111,7 @@ public class BlogControllerTest {
     public void givenBlogItems_whenGetAllBlogs_thenReturnJsonArray() throws Exception {
         List<BlogEntity> allBlogs = Collections.singletonList(fakeEntityObject);
         CollectionModel<BlogModel> blogModel = blogModelAssembler.toCollectionModel(allBlogs);
-        given(blogService.getAllBlogs(null, null)).willReturn(blogModel);
+        given(blogService.getAllBlogs(null, null, null, 20)).willReturn(blogModel);
 
         this.mvc.perform(get("/api/v1.0.0/blogs")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -121,10 +124,46 @@ public class BlogControllerTest {
 
     }
 
+    @Test
+    public void givenCompactAccept_whenGetAllBlogs_thenReturnBlogsAndCursorWithoutLinks() throws Exception {
+        CompactPage<CompactBlog> blogs = CompactPage.<CompactBlog>builder()
+                .content(List.of(CompactBlog.builder()
+                        .id(defaultId)
+                        .blogTitle(title)
+                        .description(description)
+                        .build()))
+                .nextCursor("next")
+                .build();
+        given(blogService.getCompactBlogs(null, null, null, 20)).willReturn(blogs);
+
+        this.mvc.perform(get("/api/v1.0.0/blogs")
+                        .accept(BlogMediaTypes.COMPACT_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor", is("next")))
+                .andExpect(jsonPath("$.content[0].*", hasSize(3)))
+                .andExpect(jsonPath("$.content[0].blogTitle", is(title)));
+    }
+
+    @Test
+    public void givenCompactAccept_whenGetBlogById_thenReturnBlogWithoutLinks() throws Exception {
+        given(blogService.getCompactBlogById(defaultId)).willReturn(Optional.of(CompactBlog.builder()
+                .id(defaultId)
+                .blogTitle(title)
+                .description(description)
+                .build()));
+
+        this.mvc.perform(get("/api/v1.0.0/blogs/" + defaultId)
+                        .accept(BlogMediaTypes.COMPACT_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(3)))
+                .andExpect(jsonPath("$.id", is(defaultId.intValue())));
+    }
+
     @Test
     public void givenBlogItems_whenGetAllBlogs_thenReturnNoContentResponse() throws Exception {
         CollectionModel<BlogModel> blogModel = CollectionModel.empty();
-        given(blogService.getAllBlogs(null, null)).willReturn(blogModel);
+        given(blogService.getAllBlogs(null, null, null, 20)).willReturn(blogModel);
 
         this.mvc.perform(get("/api/v1.0.0/blogs")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -132,6 +171,30 @@ public class BlogControllerTest {
     }
 
 
+    @Test
+    public void givenTotalCount_whenGetAllBlogs_thenReturnTotalCountHeader() throws Exception {
+        CollectionModel<BlogModel> blogModel = blogModelAssembler.toCollectionModel(List.of(fakeEntityObject));
+        given(blogService.getAllBlogs(null, null, null, 1)).willReturn(blogModel);
+        given(blogService.countBlogs(null, null)).willReturn(3L);
+
+        this.mvc.perform(get("/api/v1.0.0/blogs")
+                        .param("size", "1")
+                        .param("totalCount", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(jsonPath("$.content", hasSize(1)));
+    }
+
+    @Test
+    public void givenNotValidPageSizeOrCursor_whenGetAllBlogs_thenReturnBadRequest() throws Exception {
+        given(blogService.getAllBlogs(null, null, "AQ", 20)).willThrow(new IllegalArgumentException("Invalid cursor"));
+
+        this.mvc.perform(get("/api/v1.0.0/blogs").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        this.mvc.perform(get("/api/v1.0.0/blogs").param("cursor", "AQ"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void givenJsonObject_whenCreateBlog_thenReturnJsonObject() throws Exception {
         BlogModel blogModel = blogModelAssembler.toModel(fakeEntityObject);
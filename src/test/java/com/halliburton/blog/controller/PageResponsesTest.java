@@ -0,0 +1,74 @@
+package com.halliburton.blog.controller;
+
+import com.halliburton.blog.service.FullTextService;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PageResponsesTest {
+
+    @Test
+    public void pageSizeTestDefaultsAndKeepsSizesInRange() {
+        assertEquals(FullTextService.DEFAULT_PAGE_SIZE, PageResponses.pageSize(null));
+        assertEquals(1, PageResponses.pageSize(1));
+        assertEquals(FullTextService.MAX_PAGE_SIZE, PageResponses.pageSize(FullTextService.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    public void pageSizeTestRejectsSizesOutOfRange() {
+        assertStatus(HttpStatus.BAD_REQUEST, () -> PageResponses.pageSize(0));
+        assertStatus(HttpStatus.BAD_REQUEST, () -> PageResponses.pageSize(FullTextService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void pageNumberTestKeepsPagesWithinTheResultWindow() {
+        assertEquals(0, PageResponses.pageNumber(null, 100));
+        assertEquals(99, PageResponses.pageNumber(99, 100));
+        assertStatus(HttpStatus.BAD_REQUEST, () -> PageResponses.pageNumber(100, 100));
+        assertStatus(HttpStatus.BAD_REQUEST, () -> PageResponses.pageNumber(-1, 100));
+        // page * size overflows an int
+        assertStatus(HttpStatus.BAD_REQUEST, () -> PageResponses.pageNumber(21_474_837, 100));
+    }
+
+    @Test
+    public void readTestMapsBadParametersAndMissingBlog() {
+        assertStatus(HttpStatus.BAD_REQUEST, () -> PageResponses.read(() -> {
+            throw new IllegalArgumentException("bad cursor");
+        }));
+        assertStatus(HttpStatus.NOT_FOUND, () -> PageResponses.read(() -> {
+            throw new EntityNotFoundException("no blog");
+        }));
+        assertEquals("page", PageResponses.read(() -> "page"));
+    }
+
+    @Test
+    public void ofTestAnswersNoContentForAnEmptyPageWithItsHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(BlogController.TOTAL_COUNT_HEADER, "0");
+
+        ResponseEntity<String> empty = PageResponses.of("page", List.of(), headers);
+        assertEquals(HttpStatus.NO_CONTENT, empty.getStatusCode());
+        assertNull(empty.getBody());
+        assertEquals("0", empty.getHeaders().getFirst(BlogController.TOTAL_COUNT_HEADER));
+
+        ResponseEntity<String> page = PageResponses.of("page", List.of(1));
+        assertEquals(HttpStatus.OK, page.getStatusCode());
+        assertEquals("page", page.getBody());
+    }
+
+    private static void assertStatus(HttpStatus status, Runnable call) {
+        try {
+            call.run();
+            fail("expected " + status);
+        } catch (ResponseStatusException e) {
+            assertEquals(status, e.getStatus());
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.halliburton.blog.controller;
 
+import com.halliburton.blog.dto.CompactPage;
+import com.halliburton.blog.dto.CompactPost;
 import com.halliburton.blog.dto.PostDtoRequest;
 import com.halliburton.blog.dto.PostDtoRequestFull;
 import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.dto.PostView;
 import com.halliburton.blog.model.BlogEntity;
 import com.halliburton.blog.model.PostEntity;
 import com.halliburton.blog.modelassembler.PostModelAssembler;
+import com.halliburton.blog.search.SearchRejectedException;
+import com.halliburton.blog.search.SearchTimeoutException;
 import com.halliburton.blog.service.PostService;
 import org.json.JSONObject;
 import org.junit.After;
@@ -119,11 +124,47 @@ public class PostControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void givenCompactAccept_whenGetPostsOfBlog_thenReturnPostsWithoutLinks() throws Exception {
+        CompactPage<CompactPost> posts = CompactPage.<CompactPost>builder()
+                .content(List.of(CompactPost.builder()
+                        .id(defaultPostId)
+                        .blogId(defaultBlogId)
+                        .postTitle(title)
+                        .author(author)
+                        .publishedOn(publishedOn)
+                        .build()))
+                .previousCursor("prev")
+                .build();
+        given(postService.getCompactPostsByGivenBlog(defaultBlogId, new String[]{"id:desc"}, null, 20,
+                PostView.SUMMARY)).willReturn(posts);
+
+        this.mvc.perform(get("/api/v1.0.0/blogs/" + defaultBlogId + "/posts")
+                        .accept(BlogMediaTypes.COMPACT_JSON)
+                        .param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.*", hasSize(2)))
+                .andExpect(jsonPath("$.previousCursor", is("prev")))
+                .andExpect(jsonPath("$.content[0].*", hasSize(5)))
+                .andExpect(jsonPath("$.content[0].postTitle", is(title)));
+    }
+
+    @Test
+    public void givenCompactAccept_whenGetPostsOfMissingBlog_thenReturnNotFound() throws Exception {
+        given(postService.getCompactPostsByGivenBlog(defaultBlogId, new String[]{"id:desc"}, null, 20,
+                PostView.FULL)).willThrow(new EntityNotFoundException());
+
+        this.mvc.perform(get("/api/v1.0.0/blogs/" + defaultBlogId + "/posts")
+                        .accept(BlogMediaTypes.COMPACT_JSON))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void givenPostItems_whenGetAllPosts_thenReturnJsonArray() throws Exception {
         List<PostEntity> allPosts = Collections.singletonList(fakeEntityObject);
         CollectionModel<PostModel> postModels = postModelAssembler.toCollectionModel(allPosts);
-        given(postService.getAllPosts(Optional.empty())).willReturn(postModels);
+        given(postService.getAllPosts(Optional.empty(), false, false, false, 0, 20, null, PostView.FULL))
+                .willReturn(postModels);
 
         this.mvc.perform(get("/api/v1.0.0/posts")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -138,7 +179,8 @@ public class PostControllerTest {
     @Test
     public void givenPostItems_whenGetAllPosts_thenReturnNoContentResponse() throws Exception {
         CollectionModel<PostModel> postModels = CollectionModel.empty();
-        given(postService.getAllPosts(Optional.empty())).willReturn(postModels);
+        given(postService.getAllPosts(Optional.empty(), false, false, false, 0, 20, null, PostView.FULL))
+                .willReturn(postModels);
 
         this.mvc.perform(get("/api/v1.0.0/posts")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -147,19 +189,41 @@ public class PostControllerTest {
 
     @Test
     public void givenPostItems_whenGetAllPosts_thenReturnInternalServerErrorResponse() throws Exception {
-        given(postService.getAllPosts(Optional.empty())).willReturn(null);
+        given(postService.getAllPosts(Optional.empty(), false, false, false, 0, 20, null, PostView.FULL))
+                .willReturn(null);
 
         this.mvc.perform(get("/api/v1.0.0/posts")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isInternalServerError());
     }
 
+    @Test
+    public void givenFullSearchBulkhead_whenGetAllPosts_thenReturnServiceUnavailableResponse() throws Exception {
+        given(postService.getAllPosts(Optional.of("banana"), false, false, false, 0, 20, null, PostView.FULL))
+                .willThrow(new SearchRejectedException("Too many searches running, try again later", null));
+
+        this.mvc.perform(get("/api/v1.0.0/posts?keyword=banana")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void givenSlowSearch_whenGetAllPosts_thenReturnGatewayTimeoutResponse() throws Exception {
+        given(postService.getAllPosts(Optional.of("banana"), false, false, false, 0, 20, null, PostView.FULL))
+                .willThrow(new SearchTimeoutException("Search took longer than 2000 ms", null));
+
+        this.mvc.perform(get("/api/v1.0.0/posts?keyword=banana")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isGatewayTimeout());
+    }
+
     @Test
     public void givenPostItems_whenGetAllPostsByGivenBlog_thenReturnJsonArray() throws Exception {
         String sort = "id:desc";
         List<PostEntity> allPosts = Collections.singletonList(fakeEntityObject);
         CollectionModel<PostModel> postModels = postModelAssembler.toCollectionModel(allPosts);
-        given(postService.getAllPostsByGivenBlog(defaultBlogId, new String[]{sort})).willReturn(postModels);
+        given(postService.getAllPostsByGivenBlog(defaultBlogId, new String[]{sort}, null, 20, PostView.FULL))
+                .willReturn(postModels);
 
         this.mvc.perform(get("/api/v1.0.0/blogs/"+ defaultBlogId+"/posts")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -175,7 +239,7 @@ public class PostControllerTest {
     @Test
     public void givenPostItems_whenGetAllPostsByGivenBlog_thenReturnNoContentResponse() throws Exception {
         String sort = "id:desc";
-        given(postService.getAllPostsByGivenBlog(defaultBlogId, new String[]{sort})).willReturn(CollectionModel.empty());
+        given(postService.getAllPostsByGivenBlog(defaultBlogId, new String[]{sort}, null, 20, PostView.FULL)).willReturn(CollectionModel.empty());
 
         this.mvc.perform(get("/api/v1.0.0/blogs/"+ defaultBlogId+"/posts")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -187,7 +251,7 @@ public class PostControllerTest {
     @Test
     public void givenPostItems_whenGetAllPostsByGivenBlog_thenReturnNotFoundResponse() throws Exception {
         String sort = "id:desc";
-        given(postService.getAllPostsByGivenBlog(defaultBlogId, new String[]{sort}))
+        given(postService.getAllPostsByGivenBlog(defaultBlogId, new String[]{sort}, null, 20, PostView.FULL))
                 .willThrow(EntityNotFoundException.class);
 
         this.mvc.perform(get("/api/v1.0.0/blogs/"+ defaultBlogId+"/posts")
@@ -201,7 +265,7 @@ public class PostControllerTest {
     public void givenPostItems_whenGetAllPostsByGivenBlog_thenReturnBadRequestResponse() throws Exception {
 
         String sort = "id:desc";
-        given(postService.getAllPostsByGivenBlog(defaultBlogId, new String[]{sort}))
+        given(postService.getAllPostsByGivenBlog(defaultBlogId, new String[]{sort}, null, 20, PostView.FULL))
                 .willThrow(PropertyReferenceException.class);
 
         this.mvc.perform(get("/api/v1.0.0/blogs/"+ defaultBlogId+"/posts")
@@ -240,6 +304,16 @@ public class PostControllerTest {
 
     }
 
+    @Test
+    public void givenUnknownViewOrViewWithKeyword_whenGetPosts_thenReturnBadRequestResponse() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts").param("view", "titles"))
+                .andExpect(status().isBadRequest());
+        this.mvc.perform(get("/api/v1.0.0/blogs/" + defaultBlogId + "/posts").param("view", "titles"))
+                .andExpect(status().isBadRequest());
+        this.mvc.perform(get("/api/v1.0.0/posts").param("keyword", "banana").param("view", "summary"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void givenJsonObject_whenCreatePost_thenReturnBadRequestResponse() throws Exception {
 
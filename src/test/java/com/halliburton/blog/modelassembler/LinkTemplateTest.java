@@ -0,0 +1,114 @@
+package com.halliburton.blog.modelassembler;
+
+import com.halliburton.blog.controller.BlogController;
+import com.halliburton.blog.controller.PostController;
+import com.halliburton.blog.dto.BlogModel;
+import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.dto.PostSummary;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class LinkTemplateTest {
+    private final PostModelAssembler postModelAssembler = new PostModelAssembler();
+    private final BlogModelAssembler blogModelAssembler = new BlogModelAssembler();
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void givenRequests_whenAddLinks_thenLinksAreTheOnesOfLinkBuilder() {
+        for (String host : List.of("blog.example.com", "mirror.example.com", "blog.example.com")) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setScheme("https");
+            request.setServerName(host);
+            request.setServerPort(8443);
+            request.setContextPath("/app");
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+            for (long id : new long[]{1, 42, Long.MAX_VALUE}) {
+                assertPostLinks(id, id + 1);
+                assertBlogLinks(id);
+            }
+        }
+    }
+
+    @Test
+    public void givenNoRequest_whenAddLinks_thenLinksAreRelativeLikeTheOnesOfLinkBuilder() {
+        assertPostLinks(7L, 3L);
+        assertBlogLinks(3L);
+    }
+
+    @Test
+    public void givenNoId_whenExpand_thenLinkIsTheOneOfLinkBuilder() {
+        LinkTemplate template = LinkTemplate.of(id -> WebMvcLinkBuilder
+                .linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                        .getPostById(id))
+                .withSelfRel());
+
+        assertEquals(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                .getPostById(null)).withSelfRel().toString(), template.expand(null).toString());
+    }
+
+    private void assertPostLinks(long postId, long blogId) {
+        PostModel postModel = postModelAssembler.withLinks(new PostModel(postId, blogId, "Title", "Body", null,
+                "Neo", LocalDate.of(2022, 9, 9)));
+        assertRendered(List.of(
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                        .getPostById(postId)).withSelfRel(),
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                        .getAllPosts(Optional.empty(), null, null, null, null, null, null, null)).withRel("posts"),
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                        .getAllPostsByGivenBlog(blogId, null, null, null, null)).withRel("posts"),
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                        .getAllBlogs(null, null, null, null, null)).withRel("blogs"),
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                        .getBlogById(blogId)).withRel("blogs")), postModel);
+
+        PostModel summary = postModelAssembler.toSummaryModel(PostSummary.builder()
+                .id(postId)
+                .blogId(blogId)
+                .build());
+        assertRendered(List.of(
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                        .getPostById(postId)).withSelfRel(),
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                        .getBlogById(blogId)).withRel("blogs")), summary);
+    }
+
+    private void assertBlogLinks(long blogId) {
+        BlogModel blogModel = blogModelAssembler.withLinks(new BlogModel(blogId, "Title", "Description"));
+        assertRendered(List.of(
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                        .getBlogById(blogId)).withSelfRel(),
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(BlogController.class)
+                        .getAllBlogs(null, null, null, null, null)).withRel("blogs"),
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                        .getAllPosts(Optional.empty(), null, null, null, null, null, null, null)).withRel("posts"),
+                WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(PostController.class)
+                        .getAllPostsByGivenBlog(blogId, null, null, null, null)).withRel("posts")), blogModel);
+    }
+
+    /**
+     * The links are the expected ones as rendered, with their href and attributes; the affordances of the
+     * expected links are not rendered.
+     */
+    private static void assertRendered(List<Link> expected, RepresentationModel<?> model) {
+        assertEquals(expected.stream().map(Link::toString).collect(Collectors.toList()),
+                model.getLinks().stream().map(Link::toString).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,336 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.dto.BlogDtoRequest;
+import com.halliburton.blog.dto.BlogModel;
+import com.halliburton.blog.dto.PostDtoRequest;
+import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.dto.ReindexStatus;
+import com.halliburton.blog.service.BlogService;
+import com.halliburton.blog.service.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = PostSearchEngine.ENGINE_PROPERTY + "=inverted-index")
+@AutoConfigureMockMvc
+public class InvertedIndexSearchEngineTest {
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private PostService postService;
+    @Autowired
+    private BlogService blogService;
+    @Autowired
+    private PostIndexer postIndexer;
+    @Autowired
+    private PostReindexer postReindexer;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void givenPostItems_whenSearchPosts_thenReturnPostsRankedByScore() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "alingly"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(2)))
+                .andExpect(jsonPath("$.content[1].id", is(3)));
+    }
+
+    @Test
+    public void givenPostItems_whenSearchSecondPage_thenReturnOnlyRequestedPage() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "alingly")
+                        .param("page", "1")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(3)));
+    }
+
+    @Test
+    public void givenFacets_whenSearchPage_thenCountFacetsOfAllMatchingPosts() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "alingly")
+                        .param("size", "1")
+                        .param("facets", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.facets.author", hasSize(2)))
+                .andExpect(jsonPath("$.facets.author[0].value", is("Agent Smith")))
+                .andExpect(jsonPath("$.facets.author[0].count", is(1)))
+                .andExpect(jsonPath("$.facets.blogId[0].value", is("2")))
+                .andExpect(jsonPath("$.facets.blogId[0].count", is(2)))
+                .andExpect(jsonPath("$.facets.publishedMonth[0].value", is("2022-09")))
+                .andExpect(jsonPath("$.facets.publishedMonth[0].count", is(2)));
+    }
+
+    @Test
+    public void givenNoFacets_whenSearch_thenOmitFacets() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "alingly"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.facets").doesNotExist());
+    }
+
+    @Test
+    public void givenFacetsWithoutKeyword_whenGetPosts_thenReturnBadRequest() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("facets", "true"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenSnippets_whenSearchPosts_thenReturnHighlightedSnippetsInsteadOfBodies() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "alingly")
+                        .param("snippets", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].snippet",
+                        is("<em>alingly</em> narciatory heavaig deouslate pulappli bargictics horidge nalpure idt "
+                                + "draptionism")))
+                .andExpect(jsonPath("$.content[0].postBody").doesNotExist())
+                .andExpect(jsonPath("$.content[1].snippet", is("It is not often you find a soggy banana on the street.")))
+                .andExpect(jsonPath("$.content[1].postTitle").exists());
+    }
+
+    @Test
+    public void givenNoSnippets_whenSearchPosts_thenReturnBodies() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "alingly"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].postBody").exists())
+                .andExpect(jsonPath("$.content[0].snippet").doesNotExist());
+    }
+
+    @Test
+    public void givenSnippetsWithoutKeyword_whenGetPosts_thenReturnBadRequest() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("snippets", "true"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void givenUnknownKeyword_whenSearchPosts_thenReturnNoContentWithoutSuggestions() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "zirconiumoxide"))
+                .andExpect(status().isNoContent());
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "narciatroy")
+                        .param("page", "1"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void givenMisspelledKeyword_whenFuzzySearch_thenReturnPosts() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "narciatroy"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)))
+                .andExpect(jsonPath("$.suggestions", contains("narciatory")));
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "narciatroy")
+                        .param("fuzzy", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)));
+    }
+
+    @Test
+    public void givenNewPost_whenIndexed_thenSearchFindsItUntilItIsDeleted() throws Exception {
+        PostModel created = postService.createPost(1L, PostDtoRequest.builder()
+                .postTitle("zirconium gazette")
+                .postBody("quarterly zirconium report")
+                .postConclusion("conclusion")
+                .author("Morpheus")
+                .publishedOn(LocalDate.of(2022, 9, 10))
+                .build());
+        assertThat(postIndexer.awaitIndexed(Duration.ofSeconds(5))).isTrue();
+
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "zirconium"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(created.getId().intValue())));
+
+        postService.deletePost(created.getId());
+        assertThat(postIndexer.awaitIndexed(Duration.ofSeconds(5))).isTrue();
+
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "zirconium"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void givenEventOfOlderVersionArrivingLast_whenIndexed_thenSearchFindsCurrentRow() throws Exception {
+        PostModel created = postService.createPost(1L, PostDtoRequest.builder()
+                .postTitle("tungsten almanac")
+                .postBody("yearly tungsten figures")
+                .postConclusion("conclusion")
+                .author("Morpheus")
+                .publishedOn(LocalDate.of(2022, 9, 10))
+                .build());
+        assertThat(postIndexer.awaitIndexed(Duration.ofSeconds(5))).isTrue();
+
+        // a later transaction renamed the post, and the event of the insert is queued after its own
+        jdbcTemplate.update("UPDATE post SET post_title = 'vanadium almanac', post_body = 'yearly vanadium figures' "
+                + "WHERE id = ?", created.getId());
+        postIndexer.onPostChanged(PostIndexEvent.upsert(created.getId()));
+        assertThat(postIndexer.awaitIndexed(Duration.ofSeconds(5))).isTrue();
+
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .param("keyword", "vanadium"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(created.getId().intValue())));
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .param("keyword", "tungsten"))
+                .andExpect(status().isNoContent());
+
+        postService.deletePost(created.getId());
+        postIndexer.onPostChanged(PostIndexEvent.upsert(created.getId()));
+        assertThat(postIndexer.awaitIndexed(Duration.ofSeconds(5))).isTrue();
+
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .param("keyword", "vanadium"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void givenPostsAndBlogs_whenSearchAll_thenReturnTypedHits() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "food OR alingly"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(3)))
+                .andExpect(jsonPath("$.content[?(@.type == 'BLOG')].blog.id", contains(3)))
+                .andExpect(jsonPath("$.content[?(@.type == 'POST')].post.id", containsInAnyOrder(2, 3)))
+                .andExpect(jsonPath("$.content[0].score").exists())
+                .andExpect(jsonPath("$.links", hasSize(3)));
+    }
+
+    @Test
+    public void givenAuthorOrConclusion_whenSearchPosts_thenFindPost() throws Exception {
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "trinity"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(3)));
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "pantyhose"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(1)));
+    }
+
+    @Test
+    public void givenNewBlog_whenIndexed_thenSearchAllFindsItUntilItIsDeleted() throws Exception {
+        BlogModel created = blogService.createBlog(BlogDtoRequest.builder()
+                .blogTitle("Molybdenum blog")
+                .description("Metals")
+                .build());
+        assertThat(postIndexer.awaitIndexed(Duration.ofSeconds(5))).isTrue();
+
+        this.mvc.perform(get("/api/v1.0.0/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "molybdenum"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].type", is("BLOG")))
+                .andExpect(jsonPath("$.content[0].blog.id", is(created.getId().intValue())));
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "molybdenum"))
+                .andExpect(status().isNoContent());
+
+        blogService.deleteBlog(created.getId());
+        assertThat(postIndexer.awaitIndexed(Duration.ofSeconds(5))).isTrue();
+
+        this.mvc.perform(get("/api/v1.0.0/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "molybdenum"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void givenRepeatedSearch_whenGetCacheMetrics_thenReturnHits() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            this.mvc.perform(get("/api/v1.0.0/posts")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .param("keyword", "deouslate"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].id", is(2)));
+        }
+
+        this.mvc.perform(get("/actuator/metrics/cache.gets")
+                        .param("tag", "cache:" + SearchResultCache.CACHE_NAME)
+                        .param("tag", "result:hit"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThanOrEqualTo(1.0)));
+        this.mvc.perform(get("/actuator/metrics/blog.search.cache.hit.ratio"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void givenIndexer_whenGetLagMetric_thenReturnMetric() throws Exception {
+        this.mvc.perform(get("/actuator/metrics/blog.search.index.lag"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("blog.search.index.lag")));
+    }
+
+    @Test
+    public void givenPostItems_whenReindex_thenReportProgressAndKeepSearching() throws Exception {
+        this.mvc.perform(post("/api/v1.0.0/admin/search/reindex"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.startedAt").exists());
+
+        for (int i = 0; i < 100 && postReindexer.status().getState() == ReindexStatus.State.RUNNING; i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+
+        this.mvc.perform(get("/api/v1.0.0/admin/search/reindex"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("COMPLETED")))
+                .andExpect(jsonPath("$.totalPosts", is(3)))
+                .andExpect(jsonPath("$.indexedPosts", is(3)))
+                .andExpect(jsonPath("$.postsPerSecond").exists());
+        this.mvc.perform(get("/api/v1.0.0/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "alingly"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)));
+    }
+}
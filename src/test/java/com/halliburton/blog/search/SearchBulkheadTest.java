@@ -0,0 +1,132 @@
+package com.halliburton.blog.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SearchBulkheadTest {
+    private SimpleMeterRegistry meterRegistry;
+    private SearchBulkhead bulkhead;
+    private ExecutorService callers;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bulkhead = new SearchBulkhead(meterRegistry, 1, 1, Duration.ofMillis(300));
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        bulkhead.shutdown();
+    }
+
+    @Test
+    public void callTestReturnsResultOfSearch() throws SQLException {
+        assertEquals("banana", bulkhead.call(() -> "banana"));
+    }
+
+    @Test
+    public void callTestWithFullBulkheadRejectsSearchAtOnce() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        Future<?> blocking = callers.submit(() -> bulkhead.call(() -> {
+            running.countDown();
+            return awaitRelease();
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        Future<?> queued = callers.submit(() -> bulkhead.call(() -> "queued"));
+        waitForQueued();
+
+        long started = System.nanoTime();
+        try {
+            bulkhead.call(() -> "rejected");
+            fail("third search must be rejected");
+        } catch (SearchRejectedException expected) {
+            assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        assertEquals(1.0, meterRegistry.get("blog.search.rejected").counter().count(), 0);
+
+        release.countDown();
+        blocking.get(5, TimeUnit.SECONDS);
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void callTestPastTimeoutInterruptsSearch() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            bulkhead.call(() -> {
+                if (awaitRelease() == null) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            fail("search must time out");
+        } catch (SearchTimeoutException expected) {
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1.0, meterRegistry.get("blog.search.timeouts").counter().count(), 0);
+        assertEquals("next", bulkhead.call(() -> "next"));
+    }
+
+    @Test
+    public void callTestMapsStatementTimeoutToSearchTimeout() {
+        try {
+            bulkhead.call(() -> {
+                throw new SQLTimeoutException("Statement was canceled or the session timed out");
+            });
+            fail("statement timeout must be a search timeout");
+        } catch (SearchTimeoutException expected) {
+            assertTrue(expected.getCause() instanceof SQLTimeoutException);
+        } catch (SQLException e) {
+            fail("statement timeout must not be rethrown as it is");
+        }
+        assertEquals(1.0, meterRegistry.get("blog.search.timeouts").counter().count(), 0);
+    }
+
+    @Test
+    public void callTestRethrowsExceptionsOfSearch() {
+        assertThrows(SQLException.class, () -> bulkhead.call(() -> {
+            throw new SQLException("broken");
+        }));
+        assertThrows(UnsupportedOperationException.class, () -> bulkhead.call(() -> {
+            throw new UnsupportedOperationException("no facets");
+        }));
+        assertEquals(0.0, meterRegistry.get("blog.search.timeouts").counter().count(), 0);
+    }
+
+    /**
+     * @return "released", or null when interrupted while waiting
+     */
+    private String awaitRelease() {
+        try {
+            release.await();
+            return "released";
+        } catch (InterruptedException e) {
+            return null;
+        }
+    }
+
+    private void waitForQueued() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("executor.queued").tag("name", "search").gauge().value() < 1) {
+            assertTrue("search was not queued", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
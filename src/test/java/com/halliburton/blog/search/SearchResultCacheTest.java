@@ -0,0 +1,153 @@
+package com.halliburton.blog.search;
+
+import com.halliburton.blog.dao.PostRepository;
+import com.halliburton.blog.dto.PostSearchHit;
+import com.halliburton.blog.model.BlogEntity;
+import com.halliburton.blog.model.PostEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SearchResultCacheTest {
+    private PostSearchEngine searchEngine;
+    private PostRepository postRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private SearchResultCache cache;
+    private final PostEntity banana = post(1L, "Soggy banana");
+    private final PostEntity bread = post(2L, "Banana bread");
+
+    @Before
+    public void setUp() throws SQLException {
+        searchEngine = mock(PostSearchEngine.class);
+        postRepository = mock(PostRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SearchResultCache(searchEngine, postRepository, meterRegistry, 100, 10);
+
+        when(searchEngine.search(anyString(), anyBoolean(), eq(10), eq(0), isNull()))
+                .thenReturn(List.of(hit(bread, 2), hit(banana, 1)));
+        when(postRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            return List.of(banana, bread).stream()
+                    .filter(post -> contains(ids, post.getId()))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    public void searchTestAnswersRepeatedAndEquivalentQueriesFromCache() throws SQLException {
+        assertEquals(List.of(2L, 1L), ids(cache.search("banana", false, 5, 0, null)));
+        assertEquals(List.of(1L), ids(cache.search("BANANA", false, 1, 1, null)));
+        assertEquals(List.of(2L, 1L), ids(cache.search("  Banana ", false, 5, 0, null)));
+
+        verify(searchEngine, times(1)).search(anyString(), anyBoolean(), anyInt(), anyInt(), any());
+        assertEquals(2.0 / 3, meterRegistry.get("blog.search.cache.hit.ratio").gauge().value(), 1e-9);
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", SearchResultCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count(), 1e-9);
+    }
+
+    @Test
+    public void searchTestSearchesPagesBeyondCachedRanking() throws SQLException {
+        cache.search("banana", false, 5, 6, null);
+        cache.search("banana", false, 5, 6, null);
+
+        verify(searchEngine, times(2)).search("banana", false, 5, 6, null);
+    }
+
+    @Test
+    public void applyTestDropsEntriesOfMatchingOrRankedPostsOnly() throws SQLException {
+        cache.search("banana", false, 5, 0, null);
+        cache.search("pancake", false, 5, 0, null);
+        cache.search("bread", false, 5, 0, null);
+
+        cache.apply(List.of(upserted(post(3L, "Pancake recipes"))));
+        cache.search("banana", false, 5, 0, null);
+        cache.search("pancake", false, 5, 0, null);
+        verify(searchEngine, times(1)).search("banana", false, 10, 0, null);
+        verify(searchEngine, times(2)).search("pancake", false, 10, 0, null);
+
+        cache.apply(List.of(PostIndexEvent.delete(2L)));
+        cache.search("banana", false, 5, 0, null);
+        cache.search("bread", false, 5, 0, null);
+        verify(searchEngine, times(2)).search("banana", false, 10, 0, null);
+        verify(searchEngine, times(2)).search("bread", false, 10, 0, null);
+    }
+
+    @Test
+    public void applyTestDropsFuzzyEntriesOnMisspellings() throws SQLException {
+        cache.search("banana", true, 5, 0, null);
+
+        cache.apply(List.of(upserted(post(3L, "Bananna split"))));
+        cache.search("banana", true, 5, 0, null);
+
+        verify(searchEngine, times(2)).search("banana", true, 10, 0, null);
+    }
+
+    @Test
+    public void applyTestDropsEveryEntryWhenAllPostsAreDeleted() throws SQLException {
+        cache.search("banana", false, 5, 0, null);
+
+        cache.apply(List.of(PostIndexEvent.deleteAll()));
+        cache.search("banana", false, 5, 0, null);
+
+        verify(searchEngine, times(2)).search("banana", false, 10, 0, null);
+        assertEquals(1.0, meterRegistry.get("blog.search.cache.invalidations").tag("scope", "all")
+                .counter().count(), 1e-9);
+    }
+
+    @Test
+    public void searchTestDoesNotCacheResultsOfSearchRacingWithInvalidation() throws SQLException {
+        when(searchEngine.search("banana", false, 10, 0, null)).thenAnswer(invocation -> {
+            cache.apply(List.of(PostIndexEvent.delete(1L)));
+            return List.of(hit(banana, 1));
+        });
+
+        cache.search("banana", false, 5, 0, null);
+        cache.search("banana", false, 5, 0, null);
+
+        verify(searchEngine, times(2)).search("banana", false, 10, 0, null);
+    }
+
+    private static boolean contains(Iterable<Long> ids, Long id) {
+        for (Long candidate : ids) {
+            if (candidate.equals(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Long> ids(List<PostSearchHit> hits) {
+        return hits.stream().map(hit -> hit.getPost().getId()).collect(Collectors.toList());
+    }
+
+    private static PostSearchHit hit(PostEntity post, double score) {
+        return PostSearchHit.builder().post(post).score(BigDecimal.valueOf(score)).build();
+    }
+
+    private static PostIndexEvent upserted(PostEntity post) {
+        return PostIndexEvent.upserted(post.getId(), post.getPostTitle(), post.getPostBody(),
+                post.getPostConclusion(), post.getAuthor(), post.getBlog().getId(), post.getPublishedOn());
+    }
+
+    private static PostEntity post(Long id, String title) {
+        return PostEntity.builder()
+                .id(id)
+                .blog(BlogEntity.builder().id(1L).build())
+                .postTitle(title)
+                .postBody("body")
+                .postConclusion("conclusion")
+                .author("Neo")
+                .publishedOn(LocalDate.of(2022, 9, 9))
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CountMinSketchTest {
+
+    @Test
+    public void estimateTestNeverUndercountsAndStaysWithinErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        Map<String, Long> counts = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            String key = "q" + (int) (Math.pow(random.nextDouble(), 4) * 50_000);
+            long estimate = sketch.add(key);
+            long count = counts.merge(key, 1L, Long::sum);
+            assertTrue(estimate >= count);
+        }
+
+        int outsideBound = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue());
+            if (estimate - entry.getValue() > sketch.errorBound()) {
+                outsideBound++;
+            }
+        }
+        assertEquals(200_000, sketch.total());
+        assertTrue(outsideBound + " of " + counts.size(), outsideBound < counts.size() * Math.exp(-4));
+        assertEquals(0, sketch.estimate("never added"), sketch.errorBound());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorTestRejectsWidthNotPowerOfTwo() {
+        new CountMinSketch(1000, 4);
+    }
+}
@@ -0,0 +1,69 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FacetStoreTest {
+    private FacetStore store;
+
+    @Before
+    public void setUp() {
+        store = new FacetStore();
+        store.put(1, "Neo", 1L, LocalDate.of(2022, 9, 9));
+        store.put(2, "Agent Smith", 2L, LocalDate.of(2022, 9, 9));
+        store.put(3, "Trinity", 2L, LocalDate.of(2022, 8, 8));
+        store.put(4, "Neo", 3L, LocalDate.of(2022, 8, 1));
+    }
+
+    @Test
+    public void countTestCountsOnlyMatchingPostsByDescendingCount() {
+        FacetCounts actual = store.count(matches -> List.of(1L, 3L, 4L).forEach(matches::accept), 10);
+
+        assertEquals(List.of("Neo", "Trinity"), List.copyOf(actual.getAuthors().keySet()));
+        assertEquals(Integer.valueOf(2), actual.getAuthors().get("Neo"));
+        assertEquals(Map.of(1L, 1, 2L, 1, 3L, 1), actual.getBlogIds());
+        assertEquals(List.of(YearMonth.of(2022, 8), YearMonth.of(2022, 9)),
+                List.copyOf(actual.getPublishedMonths().keySet()));
+        assertEquals(Integer.valueOf(2), actual.getPublishedMonths().get(YearMonth.of(2022, 8)));
+    }
+
+    @Test
+    public void countTestKeepsOnlyTheMostFrequentValues() {
+        FacetCounts actual = store.count(matches -> List.of(1L, 2L, 3L, 4L).forEach(matches::accept), 1);
+
+        assertEquals(Map.of("Neo", 2), actual.getAuthors());
+        assertEquals(Map.of(2L, 2), actual.getBlogIds());
+    }
+
+    @Test
+    public void putTestReplacesValuesAndRemoveReusesRows() {
+        store.put(4, "Trinity", 2L, LocalDate.of(2022, 9, 1));
+        assertTrue(store.remove(2));
+        assertFalse(store.remove(2));
+        store.put(5, "Morpheus", null, null);
+
+        FacetCounts actual = store.count(matches -> List.of(1L, 2L, 3L, 4L, 5L, 6L).forEach(matches::accept), 10);
+
+        assertEquals(4, store.size());
+        assertEquals(Map.of("Neo", 1, "Trinity", 2, "Morpheus", 1), actual.getAuthors());
+        assertEquals(Map.of(1L, 1, 2L, 2), actual.getBlogIds());
+        assertEquals(Map.of(YearMonth.of(2022, 9), 2, YearMonth.of(2022, 8), 1), actual.getPublishedMonths());
+    }
+
+    @Test
+    public void clearTestRemovesEveryPost() {
+        store.clear();
+
+        FacetCounts actual = store.count(matches -> matches.accept(1L), 10);
+
+        assertEquals(0, store.size());
+        assertTrue(actual.getAuthors().isEmpty());
+    }
+}
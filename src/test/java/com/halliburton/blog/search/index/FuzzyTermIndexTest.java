@@ -0,0 +1,175 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class FuzzyTermIndexTest {
+
+    @Test
+    public void distanceTestMatchesFullDynamicProgramming() {
+        Random random = new Random(3);
+        for (int i = 0; i < 20_000; i++) {
+            String a = randomWord(random, 1 + random.nextInt(9));
+            String b = random.nextBoolean() ? mutate(random, a) : randomWord(random, 1 + random.nextInt(9));
+            int expected = fullDistance(a, b);
+            for (int max = 0; max <= 3; max++) {
+                assertEquals(a + " " + b, Math.min(expected, max + 1), FuzzyTermIndex.distance(a, b, max));
+            }
+        }
+    }
+
+    @Test
+    public void lookupTestFindsSameTermsAsComparingEveryTerm() {
+        Random random = new Random(5);
+        FuzzyTermIndex index = new FuzzyTermIndex();
+        List<String> terms = new ArrayList<>();
+        Set<String> seen = new TreeSet<>();
+        while (terms.size() < 3_000) {
+            String term = randomWord(random, 2 + random.nextInt(10));
+            if (seen.add(term)) {
+                index.add(term, terms.size());
+                terms.add(term);
+            }
+        }
+
+        for (int i = 0; i < 500; i++) {
+            String query = mutate(random, terms.get(random.nextInt(terms.size())));
+            int maxEdits = FuzzyTermIndex.maxEdits(query);
+            Set<Integer> expected = new TreeSet<>();
+            for (int termId = 0; termId < terms.size(); termId++) {
+                if (fullDistance(query, terms.get(termId)) <= maxEdits) {
+                    expected.add(termId);
+                }
+            }
+            Set<Integer> actual = new TreeSet<>();
+            index.lookup(query, maxEdits).forEach(match -> actual.add(match.termId));
+            assertEquals(query, expected, actual);
+        }
+    }
+
+    @Test
+    public void lookupTestFindsTermsWithRepeatedTrigrams() {
+        Random random = new Random(7);
+        FuzzyTermIndex index = new FuzzyTermIndex();
+        List<String> terms = new ArrayList<>();
+        Set<String> seen = new TreeSet<>();
+        while (terms.size() < 2_000) {
+            // two letters only, so most terms repeat trigrams, like "banana" does
+            String term = randomWord(random, 6 + random.nextInt(10), 2);
+            if (seen.add(term)) {
+                index.add(term, terms.size());
+                terms.add(term);
+            }
+        }
+        index.add("aaaaaaaaaaaa", terms.size());
+        terms.add("aaaaaaaaaaaa");
+
+        for (int i = 0; i < 300; i++) {
+            String query = i == 0 ? "aaaaaaaaaaaa" : mutate(random, terms.get(random.nextInt(terms.size())));
+            int maxEdits = FuzzyTermIndex.maxEdits(query);
+            Set<Integer> expected = new TreeSet<>();
+            for (int termId = 0; termId < terms.size(); termId++) {
+                if (fullDistance(query, terms.get(termId)) <= maxEdits) {
+                    expected.add(termId);
+                }
+            }
+            Set<Integer> actual = new TreeSet<>();
+            index.lookup(query, maxEdits).forEach(match -> actual.add(match.termId));
+            assertEquals(query, expected, actual);
+        }
+    }
+
+    @Test
+    public void candidateCountTestComparesFewLongTermsOfALargeDictionary() {
+        Random random = new Random(11);
+        FuzzyTermIndex index = new FuzzyTermIndex();
+        List<String> terms = new ArrayList<>();
+        Set<String> seen = new TreeSet<>();
+        while (terms.size() < 60_000) {
+            // long enough for the trigram bound to prune, shorter ones are compared by length
+            String term = randomWord(random, 12 + random.nextInt(5), 26);
+            if (seen.add(term)) {
+                index.add(term, terms.size());
+                terms.add(term);
+            }
+        }
+
+        long candidates = 0;
+        for (int i = 0; i < 500; i++) {
+            String query = mutate(random, terms.get(random.nextInt(terms.size())));
+            candidates += index.candidateCount(query, FuzzyTermIndex.maxEdits(query));
+        }
+        // without the filter every term of about the same length would be compared
+        assertTrue("average candidates " + candidates / 500, candidates / 500 < terms.size() / 100);
+    }
+
+    @Test
+    public void maxEditsTestGrowsWithTermLength() {
+        assertEquals(0, FuzzyTermIndex.maxEdits("ab"));
+        assertEquals(1, FuzzyTermIndex.maxEdits("rispa"));
+        assertEquals(2, FuzzyTermIndex.maxEdits("narciatory"));
+    }
+
+    private static String randomWord(Random random, int length) {
+        return randomWord(random, length, 6);
+    }
+
+    private static String randomWord(Random random, int length, int letters) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(letters)));
+        }
+        return word.toString();
+    }
+
+    /**
+     * Applies up to two random edits.
+     */
+    private static String mutate(Random random, String word) {
+        StringBuilder mutated = new StringBuilder(word);
+        for (int edits = random.nextInt(3); edits > 0 && mutated.length() > 1; edits--) {
+            int at = random.nextInt(mutated.length() - 1);
+            switch (random.nextInt(4)) {
+                case 0:
+                    mutated.insert(at, (char) ('a' + random.nextInt(6)));
+                    break;
+                case 1:
+                    mutated.deleteCharAt(at);
+                    break;
+                case 2:
+                    mutated.setCharAt(at, (char) ('a' + random.nextInt(6)));
+                    break;
+                default:
+                    char swapped = mutated.charAt(at);
+                    mutated.setCharAt(at, mutated.charAt(at + 1));
+                    mutated.setCharAt(at + 1, swapped);
+            }
+        }
+        return mutated.toString();
+    }
+
+    private static int fullDistance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                    continue;
+                }
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,60 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class HeavyHittersTest {
+
+    @Test
+    public void topTestFindsMostFrequentKeysAmongManyDistinctOnes() {
+        HeavyHitters heavyHitters = new HeavyHitters(20, 2048, 4);
+        Map<String, Integer> counts = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 300_000; i++) {
+            // Zipf-like: a few keywords make up most of the traffic, with a long tail of rare ones
+            String key = "keyword " + (int) (1 / (random.nextDouble() + 1e-6));
+            heavyHitters.record(key, 100);
+            counts.merge(key, 1, Integer::sum);
+        }
+
+        List<String> expected = counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(5)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        List<HeavyHitter> top = heavyHitters.top(5);
+        assertEquals(expected, top.stream().map(HeavyHitter::getKey).collect(Collectors.toList()));
+        for (HeavyHitter hitter : top) {
+            assertTrue(hitter.getCount() >= counts.get(hitter.getKey()));
+            assertTrue(hitter.getCount() - counts.get(hitter.getKey()) <= heavyHitters.errorBound());
+        }
+        assertEquals(300_000, heavyHitters.total());
+        assertEquals(20, heavyHitters.top(100).size());
+    }
+
+    @Test
+    public void topTestReportsLatencyPercentilesPerKey() {
+        HeavyHitters heavyHitters = new HeavyHitters(2, 256, 4);
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.record("slow", i == 99 ? 50_000 : 2_000);
+            heavyHitters.record("fast", 10);
+        }
+        heavyHitters.record("rare", 10);
+
+        List<HeavyHitter> top = heavyHitters.top(5);
+
+        assertEquals(List.of("fast", "slow"), top.stream().map(HeavyHitter::getKey).collect(Collectors.toList()));
+        HeavyHitter slow = top.get(1);
+        assertEquals(100, slow.getLatencySamples());
+        assertTrue(slow.getP50Micros() >= 2_000 && slow.getP50Micros() < 2_250);
+        assertTrue(slow.getP99Micros() >= 2_000 && slow.getP99Micros() < 2_250);
+        assertEquals(10, top.get(0).getP99Micros());
+    }
+}
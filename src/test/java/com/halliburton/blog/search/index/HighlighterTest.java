@@ -0,0 +1,67 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HighlighterTest {
+
+    private static String snippet(String keyword, String text, int maxLength) {
+        return new Highlighter(QueryParser.parse(keyword, false)).snippet(text, maxLength);
+    }
+
+    @Test
+    public void snippetTestMarksEveryMatchedToken() {
+        assertEquals("<em>Soggy</em> banana on the <em>SOGGY</em> street",
+                snippet("soggy", "Soggy banana on the SOGGY street", 100));
+        assertEquals("a <em>soggy</em> <em>banana</em>", snippet("\"soggy banana\"", "a soggy banana", 100));
+        assertEquals("<em>soggy</em> banana", snippet("soggy OR bread", "soggy banana", 100));
+    }
+
+    @Test
+    public void snippetTestSkipsExcludedTerms() {
+        assertEquals("<em>soggy</em> banana", snippet("soggy -banana", "soggy banana", 100));
+    }
+
+    @Test
+    public void snippetTestMarksMisspellingsOfFuzzyTerms() {
+        Highlighter highlighter = new Highlighter(QueryParser.parse("narciatroy", true));
+
+        assertEquals("alingly <em>narciatory</em> heavaig", highlighter.snippet("alingly narciatory heavaig", 100));
+    }
+
+    @Test
+    public void snippetTestCutsWindowWithMostMatchesAtWordBoundaries() {
+        StringBuilder text = new StringBuilder("banana");
+        for (int i = 0; i < 50; i++) {
+            text.append(" filler");
+        }
+        text.append(" banana bread banana");
+        for (int i = 0; i < 50; i++) {
+            text.append(" filler");
+        }
+
+        String snippet = snippet("banana", text.toString(), 60);
+
+        assertTrue(snippet, snippet.startsWith("…filler"));
+        assertTrue(snippet, snippet.contains("<em>banana</em> bread <em>banana</em>"));
+        assertTrue(snippet, snippet.endsWith("filler…"));
+        String plain = snippet.replace(Highlighter.MATCH_START, "").replace(Highlighter.MATCH_END, "")
+                .replace(Highlighter.ELLIPSIS, "");
+        assertTrue(plain, plain.length() <= 60);
+        assertTrue(plain, plain.trim().matches("[a-z]+( [a-z]+)*"));
+    }
+
+    @Test
+    public void snippetTestWithoutMatchesReturnsStartOfText() {
+        assertEquals("It is not often…", snippet("banana", "It is not often you find", 16));
+        assertEquals("short", snippet("banana", "short", 16));
+        assertNull(snippet("banana", null, 16));
+    }
+
+    @Test
+    public void snippetTestEscapesHtmlOutsideMarks() {
+        assertEquals("&lt;b&gt;<em>soggy</em>&lt;/b&gt; &amp; &quot;wet&quot;",
+                snippet("soggy", "<b>soggy</b> & \"wet\"", 100));
+    }
+}
@@ -0,0 +1,82 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class IndexSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readTestReturnsIndexSearchingLikeTheWrittenOne() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        for (long docId = 1; docId <= 1_000; docId++) {
+            index.add(docId, "title " + docId % 7, "body word" + docId % 13 + " común " + docId);
+        }
+        index.remove(500L);
+        Instant asOf = Instant.parse("2022-09-01T10:15:30Z");
+        Path file = folder.getRoot().toPath().resolve("index.snapshot");
+
+        IndexSnapshot.write(index, asOf, file);
+        IndexSnapshot actual = IndexSnapshot.read(file).orElseThrow();
+
+        assertEquals(asOf, actual.getAsOf());
+        assertEquals(index.documentCount(), actual.getIndex().documentCount());
+        assertEquals(index.termCount(), actual.getIndex().termCount());
+        for (String query : List.of("title 3", "word5 común", "body", "500", "777")) {
+            assertArrayEquals(query, index.search(query, 50, 0), actual.getIndex().search(query, 50, 0));
+        }
+    }
+
+    @Test
+    public void readTestKeepsTermsWithSupplementaryCharacters() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1L, "\uD840\uDC00smile \uD835\uDD38lgebra");
+        index.add(2L, "plain smile");
+        Path file = folder.getRoot().toPath().resolve("index.snapshot");
+        IndexSnapshot.write(index, Instant.now(), file);
+
+        InvertedIndex actual = IndexSnapshot.read(file).orElseThrow().getIndex();
+
+        for (String query : List.of("\uD840\uDC00smile", "\uD835\uDD38lgebra", "smile")) {
+            assertEquals(query, index.search(query, 10, 0).length, actual.search(query, 10, 0).length);
+        }
+        assertEquals(1, actual.search("\uD840\uDC00smile", 10, 0).length);
+        assertEquals(1L, actual.search("\uD835\uDD38lgebra", 10, 0)[0].getDocId());
+    }
+
+    @Test
+    public void readTestKeepsLoadedIndexUpdatable() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1L, "alingly narciatory");
+        index.add(2L, "alingly heavaig");
+        Path file = folder.getRoot().toPath().resolve("index.snapshot");
+        IndexSnapshot.write(index, Instant.now(), file);
+
+        InvertedIndex actual = IndexSnapshot.read(file).orElseThrow().getIndex();
+        actual.update(List.of(new InvertedIndex.Document(3L, "alingly deouslate")), List.of(1L));
+
+        assertEquals(2, actual.search("alingly", 10, 0).length);
+        assertEquals(0, actual.search("narciatory", 10, 0).length);
+        assertEquals(3L, actual.search("deouslate", 10, 0)[0].getDocId());
+    }
+
+    @Test
+    public void readTestIgnoresMissingOrForeignFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("index.snapshot");
+        assertEquals(Optional.empty(), IndexSnapshot.read(file));
+
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        assertEquals(Optional.empty(), IndexSnapshot.read(file));
+    }
+}
@@ -0,0 +1,302 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+public class InvertedIndexTest {
+    private InvertedIndex index;
+
+    @Before
+    public void setUp() {
+        index = new InvertedIndex();
+        index.add(1L, "desparramasemos suspirare sarmentosos", "rispa airosidades esfollareis");
+        index.add(2L, "alingly narciatory heavaig", "alingly narciatory heavaig deouslate pulappli");
+        index.add(3L, "alingly narciatory condensemos", "It is not often you find a soggy banana on the street.");
+    }
+
+    @Test
+    public void searchTestReturnsPostsContainingAllTermsRankedByScore() {
+        ScoredDoc[] actual = index.search("Alingly", 10, 0);
+
+        assertEquals(2, actual.length);
+        assertEquals(2L, actual[0].getDocId());
+        assertEquals(3L, actual[1].getDocId());
+        assertTrue(actual[0].getScore() > actual[1].getScore());
+    }
+
+    @Test
+    public void searchTestWithFewTermsRequiresAllOfThem() {
+        ScoredDoc[] actual = index.search("narciatory banana", 10, 0);
+
+        assertEquals(1, actual.length);
+        assertEquals(3L, actual[0].getDocId());
+    }
+
+    @Test
+    public void searchTestWithUnknownTermReturnsNothing() {
+        assertEquals(0, index.search("alingly qwerty", 10, 0).length);
+        assertEquals(0, index.search("  ", 10, 0).length);
+    }
+
+    @Test
+    public void searchTestWithOrReturnsPostsContainingAnyTerm() {
+        ScoredDoc[] actual = index.search("banana OR heavaig", 10, 0);
+
+        assertEquals(2, actual.length);
+        assertEquals(Set.of(2L, 3L), Set.of(actual[0].getDocId(), actual[1].getDocId()));
+    }
+
+    @Test
+    public void searchTestWithNotSkipsPostsContainingExcludedTerm() {
+        ScoredDoc[] actual = index.search("alingly NOT banana", 10, 0);
+
+        assertEquals(1, actual.length);
+        assertEquals(2L, actual[0].getDocId());
+        assertEquals(1, index.search("(narciatory OR rispa) -heavaig -banana", 10, 0).length);
+        assertEquals(0, index.search("NOT banana", 10, 0).length);
+    }
+
+    @Test
+    public void searchTestWithPhraseRequiresAdjacentTermsInOrder() {
+        assertEquals(3L, index.search("\"soggy banana\"", 10, 0)[0].getDocId());
+        assertEquals(0, index.search("\"banana soggy\"", 10, 0).length);
+        assertEquals(0, index.search("\"often soggy\"", 10, 0).length);
+        assertEquals(2, index.search("\"alingly narciatory\"", 10, 0).length);
+    }
+
+    @Test
+    public void searchTestWithPhraseDoesNotSpanFields() {
+        // post 2: title ends with "heavaig", body starts with "alingly"
+        assertEquals(0, index.search("\"heavaig alingly\"", 10, 0).length);
+        assertEquals(1, index.search("\"heavaig deouslate\"", 10, 0).length);
+    }
+
+    @Test
+    public void searchTestWithFuzzyFindsMisspelledTermsRankedBelowExactOnes() {
+        assertEquals(0, index.search("narcaitory", 10, 0).length);
+
+        ScoredDoc[] actual = index.search("narcaitory", true, 10, 0);
+
+        assertEquals(2, actual.length);
+        assertEquals(1L, index.search("desparamasemos", true, 10, 0)[0].getDocId());
+        assertTrue(actual[0].getScore() < index.search("narciatory", 10, 0)[0].getScore());
+    }
+
+    @Test
+    public void suggestSpellingsTestCorrectsUnindexedWordsKeepingTheRestOfTheText() {
+        assertEquals(List.of("alingly AND narciatory"), index.suggestSpellings("alingly AND narcaitory", 5));
+        assertEquals(List.of("\"soggy banana\" -street"), index.suggestSpellings("\"sogyg bananna\" -street", 5));
+        assertEquals(List.of(), index.suggestSpellings("soggy banana", 5));
+        assertEquals(List.of(), index.suggestSpellings("zirconium", 5));
+    }
+
+    @Test
+    public void suggestSpellingsTestRanksFewestEditsThenMostFrequentTerms() {
+        index.add(4L, "soggy bread", "");
+        index.add(5L, "soggy bread", "");
+        index.add(6L, "soggo breed", "");
+
+        assertEquals(List.of("soggy", "soggo"), index.suggestSpellings("soggi", 5));
+        assertEquals(List.of("soggy bread", "soggy breed", "soggo bread"), index.suggestSpellings("soggi bred", 3));
+    }
+
+    @Test
+    public void searchTestPassesEveryMatchNotOnlyTopK() {
+        List<Long> matches = new ArrayList<>();
+
+        ScoredDoc[] actual = index.search("alingly", false, 1, 0, matches::add);
+
+        assertEquals(1, actual.length);
+        assertEquals(List.of(2L, 3L), matches);
+    }
+
+    @Test
+    public void searchTestRanksMatchesInBoostedFieldsFirst() {
+        int[] boosts = {3, 1};
+        index.add(new InvertedIndex.Document(10L, boosts, "quarterly report", "zirconium prices fell"));
+        index.add(new InvertedIndex.Document(11L, boosts, "zirconium news", "quarterly prices fell"));
+        index.add(new InvertedIndex.Document(12L, "zirconium news", "quarterly prices fell"));
+
+        ScoredDoc[] actual = index.search("zirconium", 10, 0);
+
+        assertEquals(3, actual.length);
+        assertEquals(11L, actual[0].getDocId());
+        assertEquals(10L, actual[2].getDocId());
+    }
+
+    @Test
+    public void searchTestWithRangeScoresOnlyPostsInRange() {
+        index.add(-1L, "alingly blog");
+        Query query = QueryParser.parse("alingly");
+
+        ScoredDoc[] posts = index.search(query, 1, Long.MAX_VALUE, 10, 0, null);
+        ScoredDoc[] others = index.search(query, Long.MIN_VALUE, 0, 10, 0, null);
+
+        assertEquals(2, posts.length);
+        assertEquals(1, others.length);
+        assertEquals(-1L, others[0].getDocId());
+    }
+
+    @Test
+    public void searchTestKeepsOnlyTopK() {
+        ScoredDoc[] actual = index.search("narciatory", 1, 0);
+
+        assertEquals(1, actual.length);
+        assertEquals(2L, actual[0].getDocId());
+    }
+
+    @Test
+    public void searchTestWithHugeKAllocatesForTheMatchesOnly() {
+        InvertedIndex large = new InvertedIndex();
+        for (long docId = 1; docId <= 200; docId++) {
+            large.add(docId, "banana " + docId);
+        }
+
+        ScoredDoc[] actual = large.search("banana", Integer.MAX_VALUE, 0);
+
+        assertEquals(200, actual.length);
+        for (int i = 1; i < actual.length; i++) {
+            assertTrue(actual[i - 1].getScore() >= actual[i].getScore());
+        }
+    }
+
+    @Test
+    public void searchTestSkipsPostsBelowMinScore() {
+        ScoredDoc[] all = index.search("alingly", 10, 0);
+
+        ScoredDoc[] actual = index.search("alingly", 10, all[0].getScore());
+
+        assertEquals(1, actual.length);
+        assertEquals(2L, actual[0].getDocId());
+    }
+
+    @Test
+    public void putTestReplacesPreviousVersionOfPost() {
+        index.put(3L, "banana split", "soggy banana");
+
+        assertEquals(1, index.search("alingly", 10, 0).length);
+        assertEquals(3L, index.search("banana", 10, 0)[0].getDocId());
+        assertEquals(3, index.documentCount());
+    }
+
+    @Test
+    public void removeTestDropsPostFromAllTerms() {
+        assertTrue(index.remove(2L));
+        assertFalse(index.remove(2L));
+
+        assertEquals(0, index.search("heavaig", 10, 0).length);
+        assertEquals(1, index.search("alingly", 10, 0).length);
+        index.add(2L, "heavaig");
+        assertEquals(2L, index.search("heavaig", 10, 0)[0].getDocId());
+    }
+
+    @Test
+    public void searchTestOnInterruptedThreadIsCancelledAndKeepsInterruptStatus() {
+        InvertedIndex large = new InvertedIndex();
+        for (long docId = 1; docId <= 2 * InvertedIndex.CANCELLATION_CHECK_INTERVAL; docId++) {
+            large.add(docId, "banana " + docId, "soggy banana");
+        }
+
+        Thread.currentThread().interrupt();
+        try {
+            large.search("banana", 10, 0);
+            fail("interrupted search must be cancelled");
+        } catch (CancellationException expected) {
+            assertTrue(Thread.interrupted());
+        }
+        assertEquals(10, large.search("banana", 10, 0).length);
+    }
+
+    @Test
+    public void searchTestWithSelectiveQueryOnInterruptedThreadIsCancelled() {
+        InvertedIndex large = new InvertedIndex();
+        for (long docId = 1; docId <= 4 * InvertedIndex.CANCELLATION_CHECK_INTERVAL; docId++) {
+            large.add(docId, docId % 2 == 0 ? "banana soggy" : "banana street", "soggy banana");
+        }
+
+        // many candidates, few or no matches
+        for (String query : List.of("banana street -soggy", "(street OR soggy) -banana", "\"street soggy\"")) {
+            assertEquals(query, 0, large.search(query, 10, 0).length);
+            Thread.currentThread().interrupt();
+            try {
+                large.search(query, 10, 0);
+                fail("interrupted search must be cancelled: " + query);
+            } catch (CancellationException expected) {
+                assertTrue(Thread.interrupted());
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addTestWithIndexedPostThrowsException() {
+        index.add(1L, "title", "body");
+    }
+
+    @Test
+    public void memoryReportTestShowsCompressedPostingsAtLeastFiveTimesSmallerThanBoxed() {
+        InvertedIndex large = new InvertedIndex();
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (long docId = 1; docId <= 20_000; docId++) {
+            text.setLength(0);
+            for (int i = 0; i < 40; i++) {
+                // skewed vocabulary: a few very common terms and a long tail
+                int word = (int) (Math.pow(random.nextDouble(), 3) * 5000);
+                text.append('w').append(word).append(' ');
+            }
+            large.add(docId, text.toString());
+        }
+
+        List<TermMemory> report = large.memoryReport(5);
+
+        assertEquals(5, report.size());
+        assertTrue(report.get(0).getBytes() >= report.get(4).getBytes());
+        assertTrue(large.boxedPostingsBytes() >= 5 * large.postingsBytes());
+    }
+
+    @Test
+    public void mergeTestSearchesLikeIndexBuiltInOnePiece() {
+        Random random = new Random(7);
+        InvertedIndex whole = new InvertedIndex();
+        InvertedIndex lower = new InvertedIndex();
+        InvertedIndex upper = new InvertedIndex();
+        for (long docId = 1; docId <= 600; docId++) {
+            String text = "w" + random.nextInt(20) + " w" + random.nextInt(200) + " w" + random.nextInt(5);
+            whole.add(docId, text);
+            (docId <= 250 ? lower : upper).add(docId, text);
+        }
+
+        lower.merge(upper);
+
+        assertEquals(whole.documentCount(), lower.documentCount());
+        for (String query : List.of("w1", "w3 w4", "w17 w150", "w0 w2")) {
+            assertArrayEquals(query, whole.search(query, 30, 0), lower.search(query, 30, 0));
+        }
+        lower.put(300L, "merged");
+        assertEquals(300L, lower.search("merged", 1, 0)[0].getDocId());
+    }
+
+    @Test
+    public void longIntHashMapTestSurvivesRemovalsAndGrowth() {
+        LongIntHashMap map = new LongIntHashMap(2);
+        for (long key = 1; key <= 1000; key++) {
+            map.put(key, (int) key * 2, -1);
+        }
+        for (long key = 1; key <= 1000; key += 2) {
+            assertEquals((int) key * 2, map.remove(key, -1));
+        }
+
+        assertEquals(500, map.size());
+        for (long key = 1; key <= 1000; key++) {
+            assertEquals(key % 2 == 0 ? (int) key * 2 : -1, map.get(key, -1));
+        }
+    }
+}
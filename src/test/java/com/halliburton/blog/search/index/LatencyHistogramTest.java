@@ -0,0 +1,39 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketTestCoversEveryLatencyWithBoundsWithinAnEighth() {
+        for (long micros = 0; micros < 1_000_000; micros += 1 + micros / 100) {
+            int bucket = LatencyHistogram.bucket(micros);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= micros);
+            assertTrue(micros < LatencyHistogram.lowerBound(bucket + 1));
+            assertTrue(micros - LatencyHistogram.lowerBound(bucket) <= micros / 8);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentileTestReturnsUpperBoundOfBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+
+        for (int i = 1; i <= 98; i++) {
+            histogram.record(5);
+        }
+        histogram.record(1_000);
+        histogram.record(100_000);
+
+        assertEquals(100, histogram.count());
+        assertEquals(5, histogram.percentile(50));
+        assertEquals(5, histogram.percentile(98));
+        long p99 = histogram.percentile(99);
+        assertTrue(String.valueOf(p99), p99 >= 1_000 && p99 < 1_125);
+        long max = histogram.percentile(100);
+        assertTrue(String.valueOf(max), max >= 100_000 && max < 112_500);
+    }
+}
@@ -0,0 +1,111 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class MinHashIndexTest {
+    private static final String BANANA = "It is not often you find a soggy banana on the street, "
+            + "but the street was wet and the banana fell from a bag of shopping";
+
+    private MinHashIndex index;
+
+    @Before
+    public void setUp() {
+        index = new MinHashIndex(32, 2, 42);
+        index.put(1L, BANANA);
+        index.put(2L, BANANA + " on a rainy day");
+        index.put(3L, "It is not often you find a soggy banana on the street, and it was not a banana");
+        index.put(4L, "Pantyhose and heels are an interesting choice of attire for the beach");
+    }
+
+    @Test
+    public void relatedTestFindsSimilarPostsMostSimilarFirst() {
+        List<ScoredDoc> related = index.related(1L, 10, 0.1);
+
+        assertEquals(List.of(2L, 3L), ids(related));
+        assertTrue(related.get(0).getScore() > related.get(1).getScore());
+        assertEquals(List.of(2L), ids(index.related(1L, 1, 0.1)));
+        assertEquals(List.of(), ids(index.related(4L, 10, 0.1)));
+        assertEquals(List.of(), ids(index.related(5L, 10, 0.1)));
+    }
+
+    @Test
+    public void putTestReplacesTextOfPost() {
+        index.put(4L, BANANA + " and nobody picked it up");
+        index.put(2L, "Pantyhose and heels are an interesting choice of attire for the beach");
+
+        assertEquals(List.of(4L, 3L), ids(index.related(1L, 10, 0.1)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void removeTestDropsPostFromBuckets() {
+        assertTrue(index.remove(2L));
+        assertFalse(index.remove(2L));
+        index.put(5L, "   ");
+
+        assertEquals(List.of(3L), ids(index.related(1L, 10, 0.1)));
+        assertEquals(List.of(), ids(index.related(5L, 10, 0.1)));
+        assertEquals(3, index.size());
+
+        index.clear();
+        assertEquals(List.of(), ids(index.related(1L, 10, 0.1)));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void relatedTestEstimatesJaccardSimilarityOfShingles() {
+        Random random = new Random(7);
+        StringBuilder shared = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            shared.append('w').append(random.nextInt(100_000)).append(' ');
+        }
+        StringBuilder other = new StringBuilder(shared);
+        for (int i = 0; i < 300; i++) {
+            other.append('v').append(random.nextInt(100_000)).append(' ');
+        }
+        MinHashIndex large = new MinHashIndex(64, 2, 42);
+        large.put(1L, shared.toString());
+        large.put(2L, other.toString());
+
+        double exact = jaccard(MinHashIndex.shingles(shared.toString()), MinHashIndex.shingles(other.toString()));
+        List<ScoredDoc> related = large.related(1L, 1, 0);
+
+        assertEquals(0.5, exact, 0.01);
+        assertEquals(exact, related.get(0).getScore(), 0.15);
+    }
+
+    @Test
+    public void shinglesTestPairsConsecutiveTermsWithoutRepeats() {
+        assertEquals(1, MinHashIndex.shingles("Banana").length);
+        assertEquals(2, MinHashIndex.shingles("soggy banana, SOGGY banana").length);
+        assertEquals(0, MinHashIndex.shingles(" ... ").length);
+    }
+
+    private static double jaccard(long[] a, long[] b) {
+        Set<Long> union = new HashSet<>();
+        Set<Long> first = new HashSet<>();
+        for (long shingle : a) {
+            first.add(shingle);
+            union.add(shingle);
+        }
+        int common = 0;
+        for (long shingle : b) {
+            common += first.contains(shingle) ? 1 : 0;
+            union.add(shingle);
+        }
+        return (double) common / union.size();
+    }
+
+    private static List<Long> ids(List<ScoredDoc> docs) {
+        return docs.stream().map(ScoredDoc::getDocId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,93 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class PostingListTest {
+
+    @Test
+    public void putAndRemoveTestMatchesSortedMapForRandomChanges() {
+        PostingList list = new PostingList();
+        TreeMap<Long, int[]> expected = new TreeMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            long docId = random.nextInt(3000) + 1L;
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(docId) != null, list.remove(docId));
+            } else {
+                int[] positions = positions(random, random.nextInt(300) + 1);
+                list.put(docId, positions, positions.length, weight(docId, positions.length));
+                expected.put(docId, positions);
+            }
+        }
+
+        assertEquals(expected.size(), list.size());
+        PostingList.Cursor cursor = list.cursor();
+        for (Map.Entry<Long, int[]> entry : expected.entrySet()) {
+            assertTrue(cursor.next());
+            assertEquals(entry.getKey().longValue(), cursor.docId());
+            assertEquals(entry.getValue().length, cursor.frequency());
+            assertEquals(weight(entry.getKey(), cursor.frequency()), cursor.weight());
+            for (int i = 0; i < cursor.frequency(); i++) {
+                assertEquals(entry.getValue()[i], cursor.position(i));
+            }
+        }
+        assertFalse(cursor.next());
+    }
+
+    /**
+     * Weight of a posting as if its occurrences were all in a field with a boost of 1 to 3.
+     */
+    private static int weight(long docId, int frequency) {
+        return frequency * (int) (1 + docId % 3);
+    }
+
+    private static int[] positions(Random random, int frequency) {
+        int[] positions = new int[frequency];
+        int position = 0;
+        for (int i = 0; i < frequency; i++) {
+            position += random.nextInt(200) + (i == 0 ? 0 : 1);
+            positions[i] = position;
+        }
+        return positions;
+    }
+
+    @Test
+    public void cursorAdvanceTestSkipsToFirstPostingNotBelowTarget() {
+        PostingList list = new PostingList();
+        for (long docId = 10; docId <= 10_000; docId += 10) {
+            list.put(docId, new int[]{0}, 1);
+        }
+
+        PostingList.Cursor cursor = list.cursor();
+        assertTrue(cursor.advance(35));
+        assertEquals(40, cursor.docId());
+        assertTrue(cursor.advance(40));
+        assertEquals(40, cursor.docId());
+        assertTrue(cursor.advance(5001));
+        assertEquals(5010, cursor.docId());
+        assertTrue(cursor.advance(20));
+        assertEquals(5010, cursor.docId());
+        assertTrue(cursor.next());
+        assertEquals(5020, cursor.docId());
+        assertFalse(cursor.advance(10_001));
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    public void varintTestRoundTripsLargeValues() {
+        byte[] bytes = new byte[30];
+        int length = PostingList.writeVarint(bytes, 0, Long.MAX_VALUE);
+        length = PostingList.writeVarint(bytes, length, 300);
+
+        int[] position = {0};
+        assertEquals(Long.MAX_VALUE, PostingList.readVarint(bytes, position));
+        assertEquals(300, PostingList.readVarint(bytes, position));
+        assertEquals(length, position[0]);
+    }
+}
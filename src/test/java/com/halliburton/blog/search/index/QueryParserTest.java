@@ -0,0 +1,61 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class QueryParserTest {
+
+    @Test
+    public void parseTestJoinsWordsWithAnd() {
+        assertEquals(new Query.And(List.of(term("alpha"), term("beta")), List.of()),
+                QueryParser.parse("Alpha AND beta"));
+        assertEquals(QueryParser.parse("alpha AND beta"), QueryParser.parse("alpha beta"));
+    }
+
+    @Test
+    public void parseTestBindsAndTighterThanOr() {
+        Query expected = new Query.Or(List.of(
+                new Query.And(List.of(term("alpha"), term("beta")), List.of()),
+                term("gamma")));
+
+        assertEquals(expected, QueryParser.parse("alpha beta OR gamma"));
+    }
+
+    @Test
+    public void parseTestReadsGroupsPhrasesAndExclusions() {
+        Query expected = new Query.And(
+                List.of(new Query.Or(List.of(term("alpha"), term("beta"))),
+                        new Query.Phrase(List.of("soggy", "banana"))),
+                List.of(term("gamma"), term("delta")));
+
+        assertEquals(expected, QueryParser.parse("(alpha OR beta) \"Soggy banana\" NOT gamma -delta"));
+    }
+
+    @Test
+    public void parseTestKeepsLowerCaseOperatorsAsTerms() {
+        assertEquals(new Query.And(List.of(term("cats"), term("and"), term("dogs")), List.of()),
+                QueryParser.parse("cats and dogs"));
+    }
+
+    @Test
+    public void parseTestSearchesSplitWordAsPhrase() {
+        assertEquals(new Query.Phrase(List.of("e", "mail")), QueryParser.parse("e-mail"));
+    }
+
+    @Test
+    public void parseTestToleratesBrokenQueries() {
+        assertEquals(new Query.Phrase(List.of("open", "quote")), QueryParser.parse("\"open quote"));
+        assertEquals(new Query.Or(List.of(term("alpha"), term("beta"))), QueryParser.parse("((alpha OR beta"));
+        assertEquals(new Query.And(List.of(term("alpha"), term("beta")), List.of()), QueryParser.parse("alpha) beta"));
+        assertNull(QueryParser.parse("NOT alpha"));
+        assertNull(QueryParser.parse(" !? "));
+        assertNull(QueryParser.parse(null));
+    }
+
+    private static Query term(String term) {
+        return new Query.Term(term);
+    }
+}
@@ -0,0 +1,76 @@
+package com.halliburton.blog.search.index;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TitleTrieTest {
+
+    @Test
+    public void suggestTestFindsTitlesByAnyWordPrefixMostRecentFirst() {
+        TitleTrie trie = new TitleTrie(5);
+        trie.put(1L, "Soggy banana on the street", 10);
+        trie.put(2L, "Banana bread", 30);
+        trie.put(3L, "Bandwidth of a street", 20);
+
+        assertEquals(List.of(2L, 3L, 1L), ids(trie.suggest("ban", 5)));
+        assertEquals(List.of(2L, 1L), ids(trie.suggest("BANANA", 5)));
+        assertEquals(List.of(1L), ids(trie.suggest("soggy ban", 5)));
+        assertEquals(List.of(3L, 1L), ids(trie.suggest("street", 5)));
+        assertEquals(List.of(2L), ids(trie.suggest("ban", 1)));
+        assertEquals(List.of(), ids(trie.suggest("bananas", 5)));
+        assertEquals(List.of(), ids(trie.suggest("  ", 5)));
+    }
+
+    @Test
+    public void suggestTestWithTrailingSpaceMatchesWholeWordOnly() {
+        TitleTrie trie = new TitleTrie(5);
+        trie.put(1L, "Soggy banana", 1);
+        trie.put(2L, "Soggybread", 2);
+
+        assertEquals(List.of(2L, 1L), ids(trie.suggest("soggy", 5)));
+        assertEquals(List.of(1L), ids(trie.suggest("soggy ", 5)));
+    }
+
+    @Test
+    public void putAndRemoveTestMatchesBruteForceForRandomChanges() {
+        TitleTrie trie = new TitleTrie(4);
+        Map<Long, String> titles = new HashMap<>();
+        Map<Long, Long> weights = new HashMap<>();
+        Random random = new Random(11);
+        String[] words = {"alpha", "alps", "al", "beta", "bet", "better", "gamma", "gam"};
+        for (int i = 0; i < 5_000; i++) {
+            long postId = random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(titles.remove(postId) != null, trie.remove(postId));
+                weights.remove(postId);
+            } else {
+                String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                long weight = random.nextInt(50);
+                trie.put(postId, title, weight);
+                titles.put(postId, title);
+                weights.put(postId, weight);
+            }
+
+            String prefix = words[random.nextInt(words.length)].substring(0, 1 + random.nextInt(2));
+            List<Long> expected = titles.keySet().stream()
+                    .filter(id -> (" " + titles.get(id)).contains(" " + prefix))
+                    .sorted(Comparator.comparing((Long id) -> weights.get(id)).reversed()
+                            .thenComparing(Comparator.reverseOrder()))
+                    .limit(4)
+                    .collect(Collectors.toList());
+            assertEquals(prefix, expected, ids(trie.suggest(prefix, 4)));
+        }
+    }
+
+    private static List<Long> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getPostId).collect(Collectors.toList());
+    }
+}
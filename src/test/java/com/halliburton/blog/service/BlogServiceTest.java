@@ -1,19 +1,23 @@
 package com.halliburton.blog.service;
 
+import com.halliburton.blog.dao.BlogCursor;
 import com.halliburton.blog.dao.BlogRepository;
 import com.halliburton.blog.dao.PostRepository;
 import com.halliburton.blog.dto.BlogDtoRequest;
 import com.halliburton.blog.dto.BlogDtoRequestFull;
 import com.halliburton.blog.dto.BlogModel;
+import com.halliburton.blog.dto.BlogPage;
 import com.halliburton.blog.model.BlogEntity;
 import com.halliburton.blog.model.PostEntity;
 import com.halliburton.blog.modelassembler.BlogModelAssembler;
+import com.halliburton.blog.search.PostIndexEvent;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.hateoas.CollectionModel;
 
 import javax.persistence.EntityNotFoundException;
@@ -23,7 +27,12 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class BlogServiceTest {
@@ -34,6 +43,10 @@ public class BlogServiceTest {
     private BlogModelAssembler blogModelAssembler;
     @Mock
     private PostRepository postRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BlogCounter blogCounter;
     @InjectMocks
     private BlogService service;
     private BlogEntity blogEntity;
@@ -78,10 +91,11 @@ public class BlogServiceTest {
     @Test
     public void getBlogByIdTest() {
 
-        when(blogModelAssembler.toModel(blogEntity))
+        BlogModel projected = new BlogModel(defaultBlogId, blogEntity.getBlogTitle(), blogEntity.getDescription());
+        when(blogModelAssembler.withLinks(projected))
                 .thenReturn(blogModel);
-        when(blogRepository.findById(defaultBlogId))
-                .thenReturn(Optional.ofNullable(blogEntity));
+        when(blogRepository.findModelById(defaultBlogId))
+                .thenReturn(Optional.of(projected));
 
         Optional<BlogModel> actual = service.getBlogById(defaultBlogId);
 
@@ -91,32 +105,96 @@ public class BlogServiceTest {
     @Test
     public void getAllBlogsTestWithParameters() {
         String author = "Neo";
+        when(blogRepository.findPage(author, null, null, 21))
+                .thenReturn(Collections.emptyList());
         doReturn(blogModelCollection)
-                .when(blogModelAssembler).toCollectionModel(Collections.emptyList());
+                .when(blogModelAssembler).toPageModel(BlogPage.builder().blogs(Collections.emptyList()).build(),
+                        author, null, 20);
 
-        CollectionModel<BlogModel> actual = service.getAllBlogs(author, null);
+        CollectionModel<BlogModel> actual = service.getAllBlogs(author, null, null, 20);
         assertEquals(blogModelCollection, actual);
     }
 
     @Test
     public void getAllBlogsTestWithNullParameters() {
-        when(blogRepository.findAll())
-                .thenReturn(Collections.singletonList(blogEntity));
-        when(blogModelAssembler.toCollectionModel(Collections.singletonList(blogEntity)))
+        BlogModel projected = new BlogModel(defaultBlogId, blogEntity.getBlogTitle(), blogEntity.getDescription());
+        when(blogRepository.findPage(null, null, null, 21))
+                .thenReturn(Collections.singletonList(projected));
+        when(blogModelAssembler.toPageModel(BlogPage.builder().blogs(Collections.singletonList(projected)).build(),
+                null, null, 20))
                 .thenReturn(blogModelCollection);
 
-        CollectionModel<BlogModel> actual = service.getAllBlogs(null, null);
+        CollectionModel<BlogModel> actual = service.getAllBlogs(null, null, null, 20);
         assertEquals(blogModelCollection, actual);
     }
 
+    @Test
+    public void getAllBlogsTestReadsOneBlogMoreToLinkNextPage() {
+        BlogModel first = BlogModel.builder().id(1L).build();
+        BlogModel next = BlogModel.builder().id(2L).build();
+        when(blogRepository.findPage(null, null, null, 2))
+                .thenReturn(List.of(first, next));
+
+        service.getAllBlogs(null, null, null, 1);
+
+        verify(blogModelAssembler).toPageModel(BlogPage.builder()
+                .blogs(List.of(first))
+                .nextCursor(BlogCursor.after(1L).encode())
+                .build(), null, null, 1);
+    }
+
+    @Test
+    public void getAllBlogsTestWithBackwardCursor() {
+        BlogModel first = BlogModel.builder().id(1L).build();
+        BlogModel second = BlogModel.builder().id(2L).build();
+        BlogModel third = BlogModel.builder().id(3L).build();
+        String cursor = BlogCursor.before(4L).encode();
+        when(blogRepository.findPage(isNull(), isNull(), any(BlogCursor.class), eq(3)))
+                .thenReturn(List.of(third, second, first));
+
+        service.getAllBlogs(null, null, cursor, 2);
+
+        verify(blogModelAssembler).toPageModel(BlogPage.builder()
+                .blogs(List.of(second, third))
+                .nextCursor(BlogCursor.after(3L).encode())
+                .previousCursor(BlogCursor.before(2L).encode())
+                .build(), null, null, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getAllBlogsTestWithInvalidCursor() {
+        service.getAllBlogs(null, null, "AQ", 20);
+    }
+
+    @Test
+    public void countBlogsTestWithoutParametersReadsCounter() {
+        when(blogCounter.get()).thenReturn(3L);
+
+        assertEquals(3L, service.countBlogs(null, null));
+        verify(blogRepository, never()).count();
+        verify(blogRepository, never()).countWithPosts(any(), any());
+    }
+
+    @Test
+    public void countBlogsTestWithParametersCountsMatchingBlogs() {
+        when(blogRepository.countWithPosts("Neo", null)).thenReturn(1L);
+
+        assertEquals(1L, service.countBlogs("Neo", null));
+        verify(blogCounter, never()).get();
+    }
+
     @Test
     public void createBlogTest() {
+        when(blogRepository.save(any(BlogEntity.class)))
+                .thenReturn(blogEntity);
         doReturn(blogModel)
-                .when(blogModelAssembler).toModel(null);
+                .when(blogModelAssembler).toModel(blogEntity);
 
         BlogModel actual = service.createBlog(blogDtoRequest);
 
         assertEquals(blogModel, actual);
+        verify(blogCounter).add(1);
+        verify(eventPublisher).publishEvent(PostIndexEvent.upsertBlog(blogEntity.getId()));
     }
 
     @Test
@@ -132,11 +210,14 @@ public class BlogServiceTest {
     public void updateBlogTest() {
         when(blogRepository.findById(defaultBlogId))
                 .thenReturn(Optional.ofNullable(blogEntity));
+        when(blogRepository.save(blogEntity))
+                .thenReturn(blogEntity);
         doReturn(blogModel)
-                .when(blogModelAssembler).toModel(null);
+                .when(blogModelAssembler).toModel(blogEntity);
 
         Optional<BlogModel> actual = service.updateBlog(defaultBlogId, blogDtoRequest);
         assertEquals(Optional.ofNullable(blogModel), actual);
+        verify(eventPublisher).publishEvent(PostIndexEvent.upsertBlog(blogEntity.getId()));
     }
 
     @Test(expected = EntityNotFoundException.class)
@@ -178,6 +259,8 @@ public class BlogServiceTest {
                 .thenReturn(Optional.ofNullable(blogEntity));
         boolean actual = service.deleteBlog(defaultBlogId);
         assertTrue(actual);
+        verify(blogCounter).add(-1);
+        verify(eventPublisher).publishEvent(PostIndexEvent.deleteBlog(defaultBlogId));
     }
 
     @Test
@@ -0,0 +1,67 @@
+package com.halliburton.blog.service;
+
+import com.halliburton.blog.search.PostSearchEngine;
+import com.halliburton.blog.search.QueryAnalytics;
+import com.halliburton.blog.search.RelatedPosts;
+import com.halliburton.blog.search.SearchBulkhead;
+import com.halliburton.blog.search.SearchRejectedException;
+import com.halliburton.blog.search.SearchResultCache;
+import com.halliburton.blog.search.SearchTimeoutException;
+import com.halliburton.blog.search.TitleSuggester;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class FullTextServiceTest {
+    private PostSearchEngine searchEngine;
+    private SearchResultCache searchResultCache;
+    private SearchBulkhead bulkhead;
+    private QueryAnalytics queryAnalytics;
+    private FullTextService fullTextService;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws SQLException {
+        searchEngine = mock(PostSearchEngine.class);
+        searchResultCache = mock(SearchResultCache.class);
+        bulkhead = mock(SearchBulkhead.class);
+        queryAnalytics = new QueryAnalytics(10, 64, 2);
+        fullTextService = new FullTextService(searchEngine, mock(ObjectProvider.class), mock(TitleSuggester.class),
+                searchResultCache, queryAnalytics, bulkhead, mock(RelatedPosts.class));
+
+        when(bulkhead.call(any())).thenAnswer(invocation ->
+                invocation.<SearchBulkhead.Search<?>>getArgument(0).run());
+        when(searchResultCache.search(anyString(), anyBoolean(), anyInt(), anyInt(), any())).thenReturn(List.of());
+        when(searchEngine.searchAll(anyString(), anyInt(), anyInt())).thenReturn(List.of());
+    }
+
+    @Test
+    public void givenCompletedSearches_whenSearch_thenRecordEveryEntryPoint() throws SQLException {
+        fullTextService.searchPosts("banana", false, 10, 0, null);
+        fullTextService.searchAll("banana", 10, 0);
+
+        assertEquals(2, queryAnalytics.searches());
+        assertEquals(2, queryAnalytics.getLatencies().count());
+        assertEquals("banana", queryAnalytics.topQueries(1).get(0).getKey());
+    }
+
+    @Test
+    public void givenRejectedOrTimedOutSearches_whenSearch_thenRecordNothing() throws SQLException {
+        doThrow(new SearchRejectedException("full", null))
+                .doThrow(new SearchTimeoutException("slow", null))
+                .when(bulkhead).call(any());
+
+        assertThrows(SearchRejectedException.class, () -> fullTextService.searchPosts("banana", false, 10, 0, null));
+        assertThrows(SearchTimeoutException.class, () -> fullTextService.searchAll("banana", 10, 0));
+
+        assertEquals(0, queryAnalytics.searches());
+        assertEquals(0, queryAnalytics.getLatencies().count());
+    }
+}
@@ -0,0 +1,41 @@
+package com.halliburton.blog.service;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class KeysetPagesTest {
+
+    @Test
+    public void readTestFirstPageWithMoreHasNextOnly() {
+        assertEquals(List.of("[1, 2]", "after 2", "null"), read(2, false, false, List.of(1, 2, 3)));
+    }
+
+    @Test
+    public void readTestLastForwardPageHasPreviousOnly() {
+        assertEquals(List.of("[3]", "null", "before 3"), read(2, true, false, List.of(3)));
+    }
+
+    @Test
+    public void readTestBackwardPageIsReversedAndHasNext() {
+        // read from its end in reverse order: 4, 3 and the extra 2
+        assertEquals(List.of("[3, 4]", "after 4", "before 3"), read(2, true, true, List.of(4, 3, 2)));
+        assertEquals(List.of("[1, 2]", "after 2", "null"), read(2, true, true, List.of(2, 1)));
+    }
+
+    @Test
+    public void readTestEmptyPageHasNoCursors() {
+        assertEquals(List.of("[]", "null", "null"), read(2, true, false, List.of()));
+    }
+
+    private static List<String> read(int size, boolean positioned, boolean backward, List<Integer> rows) {
+        return KeysetPages.read(size, positioned, backward,
+                limit -> rows.subList(0, Math.min(limit, rows.size())),
+                item -> "after " + item,
+                item -> "before " + item,
+                (items, nextCursor, previousCursor) -> List.of(items.toString(), String.valueOf(nextCursor),
+                        String.valueOf(previousCursor)));
+    }
+}
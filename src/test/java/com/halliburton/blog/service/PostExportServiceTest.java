@@ -0,0 +1,73 @@
+package com.halliburton.blog.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+
+import static org.junit.Assert.assertEquals;
+
+public class PostExportServiceTest {
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        // a private in-memory database, living as long as its only connection
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute((Connection connection) -> {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+            return null;
+        });
+        jdbcTemplate.update("INSERT INTO blog(blog_title, description) VALUES ('Blog', 'Description')");
+    }
+
+    @After
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    public void givenPosts_whenExport_thenWriteOnePostPerLineInIdOrder() throws IOException {
+        jdbcTemplate.update("INSERT INTO post(blog_id, post_title, post_body, post_conclusion, author, published_on) "
+                + "VALUES (1, 'First', 'Body with \"quotes\"\nand a new line', NULL, 'Neo', DATE '2022-09-09')");
+        jdbcTemplate.update("INSERT INTO post(blog_id, post_title, post_body, post_conclusion, author, published_on) "
+                + "VALUES (1, 'Second', 'Body', 'Conclusion', 'Trinity', DATE '2022-09-08')");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = new PostExportService(jdbcTemplate, new ObjectMapper(), 1).exportPosts(out);
+
+        assertEquals(2, exported);
+        assertEquals("{\"id\":1,\"blogId\":1,\"postTitle\":\"First\",\"postBody\":\"Body with \\\"quotes\\\"\\nand a new "
+                        + "line\",\"postConclusion\":null,\"author\":\"Neo\",\"publishedOn\":\"2022-09-09\"}\n"
+                        + "{\"id\":2,\"blogId\":1,\"postTitle\":\"Second\",\"postBody\":\"Body\",\"postConclusion\":"
+                        + "\"Conclusion\",\"author\":\"Trinity\",\"publishedOn\":\"2022-09-08\"}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = IOException.class)
+    public void givenClosedStream_whenExport_thenThrowIOException() throws IOException {
+        jdbcTemplate.update("INSERT INTO post(blog_id, post_title, post_body, post_conclusion, author, published_on) "
+                + "SELECT 1, 'Post ' || X, REPEAT('body ', 100), NULL, 'Neo', DATE '2022-09-09' "
+                + "FROM SYSTEM_RANGE(1, 100)");
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        new PostExportService(jdbcTemplate, new ObjectMapper(), 10).exportPosts(disconnected);
+    }
+}
@@ -1,31 +1,48 @@
 package com.halliburton.blog.service;
 
 import com.halliburton.blog.dao.BlogRepository;
+import com.halliburton.blog.dao.PostCursor;
 import com.halliburton.blog.dao.PostRepository;
+import com.halliburton.blog.dto.FacetValue;
+import com.halliburton.blog.dto.PostCollectionModel;
 import com.halliburton.blog.dto.PostDtoRequest;
 import com.halliburton.blog.dto.PostDtoRequestFull;
+import com.halliburton.blog.dto.PostFacets;
 import com.halliburton.blog.dto.PostModel;
+import com.halliburton.blog.dto.PostPage;
+import com.halliburton.blog.dto.PostSearchHit;
+import com.halliburton.blog.dto.PostSearchResult;
+import com.halliburton.blog.dto.PostSummary;
+import com.halliburton.blog.dto.PostView;
+import com.halliburton.blog.dto.RelatedPost;
 import com.halliburton.blog.model.BlogEntity;
 import com.halliburton.blog.model.PostEntity;
 import com.halliburton.blog.modelassembler.PostModelAssembler;
+import com.halliburton.blog.search.PostIndexEvent;
+import com.halliburton.blog.search.index.FacetCounts;
+import com.halliburton.blog.search.index.ScoredDoc;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.hateoas.CollectionModel;
 
 import javax.persistence.EntityNotFoundException;
+import java.math.BigDecimal;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.Assert.*;
-import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class PostServiceTest {
     private final Long defaultPostId = 1L;
@@ -38,6 +55,8 @@ public class PostServiceTest {
     private BlogRepository blogRepository;
     @Mock
     private FullTextService fullTextService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private PostService service;
     private PostEntity postEntity;
@@ -92,10 +111,13 @@ public class PostServiceTest {
     @Test
     public void getPostByIdTest() {
 
-        when(postModelAssembler.toModel(postEntity))
+        PostModel projected = new PostModel(defaultPostId, defaultBlogId, postEntity.getPostTitle(),
+                postEntity.getPostBody(), postEntity.getPostConclusion(), postEntity.getAuthor(),
+                postEntity.getPublishedOn());
+        when(postModelAssembler.withLinks(projected))
                 .thenReturn(postModel);
-        when(postRepository.findById(defaultPostId))
-                .thenReturn(Optional.ofNullable(postEntity));
+        when(postRepository.findModelById(defaultPostId))
+                .thenReturn(Optional.of(projected));
 
         Optional<PostModel> actual = service.getPostById(defaultPostId);
 
@@ -106,47 +128,190 @@ public class PostServiceTest {
     public void getAllPostsTestWithParameters() throws SQLException {
         Optional<String> keyword = Optional.of("qwerty");
 
+        PostSearchHit hit = PostSearchHit
+                .builder()
+                .post(postEntity)
+                .score(BigDecimal.ONE)
+                .build();
+
+        doReturn(Collections.singletonList(hit))
+                .when(fullTextService).searchPosts(keyword.get(), false, 20, 0, null);
+        doReturn(postModel)
+                .when(postModelAssembler).toSearchModel(hit);
+
+        CollectionModel<PostModel> actual = service.getAllPosts(keyword, false, false, false, 0, 20, null,
+                PostView.FULL);
+        assertEquals(Collections.singletonList(postModel), List.copyOf(actual.getContent()));
+        verify(postRepository, never()).findAll();
+    }
+
+    @Test
+    public void getAllPostsTestWithFacets() throws SQLException {
+        Optional<String> keyword = Optional.of("qwerty");
+
+        PostSearchHit hit = PostSearchHit
+                .builder()
+                .post(postEntity)
+                .score(BigDecimal.ONE)
+                .build();
+        FacetCounts counts = new FacetCounts(Map.of("Neo", 3), Map.of(1L, 3), Map.of(YearMonth.of(2022, 9), 3));
+
+        doReturn(PostSearchResult.builder().hits(Collections.singletonList(hit)).facets(counts).build())
+                .when(fullTextService).searchPostsWithFacets(keyword.get(), false, 20, 0, null);
+        doReturn(postModel)
+                .when(postModelAssembler).toSearchModel(hit);
+
+        CollectionModel<PostModel> actual = service.getAllPosts(keyword, false, true, false, 0, 20, null,
+                PostView.FULL);
+        assertEquals(Collections.singletonList(postModel), List.copyOf(actual.getContent()));
+        PostFacets facets = ((PostCollectionModel) actual).getFacets();
+        assertEquals(List.of(FacetValue.builder().value("Neo").count(3).build()), facets.getAuthor());
+        assertEquals(List.of(FacetValue.builder().value("1").count(3).build()), facets.getBlogId());
+        assertEquals(List.of(FacetValue.builder().value("2022-09").count(3).build()), facets.getPublishedMonth());
+        verify(fullTextService, never()).searchPosts(keyword.get(), false, 20, 0, null);
+    }
+
+    @Test
+    public void getAllPostsTestWithoutHitsSuggestsSpellings() throws SQLException {
+        Optional<String> keyword = Optional.of("qwertz");
+
         doReturn(Collections.emptyList())
-                .when(fullTextService).search(keyword.get());
-        doReturn(postModelCollection)
-                .when(postModelAssembler).toCollectionModel(Collections.emptyList());
+                .when(fullTextService).searchPosts(keyword.get(), false, 20, 0, null);
+        doReturn(Collections.emptyList())
+                .when(fullTextService).searchPosts(keyword.get(), false, 20, 20, null);
+        doReturn(List.of("qwerty"))
+                .when(fullTextService).suggestSpellings(keyword.get());
+
+        CollectionModel<PostModel> actual = service.getAllPosts(keyword, false, false, false, 0, 20, null,
+                PostView.FULL);
+        assertTrue(actual.getContent().isEmpty());
+        assertEquals(List.of("qwerty"), ((PostCollectionModel) actual).getSuggestions());
+
+        CollectionModel<PostModel> secondPage = service.getAllPosts(keyword, false, false, false, 1, 20, null,
+                PostView.FULL);
+        assertEquals(List.of(), ((PostCollectionModel) secondPage).getSuggestions());
+        verify(fullTextService, times(1)).suggestSpellings(keyword.get());
+    }
 
-        CollectionModel<PostModel> actual = service.getAllPosts(keyword);
-        assertEquals(postModelCollection, actual);
+    @Test
+    public void getRelatedPostsTestReturnsExistingPostsMostSimilarFirst() {
+        PostSummary related = PostSummary.builder().id(2L).postTitle("Soggy banana").build();
+        when(postRepository.existsById(defaultPostId)).thenReturn(true);
+        when(fullTextService.relatedPosts(defaultPostId, 5))
+                .thenReturn(List.of(new ScoredDoc(3L, 0.8), new ScoredDoc(2L, 0.5)));
+        // post 3 was deleted since its signature was computed
+        when(postRepository.findSummariesById(List.of(3L, 2L))).thenReturn(List.of(related));
+
+        Optional<List<RelatedPost>> actual = service.getRelatedPosts(defaultPostId, 5);
+
+        assertEquals(Optional.of(List.of(RelatedPost.builder().id(2L).postTitle("Soggy banana").similarity(0.5)
+                .build())), actual);
+    }
+
+    @Test
+    public void getRelatedPostsTestWithUnknownPostReturnsEmpty() {
+        when(postRepository.existsById(defaultPostId)).thenReturn(false);
+
+        assertEquals(Optional.empty(), service.getRelatedPosts(defaultPostId, 5));
+        verifyNoInteractions(fullTextService);
     }
 
     @Test
     public void getAllPostsTestWithParametersReturnedNull() throws SQLException {
         Optional<String> keyword = Optional.of("qwerty");
 
-        when(fullTextService.search(keyword.get()))
+        when(fullTextService.searchPosts(keyword.get(), false, 20, 0, null))
                 .thenThrow(SQLException.class);
 
-        CollectionModel<PostModel> actual = service.getAllPosts(keyword);
+        CollectionModel<PostModel> actual = service.getAllPosts(keyword, false, false, false, 0, 20, null,
+                PostView.FULL);
         assertNull(actual);
     }
 
     @Test
     public void getAllPostsTestWithEmptyParameters() {
-        doReturn(Collections.singletonList(postEntity))
-                .when(postRepository).findAll();
-        when(postModelAssembler.toCollectionModel(Collections.singletonList(postEntity)))
+        PostModel projected = new PostModel(defaultPostId, defaultBlogId, postEntity.getPostTitle(),
+                postEntity.getPostBody(), postEntity.getPostConclusion(), postEntity.getAuthor(),
+                postEntity.getPublishedOn());
+        doReturn(Collections.singletonList(projected))
+                .when(postRepository).findPage(null, PostCursor.DEFAULT_SORT, null, 21);
+        when(postModelAssembler.toPageModel(PostPage.<PostModel>builder().posts(List.of(projected)).build(), null,
+                20))
                 .thenReturn(postModelCollection);
 
-        CollectionModel<PostModel> actual = service.getAllPosts(Optional.empty());
+        CollectionModel<PostModel> actual = service.getAllPosts(Optional.empty(), false, false, false, 0, 20, null,
+                PostView.FULL);
         assertEquals(postModelCollection, actual);
     }
 
+    @Test
+    public void getAllPostsTestReadsOnePostMoreToLinkNextPage() {
+        PostModel first = PostModel.builder().id(1L).build();
+        PostModel second = PostModel.builder().id(2L).build();
+        PostModel third = PostModel.builder().id(3L).build();
+        doReturn(List.of(first, second, third))
+                .when(postRepository).findPage(null, PostCursor.DEFAULT_SORT, null, 3);
+        when(postModelAssembler.toPageModel(any(PostPage.class), isNull(), eq(2))).thenReturn(postModelCollection);
+
+        service.getAllPosts(Optional.empty(), false, false, false, 0, 2, null, PostView.FULL);
+
+        verify(postModelAssembler).toPageModel(PostPage.<PostModel>builder()
+                .posts(List.of(first, second))
+                .nextCursor(PostCursor.after(PostCursor.DEFAULT_SORT, second).encode())
+                .build(), null, 2);
+    }
+
+    @Test
+    public void getAllPostsTestWithBackwardCursorReturnsPostsInSortOrder() {
+        PostModel first = PostModel.builder().id(1L).build();
+        PostModel second = PostModel.builder().id(2L).build();
+        PostModel third = PostModel.builder().id(3L).build();
+        String cursor = PostCursor.before(PostCursor.DEFAULT_SORT, third).encode();
+        doReturn(List.of(second, first))
+                .when(postRepository).findPage(eq(null), eq(PostCursor.DEFAULT_SORT), any(PostCursor.class), eq(3));
+        when(postModelAssembler.toPageModel(any(PostPage.class), isNull(), eq(2))).thenReturn(postModelCollection);
+
+        service.getAllPosts(Optional.empty(), false, false, false, 0, 2, cursor, PostView.FULL);
+
+        verify(postModelAssembler).toPageModel(PostPage.<PostModel>builder()
+                .posts(List.of(first, second))
+                .nextCursor(PostCursor.after(PostCursor.DEFAULT_SORT, second).encode())
+                .build(), null, 2);
+    }
+
+    @Test
+    public void getAllPostsByGivenBlogTestWithSummaryViewReadsSummariesOnly() {
+        PostSummary first = PostSummary.builder().id(1L).blogId(defaultBlogId).build();
+        PostSummary second = PostSummary.builder().id(2L).blogId(defaultBlogId).build();
+        doReturn(true)
+                .when(blogRepository).existsById(defaultBlogId);
+        doReturn(List.of(first, second))
+                .when(postRepository).findSummaryPage(defaultBlogId, PostCursor.DEFAULT_SORT, null, 2);
+        when(postModelAssembler.toSummaryPageModel(any(), eq(defaultBlogId), eq(1))).thenReturn(postModelCollection);
+
+        CollectionModel<PostModel> actual = service.getAllPostsByGivenBlog(defaultBlogId, new String[]{"id:asc"}, null,
+                1, PostView.SUMMARY);
+
+        assertEquals(postModelCollection, actual);
+        verify(postModelAssembler).toSummaryPageModel(PostPage.<PostSummary>builder()
+                .posts(List.of(first))
+                .nextCursor(PostCursor.after(PostCursor.DEFAULT_SORT, first).encode())
+                .build(), defaultBlogId, 1);
+        verify(postRepository, never()).findPage(any(), any(), any(), anyInt());
+    }
+
     @Test
     public void getAllPostsByGivenBlogTest() {
         String[] sort = {"id:desc"};
 
-        doReturn(Optional.of(BlogEntity.builder().id(defaultBlogId).build()))
-                .when(blogRepository).findById(defaultBlogId);
-        when(postModelAssembler.toCollectionModel(Collections.emptyList()))
+        doReturn(true)
+                .when(blogRepository).existsById(defaultBlogId);
+        when(postModelAssembler.toPageModel(PostPage.<PostModel>builder().posts(List.of()).build(), defaultBlogId,
+                20))
                 .thenReturn(postModelCollection);
 
-        CollectionModel<PostModel> actual = service.getAllPostsByGivenBlog(defaultBlogId, sort);
+        CollectionModel<PostModel> actual = service.getAllPostsByGivenBlog(defaultBlogId, sort, null, 20,
+                PostView.FULL);
         assertEquals(postModelCollection, actual);
     }
 
@@ -154,35 +319,48 @@ public class PostServiceTest {
     public void getAllPostsByGivenBlogTestWithEntityNotFoundException() {
         String[] sort = {"id:desc"};
 
-        doReturn(Optional.empty())
-                .when(blogRepository).findById(defaultBlogId);
+        doReturn(false)
+                .when(blogRepository).existsById(defaultBlogId);
 
-        service.getAllPostsByGivenBlog(defaultBlogId, sort);
+        service.getAllPostsByGivenBlog(defaultBlogId, sort, null, 20, PostView.FULL);
     }
 
     @Test
     public void getAllPostsByGivenBlogTestWithSortByFewFields() {
         String[] sort = {"id:desc", "postTitle:esc", "postBody"};
 
-        doReturn(Optional.of(BlogEntity.builder().id(defaultBlogId).build()))
-                .when(blogRepository).findById(defaultBlogId);
-        when(postModelAssembler.toCollectionModel(Collections.emptyList()))
+        doReturn(true)
+                .when(blogRepository).existsById(defaultBlogId);
+        when(postModelAssembler.toPageModel(PostPage.<PostModel>builder().posts(List.of()).build(), defaultBlogId,
+                20))
                 .thenReturn(postModelCollection);
 
-        CollectionModel<PostModel> actual = service.getAllPostsByGivenBlog(defaultBlogId, sort);
+        CollectionModel<PostModel> actual = service.getAllPostsByGivenBlog(defaultBlogId, sort, null, 20,
+                PostView.FULL);
         assertEquals(postModelCollection, actual);
     }
 
+    @Test(expected = PropertyReferenceException.class)
+    public void getAllPostsByGivenBlogTestWithSortByBodyThrowsException() {
+        doReturn(true)
+                .when(blogRepository).existsById(defaultBlogId);
+
+        service.getAllPostsByGivenBlog(defaultBlogId, new String[]{"postBody:asc"}, null, 20, PostView.FULL);
+    }
+
     @Test
     public void createPostTest() {
         doReturn(Optional.of(BlogEntity.builder().id(defaultBlogId).build()))
                 .when(blogRepository).findById(defaultBlogId);
+        doReturn(postEntity)
+                .when(postRepository).save(any(PostEntity.class));
         doReturn(postModel)
-                .when(postModelAssembler).toModel(null);
+                .when(postModelAssembler).toModel(postEntity);
 
         PostModel actual = service.createPost(defaultBlogId, postDtoRequest);
 
         assertEquals(postModel, actual);
+        verify(eventPublisher).publishEvent(PostIndexEvent.upsert(postEntity.getId()));
     }
 
     @Test(expected = EntityNotFoundException.class)
@@ -197,13 +375,27 @@ public class PostServiceTest {
     public void updatePostTest() {
         when(postRepository.findById(defaultPostId))
                 .thenReturn(Optional.ofNullable(postEntity));
+        when(postRepository.save(postEntity))
+                .thenReturn(postEntity);
         doReturn(postModel)
-                .when(postModelAssembler).toModel(null);
+                .when(postModelAssembler).toModel(postEntity);
 
         Optional<PostModel> actual = service.updatePost(defaultPostId, postDtoRequest);
         assertEquals(Optional.ofNullable(postModel), actual);
     }
 
+    @Test
+    public void updatePostTestPublishesIndexEvent() {
+        when(postRepository.findById(defaultPostId))
+                .thenReturn(Optional.ofNullable(postEntity));
+        when(postRepository.save(postEntity))
+                .thenReturn(postEntity);
+
+        service.updatePost(defaultPostId, postDtoRequest);
+
+        verify(eventPublisher).publishEvent(PostIndexEvent.upsert(postEntity.getId()));
+    }
+
     @Test(expected = EntityNotFoundException.class)
     public void updatePostTestWithEntityNotFoundException() {
         service.updatePost(defaultPostId, postDtoRequest);
@@ -222,6 +414,7 @@ public class PostServiceTest {
 
         Optional<PostModel> actual = service.updatePost(defaultPostId, postDtoRequest);
         assertEquals(Optional.empty(), actual);
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -251,6 +444,7 @@ public class PostServiceTest {
                 .thenReturn(Optional.ofNullable(postEntity));
         boolean actual = service.deletePost(defaultPostId);
         assertTrue(actual);
+        verify(eventPublisher).publishEvent(PostIndexEvent.delete(defaultPostId));
     }
 
     @Test
@@ -268,6 +462,7 @@ public class PostServiceTest {
 
         boolean actual = service.deleteAllPostByBlogId(defaultBlogId);
         assertTrue(actual);
+        verify(eventPublisher).publishEvent(PostIndexEvent.delete(defaultPostId));
     }
 
     @Test